@@ -1,22 +1,128 @@
 package com.frankenstein.story.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AsyncConfig {
 
    @Bean(name = "storyGenerationExecutor")
-   public Executor storyGenerationExecutor() {
+   public Executor storyGenerationExecutor(final MeterRegistry meterRegistry) {
       final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
       executor.setCorePoolSize(4);
       executor.setMaxPoolSize(8);
       executor.setQueueCapacity(100);
       executor.setThreadNamePrefix("story-gen-");
       executor.initialize();
+      registerExecutorGauges(executor, "story-gen", meterRegistry);
       return executor;
    }
+
+   /**
+    * Small bounded pool for image transcoding so it never competes with generation.
+    * When the queue is full new tasks are rejected and the page simply keeps its original PNG.
+    */
+   @Bean(name = "imageTranscodeExecutor")
+   public Executor imageTranscodeExecutor(@Value("${media.transcode.workers:2}") final int workers,
+                                          @Value("${media.transcode.queue-capacity:64}") final int queueCapacity,
+                                          final MeterRegistry meterRegistry) {
+      final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(workers);
+      executor.setMaxPoolSize(workers);
+      executor.setQueueCapacity(queueCapacity);
+      executor.setThreadNamePrefix("img-transcode-");
+      executor.initialize();
+      registerExecutorGauges(executor, "img-transcode", meterRegistry);
+      return executor;
+   }
+
+   /**
+    * Bounded pool for on-demand image resizing; saturated requests fall back to the original image
+    */
+   @Bean(name = "imageResizeExecutor")
+   public Executor imageResizeExecutor(@Value("${media.resize.workers:2}") final int workers,
+                                       @Value("${media.resize.queue-capacity:32}") final int queueCapacity,
+                                       final MeterRegistry meterRegistry) {
+      final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(workers);
+      executor.setMaxPoolSize(workers);
+      executor.setQueueCapacity(queueCapacity);
+      executor.setThreadNamePrefix("img-resize-");
+      executor.initialize();
+      registerExecutorGauges(executor, "img-resize", meterRegistry);
+      return executor;
+   }
+
+   /**
+    * Small I/O pool that takes asset writes off provider callback threads.
+    * A full queue rejects the write straight away: the submitter never blocks and never does the disk I/O itself,
+    * and AssetWriteService retries the rejected write later.
+    */
+   @Bean(name = "assetWriteExecutor")
+   public Executor assetWriteExecutor(@Value("${storage.write.workers:2}") final int workers,
+                                      @Value("${storage.write.queue-capacity:256}") final int queueCapacity,
+                                      final MeterRegistry meterRegistry) {
+      final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(workers);
+      executor.setMaxPoolSize(workers);
+      executor.setQueueCapacity(queueCapacity);
+      executor.setThreadNamePrefix("asset-write-");
+      executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+      executor.initialize();
+      registerExecutorGauges(executor, "asset-write", meterRegistry);
+      return executor;
+   }
+
+   /**
+    * Pool that loads the stories of one library page in parallel; a full queue makes the request thread load the rest itself
+    */
+   @Bean(name = "storyListingExecutor")
+   public Executor storyListingExecutor(@Value("${storage.listing.workers:4}") final int workers,
+                                        final MeterRegistry meterRegistry) {
+      final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(workers);
+      executor.setMaxPoolSize(workers);
+      executor.setQueueCapacity(256);
+      executor.setThreadNamePrefix("story-list-");
+      executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+      executor.initialize();
+      registerExecutorGauges(executor, "story-list", meterRegistry);
+      return executor;
+   }
+
+   /**
+    * Single background thread for storage housekeeping such as layout migration, so it never competes with request or generation pools
+    */
+   @Bean(name = "storageMaintenanceExecutor")
+   public Executor storageMaintenanceExecutor(final MeterRegistry meterRegistry) {
+      final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(1);
+      executor.setMaxPoolSize(1);
+      executor.setQueueCapacity(16);
+      executor.setThreadNamePrefix("storage-maint-");
+      executor.initialize();
+      registerExecutorGauges(executor, "storage-maint", meterRegistry);
+      return executor;
+   }
+
+   /**
+    * Expose queue depth and active thread count of an executor, tagged by executor name
+    */
+   private void registerExecutorGauges(final ThreadPoolTaskExecutor executor, final String name, final MeterRegistry meterRegistry) {
+      Gauge.builder("story.executor.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+           .description("Tasks waiting in the executor queue")
+           .tag("executor", name)
+           .register(meterRegistry);
+      Gauge.builder("story.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+           .description("Threads actively running tasks")
+           .tag("executor", name)
+           .register(meterRegistry);
+   }
 }
@@ -0,0 +1,49 @@
+package com.frankenstein.story.config;
+
+import com.frankenstein.story.service.storage.backend.LocalStorageBackend;
+import com.frankenstein.story.service.storage.backend.S3StorageBackend;
+import com.frankenstein.story.service.storage.backend.S3StorageSettings;
+import com.frankenstein.story.service.storage.backend.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfig {
+
+   /**
+    * The system of record for story files. {@code local} keeps everything under storage.root;
+    * {@code s3} stores it in an S3-compatible bucket shared by every app node, with storage.root as a local working copy.
+    */
+   @Bean
+   public StorageBackend storageBackend(@Value("${storage.backend.type:local}") final String type,
+                                        @Value("${storage.root}") final String storageRoot,
+                                        @Value("${storage.backend.s3.endpoint:http://localhost:9000}") final URI endpoint,
+                                        @Value("${storage.backend.s3.region:us-east-1}") final String region,
+                                        @Value("${storage.backend.s3.bucket:frankenstein-stories}") final String bucket,
+                                        @Value("${storage.backend.s3.access-key:}") final String accessKey,
+                                        @Value("${storage.backend.s3.secret-key:}") final String secretKey,
+                                        @Value("${storage.backend.s3.multipart-threshold:16MB}") final DataSize multipartThreshold,
+                                        @Value("${storage.backend.s3.part-size:8MB}") final DataSize partSize,
+                                        @Value("${storage.backend.s3.timeout:30s}") final Duration timeout) {
+      return switch (type.toLowerCase()) {
+         case "local" -> new LocalStorageBackend(Paths.get(storageRoot));
+         case "s3" -> new S3StorageBackend(S3StorageSettings.builder()
+                                                            .endpoint(endpoint)
+                                                            .region(region)
+                                                            .bucket(bucket)
+                                                            .accessKey(accessKey)
+                                                            .secretKey(secretKey)
+                                                            .multipartThreshold(multipartThreshold.toBytes())
+                                                            .partSize((int) partSize.toBytes())
+                                                            .timeout(timeout)
+                                                            .build());
+         default -> throw new IllegalArgumentException("Unsupported storage.backend.type: " + type);
+      };
+   }
+}
@@ -2,6 +2,8 @@ package com.frankenstein.story.controller;
 
 import com.frankenstein.story.model.ApiCallLog;
 import com.frankenstein.story.model.ApiConfiguration;
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +26,7 @@ import java.util.Map;
 public class AdminController {
 
    private final ApiTrackingFacade apiTrackingFacade;
+   private final StoryTimelineService storyTimelineService;
 
    @GetMapping("/logs")
    public ResponseEntity<List<ApiCallLog>> getAllLogs() {
@@ -52,6 +55,11 @@ public class AdminController {
       return ResponseEntity.ok(apiTrackingFacade.getStatistics());
    }
 
+   @GetMapping("/stories/{storyId}/timeline")
+   public ResponseEntity<StoryTimeline> getStoryTimeline(@PathVariable final String storyId) {
+      return ResponseEntity.ok(storyTimelineService.getTimeline(storyId));
+   }
+
    @GetMapping("/configuration")
    public ResponseEntity<ApiConfiguration> getConfiguration() {
       return ResponseEntity.ok(apiTrackingFacade.getConfiguration());
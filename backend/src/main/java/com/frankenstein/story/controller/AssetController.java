@@ -1,57 +1,140 @@
 package com.frankenstein.story.controller;
 
+import com.frankenstein.story.model.AssetDescriptor;
 import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.library.PreloadHintService;
+import com.frankenstein.story.service.media.ImageResizeService;
+import com.frankenstein.story.service.media.ResizedImage;
+import com.frankenstein.story.service.storage.HotAssetCacheService;
+import com.frankenstein.story.service.storage.StoryAccessTracker;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves story images and audio from disk, or from the hot asset cache for frequently read assets.
+ * Bodies are returned as {@link Resource}s, so Spring streams them in small chunks and answers
+ * single and multi-range requests with 206 responses (used by audio seeking) without buffering whole files.
+ * Responses carry a content-hash ETag and Last-Modified; conditional requests get a 304 without opening the asset,
+ * and hash-versioned URLs ({@code ?v=}) are cached as immutable.
+ * Page images are negotiated on Accept: WebP or progressive JPEG variants are served when present and accepted,
+ * falling back to the original PNG. WebP is only negotiated when an ImageIO WebP writer is installed. {@code ?w=} and {@code ?fmt=} request a resized rendition from the derived image cache.
+ * Page images and narration carry preload links for the following pages, so page turns do not wait on downloads.
+ * Every asset request, loose or packed and including 304s, counts as a read of its story for storage tiering.
+ */
 @Slf4j
 @RestController
 @RequestMapping("/api/stories/{storyId}/assets")
 public class AssetController {
 
+   private static final MediaType AUDIO_MPEG = MediaType.parseMediaType("audio/mpeg");
+   private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+   private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+   private static final CacheControl REVALIDATE = CacheControl.maxAge(1, TimeUnit.HOURS);
+
    private final FileStorageService fileStorageService;
+   private final ImageResizeService imageResizeService;
+   private final HotAssetCacheService hotAssetCache;
+   private final PreloadHintService preloadHintService;
+   private final StoryAccessTracker accessTracker;
 
-   public AssetController(final FileStorageService fileStorageService) {
+   public AssetController(final FileStorageService fileStorageService,
+                          final ImageResizeService imageResizeService,
+                          final HotAssetCacheService hotAssetCache,
+                          final PreloadHintService preloadHintService,
+                          final StoryAccessTracker accessTracker) {
       this.fileStorageService = fileStorageService;
+      this.imageResizeService = imageResizeService;
+      this.hotAssetCache = hotAssetCache;
+      this.preloadHintService = preloadHintService;
+      this.accessTracker = accessTracker;
    }
 
    @GetMapping("/images/page-{pageNumber}.png")
-   public ResponseEntity<byte[]> getImage(@PathVariable final String storyId, @PathVariable final int pageNumber) {
+   public ResponseEntity<Resource> getImage(@PathVariable final String storyId,
+                                            @PathVariable final int pageNumber,
+                                            @RequestParam(name = "v", required = false) final String version,
+                                            @RequestParam(name = "w", required = false) final Integer width,
+                                            @RequestParam(name = "fmt", required = false) final String format,
+                                            final WebRequest webRequest,
+                                            final HttpServletResponse servletResponse) {
       try {
          log.debug("Serving image for story {} page {}", storyId, pageNumber);
-         final byte[] imageData = fileStorageService.loadAsset(storyId, "images/page-" + pageNumber + ".png");
+         preloadHintService.addPreloadHints(storyId, pageNumber, servletResponse);
+         final AssetDescriptor original = fileStorageService.getAssetDescriptor(storyId, "images/page-" + pageNumber + ".png");
+         accessTracker.recordRead(storyId);
+         // Variants are derived from the PNG, so the PNG's version pins them too
+         final boolean pinned = original.getVersion().equals(version);
+         final List<MediaType> accepted = acceptedMediaTypes(webRequest);
 
-         final HttpHeaders headers = new HttpHeaders();
-         headers.setContentType(MediaType.IMAGE_PNG);
-         headers.setCacheControl("max-age=3600");
+         if (width != null || format != null) {
+            final String targetFormat = format != null ? format : negotiateFormat(accepted);
+            final Optional<ResizedImage> resized = imageResizeService.resize(storyId, pageNumber, width, targetFormat);
+            if (resized.isPresent()) {
+               return respondResized(resized.get(), pinned, webRequest, format == null);
+            }
+         }
 
-         return ResponseEntity.ok().headers(headers).body(imageData);
+         if (acceptsWebp(accepted)) {
+            final String webpPath = "images/page-" + pageNumber + ".webp";
+            if (fileStorageService.assetExists(storyId, webpPath)) {
+               return respond(storyId, fileStorageService.getAssetDescriptor(storyId, webpPath), IMAGE_WEBP, pinned, webRequest, true);
+            }
+         }
+         if (accepts(accepted, MediaType.IMAGE_JPEG, true)) {
+            final String jpegPath = "images/page-" + pageNumber + ".jpg";
+            if (fileStorageService.assetExists(storyId, jpegPath)) {
+               return respond(storyId, fileStorageService.getAssetDescriptor(storyId, jpegPath), MediaType.IMAGE_JPEG, pinned, webRequest, true);
+            }
+         }
+         return respond(storyId, original, MediaType.IMAGE_PNG, pinned, webRequest, true);
       } catch (final IOException e) {
          log.error("Failed to load image", e);
          return ResponseEntity.notFound().build();
       }
    }
 
+   @GetMapping("/images/cover-thumb.jpg")
+   public ResponseEntity<Resource> getThumbnail(@PathVariable final String storyId,
+                                                @RequestParam(name = "v", required = false) final String version,
+                                                final WebRequest webRequest) {
+      try {
+         log.debug("Serving cover thumbnail for story {}", storyId);
+         return serveAsset(storyId, "images/cover-thumb.jpg", MediaType.IMAGE_JPEG, version, webRequest);
+      } catch (final IOException e) {
+         log.error("Failed to load thumbnail", e);
+         return ResponseEntity.notFound().build();
+      }
+   }
+
    @GetMapping("/audio/narration/page-{pageNumber}.mp3")
-   public ResponseEntity<byte[]> getNarration(@PathVariable final String storyId, @PathVariable final int pageNumber) {
+   public ResponseEntity<Resource> getNarration(@PathVariable final String storyId,
+                                                @PathVariable final int pageNumber,
+                                                @RequestParam(name = "v", required = false) final String version,
+                                                final WebRequest webRequest,
+                                                final HttpServletResponse servletResponse) {
       try {
          log.debug("Serving narration for story {} page {}", storyId, pageNumber);
-         final byte[] audioData = fileStorageService.loadAsset(storyId, "audio/narration/page-" + pageNumber + ".mp3");
-
-         final HttpHeaders headers = new HttpHeaders();
-         headers.setContentType(MediaType.parseMediaType("audio/mpeg"));
-         headers.setCacheControl("max-age=3600");
-
-         return ResponseEntity.ok().headers(headers).body(audioData);
+         preloadHintService.addPreloadHints(storyId, pageNumber, servletResponse);
+         return serveAsset(storyId, "audio/narration/page-" + pageNumber + ".mp3", AUDIO_MPEG, version, webRequest);
       } catch (final IOException e) {
          log.error("Failed to load narration", e);
          return ResponseEntity.notFound().build();
@@ -59,19 +142,120 @@ public class AssetController {
    }
 
    @GetMapping("/audio/effects/{effectName}.mp3")
-   public ResponseEntity<byte[]> getSoundEffect(@PathVariable final String storyId, @PathVariable final String effectName) {
+   public ResponseEntity<Resource> getSoundEffect(@PathVariable final String storyId,
+                                                  @PathVariable final String effectName,
+                                                  @RequestParam(name = "v", required = false) final String version,
+                                                  final WebRequest webRequest) {
       try {
          log.debug("Serving sound effect {} for story {}", effectName, storyId);
-         final byte[] audioData = fileStorageService.loadAsset(storyId, "audio/effects/" + effectName + ".mp3");
-
-         final HttpHeaders headers = new HttpHeaders();
-         headers.setContentType(MediaType.parseMediaType("audio/mpeg"));
-         headers.setCacheControl("max-age=3600");
-
-         return ResponseEntity.ok().headers(headers).body(audioData);
+         return serveAsset(storyId, "audio/effects/" + effectName + ".mp3", AUDIO_MPEG, version, webRequest);
       } catch (final IOException e) {
          log.error("Failed to load sound effect", e);
          return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
       }
    }
+
+   private ResponseEntity<Resource> serveAsset(final String storyId,
+                                               final String assetPath,
+                                               final MediaType mediaType,
+                                               final String version,
+                                               final WebRequest webRequest) throws IOException {
+      final AssetDescriptor descriptor = fileStorageService.getAssetDescriptor(storyId, assetPath);
+      accessTracker.recordRead(storyId);
+      return respond(storyId, descriptor, mediaType, descriptor.getVersion().equals(version), webRequest, false);
+   }
+
+   private ResponseEntity<Resource> respond(final String storyId,
+                                            final AssetDescriptor descriptor,
+                                            final MediaType mediaType,
+                                            final boolean pinned,
+                                            final WebRequest webRequest,
+                                            final boolean varyByAccept) throws IOException {
+      final CacheControl cacheControl = pinned ? IMMUTABLE : REVALIDATE;
+
+      if (webRequest.checkNotModified(descriptor.getETag(), descriptor.getLastModified())) {
+         final ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl);
+         if (varyByAccept) {
+            notModified.varyBy(HttpHeaders.ACCEPT);
+         }
+         return notModified.build();
+      }
+
+      final Resource asset = hotAssetCache.load(storyId, descriptor);
+
+      final ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                                                          .contentType(mediaType)
+                                                          .cacheControl(cacheControl)
+                                                          .eTag(descriptor.getETag())
+                                                          .lastModified(descriptor.getLastModified());
+      if (varyByAccept) {
+         ok.varyBy(HttpHeaders.ACCEPT);
+      }
+      return ok.body(asset);
+   }
+
+   private ResponseEntity<Resource> respondResized(final ResizedImage resized,
+                                                   final boolean pinned,
+                                                   final WebRequest webRequest,
+                                                   final boolean varyByAccept) {
+      final CacheControl cacheControl = pinned ? IMMUTABLE : REVALIDATE;
+
+      if (webRequest.checkNotModified(resized.getETag(), resized.getLastModified())) {
+         final ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl);
+         if (varyByAccept) {
+            notModified.varyBy(HttpHeaders.ACCEPT);
+         }
+         return notModified.build();
+      }
+
+      final ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                                                          .contentType(MediaType.parseMediaType(resized.getMediaType()))
+                                                          .cacheControl(cacheControl)
+                                                          .eTag(resized.getETag())
+                                                          .lastModified(resized.getLastModified());
+      if (varyByAccept) {
+         ok.varyBy(HttpHeaders.ACCEPT);
+      }
+      return ok.body(new FileSystemResource(resized.getPath()));
+   }
+
+   /**
+    * Pick a resize output format from Accept when the request did not name one
+    */
+   private String negotiateFormat(final List<MediaType> accepted) {
+      if (acceptsWebp(accepted)) {
+         return "webp";
+      }
+      return accepts(accepted, MediaType.IMAGE_JPEG, true) ? "jpg" : "png";
+   }
+
+   /**
+    * WebP is only offered when this server can encode it; the JDK has no WebP writer of its own
+    */
+   private boolean acceptsWebp(final List<MediaType> accepted) {
+      return accepts(accepted, IMAGE_WEBP, false) && imageResizeService.supportsFormat("webp");
+   }
+
+   private List<MediaType> acceptedMediaTypes(final WebRequest webRequest) {
+      final String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+      if (accept == null || accept.isBlank()) {
+         return List.of();
+      }
+      try {
+         return MediaType.parseMediaTypes(accept);
+      } catch (final InvalidMediaTypeException e) {
+         return List.of();
+      }
+   }
+
+   /**
+    * Whether the client accepts a type with non-zero quality. WebP is only served when named explicitly,
+    * since older browsers send wildcards without being able to decode it.
+    */
+   private boolean accepts(final List<MediaType> accepted, final MediaType type, final boolean allowImageWildcard) {
+      return accepted.stream()
+                     .filter(candidate -> candidate.getQualityValue() > 0)
+                     .anyMatch(candidate -> candidate.equalsTypeAndSubtype(type)
+                           || (allowImageWildcard && "image".equals(candidate.getType()) && candidate.isWildcardSubtype()));
+   }
 }
@@ -1,19 +1,46 @@
 package com.frankenstein.story.controller;
 
+import com.frankenstein.story.model.BulkDeleteRequest;
+import com.frankenstein.story.model.BulkDeleteResponse;
 import com.frankenstein.story.model.DeleteStoryResponse;
 import com.frankenstein.story.model.GenerateStoryResponse;
 import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryAssetManifest;
+import com.frankenstein.story.model.StoryBrowsePage;
+import com.frankenstein.story.model.StoryFacet;
 import com.frankenstein.story.model.StoryIndexEntry;
 import com.frankenstein.story.model.StoryInput;
+import com.frankenstein.story.model.StoryListPage;
+import com.frankenstein.story.model.StoryProjection;
+import com.frankenstein.story.model.StorySearchResult;
+import com.frankenstein.story.model.StorySort;
 import com.frankenstein.story.model.StoryStatus;
 import com.frankenstein.story.service.StoryIndexService;
 import com.frankenstein.story.service.StoryOrchestrationService;
+import com.frankenstein.story.service.library.PreloadHintService;
+import com.frankenstein.story.service.library.StoryBrowseService;
+import com.frankenstein.story.service.library.StoryListingService;
+import com.frankenstein.story.service.library.StoryManifestService;
+import com.frankenstein.story.service.search.StorySearchService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -22,11 +49,26 @@ public class StoryController {
 
    private final StoryOrchestrationService orchestrationService;
    private final StoryIndexService storyIndexService;
+   private final StoryListingService storyListingService;
+   private final StoryManifestService storyManifestService;
+   private final PreloadHintService preloadHintService;
+   private final StorySearchService storySearchService;
+   private final StoryBrowseService storyBrowseService;
 
    public StoryController(final StoryOrchestrationService orchestrationService,
-                          final StoryIndexService storyIndexService) {
+                          final StoryIndexService storyIndexService,
+                          final StoryListingService storyListingService,
+                          final StoryManifestService storyManifestService,
+                          final PreloadHintService preloadHintService,
+                          final StorySearchService storySearchService,
+                          final StoryBrowseService storyBrowseService) {
       this.orchestrationService = orchestrationService;
       this.storyIndexService = storyIndexService;
+      this.storyListingService = storyListingService;
+      this.storyManifestService = storyManifestService;
+      this.preloadHintService = preloadHintService;
+      this.storySearchService = storySearchService;
+      this.storyBrowseService = storyBrowseService;
    }
 
    @PostMapping("/generate")
@@ -47,11 +89,30 @@ public class StoryController {
       return ResponseEntity.accepted().body(response);
    }
 
+   /**
+    * Completed stories are served from the gzip file written at save time when the client accepts gzip;
+    * everything else is serialized per request and left to the server's dynamic compression.
+    * Preload links for the first pages' assets let the browser start on them while the story is parsed.
+    */
    @GetMapping("/{storyId}")
-   public ResponseEntity<Story> getStory(@PathVariable final String storyId) {
+   public ResponseEntity<?> getStory(@PathVariable final String storyId,
+                                     @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding,
+                                     final HttpServletResponse servletResponse) {
       log.debug("Fetching story: {}", storyId);
+      preloadHintService.addPreloadHints(storyId, 0, servletResponse);
+      if (acceptsGzip(acceptEncoding)) {
+         final Optional<Resource> precompressed = orchestrationService.getPrecompressedStory(storyId);
+         if (precompressed.isPresent()) {
+            return ResponseEntity.ok()
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                                 .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                                 .body(precompressed.get());
+         }
+      }
+
       final Story story = orchestrationService.getStory(storyId);
-      return ResponseEntity.ok(story);
+      return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT_ENCODING).body(story);
    }
 
    @GetMapping("/{storyId}/status")
@@ -68,6 +129,22 @@ public class StoryController {
       return ResponseEntity.ok(response);
    }
 
+   /**
+    * Every asset of a story with hash-versioned URLs, for parallel prefetch. Revalidated by ETag,
+    * since assets are still being added while a story generates.
+    */
+   @GetMapping("/{storyId}/manifest")
+   public ResponseEntity<StoryAssetManifest> getAssetManifest(@PathVariable final String storyId, final WebRequest webRequest) {
+      log.debug("Fetching asset manifest: {}", storyId);
+      final StoryAssetManifest manifest = storyManifestService.getManifest(storyId);
+      final String eTag = "\"" + manifest.getVersion() + "\"";
+
+      if (webRequest.checkNotModified(eTag)) {
+         return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+      }
+      return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(manifest);
+   }
+
    @GetMapping("/list")
    public ResponseEntity<List<StoryIndexEntry>> getStoryList() {
       try {
@@ -80,11 +157,46 @@ public class StoryController {
       }
    }
 
+   /**
+    * One page of the library. Pass the previous page's {@code nextCursor} to continue; {@code view=full} includes pages.
+    */
    @GetMapping
-   public ResponseEntity<List<Story>> getAllStories() {
-      log.debug("Fetching all stories");
-      final List<Story> stories = orchestrationService.getAllStories();
-      return ResponseEntity.ok(stories);
+   public ResponseEntity<StoryListPage<?>> getAllStories(@RequestParam(name = "limit", defaultValue = "20") final int limit,
+                                                         @RequestParam(name = "cursor", required = false) final String cursor,
+                                                         @RequestParam(name = "sort", defaultValue = "newest") final String sort,
+                                                         @RequestParam(name = "view", defaultValue = "summary") final String view) {
+      log.debug("Fetching stories: sort={}, view={}, limit={}", sort, view, limit);
+      return ResponseEntity.ok(storyListingService.listStories(StorySort.fromValue(sort), cursor, limit, StoryProjection.fromValue(view)));
+   }
+
+   /**
+    * Full-text search over title, page text, theme, character, villain and setting, best matches first
+    */
+   @GetMapping("/search")
+   public ResponseEntity<StorySearchResult> searchStories(@RequestParam(name = "q") final String query,
+                                                          @RequestParam(name = "limit", defaultValue = "20") final int limit) {
+      log.debug("Searching stories: q={}, limit={}", query, limit);
+      return ResponseEntity.ok(storySearchService.search(query, limit));
+   }
+
+   /**
+    * Filter the library by facet, e.g. {@code ?theme=space,ocean&status=completed}. Values are comma-separated
+    * and case-insensitive; the response counts stories per value of every facet.
+    */
+   @GetMapping("/browse")
+   public ResponseEntity<StoryBrowsePage> browseStories(@RequestParam(name = "limit", defaultValue = "20") final int limit,
+                                                        @RequestParam(name = "cursor", required = false) final String cursor,
+                                                        @RequestParam(name = "sort", defaultValue = "newest") final String sort,
+                                                        @RequestParam final MultiValueMap<String, String> params) {
+      final Map<StoryFacet, List<String>> filters = new EnumMap<>(StoryFacet.class);
+      for (final StoryFacet facet : StoryFacet.values()) {
+         final List<String> values = params.get(facet.getValue());
+         if (values != null) {
+            filters.put(facet, values.stream().flatMap(value -> Arrays.stream(value.split(","))).toList());
+         }
+      }
+      log.debug("Browsing stories: filters={}, sort={}, limit={}", filters, sort, limit);
+      return ResponseEntity.ok(storyBrowseService.browse(filters, StorySort.fromValue(sort), cursor, limit));
    }
 
    @DeleteMapping("/{storyId}")
@@ -126,6 +238,39 @@ public class StoryController {
       }
    }
 
+   /**
+    * Delete many stories in one call. Ids that are not in the library are reported, not treated as errors.
+    */
+   @PostMapping("/bulk-delete")
+   public ResponseEntity<BulkDeleteResponse> deleteStories(@Valid @RequestBody final BulkDeleteRequest request) {
+      log.info("Received bulk delete request for {} stories", request.getStoryIds().size());
+
+      final Map<Boolean, List<String>> byExistence = request.getStoryIds().stream().distinct().collect(Collectors.partitioningBy(storyIndexService::storyExists));
+      final List<String> existing = byExistence.get(true);
+      final List<String> notFound = byExistence.get(false);
+
+      final Map<String, String> failed = orchestrationService.deleteStoriesWithAssets(existing);
+      final BulkDeleteResponse response = BulkDeleteResponse.builder()
+                                                            .deleted(existing.stream().filter(storyId -> !failed.containsKey(storyId)).toList())
+                                                            .notFound(notFound)
+                                                            .failed(failed)
+                                                            .build();
+      return ResponseEntity.ok(response);
+   }
+
+   private boolean acceptsGzip(final String acceptEncoding) {
+      if (acceptEncoding == null) {
+         return false;
+      }
+      for (final String coding : acceptEncoding.split(",")) {
+         final String[] parts = coding.trim().split(";");
+         if (parts[0].trim().equalsIgnoreCase("gzip")) {
+            return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+         }
+      }
+      return false;
+   }
+
    private int calculateProgress(final StoryStatus status) {
       return switch (status) {
          case PENDING -> 0;
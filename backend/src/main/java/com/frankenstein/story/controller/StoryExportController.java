@@ -0,0 +1,77 @@
+package com.frankenstein.story.controller;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryExportFormat;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import com.frankenstein.story.service.export.StoryExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Downloads a completed story as a ZIP or EPUB archive. The archive is written directly to the
+ * response as it is built, so the download starts immediately and nothing is buffered in memory.
+ * The stream gets its own async timeout (http.export.timeout), long enough for a slow download, instead of
+ * raising the default for every async request.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/stories/{storyId}/export")
+@RequiredArgsConstructor
+public class StoryExportController {
+
+   private final StoryOrchestrationService orchestrationService;
+   private final StoryExportService storyExportService;
+
+   @Value("${http.export.timeout:10m}")
+   private Duration exportTimeout;
+
+   @GetMapping
+   public ResponseEntity<StreamingResponseBody> exportStory(@PathVariable final String storyId,
+                                                            @RequestParam(name = "format", defaultValue = "zip") final String format,
+                                                            final HttpServletRequest request) {
+      final StoryExportFormat exportFormat = StoryExportFormat.fromValue(format);
+      final Story story = orchestrationService.getStory(storyId);
+      if (story.getStatus() != StoryStatus.COMPLETED) {
+         log.warn("Export requested for story {} in status {}", storyId, story.getStatus());
+         return ResponseEntity.status(HttpStatus.CONFLICT).build();
+      }
+
+      log.info("Exporting story {} as {}", storyId, exportFormat);
+      final StreamingResponseBody body = out -> storyExportService.export(storyId, exportFormat, out);
+      // Applies to this request only; the async processing started for the body keeps it
+      WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+
+      return ResponseEntity.ok()
+                           .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                           .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                                                                      .filename(fileName(story) + "." + exportFormat.getExtension(), StandardCharsets.UTF_8)
+                                                                                      .build()
+                                                                                      .toString())
+                           .body(body);
+   }
+
+   private String fileName(final Story story) {
+      final String title = story.getTitle() == null ? "" : story.getTitle().replaceAll("[^\\p{L}\\p{N}]+", "-").replaceAll("(^-+|-+$)", "");
+      return title.isEmpty() ? story.getId() : title;
+   }
+}
@@ -0,0 +1,54 @@
+package com.frankenstein.story.controller;
+
+import com.frankenstein.story.model.ThumbnailSpriteManifest;
+import com.frankenstein.story.service.media.ThumbnailService;
+import com.frankenstein.story.service.media.ThumbnailSprite;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the library thumbnail sprite and the manifest locating each story's tile within it
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/stories/thumbnails")
+@RequiredArgsConstructor
+public class ThumbnailController {
+
+   private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+   private final ThumbnailService thumbnailService;
+
+   @GetMapping
+   public ResponseEntity<ThumbnailSpriteManifest> getSpriteManifest() {
+      log.debug("Fetching thumbnail sprite manifest");
+      return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(thumbnailService.getSprite().getManifest());
+   }
+
+   @GetMapping("/sprite.jpg")
+   public ResponseEntity<byte[]> getSprite(@RequestParam(name = "v", required = false) final String version, final WebRequest webRequest) {
+      final ThumbnailSprite sprite = thumbnailService.getSprite();
+      final String currentVersion = sprite.getManifest().getVersion();
+      final CacheControl cacheControl = currentVersion.equals(version) ? IMMUTABLE : CacheControl.noCache();
+      final String eTag = "\"" + currentVersion + "\"";
+
+      if (webRequest.checkNotModified(eTag)) {
+         return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+      }
+
+      return ResponseEntity.ok().contentType(MediaType.IMAGE_JPEG).cacheControl(cacheControl).eTag(eTag).body(sprite.getImage());
+   }
+}
@@ -130,6 +130,21 @@ public class GlobalExceptionHandler {
       return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
    }
 
+   @ExceptionHandler(StoryNotFoundException.class)
+   public ResponseEntity<ErrorResponse> handleStoryNotFoundException(final StoryNotFoundException ex, final WebRequest request) {
+      log.warn("Story not found: {}", ex.getMessage());
+
+      final ErrorResponse error = ErrorResponse.builder()
+                                               .timestamp(LocalDateTime.now())
+                                               .status(HttpStatus.NOT_FOUND.value())
+                                               .error("Story Not Found")
+                                               .message(ex.getMessage())
+                                               .path(request.getDescription(false).replace("uri=", ""))
+                                               .build();
+
+      return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+   }
+
    @ExceptionHandler(Exception.class)
    public ResponseEntity<ErrorResponse> handleGlobalException(final Exception ex, final WebRequest request) {
       log.error("Unexpected error occurred", ex);
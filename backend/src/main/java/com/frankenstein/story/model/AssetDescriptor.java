@@ -0,0 +1,43 @@
+package com.frankenstein.story.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Content metadata for a stored story asset, used for validators and hash-versioned URLs.
+ * Assets never change once written, so the content hash identifies a version for good.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetDescriptor {
+
+   private static final int VERSION_LENGTH = 16;
+
+   private String path; // relative to the story directory, e.g. images/page-1.png
+   private long size;
+   private String sha256;
+   private long lastModified; // epoch millis
+
+   /**
+    * Strong HTTP entity tag derived from the content hash
+    */
+   @JsonIgnore
+   public String getETag() {
+      return "\"" + sha256 + "\"";
+   }
+
+   /**
+    * Short content version used in immutable asset URLs
+    */
+   @JsonIgnore
+   public String getVersion() {
+      return sha256.substring(0, VERSION_LENGTH);
+   }
+}
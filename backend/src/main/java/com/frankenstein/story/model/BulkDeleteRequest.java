@@ -0,0 +1,26 @@
+package com.frankenstein.story.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to delete several stories in one call
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteRequest {
+
+   @NotEmpty(message = "At least one story id is required")
+   @Size(max = 500, message = "At most 500 stories can be deleted per request")
+   private List<String> storyIds;
+}
@@ -0,0 +1,25 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk delete: which stories were deleted, which did not exist, and which failed with what error
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResponse {
+
+   private List<String> deleted;
+   private List<String> notFound;
+   private Map<String, String> failed;
+}
@@ -0,0 +1,41 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Every asset of a story with its hash-versioned URL, size, content hash and type,
+ * so a reader can prefetch upcoming pages in parallel and cache them by hash.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryAssetManifest {
+
+   private String storyId;
+   private String version; // changes whenever any listed asset changes
+   private StoryStatus status;
+   private long totalBytes;
+   private List<Asset> assets; // cover first, then page by page
+
+   @Data
+   @Builder
+   @NoArgsConstructor
+   @AllArgsConstructor
+   public static class Asset {
+
+      private String url;
+      private String path;
+      private long size;
+      private String sha256;
+      private String mimeType;
+      private Integer pageNumber; // null for the cover thumbnail
+   }
+}
@@ -0,0 +1,29 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the library filtered by facets. {@code total} counts every matching story, not just this page;
+ * {@code facets} maps each facet name to the story count per value, counted under the other facets' filters
+ * so a client can show how many stories picking another value would give.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryBrowsePage {
+
+   private List<StoryIndexEntry> items;
+   private String nextCursor;
+   private StorySort sort;
+   private int total;
+   private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,38 @@
+package com.frankenstein.story.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Formats a completed story can be downloaded in
+ *
+ * @author alarinel@gmail.com
+ */
+public enum StoryExportFormat {
+
+   ZIP("zip", "application/zip"),
+   EPUB("epub", "application/epub+zip");
+
+   private final String extension;
+   private final String contentType;
+
+   StoryExportFormat(final String extension, final String contentType) {
+      this.extension = extension;
+      this.contentType = contentType;
+   }
+
+   public String getExtension() {
+      return extension;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+   public static StoryExportFormat fromValue(final String value) {
+      return Arrays.stream(values())
+                   .filter(format -> format.extension.equals(value == null ? null : value.toLowerCase(Locale.ROOT)))
+                   .findFirst()
+                   .orElseThrow(() -> new IllegalArgumentException("Unsupported export format: " + value));
+   }
+}
@@ -0,0 +1,54 @@
+package com.frankenstein.story.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Story index fields the library can be filtered and counted by. Values are compared case-insensitively,
+ * so they are kept lower-cased.
+ *
+ * @author alarinel@gmail.com
+ */
+public enum StoryFacet {
+
+   STATUS("status", entry -> entry.getStatus() == null ? null : entry.getStatus().name()),
+   THEME("theme", StoryIndexEntry::getTheme),
+   MOOD("mood", StoryIndexEntry::getMood),
+   VOICE_TYPE("voiceType", StoryIndexEntry::getVoiceType),
+   TIME_PERIOD("timePeriod", StoryIndexEntry::getTimePeriod),
+   PAGE_COUNT("pageCount", entry -> entry.getPageCount() > 0 ? Integer.toString(entry.getPageCount()) : null);
+
+   private final String value;
+   private final Function<StoryIndexEntry, String> extractor;
+
+   StoryFacet(final String value, final Function<StoryIndexEntry, String> extractor) {
+      this.value = value;
+      this.extractor = extractor;
+   }
+
+   @JsonValue
+   public String getValue() {
+      return value;
+   }
+
+   /**
+    * The entry's value for this facet, normalized for matching, or null if it has none
+    */
+   public String valueOf(final StoryIndexEntry entry) {
+      return normalize(extractor.apply(entry));
+   }
+
+   public static String normalize(final String facetValue) {
+      return facetValue == null || facetValue.isBlank() ? null : facetValue.trim().toLowerCase(Locale.ROOT);
+   }
+
+   public static StoryFacet fromValue(final String value) {
+      return Arrays.stream(values())
+                   .filter(facet -> facet.value.equalsIgnoreCase(value))
+                   .findFirst()
+                   .orElseThrow(() -> new IllegalArgumentException("Unsupported facet: " + value));
+   }
+}
@@ -9,12 +9,12 @@ import java.time.LocalDateTime;
 
 /**
  * Represents a story entry in the story index.
- * Contains minimal metadata for displaying stories in the library.
+ * Contains the metadata for displaying stories in the library and browsing it by facet.
  * 
  * @author alarinel@gmail.com
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class StoryIndexEntry {
@@ -22,4 +22,14 @@ public class StoryIndexEntry {
     private String id;
     private String title;
     private LocalDateTime createdAt;
+    private String thumbnailUrl;
+    
+    // Facets for filtering and sorting the library; null or 0 for entries indexed before they existed
+    private StoryStatus status;
+    private String theme;
+    private String mood;
+    private String voiceType;
+    private String timePeriod;
+    private int pageCount;
+    private double duration; // in seconds, all pages together
 }
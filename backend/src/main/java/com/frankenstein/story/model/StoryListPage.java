@@ -0,0 +1,25 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the story library. {@code nextCursor} is opaque and is null on the last page.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryListPage<T> {
+
+   private List<T> items;
+   private String nextCursor;
+   private StorySort sort;
+   private StoryProjection view;
+}
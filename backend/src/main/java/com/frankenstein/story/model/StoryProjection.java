@@ -0,0 +1,35 @@
+package com.frankenstein.story.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How much of each story a listing returns: a summary for library views, or the full story with pages
+ *
+ * @author alarinel@gmail.com
+ */
+public enum StoryProjection {
+
+   SUMMARY("summary"),
+   FULL("full");
+
+   private final String value;
+
+   StoryProjection(final String value) {
+      this.value = value;
+   }
+
+   @JsonValue
+   public String getValue() {
+      return value;
+   }
+
+   public static StoryProjection fromValue(final String value) {
+      return Arrays.stream(values())
+                   .filter(projection -> projection.value.equals(value == null ? null : value.toLowerCase(Locale.ROOT)))
+                   .findFirst()
+                   .orElseThrow(() -> new IllegalArgumentException("Unsupported view: " + value));
+   }
+}
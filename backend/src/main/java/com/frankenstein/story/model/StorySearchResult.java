@@ -0,0 +1,38 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ranked full-text matches from the story library, best first
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorySearchResult {
+
+   private String query;
+   private int total; // stories matching any term, of which the best are in hits
+   private List<Hit> hits;
+
+   @Data
+   @Builder
+   @NoArgsConstructor
+   @AllArgsConstructor
+   public static class Hit {
+
+      private String id;
+      private String title;
+      private LocalDateTime createdAt;
+      private String thumbnailUrl;
+      private double score;
+   }
+}
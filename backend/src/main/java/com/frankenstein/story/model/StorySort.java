@@ -0,0 +1,38 @@
+package com.frankenstein.story.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Orders the story library can be listed in
+ *
+ * @author alarinel@gmail.com
+ */
+public enum StorySort {
+
+   NEWEST("newest"),
+   OLDEST("oldest"),
+   TITLE("title"),
+   LONGEST("longest"),
+   SHORTEST("shortest");
+
+   private final String value;
+
+   StorySort(final String value) {
+      this.value = value;
+   }
+
+   @JsonValue
+   public String getValue() {
+      return value;
+   }
+
+   public static StorySort fromValue(final String value) {
+      return Arrays.stream(values())
+                   .filter(sort -> sort.value.equals(value == null ? null : value.toLowerCase(Locale.ROOT)))
+                   .findFirst()
+                   .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + value));
+   }
+}
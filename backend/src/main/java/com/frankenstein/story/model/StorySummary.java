@@ -0,0 +1,30 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Library view of a story: everything needed to show it in a list, without page text or prompts
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorySummary {
+
+   private String id;
+   private String title;
+   private StoryStatus status;
+   private String characterName;
+   private String theme;
+   private int pageCount;
+   private LocalDateTime createdAt;
+   private LocalDateTime completedAt;
+   private String thumbnailUrl;
+}
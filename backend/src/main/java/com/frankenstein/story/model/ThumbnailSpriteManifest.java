@@ -0,0 +1,39 @@
+package com.frankenstein.story.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Describes the library thumbnail sprite: one image holding every cover thumbnail
+ * as fixed-size tiles, so the library loads all covers with a single request.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThumbnailSpriteManifest {
+
+   private String version;
+   private String spriteUrl;
+   private int tileWidth;
+   private int tileHeight;
+   private int columns;
+   private List<Tile> tiles;
+
+   @Data
+   @Builder
+   @NoArgsConstructor
+   @AllArgsConstructor
+   public static class Tile {
+
+      private String storyId;
+      private int x;
+      private int y;
+   }
+}
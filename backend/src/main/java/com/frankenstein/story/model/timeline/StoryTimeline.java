@@ -0,0 +1,30 @@
+package com.frankenstein.story.model.timeline;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Execution timeline (waterfall) of a story's generation, persisted as timeline.json next to story.json
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryTimeline {
+   private String storyId;
+
+   @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+   private LocalDateTime startedAt;
+
+   private long totalDurationMs;
+   private boolean completed;
+   private List<TimelineSpan> spans;
+}
@@ -0,0 +1,15 @@
+package com.frankenstein.story.model.timeline;
+
+/**
+ * Kind of work a timeline span represents
+ *
+ * @author alarinel@gmail.com
+ */
+public enum TimelineCategory {
+   PHASE,
+   PROVIDER_CALL,
+   RETRY,
+   BACKOFF,
+   DISK_WRITE,
+   QUEUE_WAIT
+}
@@ -0,0 +1,29 @@
+package com.frankenstein.story.model.timeline;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single timed unit of work within a story's generation timeline.
+ * Offsets are relative to the moment generation was requested.
+ *
+ * @author alarinel@gmail.com
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimelineSpan {
+   private TimelineCategory category;
+   private String name;
+   private Integer pageNumber;
+   private long startOffsetMs;
+   private long durationMs;
+   private String thread;
+   private String status; // SUCCESS, FAILED
+   private String detail;
+}
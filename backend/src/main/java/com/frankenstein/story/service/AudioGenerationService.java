@@ -1,6 +1,7 @@
 package com.frankenstein.story.service;
 
 import com.frankenstein.story.exception.AudioGenerationException;
+import com.frankenstein.story.service.metrics.GenerationMetricsService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ public class AudioGenerationService {
 
    private final RestClient.Builder restClientBuilder;
    private final ApiTrackingFacade apiTrackingFacade;
+   private final GenerationMetricsService generationMetrics;
 
    @Value("${api.elevenlabs.key}")
    private String apiKey;
@@ -98,12 +100,14 @@ public class AudioGenerationService {
                                                        .defaultHeader("Accept", "audio/mpeg")
                                                        .build();
 
-            final byte[] audioData = client.post()
-                                           .uri("/text-to-speech/{voiceId}", selectedVoiceId)
-                                           .contentType(MediaType.APPLICATION_JSON)
-                                           .body(requestBody)
-                                           .retrieve()
-                                           .body(byte[].class);
+            final byte[] audioData = generationMetrics.recordProviderCall(GenerationMetricsService.PROVIDER_ELEVENLABS,
+                  "NARRATION_GENERATION",
+                  () -> client.post()
+                              .uri("/text-to-speech/{voiceId}", selectedVoiceId)
+                              .contentType(MediaType.APPLICATION_JSON)
+                              .body(requestBody)
+                              .retrieve()
+                              .body(byte[].class));
 
             if (audioData == null || audioData.length == 0) {
                throw new AudioGenerationException("Received empty audio response");
@@ -140,12 +144,14 @@ public class AudioGenerationService {
                                                        .defaultHeader("Accept", "audio/mpeg")
                                                        .build();
 
-            final byte[] audioData = client.post()
-                                           .uri("/text-to-speech/{voiceId}", selectedVoiceId)
-                                           .contentType(MediaType.APPLICATION_JSON)
-                                           .body(requestBody)
-                                           .retrieve()
-                                           .body(byte[].class);
+            final byte[] audioData = generationMetrics.recordProviderCall(GenerationMetricsService.PROVIDER_ELEVENLABS,
+                  "SOUND_EFFECT_GENERATION",
+                  () -> client.post()
+                              .uri("/text-to-speech/{voiceId}", selectedVoiceId)
+                              .contentType(MediaType.APPLICATION_JSON)
+                              .body(requestBody)
+                              .retrieve()
+                              .body(byte[].class));
 
             if (audioData == null) {
                log.warn("Received null audio for sound effect: {}", effectDescription);
@@ -1,36 +1,86 @@
 package com.frankenstein.story.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.frankenstein.story.exception.StoryGenerationException;
 import com.frankenstein.story.exception.StoryNotFoundException;
+import com.frankenstein.story.model.AssetDescriptor;
 import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.service.storage.AssetManifestStore;
+import com.frankenstein.story.service.storage.AssetPack;
+import com.frankenstein.story.service.storage.AssetPackStore;
+import com.frankenstein.story.service.storage.PrecompressedFiles;
+import com.frankenstein.story.service.storage.StoryArchive;
+import com.frankenstein.story.service.storage.StoryCache;
+import com.frankenstein.story.service.storage.StoryLocator;
+import com.frankenstein.story.service.storage.backend.StorageBackend;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class FileStorageService {
 
+   private static final String STORY_FILE = "story.json";
+   private static final int MAX_CACHED_STORIES = 512;
+
    private final Path storageRoot;
    private final ObjectMapper objectMapper;
+   private final AssetManifestStore assetManifestStore;
+   private final AssetPackStore assetPackStore = new AssetPackStore();
+   private final StoryCache storyCache = new StoryCache(MAX_CACHED_STORIES);
+   // Layout, archive tier, trash and shared backend: where each story's files are
+   private final StoryLocator storyLocator;
+
+   @Value("${storage.pack.enabled:false}")
+   private boolean packEnabled;
+
+   @Value("${storage.layout.sharded:true}")
+   private boolean sharded;
 
-   public FileStorageService(@Value("${storage.root}") final String storageRoot) {
+   @Value("${storage.max-file-size:10MB}")
+   private DataSize maxFileSize;
+
+   public FileStorageService(final String storageRoot) {
+      this(storageRoot, null);
+   }
+
+   public FileStorageService(final String storageRoot, final StorageBackend storageBackend) {
+      this(storageRoot, storageBackend, "");
+   }
+
+   @Autowired
+   public FileStorageService(@Value("${storage.root}") final String storageRoot,
+                             final StorageBackend storageBackend,
+                             @Value("${storage.tier.archive-root:}") final String archiveRoot) {
       this.storageRoot = Paths.get(storageRoot);
+      this.storyLocator = new StoryLocator(this.storageRoot,
+                                           archiveRoot.isBlank() ? this.storageRoot.resolve(".archive") : Paths.get(archiveRoot),
+                                           storageBackend,
+                                           () -> sharded);
       this.objectMapper = new ObjectMapper();
       this.objectMapper.registerModule(new JavaTimeModule());
+      // Same date format as the HTTP layer, so story.json(.gz) can be served as-is
+      this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+      this.assetManifestStore = new AssetManifestStore(objectMapper);
       initializeStorage();
    }
 
@@ -43,8 +93,99 @@ public class FileStorageService {
       }
    }
 
+   /**
+    * The story's directory in the configured layout, or in the other layout while it has not been migrated yet
+    */
    public Path getStoryDirectory(final String storyId) {
-      return storageRoot.resolve(storyId);
+      return storyLocator.getStoryDirectory(storyId);
+   }
+
+   public StoryArchive getStoryArchive() {
+      return storyLocator.getArchive();
+   }
+
+   public boolean isArchived(final String storyId) {
+      return storyLocator.isArchived(storyId);
+   }
+
+   /**
+    * Move a completed story to the archive tier. Its caches are dropped first so nothing keeps reading the hot copy.
+    *
+    * @return whether the story was archived
+    */
+   public boolean archiveStory(final String storyId) {
+      if (!storyLocator.isArchivable(storyId)) {
+         return false;
+      }
+      try {
+         invalidateStory(storyId);
+         final long archivedBytes = storyLocator.archive(storyId);
+         log.debug("Archived story {} ({} bytes)", storyId, archivedBytes);
+         return true;
+      } catch (final IOException e) {
+         log.warn("Failed to archive story {}", storyId, e);
+         return false;
+      }
+   }
+
+   /**
+    * Ids of stories with a story.json that still sit in the layout that is not configured
+    */
+   public List<String> findStoriesToMigrate() {
+      try {
+         return storyLocator.findStoriesToMigrate();
+      } catch (final IOException e) {
+         log.error("Failed to scan stories for layout migration", e);
+         return new ArrayList<>();
+      }
+   }
+
+   /**
+    * Move one story into the configured layout with a single atomic rename, so readers see it in one place or the other
+    *
+    * @return whether the story was moved
+    */
+   public boolean migrateStoryLayout(final String storyId) {
+      try {
+         final Optional<Path> moved = storyLocator.moveToPreferredLayout(storyId);
+         if (moved.isEmpty()) {
+            return false;
+         }
+         assetManifestStore.evict(storyId);
+         assetPackStore.evict(storyId);
+         log.debug("Moved story {} to {}", storyId, moved.get());
+         return true;
+      } catch (final IOException e) {
+         log.warn("Failed to move story {} to the {} layout", storyId, sharded ? "sharded" : "flat", e);
+         return false;
+      }
+   }
+
+   /**
+    * Root of the derived image cache; kept outside story directories and skipped when listing stories
+    */
+   public Path getStorageRoot() {
+      return storageRoot;
+   }
+
+   /**
+    * Whether stories live in shared storage, making the local directories only a working copy
+    */
+   public boolean isSharedStorage() {
+      return storyLocator.isShared();
+   }
+
+   /**
+    * Drop everything cached about a story so the next read sees what is on disk now
+    */
+   public void invalidateStory(final String storyId) {
+      assetManifestStore.evict(storyId);
+      assetPackStore.evict(storyId);
+      storyCache.invalidate(storyId);
+   }
+
+   public Path getDerivedDirectory() {
+      return storageRoot.resolve(".derived");
    }
 
    public Path getImagesDirectory(final String storyId) {
@@ -71,18 +212,28 @@ public class FileStorageService {
 
    public void saveStoryMetadata(final Story story) {
       try {
-         final Path metadataPath = getStoryDirectory(story.getId()).resolve("story.json");
-         objectMapper.writerWithDefaultPrettyPrinter().writeValue(metadataPath.toFile(), story);
+         final Path metadataPath = getStoryDirectory(story.getId()).resolve(STORY_FILE);
+         final byte[] json = objectMapper.writeValueAsBytes(story);
+         PrecompressedFiles.write(metadataPath, json);
+         storyLocator.publishStory(story.getId(), json);
+         storyCache.invalidate(story.getId());
          log.debug("Saved metadata for story: {}", story.getId());
       } catch (final IOException e) {
          throw new StoryGenerationException("Failed to save story metadata", e);
       }
    }
 
+   /**
+    * Load a story, answering from the parsed-story cache when it was read before and not rewritten since
+    */
    public Story loadStory(final String storyId) {
+      return storyCache.get(storyId, () -> readStory(storyId));
+   }
+
+   private Story readStory(final String storyId) {
       try {
-         final Path metadataPath = getStoryDirectory(storyId).resolve("story.json");
-         if (!Files.exists(metadataPath)) {
+         final Path metadataPath = storyLocator.hotDirectory(storyId).resolve(STORY_FILE);
+         if (!Files.exists(metadataPath) && !storyLocator.hydrateStory(storyId, metadataPath)) {
             throw new StoryNotFoundException(storyId);
          }
          return objectMapper.readValue(metadataPath.toFile(), Story.class);
@@ -91,67 +242,351 @@ public class FileStorageService {
       }
    }
 
-   public List<Story> loadAllStories() {
-      try (final Stream<Path> paths = Files.list(storageRoot)) {
-         return paths.filter(Files::isDirectory).map(dir -> {
-            try {
-               return loadStory(dir.getFileName().toString());
-            } catch (final Exception e) {
-               log.warn("Failed to load story from: {}", dir, e);
-               return null;
-            }
-         }).filter(Objects::nonNull).collect(Collectors.toList());
+   /**
+    * Load a story for background work such as indexing or measuring: an archived story is read straight from its
+    * archive instead of being restored to the hot tier, and the parsed-story cache is neither read nor filled
+    */
+   public Story peekStory(final String storyId) {
+      if (storyLocator.isDeleted(storyId)) {
+         throw new StoryNotFoundException(storyId);
+      }
+      try {
+         final Path metadataPath = getStoryDirectory(storyId).resolve(STORY_FILE);
+         if (Files.exists(metadataPath)) {
+            return objectMapper.readValue(metadataPath.toFile(), Story.class);
+         }
+         final Optional<byte[]> archived = storyLocator.readArchivedStory(storyId);
+         if (archived.isPresent()) {
+            return objectMapper.readValue(archived.get(), Story.class);
+         }
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to load story: " + storyId, e);
+      }
+      return readStory(storyId);
+   }
+
+   /**
+    * The gzip-compressed story.json written alongside it at save time, if present and up to date
+    */
+   public Optional<Resource> loadPrecompressedStory(final String storyId) {
+      try {
+         return PrecompressedFiles.findFreshGzip(storyLocator.hotDirectory(storyId).resolve(STORY_FILE)).map(FileSystemResource::new);
+      } catch (final IOException e) {
+         log.warn("Failed to restore story {} from the archive tier", storyId, e);
+         return Optional.empty();
+      }
+   }
+
+   /**
+    * Ids of every story with a saved story.json, found with directory listing and stat calls only
+    */
+   public List<String> listStoryIds() {
+      try {
+         return storyLocator.listStoryIds();
       } catch (final IOException e) {
          log.error("Failed to list stories", e);
          return new ArrayList<>();
       }
    }
 
+   public void saveStoryTimeline(final String storyId, final StoryTimeline timeline) {
+      try {
+         final Path timelinePath = getStoryDirectory(storyId).resolve("timeline.json");
+         objectMapper.writeValue(timelinePath.toFile(), timeline);
+         storyLocator.publish(storyId, "timeline.json");
+         log.debug("Saved timeline for story: {}", storyId);
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to save story timeline", e);
+      }
+   }
+
+   public Optional<StoryTimeline> loadStoryTimeline(final String storyId) {
+      try {
+         final Path timelinePath = storyLocator.hotDirectory(storyId).resolve("timeline.json");
+         if (!Files.exists(timelinePath) && !storyLocator.hydrate(storyId, "timeline.json")) {
+            return Optional.empty();
+         }
+         return Optional.of(objectMapper.readValue(timelinePath.toFile(), StoryTimeline.class));
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to load timeline for story: " + storyId, e);
+      }
+   }
+
    public void saveImage(final String storyId, final int pageNumber, final byte[] imageData) {
+      checkFileSize(storyId, imageAssetPath(pageNumber), imageData);
       try {
          final Path imagePath = getImagesDirectory(storyId).resolve("page-" + pageNumber + ".png");
          FileUtils.writeByteArrayToFile(imagePath.toFile(), imageData);
+         assetManifestStore.record(storyId, getStoryDirectory(storyId), imageAssetPath(pageNumber), imageData);
+         storyLocator.publish(storyId, imageAssetPath(pageNumber));
          log.debug("Saved image for story {} page {}", storyId, pageNumber);
       } catch (final IOException e) {
          throw new StoryGenerationException("Failed to save image", e);
       }
    }
 
+   /**
+    * Save an alternative encoding of a page image (e.g. jpg, webp) alongside the original PNG
+    */
+   public void saveImageVariant(final String storyId, final int pageNumber, final String extension, final byte[] imageData) {
+      final String assetPath = imageVariantAssetPath(pageNumber, extension);
+      checkFileSize(storyId, assetPath, imageData);
+      try {
+         FileUtils.writeByteArrayToFile(getStoryDirectory(storyId).resolve(assetPath).toFile(), imageData);
+         assetManifestStore.record(storyId, getStoryDirectory(storyId), assetPath, imageData);
+         storyLocator.publish(storyId, assetPath);
+         log.debug("Saved {} variant for story {} page {}", extension, storyId, pageNumber);
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to save image variant", e);
+      }
+   }
+
+   /**
+    * Save the library cover thumbnail for a story
+    */
+   public void saveThumbnail(final String storyId, final byte[] imageData) {
+      final String assetPath = thumbnailAssetPath();
+      checkFileSize(storyId, assetPath, imageData);
+      try {
+         FileUtils.writeByteArrayToFile(getStoryDirectory(storyId).resolve(assetPath).toFile(), imageData);
+         assetManifestStore.record(storyId, getStoryDirectory(storyId), assetPath, imageData);
+         storyLocator.publish(storyId, assetPath);
+         log.debug("Saved cover thumbnail for story {}", storyId);
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to save thumbnail", e);
+      }
+   }
+
    public void saveNarration(final String storyId, final int pageNumber, final byte[] audioData) {
+      checkFileSize(storyId, narrationAssetPath(pageNumber), audioData);
       try {
          final Path audioPath = getNarrationDirectory(storyId).resolve("page-" + pageNumber + ".mp3");
          FileUtils.writeByteArrayToFile(audioPath.toFile(), audioData);
+         assetManifestStore.record(storyId, getStoryDirectory(storyId), narrationAssetPath(pageNumber), audioData);
+         storyLocator.publish(storyId, narrationAssetPath(pageNumber));
          log.debug("Saved narration for story {} page {}", storyId, pageNumber);
       } catch (final IOException e) {
          throw new StoryGenerationException("Failed to save narration", e);
       }
    }
 
+   /**
+    * Reject assets over storage.max-file-size before anything is written
+    */
+   private void checkFileSize(final String storyId, final String assetPath, final byte[] data) {
+      if (maxFileSize != null && data.length > maxFileSize.toBytes()) {
+         throw new StoryGenerationException("Asset " + assetPath + " for story " + storyId + " is " + data.length
+               + " bytes, over the " + maxFileSize.toBytes() + " byte limit");
+      }
+   }
+
+   public String imageAssetPath(final int pageNumber) {
+      return "images/page-" + pageNumber + ".png";
+   }
+
+   public String imageVariantAssetPath(final int pageNumber, final String extension) {
+      return "images/page-" + pageNumber + "." + extension;
+   }
+
+   public String thumbnailAssetPath() {
+      return "images/cover-thumb.jpg";
+   }
+
+   public String narrationAssetPath(final int pageNumber) {
+      return "audio/narration/page-" + pageNumber + ".mp3";
+   }
+
+   /**
+    * Image URL, versioned with the content hash when known so it can be cached as immutable
+    */
    public String getImageUrl(final String storyId, final int pageNumber) {
-      return String.format("/api/stories/%s/assets/images/page-%d.png", storyId, pageNumber);
+      return versionedUrl(storyId, imageAssetPath(pageNumber));
    }
 
+   /**
+    * Narration URL, versioned with the content hash when known so it can be cached as immutable
+    */
    public String getNarrationUrl(final String storyId, final int pageNumber) {
-      return String.format("/api/stories/%s/assets/audio/narration/page-%d.mp3", storyId, pageNumber);
+      return versionedUrl(storyId, narrationAssetPath(pageNumber));
+   }
+
+   /**
+    * Cover thumbnail URL, versioned with the content hash when known
+    */
+   public String getThumbnailUrl(final String storyId) {
+      return versionedUrl(storyId, thumbnailAssetPath());
+   }
+
+   /**
+    * URL of a described asset, pinned to its content version
+    */
+   public String getAssetUrl(final String storyId, final AssetDescriptor descriptor) {
+      return assetUrl(storyId, descriptor.getPath()) + "?v=" + descriptor.getVersion();
+   }
+
+   private String versionedUrl(final String storyId, final String assetPath) {
+      final AssetDescriptor descriptor = assetManifestStore.find(storyId, getStoryDirectory(storyId), assetPath);
+      return descriptor == null ? assetUrl(storyId, assetPath) : getAssetUrl(storyId, descriptor);
+   }
+
+   private String assetUrl(final String storyId, final String assetPath) {
+      return String.format("/api/stories/%s/assets/%s", storyId, assetPath);
+   }
+
+   /**
+    * Describe an asset (size, content hash, last modified) without reading it when its hash is already recorded
+    *
+    * @param storyId   the story identifier
+    * @param assetPath the asset path relative to the story directory
+    * @return the asset descriptor
+    * @throws IOException if the asset does not exist
+    */
+   public AssetDescriptor getAssetDescriptor(final String storyId, final String assetPath) throws IOException {
+      if (findLooseAsset(storyId, assetPath).isPresent()) {
+         return assetManifestStore.describe(storyId, getStoryDirectory(storyId), assetPath);
+      }
+      return findPack(storyId, assetPath).map(pack -> pack.describe(assetPath)).orElseThrow(() -> new IOException("Asset not found: " + assetPath));
    }
 
    public byte[] loadAsset(final String storyId, final String assetPath) throws IOException {
-      final Path fullPath = getStoryDirectory(storyId).resolve(assetPath);
-      if (!Files.exists(fullPath)) {
+      final Optional<Path> loose = findLooseAsset(storyId, assetPath);
+      if (loose.isPresent()) {
+         return Files.readAllBytes(loose.get());
+      }
+      try (final InputStream in = loadAssetResource(storyId, assetPath).getInputStream()) {
+         return in.readAllBytes();
+      }
+   }
+
+   /**
+    * Load an asset as a resource that can be streamed (and range-sliced) without copying it into heap:
+    * a file-backed resource for loose assets, or a slice of the memory-mapped pack for packed ones
+    *
+    * @param storyId   the story identifier
+    * @param assetPath the asset path relative to the story directory
+    * @return resource backed by the asset file or pack
+    * @throws IOException if the asset does not exist
+    */
+   public Resource loadAssetResource(final String storyId, final String assetPath) throws IOException {
+      final Optional<Path> loose = findLooseAsset(storyId, assetPath);
+      if (loose.isPresent()) {
+         return new FileSystemResource(loose.get());
+      }
+      return findPack(storyId, assetPath).map(pack -> pack.slice(assetPath)).orElseThrow(() -> new IOException("Asset not found: " + assetPath));
+   }
+
+   public boolean assetExists(final String storyId, final String assetPath) {
+      try {
+         return findLooseAsset(storyId, assetPath).isPresent() || findPack(storyId, assetPath).isPresent();
+      } catch (final IOException | StoryNotFoundException e) {
+         return false;
+      }
+   }
+
+   /**
+    * Move a completed story's loose images and audio into a single assets.pack file, when packing is enabled.
+    * Packed assets are served as slices of one memory mapping instead of one file per asset.
+    */
+   public void packAssets(final String storyId) {
+      if (!packEnabled) {
+         return;
+      }
+
+      final Path storyDir = getStoryDirectory(storyId);
+      try {
+         final List<AssetDescriptor> looseAssets = new ArrayList<>();
+         for (final String directory : List.of("images", "audio")) {
+            final Path root = storyDir.resolve(directory);
+            if (!Files.isDirectory(root)) {
+               continue;
+            }
+            try (final Stream<Path> files = Files.walk(root)) {
+               for (final Path file : files.filter(Files::isRegularFile).filter(file -> !file.getFileName().toString().endsWith(".tmp")).sorted().toList()) {
+                  final String assetPath = storyDir.relativize(file).toString().replace('\\', '/');
+                  looseAssets.add(assetManifestStore.describe(storyId, storyDir, assetPath));
+               }
+            }
+         }
+         if (looseAssets.isEmpty()) {
+            return;
+         }
+
+         for (final String packedPath : assetPackStore.pack(storyId, storyDir, looseAssets)) {
+            Files.deleteIfExists(storyDir.resolve(packedPath));
+         }
+      } catch (final IOException e) {
+         // Loose files are only deleted after the pack is in place, so a failure leaves them servable
+         log.error("Failed to pack assets for story {}", storyId, e);
+      }
+   }
+
+   private Optional<AssetPack> findPack(final String storyId, final String assetPath) {
+      return assetPackStore.find(storyId, getStoryDirectory(storyId)).filter(pack -> pack.contains(assetPath));
+   }
+
+   /**
+    * The loose asset file, if present
+    *
+    * @throws IOException if the path escapes the story directory
+    */
+   private Optional<Path> findLooseAsset(final String storyId, final String assetPath) throws IOException {
+      final Path storyDir = storyLocator.hotDirectory(storyId).normalize();
+      final Path fullPath = storyDir.resolve(assetPath).normalize();
+      if (!fullPath.startsWith(storyDir)) {
          throw new IOException("Asset not found: " + assetPath);
       }
-      return Files.readAllBytes(fullPath);
+      if (Files.isRegularFile(fullPath)) {
+         return Optional.of(fullPath);
+      }
+      // Not in the local working copy: fetch it from shared storage unless the local pack already has it
+      if (storyLocator.isShared() && findPack(storyId, assetPath).isEmpty() && storyLocator.hydrate(storyId, storyDir.relativize(fullPath).toString().replace('\\', '/'))) {
+         return Optional.of(fullPath);
+      }
+      return Optional.empty();
    }
 
+   /**
+    * Delete a story and purge its files right away
+    */
    public void deleteStory(final String storyId) {
+      trashStory(storyId);
+      purgeDeletedStory(storyId);
+   }
+
+   /**
+    * Delete a story in constant time: tombstone it so reads fail at once, and rename its directory into the trash.
+    * Its files are removed later by {@link #purgeDeletedStory}.
+    */
+   public void trashStory(final String storyId) {
       try {
-         final Path storyDir = getStoryDirectory(storyId);
-         if (Files.exists(storyDir)) {
-            FileUtils.deleteDirectory(storyDir.toFile());
-            log.info("Deleted story: {}", storyId);
-         }
+         storyLocator.bury(storyId);
+         invalidateStory(storyId);
+         log.info("Deleted story: {}", storyId);
       } catch (final IOException e) {
          throw new StoryGenerationException("Failed to delete story", e);
       }
    }
+
+   public boolean isDeleted(final String storyId) {
+      return storyLocator.isDeleted(storyId);
+   }
+
+   /**
+    * Stories deleted but not yet purged
+    */
+   public List<String> getDeletedStoryIds() {
+      return storyLocator.getDeletedStoryIds();
+   }
+
+   /**
+    * Remove a deleted story's files from the trash and from shared storage, then drop its tombstone
+    */
+   public void purgeDeletedStory(final String storyId) {
+      try {
+         storyLocator.purge(storyId);
+         log.debug("Purged story: {}", storyId);
+      } catch (final IOException e) {
+         throw new StoryGenerationException("Failed to purge story " + storyId, e);
+      }
+   }
 }
@@ -1,6 +1,9 @@
 package com.frankenstein.story.service;
 
 import com.frankenstein.story.exception.ImageGenerationException;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.service.metrics.GenerationMetricsService;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.image.ImageModel;
@@ -22,7 +25,11 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class ImageGenerationService {
 
+   private static final String OPERATION_IMAGE_GENERATION = "IMAGE_GENERATION";
+
    private final ImageModel imageModel;
+   private final GenerationMetricsService generationMetrics;
+   private final StoryTimelineService storyTimeline;
 
    /**
     * Quality enhancement tags to ensure high-quality image generation
@@ -67,18 +74,28 @@ public class ImageGenerationService {
    }
 
    public CompletableFuture<byte[]> generateImage(final String prompt, final int seed) {
+      return generateImage(null, 0, prompt, seed, 1);
+   }
+
+   private CompletableFuture<byte[]> generateImage(final String storyId, final int pageNumber, final String prompt, final int seed, final int attempt) {
       if (prompt == null || prompt.trim().isEmpty()) {
          return CompletableFuture.failedFuture(new ImageGenerationException("Prompt cannot be null or empty"));
       }
 
+      final long submittedAt = System.currentTimeMillis();
       return CompletableFuture.supplyAsync(() -> {
+         storyTimeline.recordSpan(storyId, TimelineCategory.QUEUE_WAIT, OPERATION_IMAGE_GENERATION, pageNumber, submittedAt, System.currentTimeMillis());
+         final StoryTimelineService.Span span = storyTimeline.startSpan(storyId, TimelineCategory.PROVIDER_CALL, OPERATION_IMAGE_GENERATION, pageNumber);
+
          try {
             // Enhance prompt with left-third composition guidance
             final String enhancedPrompt = enhancePromptWithComposition(prompt);
             log.debug("Generating image with seed {} for enhanced prompt: {}", seed, enhancedPrompt);
 
             final ImagePrompt imagePrompt = new ImagePrompt(enhancedPrompt);
-            final ImageResponse response = imageModel.call(imagePrompt);
+            final ImageResponse response = generationMetrics.recordProviderCall(GenerationMetricsService.PROVIDER_STABILITY_AI,
+                  OPERATION_IMAGE_GENERATION,
+                  () -> imageModel.call(imagePrompt));
 
             if (response.getResults().isEmpty()) {
                throw new ImageGenerationException("No image generated in response");
@@ -88,34 +105,57 @@ public class ImageGenerationService {
             final byte[] imageData = Base64.getDecoder().decode(base64Image);
 
             log.debug("Successfully generated image ({} bytes) with left-third composition", imageData.length);
+            span.end("attempt " + attempt + ", " + imageData.length + " bytes");
             return imageData;
 
          } catch (final ImageGenerationException e) {
             // Re-throw our own exceptions without wrapping
+            span.fail("attempt " + attempt + ": " + e.getMessage());
             throw e;
          } catch (final Exception e) {
             log.error("Failed to generate image with seed {}: {}", seed, e.getMessage(), e);
+            span.fail("attempt " + attempt + ": " + e.getMessage());
             throw new ImageGenerationException("Image generation failed: " + e.getMessage(), e);
          }
       });
    }
 
    public CompletableFuture<byte[]> generateImageWithRetry(final String prompt, final int seed, final int maxRetries) {
+      return generateImageWithRetry(null, 0, prompt, seed, maxRetries);
+   }
+
+   /**
+    * Generate an image with retries, recording each attempt, retry and backoff on the story's timeline
+    *
+    * @param storyId    the story identifier used for the timeline
+    * @param pageNumber the page the image belongs to
+    * @param prompt     the image prompt
+    * @param seed       the image seed
+    * @param maxRetries maximum number of retries after the first attempt
+    * @return CompletableFuture containing the image data
+    */
+   public CompletableFuture<byte[]> generateImageWithRetry(final String storyId, final int pageNumber, final String prompt, final int seed, final int maxRetries) {
       if (maxRetries < 0) {
          return CompletableFuture.failedFuture(new ImageGenerationException("Max retries must be non-negative"));
       }
-      return generateImageWithRetry(prompt, seed, maxRetries, 0);
+      return generateImageWithRetry(storyId, pageNumber, prompt, seed, maxRetries, 0);
    }
 
-   private CompletableFuture<byte[]> generateImageWithRetry(final String prompt, final int seed, final int maxRetries, final int attempt) {
-      return generateImage(prompt, seed).exceptionallyCompose(throwable -> {
+   private CompletableFuture<byte[]> generateImageWithRetry(final String storyId, final int pageNumber, final String prompt, final int seed, final int maxRetries, final int attempt) {
+      return generateImage(storyId, pageNumber, prompt, seed, attempt + 1).exceptionallyCompose(throwable -> {
          if (attempt < maxRetries) {
             final long delaySeconds = (long) Math.pow(2, attempt); // Exponential backoff: 1s, 2s, 4s, 8s...
             log.warn("Image generation failed (attempt {}/{}), retrying in {}s...", attempt + 1, maxRetries, delaySeconds);
+            generationMetrics.recordRetry(GenerationMetricsService.PROVIDER_STABILITY_AI, OPERATION_IMAGE_GENERATION);
+            storyTimeline.startSpan(storyId, TimelineCategory.RETRY, OPERATION_IMAGE_GENERATION, pageNumber).end("retry " + (attempt + 1) + " of " + maxRetries);
 
             // Non-blocking delay using CompletableFuture
+            final StoryTimelineService.Span backoff = storyTimeline.startSpan(storyId, TimelineCategory.BACKOFF, OPERATION_IMAGE_GENERATION, pageNumber);
             return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delaySeconds, TimeUnit.SECONDS))
-                                    .thenCompose(v -> generateImageWithRetry(prompt, seed, maxRetries, attempt + 1));
+                                    .thenCompose(v -> {
+                                       backoff.end(delaySeconds + "s");
+                                       return generateImageWithRetry(storyId, pageNumber, prompt, seed, maxRetries, attempt + 1);
+                                    });
          } else {
             log.error("Image generation failed after {} attempts for seed {}", maxRetries, seed);
             return CompletableFuture.failedFuture(throwable);
@@ -7,6 +7,7 @@ import com.frankenstein.story.model.ApiCallLog;
 import com.frankenstein.story.model.StoryInput;
 import com.frankenstein.story.model.StoryOutline;
 import com.frankenstein.story.model.StoryStructure;
+import com.frankenstein.story.service.metrics.GenerationMetricsService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +40,7 @@ public class StoryGenerationService {
    private final AnthropicChatModel chatModel;
    private final ObjectMapper objectMapper;
    private final ApiTrackingFacade apiTrackingFacade;
+   private final GenerationMetricsService generationMetrics;
    private final SecureRandom random = new SecureRandom();
 
    @Value("${generation.default-pages}")
@@ -60,7 +62,7 @@ public class StoryGenerationService {
 
       try {
          final String prompt = buildOutlinePrompt(input);
-         final ChatResponse response = chatModel.call(new Prompt(prompt));
+         final ChatResponse response = callChatModel("OUTLINE_GENERATION", prompt);
          final String content = response.getResult().getOutput().getContent();
 
          log.debug("Claude outline response: {}", content);
@@ -106,7 +108,7 @@ public class StoryGenerationService {
 
       try {
          final String prompt = buildFullStoryPrompt(input, outline);
-         final ChatResponse response = chatModel.call(new Prompt(prompt));
+         final ChatResponse response = callChatModel("STORY_GENERATION", prompt);
          final String content = response.getResult().getOutput().getContent();
 
          log.debug("Claude full story response: {}", content);
@@ -144,7 +146,7 @@ public class StoryGenerationService {
 
       try {
          final String prompt = buildPrompt(input);
-         final ChatResponse response = chatModel.call(new Prompt(prompt));
+         final ChatResponse response = callChatModel("STORY_GENERATION", prompt);
          final String content = response.getResult().getOutput().getContent();
 
          log.debug("Claude response: {}", content);
@@ -449,6 +451,15 @@ public class StoryGenerationService {
       return content;
    }
 
+   /**
+    * Call Claude, recording the call against the provider metrics
+    */
+   private ChatResponse callChatModel(final String operation, final String prompt) {
+      return generationMetrics.recordProviderCall(GenerationMetricsService.PROVIDER_ANTHROPIC,
+            operation,
+            () -> chatModel.call(new Prompt(prompt)));
+   }
+
    /**
     * Log API call to tracking system
     */
@@ -1,32 +1,58 @@
 package com.frankenstein.story.service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryFacet;
 import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.service.storage.StoryArchive;
+import com.frankenstein.story.service.storage.StoryLayout;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.io.FileNotFoundException;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
- * Service for managing the story index file.
- * Provides thread-safe operations for adding, removing, and retrieving story entries.
- * Maintains a persistent JSON index at storage/story-index.json.
+ * Service for managing the story index.
+ * The index is held in memory, so reads never touch disk: a hash map for lookups, a sorted set per library order,
+ * and per-facet sets of story ids for filtering and counting.
+ * Changes are appended as one JSON line each to storage/story-index.log, and the log is periodically
+ * compacted into the storage/story-index.json snapshot. On startup the snapshot is loaded and the log replayed.
  * 
  * @author alarinel@gmail.com
  */
@@ -35,112 +61,139 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class StoryIndexService {
 
+    private static final String THUMBNAIL_PATH = "images/cover-thumb.jpg";
+    private static final String INDEX_FILE = "story-index.json";
+    private static final String LOG_FILE = "story-index.log";
+    private static final String OP_PUT = "put";
+    private static final String OP_REMOVE = "remove";
+
+    // Ties are broken by id so distinct stories never collapse into one set element
+    private static final Comparator<StoryIndexEntry> NEWEST_FIRST = Comparator
+        .comparing(StoryIndexEntry::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+        .thenComparing(StoryIndexEntry::getId);
+    private static final Comparator<StoryIndexEntry> BY_TITLE = Comparator
+        .comparing((StoryIndexEntry entry) -> entry.getTitle() == null ? null : entry.getTitle().toLowerCase(Locale.ROOT),
+            Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(StoryIndexEntry::getId);
+    private static final Comparator<StoryIndexEntry> LONGEST_FIRST = Comparator
+        .comparingDouble(StoryIndexEntry::getDuration).reversed()
+        .thenComparing(StoryIndexEntry::getId);
+
     private final ObjectMapper objectMapper;
+    private final FileStorageService fileStorageService;
     
     @Value("${storage.root}")
     private String storageRoot;
     
     private Path indexFilePath;
+    private Path logFilePath;
+
+    private final Map<String, StoryIndexEntry> entriesById = new ConcurrentHashMap<>();
+    private final NavigableSet<StoryIndexEntry> entriesByDate = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final NavigableSet<StoryIndexEntry> entriesByTitle = new ConcurrentSkipListSet<>(BY_TITLE);
+    private final NavigableSet<StoryIndexEntry> entriesByDuration = new ConcurrentSkipListSet<>(LONGEST_FIRST);
+    // Facet value to the ids of the stories that have it
+    private final Map<StoryFacet, Map<String, Set<String>>> facetIndex = new EnumMap<>(StoryFacet.class);
+    {
+        for (StoryFacet facet : StoryFacet.values()) {
+            facetIndex.put(facet, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Guarded by this: the open log and the number of changes appended since the last compaction
+    private FileChannel logChannel;
+    private int loggedChanges;
     
     @PostConstruct
-    public void initializeIndex() {
-        this.indexFilePath = Paths.get(storageRoot, "story-index.json");
+    public synchronized void initializeIndex() {
+        this.indexFilePath = Paths.get(storageRoot, INDEX_FILE);
+        this.logFilePath = Paths.get(storageRoot, LOG_FILE);
+        entriesById.clear();
+        entriesByDate.clear();
+        entriesByTitle.clear();
+        entriesByDuration.clear();
+        facetIndex.values().forEach(Map::clear);
         
         if (!Files.exists(indexFilePath)) {
             log.info("Story index not found, scanning existing stories...");
             rebuildIndexFromStorage();
         } else {
             log.info("Story index found at: {}", indexFilePath.toAbsolutePath());
+            Optional<List<StoryIndexEntry>> snapshot = loadSnapshot();
+            if (snapshot.isPresent()) {
+                snapshot.get().forEach(this::put);
+            } else {
+                // Rebuild from the story files rather than compacting an empty index over the snapshot
+                setAsideSnapshot();
+                rebuildIndexFromStorage();
+            }
+            loggedChanges = replayLog();
         }
+
+        // Start from a fresh snapshot and an empty log
+        compact();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        compactIfChanged();
+        closeLog();
     }
     
     /**
-     * Loads the story index from the JSON file.
-     * Returns an empty list if the file doesn't exist.
-     * 
-     * @return List of story index entries
+     * Folds the change log into the snapshot when anything changed since the last compaction.
      */
-    private List<StoryIndexEntry> loadIndex() {
-        try {
-            if (!Files.exists(indexFilePath)) {
-                log.debug("Index file does not exist, returning empty list");
-                return new ArrayList<>();
-            }
-            
-            List<StoryIndexEntry> entries = objectMapper.readValue(
-                indexFilePath.toFile(), 
-                new TypeReference<List<StoryIndexEntry>>() {}
-            );
-            
-            log.debug("Loaded {} entries from index", entries.size());
-            return entries;
-            
-        } catch (FileNotFoundException e) {
-            log.debug("Index file not found, returning empty list");
-            return new ArrayList<>();
-        } catch (IOException e) {
-            log.error("Failed to read story index file", e);
-            return new ArrayList<>();
+    @Scheduled(initialDelayString = "${storage.index.compact-interval:PT1M}", fixedDelayString = "${storage.index.compact-interval:PT1M}")
+    public synchronized void compactIfChanged() {
+        if (loggedChanges > 0) {
+            compact();
         }
     }
     
     /**
-     * Saves the story index to the JSON file with atomic write operation.
-     * Uses a temporary file and atomic move to prevent corruption.
+     * Adds a new story to the index.
      * 
-     * @param entries List of story index entries to save
+     * @param storyId The unique identifier of the story
+     * @param title The title of the story
+     * @param createdAt The creation timestamp
      */
-    private void saveIndex(List<StoryIndexEntry> entries) {
-        try {
-            // Ensure parent directory exists
-            Files.createDirectories(indexFilePath.getParent());
-            
-            // Write to temporary file first
-            Path tempFile = indexFilePath.resolveSibling(indexFilePath.getFileName() + ".tmp");
-            objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValue(tempFile.toFile(), entries);
-            
-            // Atomic move to actual file
-            Files.move(tempFile, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-            
-            log.debug("Saved {} entries to index", entries.size());
-            
-        } catch (IOException e) {
-            log.error("Failed to save story index file", e);
-            throw new RuntimeException("Failed to save story index", e);
-        }
+    public void addStoryToIndex(String storyId, String title, LocalDateTime createdAt) {
+        addStoryToIndex(storyId, title, createdAt, null);
     }
-    
+
     /**
-     * Adds a new story to the index.
-     * Thread-safe operation that loads, appends, and saves atomically.
-     * 
+     * Adds a new story to the index with its library cover thumbnail.
+     *
      * @param storyId The unique identifier of the story
      * @param title The title of the story
      * @param createdAt The creation timestamp
+     * @param thumbnailUrl The cover thumbnail URL, or null if there is none
      */
-    public synchronized void addStoryToIndex(String storyId, String title, LocalDateTime createdAt) {
+    public void addStoryToIndex(String storyId, String title, LocalDateTime createdAt, String thumbnailUrl) {
+        addStoryToIndex(StoryIndexEntry.builder()
+            .id(storyId)
+            .title(title)
+            .createdAt(createdAt)
+            .thumbnailUrl(thumbnailUrl)
+            .build());
+    }
+
+    /**
+     * Adds a new story to the index with all of its facets.
+     *
+     * @param entry The entry to add, usually built with {@link #createEntry}
+     */
+    public synchronized void addStoryToIndex(StoryIndexEntry entry) {
+        String storyId = entry.getId();
         try {
-            List<StoryIndexEntry> entries = loadIndex();
-            
-            // Check if story already exists
-            boolean exists = entries.stream()
-                .anyMatch(entry -> entry.getId().equals(storyId));
-            
-            if (exists) {
+            if (entriesById.containsKey(storyId)) {
                 log.debug("Story {} already exists in index, skipping", storyId);
                 return;
             }
             
-            // Add new entry
-            StoryIndexEntry newEntry = StoryIndexEntry.builder()
-                .id(storyId)
-                .title(title)
-                .createdAt(createdAt)
-                .build();
-            
-            entries.add(newEntry);
-            saveIndex(entries);
+            StoryIndexEntry newEntry = copy(entry);
+            appendToLog(List.of(LogRecord.put(newEntry)));
+            put(newEntry);
             
             log.info("Added story {} to index", storyId);
             
@@ -152,28 +205,37 @@ public class StoryIndexService {
     
     /**
      * Removes a story from the index.
-     * Thread-safe operation that loads, filters, and saves atomically.
      * 
      * @param storyId The unique identifier of the story to remove
      */
     public synchronized void removeStoryFromIndex(String storyId) {
+        removeStoriesFromIndex(List.of(storyId));
+    }
+
+    /**
+     * Removes several stories from the index with a single append to the log.
+     *
+     * @param storyIds The unique identifiers of the stories to remove
+     */
+    public synchronized void removeStoriesFromIndex(Collection<String> storyIds) {
+        List<String> present = storyIds.stream()
+            .distinct()
+            .filter(entriesById::containsKey)
+            .toList();
+
+        if (present.isEmpty()) {
+            log.debug("Stories {} not found in index", storyIds);
+            return;
+        }
+
         try {
-            List<StoryIndexEntry> entries = loadIndex();
-            
-            int originalSize = entries.size();
-            entries.removeIf(entry -> entry.getId().equals(storyId));
-            
-            if (entries.size() < originalSize) {
-                saveIndex(entries);
-                log.info("Removed story {} from index", storyId);
-            } else {
-                log.debug("Story {} not found in index", storyId);
-            }
-            
-        } catch (Exception e) {
-            log.error("Failed to remove story {} from index", storyId, e);
-            throw new RuntimeException("Failed to remove story from index", e);
+            appendToLog(present.stream().map(LogRecord::remove).toList());
+        } catch (IOException e) {
+            log.error("Failed to remove stories {} from index", storyIds, e);
+            throw new RuntimeException("Failed to remove stories from index", e);
         }
+        present.forEach(this::remove);
+        log.info("Removed {} stories from index", present.size());
     }
     
     /**
@@ -182,12 +244,68 @@ public class StoryIndexService {
      * @return List of story index entries, newest first
      */
     public List<StoryIndexEntry> getAllStories() {
-        List<StoryIndexEntry> entries = loadIndex();
+        List<StoryIndexEntry> entries = new ArrayList<>(entriesByDate.size());
+        for (StoryIndexEntry entry : entriesByDate) {
+            entries.add(copy(entry));
+        }
+        return entries;
+    }
         
-        // Sort by createdAt descending (newest first)
-        entries.sort(Comparator.comparing(StoryIndexEntry::getCreatedAt).reversed());
+    /**
+     * Retrieves a single story's index entry.
+     *
+     * @param storyId The unique identifier of the story
+     * @return The entry, or empty if the story is not in the index
+     */
+    public Optional<StoryIndexEntry> getStory(String storyId) {
+        return Optional.ofNullable(entriesById.get(storyId)).map(this::copy);
+    }
         
-        return entries;
+    /**
+     * Adds a story to the index, replacing its entry if it is already there.
+     * Used when a story changed on disk outside the API.
+     *
+     * @param entry The entry to store
+     */
+    public synchronized void updateStoryInIndex(StoryIndexEntry entry) {
+        StoryIndexEntry stored = copy(entry);
+        try {
+            appendToLog(List.of(LogRecord.put(stored)));
+        } catch (IOException e) {
+            log.error("Failed to update story {} in index", entry.getId(), e);
+            throw new RuntimeException("Failed to update story in index", e);
+        }
+        put(stored);
+        log.info("Updated story {} in index", entry.getId());
+    }
+
+    /**
+     * Builds the index entry for a story from its metadata and the files in its directory.
+     *
+     * @param story The story metadata
+     * @param storyDir The story's directory
+     * @return The index entry
+     */
+    public StoryIndexEntry createEntry(Story story, Path storyDir) {
+        List<StoryPage> pages = story.getPages() == null ? List.of() : story.getPages();
+        StoryIndexEntry.StoryIndexEntryBuilder entry = StoryIndexEntry.builder()
+            .id(story.getId())
+            .title(story.getTitle())
+            .createdAt(story.getCreatedAt())
+            .thumbnailUrl(Files.exists(storyDir.resolve(THUMBNAIL_PATH))
+                ? fileStorageService.getThumbnailUrl(story.getId())
+                : null)
+            .status(story.getStatus())
+            .pageCount(pages.size())
+            .duration(pages.stream().mapToDouble(StoryPage::getDuration).sum());
+
+        if (story.getInput() != null) {
+            entry.theme(story.getInput().getTheme())
+                .mood(story.getInput().getMood())
+                .voiceType(story.getInput().getVoiceType())
+                .timePeriod(story.getInput().getTimePeriod());
+        }
+        return entry.build();
     }
     
     /**
@@ -197,13 +315,303 @@ public class StoryIndexService {
      * @return true if the story exists in the index, false otherwise
      */
     public boolean storyExists(String storyId) {
-        List<StoryIndexEntry> entries = loadIndex();
-        return entries.stream()
-            .anyMatch(entry -> entry.getId().equals(storyId));
+        return entriesById.containsKey(storyId);
+    }
+
+    /**
+     * Number of stories in the index.
+     *
+     * @return The story count
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Retrieves stories in the given order, resuming after a previous position.
+     * Small id sets are sorted directly; otherwise the sorted index for the order is walked from the position.
+     *
+     * @param sort The order to list in
+     * @param after The last entry already seen (only its sort key and id are used), or null to start at the beginning
+     * @param storyIds The stories to include, or null for all
+     * @param limit Maximum number of entries to return
+     * @return Copies of the matching entries in order
+     */
+    public List<StoryIndexEntry> getStories(StorySort sort, StoryIndexEntry after, Set<String> storyIds, int limit) {
+        NavigableSet<StoryIndexEntry> view = sortedView(sort);
+        Comparator<? super StoryIndexEntry> order = view.comparator();
+        List<StoryIndexEntry> page = new ArrayList<>(Math.min(limit, 64));
+
+        if (storyIds != null && storyIds.size() < entriesById.size() / 8) {
+            List<StoryIndexEntry> selected = new ArrayList<>(storyIds.size());
+            for (String storyId : storyIds) {
+                StoryIndexEntry entry = entriesById.get(storyId);
+                if (entry != null && (after == null || order.compare(entry, after) > 0)) {
+                    selected.add(entry);
+                }
+            }
+            selected.sort(order);
+            selected.stream().limit(limit).map(this::copy).forEach(page::add);
+            return page;
+        }
+
+        for (StoryIndexEntry entry : after == null ? view : view.tailSet(after, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (storyIds == null || storyIds.contains(entry.getId())) {
+                page.add(copy(entry));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Counts the stories having each value of a facet.
+     *
+     * @param facet The facet to count
+     * @return Story count per normalized facet value
+     */
+    public Map<String, Integer> getFacetCounts(StoryFacet facet) {
+        Map<String, Integer> counts = new HashMap<>();
+        facetIndex.get(facet).forEach((value, storyIds) -> {
+            if (!storyIds.isEmpty()) {
+                counts.put(value, storyIds.size());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Retrieves the ids of the stories having a facet value.
+     *
+     * @param facet The facet to look in
+     * @param value The value to match, case-insensitively
+     * @return A copy of the matching story ids
+     */
+    public Set<String> getStoryIdsWithFacet(StoryFacet facet, String value) {
+        Set<String> storyIds = facetIndex.get(facet).get(StoryFacet.normalize(value));
+        return storyIds == null ? new HashSet<>() : new HashSet<>(storyIds);
+    }
+
+    /**
+     * Retrieves a story's normalized facet value without copying its entry.
+     *
+     * @param storyId The unique identifier of the story
+     * @param facet The facet to read
+     * @return The value, or null if the story is not indexed or has no value for the facet
+     */
+    public String getFacetValue(String storyId, StoryFacet facet) {
+        StoryIndexEntry entry = entriesById.get(storyId);
+        return entry == null ? null : facet.valueOf(entry);
+    }
+
+    private NavigableSet<StoryIndexEntry> sortedView(StorySort sort) {
+        return switch (sort) {
+            case NEWEST -> entriesByDate;
+            case OLDEST -> entriesByDate.descendingSet();
+            case TITLE -> entriesByTitle;
+            case LONGEST -> entriesByDuration;
+            case SHORTEST -> entriesByDuration.descendingSet();
+        };
+    }
+
+    private void put(StoryIndexEntry entry) {
+        StoryIndexEntry previous = entriesById.put(entry.getId(), entry);
+        if (previous != null) {
+            unindex(previous);
+        }
+        entriesByDate.add(entry);
+        entriesByTitle.add(entry);
+        entriesByDuration.add(entry);
+        for (StoryFacet facet : StoryFacet.values()) {
+            String value = facet.valueOf(entry);
+            if (value != null) {
+                facetIndex.get(facet).computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+            }
+        }
+    }
+
+    private void remove(String storyId) {
+        StoryIndexEntry previous = entriesById.remove(storyId);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * Drops an entry from the secondary indexes; changes are serialized by this, so an emptied value set can be dropped.
+     */
+    private void unindex(StoryIndexEntry entry) {
+        entriesByDate.remove(entry);
+        entriesByTitle.remove(entry);
+        entriesByDuration.remove(entry);
+        for (StoryFacet facet : StoryFacet.values()) {
+            String value = facet.valueOf(entry);
+            if (value != null) {
+                Map<String, Set<String>> values = facetIndex.get(facet);
+                Set<String> storyIds = values.get(value);
+                if (storyIds != null) {
+                    storyIds.remove(entry.getId());
+                    if (storyIds.isEmpty()) {
+                        values.remove(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries are handed out and stored as copies, so callers can't reorder the sorted sets by mutating them.
+     */
+    private StoryIndexEntry copy(StoryIndexEntry entry) {
+        return entry.toBuilder().build();
+    }
+
+    /**
+     * Loads the snapshot written by the last compaction.
+     *
+     * @return List of story index entries, or empty if the snapshot can't be read
+     */
+    private Optional<List<StoryIndexEntry>> loadSnapshot() {
+        try {
+            List<StoryIndexEntry> entries = objectMapper.readValue(
+                indexFilePath.toFile(),
+                new TypeReference<List<StoryIndexEntry>>() {}
+            );
+
+            log.debug("Loaded {} entries from index", entries == null ? 0 : entries.size());
+            return Optional.ofNullable(entries);
+
+        } catch (IOException e) {
+            log.error("Failed to read story index file", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Keeps an unreadable snapshot as story-index.json.corrupt-&lt;millis&gt; so the next compaction doesn't replace it.
+     */
+    private void setAsideSnapshot() {
+        Path corrupt = indexFilePath.resolveSibling(indexFilePath.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try {
+            Files.move(indexFilePath, corrupt);
+            log.warn("Moved unreadable story index to {}", corrupt);
+        } catch (IOException e) {
+            log.error("Failed to move unreadable story index aside", e);
+        }
+    }
+
+    /**
+     * Applies the changes logged since the last snapshot. Replaying is idempotent, so a crash between
+     * writing a snapshot and truncating the log is harmless. A torn last line from a crash mid-append is skipped.
+     *
+     * @return The number of changes applied
+     */
+    private int replayLog() {
+        if (!Files.exists(logFilePath)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logFilePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    LogRecord record = objectMapper.readValue(line, LogRecord.class);
+                    if (OP_PUT.equals(record.op()) && record.entry() != null) {
+                        put(record.entry());
+                    } else if (OP_REMOVE.equals(record.op()) && record.id() != null) {
+                        remove(record.id());
+                    }
+                    applied++;
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable story index log line: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read story index log", e);
+        }
+
+        log.debug("Replayed {} changes from index log", applied);
+        return applied;
+    }
+
+    /**
+     * Appends changes to the log as one write, one compact JSON line per change.
+     */
+    private void appendToLog(List<LogRecord> records) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        StringBuilder lines = new StringBuilder();
+        for (LogRecord record : records) {
+            lines.append(writer.writeValueAsString(record)).append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        FileChannel channel = openLog();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // The log is the only durable copy until the next compaction, so it has to reach the disk
+        channel.force(false);
+        loggedChanges += records.size();
+    }
+
+    private FileChannel openLog() throws IOException {
+        if (logChannel == null || !logChannel.isOpen()) {
+            Files.createDirectories(logFilePath.getParent());
+            logChannel = FileChannel.open(logFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return logChannel;
+    }
+
+    private void closeLog() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close story index log", e);
+            }
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Writes the in-memory index as a new snapshot with an atomic move, then empties the log.
+     */
+    private void compact() {
+        try {
+            // Ensure parent directory exists
+            Files.createDirectories(indexFilePath.getParent());
+
+            // Write to temporary file first
+            List<StoryIndexEntry> entries = new ArrayList<>(entriesByDate);
+            Path tempFile = indexFilePath.resolveSibling(indexFilePath.getFileName() + ".tmp");
+            // Compact JSON: the snapshot is rewritten on every compaction and only ever read back by this service
+            objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(tempFile.toFile(), entries);
+
+            // Atomic move to actual file
+            Files.move(tempFile, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Everything logged so far is in the snapshot now
+            openLog().truncate(0);
+            loggedChanges = 0;
+
+            log.debug("Compacted story index with {} entries", entries.size());
+
+        } catch (IOException e) {
+            // The log still holds every change, so nothing is lost; the next compaction retries
+            log.error("Failed to compact story index", e);
+        }
     }
     
     /**
-     * Rebuilds the index by scanning the storage directory for existing stories.
+     * Rebuilds the index by scanning the storage directory for existing stories, then adding
+     * archived stories from their archives without restoring them.
      * Called automatically if the index file doesn't exist on startup.
      */
     private void rebuildIndexFromStorage() {
@@ -212,15 +620,11 @@ public class StoryIndexService {
             
             if (!Files.exists(storageDir)) {
                 log.info("Storage directory does not exist, creating empty index");
-                saveIndex(new ArrayList<>());
                 return;
             }
             
-            List<StoryIndexEntry> entries = new ArrayList<>();
-            
-            // Scan all directories in storage
-            try (Stream<Path> paths = Files.list(storageDir)) {
-                paths.filter(Files::isDirectory)
+            // Scan all story directories in storage, flat or sharded
+            StoryLayout.findStoryDirectories(storageDir)
                     .forEach(storyDir -> {
                         try {
                             Path storyJsonPath = storyDir.resolve("story.json");
@@ -232,29 +636,51 @@ public class StoryIndexService {
                                 Story story = mapper.readValue(storyJsonPath.toFile(), Story.class);
                                 
                                 // Add to index
-                                StoryIndexEntry entry = StoryIndexEntry.builder()
-                                    .id(story.getId())
-                                    .title(story.getTitle())
-                                    .createdAt(story.getCreatedAt())
-                                    .build();
-                                
-                                entries.add(entry);
+                                put(createEntry(story, storyDir));
                                 log.debug("Added story {} to rebuilt index", story.getId());
                             }
                         } catch (Exception e) {
                             log.warn("Failed to load story from directory: {}", storyDir, e);
                         }
                     });
+
+            // Archived stories have no directory: read story.json straight from the archive
+            StoryArchive archive = fileStorageService.getStoryArchive();
+            for (String storyId : archive.list()) {
+                if (entriesById.containsKey(storyId) || fileStorageService.isDeleted(storyId)) {
+                    continue;
+                }
+                try {
+                    StoryIndexEntry entry = createEntry(fileStorageService.peekStory(storyId), fileStorageService.getStoryDirectory(storyId));
+                    if (archive.readEntry(storyId, THUMBNAIL_PATH).isPresent()) {
+                        entry.setThumbnailUrl(fileStorageService.getThumbnailUrl(storyId));
+                    }
+                    put(entry);
+                    log.debug("Added archived story {} to rebuilt index", storyId);
+                } catch (Exception e) {
+                    log.warn("Failed to load archived story: {}", storyId, e);
+                }
             }
             
-            // Save the rebuilt index
-            saveIndex(entries);
-            log.info("Rebuilt index with {} stories", entries.size());
+            log.info("Rebuilt index with {} stories", entriesById.size());
             
         } catch (IOException e) {
             log.error("Failed to rebuild index from storage", e);
-            // Create empty index as fallback
-            saveIndex(new ArrayList<>());
+        }
+    }
+
+    /**
+     * One line of the change log: a put carries the whole entry, a remove only the id.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record LogRecord(String op, StoryIndexEntry entry, String id) {
+
+        static LogRecord put(StoryIndexEntry entry) {
+            return new LogRecord(OP_PUT, entry, null);
+        }
+
+        static LogRecord remove(String storyId) {
+            return new LogRecord(OP_REMOVE, null, storyId);
         }
     }
 }
@@ -2,24 +2,43 @@ package com.frankenstein.story.service;
 
 import com.frankenstein.story.exception.StoryGenerationException;
 import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryIndexEntry;
 import com.frankenstein.story.model.StoryInput;
 import com.frankenstein.story.model.StoryStatus;
 import com.frankenstein.story.model.StoryStructure;
 import com.frankenstein.story.model.orchestration.AudioSet;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.service.media.ImageTranscodingService;
+import com.frankenstein.story.service.media.ThumbnailService;
+import com.frankenstein.story.service.metrics.GenerationMetricsService;
 import com.frankenstein.story.service.orchestration.AudioOrchestrationService;
 import com.frankenstein.story.service.orchestration.ImageOrchestrationService;
 import com.frankenstein.story.service.orchestration.ProgressCoordinatorService;
 import com.frankenstein.story.service.orchestration.StoryAssemblyService;
+import com.frankenstein.story.service.search.StorySearchService;
+import com.frankenstein.story.service.storage.AssetWriteService;
+import com.frankenstein.story.service.storage.HotAssetCacheService;
+import com.frankenstein.story.service.storage.StoryAccessTracker;
+import com.frankenstein.story.service.storage.StoryReaperService;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Orchestrates the entire story generation workflow
@@ -38,16 +57,31 @@ public class StoryOrchestrationService {
    private final FileStorageService fileStorageService;
    private final ProgressCoordinatorService progressCoordinator;
    private final StoryIndexService storyIndexService;
-
-   // In-memory storage for story status
+   private final GenerationMetricsService generationMetrics;
+   private final StoryTimelineService storyTimeline;
+   private final ThumbnailService thumbnailService;
+   private final AssetWriteService assetWriteService;
+   private final HotAssetCacheService hotAssetCache;
+   private final StoryAccessTracker accessTracker;
+   private final StoryReaperService storyReaper;
+   private final StorySearchService storySearchService;
+   private final ImageTranscodingService imageTranscodingService;
+
+   // Stories still generating; each is dropped once its final state is written to disk
    private final ConcurrentHashMap<String, Story> activeStories = new ConcurrentHashMap<>();
 
+   @PostConstruct
+   public void registerMetrics() {
+      generationMetrics.registerActiveStoriesGauge(() -> activeStories.values().stream().filter(story -> !isTerminal(story.getStatus())).count());
+   }
+
    public String initiateStoryGeneration(final StoryInput input) {
       final String storyId = UUID.randomUUID().toString();
 
       final Story story = Story.builder().id(storyId).input(input).status(StoryStatus.PENDING).createdAt(LocalDateTime.now()).build();
 
       activeStories.put(storyId, story);
+      storyTimeline.start(storyId);
       fileStorageService.createStoryDirectories(storyId);
 
       log.info("Initiated story generation: {}", storyId);
@@ -61,6 +95,13 @@ public class StoryOrchestrationService {
          return CompletableFuture.failedFuture(new StoryGenerationException("Story not found: " + storyId));
       }
 
+      storyTimeline.recordSpan(storyId,
+            TimelineCategory.QUEUE_WAIT,
+            "storyGenerationExecutor",
+            null,
+            story.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+            System.currentTimeMillis());
+
       try {
          progressCoordinator.notifyStarted(storyId);
 
@@ -70,7 +111,8 @@ public class StoryOrchestrationService {
 
          final com.frankenstein.story.model.StoryOutline outline;
          try {
-            outline = storyGenerationService.generateOutline(storyId, story.getInput());
+            outline = runPhase(storyId, GenerationMetricsService.PHASE_OUTLINE,
+                  () -> storyGenerationService.generateOutline(storyId, story.getInput()));
             log.info("Outline generation completed for story: {}", storyId);
          } catch (final Exception e) {
             log.error("Outline generation failed for story: {}", storyId, e);
@@ -82,7 +124,8 @@ public class StoryOrchestrationService {
 
          final StoryStructure structure;
          try {
-            structure = storyGenerationService.generateFullStory(storyId, story.getInput(), outline);
+            structure = runPhase(storyId, GenerationMetricsService.PHASE_FULL_STORY,
+                  () -> storyGenerationService.generateFullStory(storyId, story.getInput(), outline));
             story.setTitle(structure.getTitle());
             log.info("Full story generation completed for story: {}", storyId);
          } catch (final Exception e) {
@@ -94,37 +137,52 @@ public class StoryOrchestrationService {
 
          // Step 3: Generate images in parallel
          story.setStatus(StoryStatus.GENERATING_IMAGES);
-         final List<byte[]> images = imageOrchestrationService.generateAllImages(storyId, structure).join();
+         final List<byte[]> images = runPhase(storyId, GenerationMetricsService.PHASE_IMAGES,
+               () -> imageOrchestrationService.generateAllImages(storyId, structure).join());
 
          progressCoordinator.notifyImagesComplete(storyId);
 
          // Step 4: Generate audio with throttling and selected voice type
          story.setStatus(StoryStatus.GENERATING_AUDIO);
          final String voiceType = story.getInput().getVoiceType();
-         final List<AudioSet> audioSets = audioOrchestrationService.generateAllAudio(storyId, structure, voiceType).join();
+         final List<AudioSet> audioSets = runPhase(storyId, GenerationMetricsService.PHASE_AUDIO,
+               () -> audioOrchestrationService.generateAllAudio(storyId, structure, voiceType).join());
 
          // Step 5: Assemble story
          progressCoordinator.notifyAssembling(storyId);
          story.setStatus(StoryStatus.ASSEMBLING);
 
-         storyAssemblyService.assembleStory(story, structure, images, audioSets);
+         runPhase(storyId, GenerationMetricsService.PHASE_ASSEMBLY, () -> {
+            storyAssemblyService.assembleStory(story, structure, images, audioSets);
+            return story;
+         });
 
-         // Step 6: Save and complete
+         // Step 6: Make assets durable, then save and complete
+         assetWriteService.flush(storyId);
          story.setStatus(StoryStatus.COMPLETED);
          story.setCompletedAt(LocalDateTime.now());
 
-         fileStorageService.saveStoryMetadata(story);
+         saveStoryMetadata(story);
+         retire(storyId);
+         storyTimeline.complete(storyId);
          progressCoordinator.notifyComplete(storyId);
 
          // Update story index
          try {
-            storyIndexService.addStoryToIndex(story.getId(), story.getTitle(), story.getCreatedAt());
+            final String thumbnailUrl = thumbnailService.generateCoverThumbnail(storyId).orElse(null);
+            final StoryIndexEntry entry = storyIndexService.createEntry(story, fileStorageService.getStoryDirectory(storyId));
+            entry.setThumbnailUrl(thumbnailUrl);
+            storyIndexService.addStoryToIndex(entry);
+            storySearchService.indexStory(story);
             log.info("Added story to index: {}", storyId);
          } catch (final Exception e) {
             log.error("Failed to update story index for: {}", storyId, e);
             // Don't fail story generation if index update fails
          }
 
+         // Variants are still being transcoded in the background; pack once they are all on disk
+         imageTranscodingService.whenTranscoded(storyId).thenRun(() -> fileStorageService.packAssets(storyId));
+
          log.info("Story generation completed: {}", storyId);
          return CompletableFuture.completedFuture(story);
 
@@ -133,9 +191,19 @@ public class StoryOrchestrationService {
          story.setStatus(StoryStatus.FAILED);
          story.setErrorMessage(e.getMessage());
 
-         fileStorageService.saveStoryMetadata(story);
+         assetWriteService.flush(storyId);
+         saveStoryMetadata(story);
+         retire(storyId);
+         storyTimeline.complete(storyId);
          progressCoordinator.notifyError(storyId, e.getMessage());
 
+         // Failed stories stay in the library listing, which is served from the index
+         try {
+            storyIndexService.addStoryToIndex(storyIndexService.createEntry(story, fileStorageService.getStoryDirectory(storyId)));
+         } catch (final Exception indexFailure) {
+            log.error("Failed to update story index for: {}", storyId, indexFailure);
+         }
+
          return CompletableFuture.failedFuture(e);
       }
    }
@@ -147,36 +215,111 @@ public class StoryOrchestrationService {
          return story;
       }
 
-      // Otherwise load from disk
-      return fileStorageService.loadStory(storyId);
+      // Otherwise load from the parsed-story cache, falling back to disk
+      final Story stored = fileStorageService.loadStory(storyId);
+      accessTracker.recordRead(storyId);
+      return stored;
+   }
+
+   /**
+    * The precompressed story.json for a story that is no longer generating, so it can be served without re-serializing
+    */
+   public Optional<Resource> getPrecompressedStory(final String storyId) {
+      final Story active = activeStories.get(storyId);
+      if (active != null && !isTerminal(active.getStatus())) {
+         return Optional.empty();
+      }
+      final Optional<Resource> precompressed = fileStorageService.loadPrecompressedStory(storyId);
+      precompressed.ifPresent(resource -> accessTracker.recordRead(storyId));
+      return precompressed;
    }
 
-   public List<Story> getAllStories() {
-      return fileStorageService.loadAllStories();
+   /**
+    * Whether the story is still being generated, so its directory must not be reclaimed
+    */
+   public boolean isGenerating(final String storyId) {
+      final Story active = activeStories.get(storyId);
+      return active != null && !isTerminal(active.getStatus());
    }
 
+   /**
+    * Delete a story. Reads fail as soon as this returns; its files are purged in the background.
+    */
    public void deleteStoryWithAssets(final String storyId) {
       log.info("Deleting story with assets: {}", storyId);
+      removeFromIndex(List.of(storyId));
+      trash(storyId);
+      storyReaper.requestPurge();
+   }
 
+   /**
+    * Delete several stories with a single index write
+    *
+    * @return the stories that could not be deleted, with the reason
+    */
+   public Map<String, String> deleteStoriesWithAssets(final Collection<String> storyIds) {
+      log.info("Deleting {} stories with assets", storyIds.size());
+      removeFromIndex(storyIds);
+      final Map<String, String> failures = new LinkedHashMap<>();
+      for (final String storyId : storyIds) {
+         try {
+            trash(storyId);
+         } catch (final StoryGenerationException e) {
+            failures.put(storyId, e.getMessage());
+         }
+      }
+      storyReaper.requestPurge();
+      return failures;
+   }
+
+   private void removeFromIndex(final Collection<String> storyIds) {
       try {
-         // Remove from story index
-         storyIndexService.removeStoryFromIndex(storyId);
-         log.debug("Removed story from index: {}", storyId);
+         storyIndexService.removeStoriesFromIndex(storyIds);
+         storySearchService.removeStories(storyIds);
+         log.debug("Removed stories from index: {}", storyIds);
       } catch (final Exception e) {
-         log.error("Failed to remove story from index: {}", storyId, e);
+         log.error("Failed to remove stories from index: {}", storyIds, e);
          // Continue with file deletion even if index update fails
       }
+   }
 
+   private void trash(final String storyId) {
       try {
-         // Delete story files and directories
-         fileStorageService.deleteStory(storyId);
-         log.info("Deleted story files: {}", storyId);
+         // Tombstone and move the directory aside; the reaper deletes the files
+         fileStorageService.trashStory(storyId);
       } catch (final Exception e) {
          log.error("Failed to delete story files: {}", storyId, e);
          throw new StoryGenerationException("Failed to delete story files: " + e.getMessage(), e);
       }
 
-      // Remove from active stories if present
+      // Remove from active stories and the asset cache if present
       activeStories.remove(storyId);
+      hotAssetCache.evictStory(storyId);
+      accessTracker.forget(storyId);
+   }
+
+   /**
+    * Run a generation phase, recording it both as a metric and as a timeline span
+    */
+   private <T> T runPhase(final String storyId, final String phase, final Supplier<T> action) {
+      return storyTimeline.record(storyId, TimelineCategory.PHASE, phase, null, () -> generationMetrics.recordPhase(phase, action));
+   }
+
+   private void saveStoryMetadata(final Story story) {
+      storyTimeline.record(story.getId(), TimelineCategory.DISK_WRITE, "story.json", null, () -> {
+         fileStorageService.saveStoryMetadata(story);
+         return story;
+      });
+   }
+
+   /**
+    * Stop tracking a finished story in memory; once its final story.json is written, reads are served by the story cache
+    */
+   private void retire(final String storyId) {
+      activeStories.remove(storyId);
+   }
+
+   private boolean isTerminal(final StoryStatus status) {
+      return status == StoryStatus.COMPLETED || status == StoryStatus.FAILED;
    }
 }
@@ -0,0 +1,25 @@
+package com.frankenstein.story.service.export;
+
+import com.frankenstein.story.model.StoryExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service for packaging a completed story and its assets as a downloadable archive
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryExportService {
+
+   /**
+    * Stream a story archive to the given output. Assets are copied through a fixed-size buffer,
+    * so memory use does not grow with story size.
+    *
+    * @param storyId the story identifier
+    * @param format  the archive format
+    * @param out     the destination, typically the HTTP response body; not closed by this method
+    * @throws IOException if writing fails
+    */
+   void export(String storyId, StoryExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,251 @@
+package com.frankenstein.story.service.export;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryExportFormat;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.service.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes ZIP and EPUB archives entry by entry straight to the output stream.
+ * PNG and MP3 data is already compressed, so those entries are STORED: deflating them would cost CPU
+ * for no size gain. Text entries are deflated.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoryExportServiceImpl implements StoryExportService {
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final String STORY_FILE = "story.json";
+   private static final DateTimeFormatter EPUB_MODIFIED = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+   private final FileStorageService fileStorageService;
+
+   @Override
+   public void export(final String storyId, final StoryExportFormat format, final OutputStream out) throws IOException {
+      final Story story = fileStorageService.loadStory(storyId);
+      final long startTime = System.currentTimeMillis();
+
+      final ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+      switch (format) {
+         case ZIP -> writeZip(story, zip);
+         case EPUB -> writeEpub(story, zip);
+      }
+      zip.finish();
+      zip.flush();
+
+      log.info("Exported story {} as {} in {}ms", storyId, format, System.currentTimeMillis() - startTime);
+   }
+
+   private void writeZip(final Story story, final ZipOutputStream zip) throws IOException {
+      putDeflated(zip, STORY_FILE, fileStorageService.loadAssetResource(story.getId(), STORY_FILE));
+
+      for (final StoryPage page : pages(story)) {
+         putStoredIfPresent(zip, story.getId(), fileStorageService.imageAssetPath(page.getPageNumber()));
+         putStoredIfPresent(zip, story.getId(), fileStorageService.narrationAssetPath(page.getPageNumber()));
+      }
+   }
+
+   /**
+    * EPUB 3 container: an uncompressed mimetype entry first, then the package document, navigation,
+    * one XHTML document per page and the page images and narration
+    */
+   private void writeEpub(final Story story, final ZipOutputStream zip) throws IOException {
+      putStored(zip, "mimetype", "application/epub+zip".getBytes(StandardCharsets.US_ASCII));
+      putDeflated(zip, "META-INF/container.xml", """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <container version="1.0" xmlns="urn:oasis:names:tc:opendocument:xmlns:container">
+              <rootfiles>
+                <rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/>
+              </rootfiles>
+            </container>
+            """);
+
+      final List<StoryPage> pages = pages(story);
+      final List<String> manifestItems = new ArrayList<>();
+      final List<String> spineItems = new ArrayList<>();
+      final StringBuilder navItems = new StringBuilder();
+
+      for (final StoryPage page : pages) {
+         final int pageNumber = page.getPageNumber();
+         final boolean hasImage = fileStorageService.assetExists(story.getId(), fileStorageService.imageAssetPath(pageNumber));
+         final boolean hasNarration = fileStorageService.assetExists(story.getId(), fileStorageService.narrationAssetPath(pageNumber));
+
+         putDeflated(zip, "OEBPS/page-" + pageNumber + ".xhtml", pageDocument(story, page, hasImage, hasNarration));
+         manifestItems.add("<item id=\"page-" + pageNumber + "\" href=\"page-" + pageNumber + ".xhtml\" media-type=\"application/xhtml+xml\"/>");
+         spineItems.add("<itemref idref=\"page-" + pageNumber + "\"/>");
+         navItems.append("      <li><a href=\"page-").append(pageNumber).append(".xhtml\">Page ").append(pageNumber).append("</a></li>\n");
+
+         if (hasImage) {
+            putStored(zip, "OEBPS/images/page-" + pageNumber + ".png", story.getId(), fileStorageService.imageAssetPath(pageNumber));
+            manifestItems.add("<item id=\"image-" + pageNumber + "\" href=\"images/page-" + pageNumber + ".png\" media-type=\"image/png\""
+                  + (pageNumber == 1 ? " properties=\"cover-image\"" : "") + "/>");
+         }
+         if (hasNarration) {
+            putStored(zip, "OEBPS/audio/page-" + pageNumber + ".mp3", story.getId(), fileStorageService.narrationAssetPath(pageNumber));
+            manifestItems.add("<item id=\"audio-" + pageNumber + "\" href=\"audio/page-" + pageNumber + ".mp3\" media-type=\"audio/mpeg\"/>");
+         }
+      }
+
+      final String title = escape(story.getTitle() == null ? "Untitled Story" : story.getTitle());
+      putDeflated(zip, "OEBPS/nav.xhtml", """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <html xmlns="http://www.w3.org/1999/xhtml" xmlns:epub="http://www.idpf.org/2007/ops">
+            <head><title>%s</title></head>
+            <body>
+              <nav epub:type="toc">
+                <h1>%s</h1>
+                <ol>
+            %s    </ol>
+              </nav>
+            </body>
+            </html>
+            """.formatted(title, title, navItems));
+
+      final ZonedDateTime modified = (story.getCompletedAt() != null ? story.getCompletedAt().atZone(ZoneId.systemDefault()) : ZonedDateTime.now())
+            .withZoneSameInstant(ZoneOffset.UTC)
+            .truncatedTo(ChronoUnit.SECONDS);
+      putDeflated(zip, "OEBPS/content.opf", """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <package xmlns="http://www.idpf.org/2007/opf" version="3.0" unique-identifier="story-id">
+              <metadata xmlns:dc="http://purl.org/dc/elements/1.1/">
+                <dc:identifier id="story-id">urn:uuid:%s</dc:identifier>
+                <dc:title>%s</dc:title>
+                <dc:language>en</dc:language>
+                <meta property="dcterms:modified">%s</meta>
+              </metadata>
+              <manifest>
+                <item id="nav" href="nav.xhtml" media-type="application/xhtml+xml" properties="nav"/>
+                %s
+              </manifest>
+              <spine>
+                %s
+              </spine>
+            </package>
+            """.formatted(escape(story.getId()), title, EPUB_MODIFIED.format(modified), String.join("\n    ", manifestItems), String.join("\n    ", spineItems)));
+   }
+
+   private String pageDocument(final Story story, final StoryPage page, final boolean hasImage, final boolean hasNarration) {
+      final StringBuilder body = new StringBuilder();
+      if (hasImage) {
+         body.append("  <img src=\"images/page-").append(page.getPageNumber()).append(".png\" alt=\"Illustration for page ").append(page.getPageNumber()).append("\"/>\n");
+      }
+      if (page.getText() != null) {
+         for (final String paragraph : page.getText().split("\\n\\s*\\n|\\n")) {
+            if (!paragraph.isBlank()) {
+               body.append("  <p>").append(escape(paragraph.trim())).append("</p>\n");
+            }
+         }
+      }
+      if (hasNarration) {
+         body.append("  <audio controls=\"controls\" src=\"audio/page-").append(page.getPageNumber()).append(".mp3\"></audio>\n");
+      }
+
+      return """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <html xmlns="http://www.w3.org/1999/xhtml">
+            <head><title>%s - Page %d</title></head>
+            <body>
+            %s</body>
+            </html>
+            """.formatted(escape(story.getTitle() == null ? "Untitled Story" : story.getTitle()), page.getPageNumber(), body);
+   }
+
+   private void putStoredIfPresent(final ZipOutputStream zip, final String storyId, final String assetPath) throws IOException {
+      if (fileStorageService.assetExists(storyId, assetPath)) {
+         putStored(zip, assetPath, storyId, assetPath);
+      }
+   }
+
+   /**
+    * STORED entries need their CRC and size up front, so the asset is read twice through the same small buffer
+    * rather than buffered whole
+    */
+   private void putStored(final ZipOutputStream zip, final String entryName, final String storyId, final String assetPath) throws IOException {
+      final Resource asset = fileStorageService.loadAssetResource(storyId, assetPath);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+
+      final CRC32 crc = new CRC32();
+      long size = 0;
+      try (final InputStream in = asset.getInputStream()) {
+         int read;
+         while ((read = in.read(buffer)) != -1) {
+            crc.update(buffer, 0, read);
+            size += read;
+         }
+      }
+
+      final ZipEntry entry = new ZipEntry(entryName);
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(size);
+      entry.setCompressedSize(size);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      try (final InputStream in = asset.getInputStream()) {
+         int read;
+         while ((read = in.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+         }
+      }
+      zip.closeEntry();
+   }
+
+   private void putStored(final ZipOutputStream zip, final String entryName, final byte[] data) throws IOException {
+      final CRC32 crc = new CRC32();
+      crc.update(data);
+
+      final ZipEntry entry = new ZipEntry(entryName);
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(data.length);
+      entry.setCompressedSize(data.length);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(data);
+      zip.closeEntry();
+   }
+
+   private void putDeflated(final ZipOutputStream zip, final String entryName, final Resource resource) throws IOException {
+      zip.putNextEntry(new ZipEntry(entryName));
+      try (final InputStream in = resource.getInputStream()) {
+         in.transferTo(zip);
+      }
+      zip.closeEntry();
+   }
+
+   private void putDeflated(final ZipOutputStream zip, final String entryName, final String content) throws IOException {
+      zip.putNextEntry(new ZipEntry(entryName));
+      zip.write(content.getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+   }
+
+   private List<StoryPage> pages(final Story story) {
+      return story.getPages() == null ? List.of() : story.getPages();
+   }
+
+   private String escape(final String text) {
+      return HtmlUtils.htmlEscape(text, StandardCharsets.UTF_8.name());
+   }
+}
@@ -0,0 +1,45 @@
+package com.frankenstein.story.service.library;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors for library pages. The fields are written as a JSON array and Base64url-encoded,
+ * so a title can hold any character and a null field stays distinct from an empty one.
+ *
+ * @author alarinel@gmail.com
+ */
+final class LibraryCursors {
+
+   private static final ObjectMapper MAPPER = new ObjectMapper();
+
+   private LibraryCursors() {
+   }
+
+   static String encode(final String... fields) {
+      try {
+         return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(fields));
+      } catch (final JsonProcessingException e) {
+         throw new IllegalStateException("Failed to encode cursor", e);
+      }
+   }
+
+   /**
+    * @throws IllegalArgumentException if the cursor isn't one of ours or doesn't hold the expected number of fields
+    */
+   static String[] decode(final String cursor, final int fieldCount) {
+      final String[] fields;
+      try {
+         fields = MAPPER.readValue(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), String[].class);
+      } catch (final JsonProcessingException | RuntimeException e) {
+         throw new IllegalArgumentException("Malformed cursor", e);
+      }
+      if (fields == null || fields.length != fieldCount) {
+         throw new IllegalArgumentException("Malformed cursor");
+      }
+      return fields;
+   }
+}
@@ -0,0 +1,22 @@
+package com.frankenstein.story.service.library;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Service for telling the browser which page assets the reader will need next, so their downloads overlap with reading
+ *
+ * @author alarinel@gmail.com
+ */
+public interface PreloadHintService {
+
+   /**
+    * Add {@code Link: rel=preload} headers for the images and narration of the pages after {@code currentPage},
+    * and send them ahead of the response as 103 Early Hints when enabled and supported by the server.
+    * Never fails the request: a story that cannot be read simply gets no hints.
+    *
+    * @param storyId     the story identifier
+    * @param currentPage the page being served, or 0 when serving the story itself
+    * @param response    the response to add the headers to
+    */
+   void addPreloadHints(String storyId, int currentPage, HttpServletResponse response);
+}
@@ -0,0 +1,94 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.service.FileStorageService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.ResponseFacade;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.WebUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds preload links from the asset URLs stored on the story's pages, so they match the URLs the reader
+ * requests (including the {@code ?v=} version) and the preloaded responses are reused from the browser cache.
+ * Early Hints are sent through Tomcat's response, since the Servlet API in use has no portable way to send a 103.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class PreloadHintServiceImpl implements PreloadHintService {
+
+   private final FileStorageService fileStorageService;
+   private final boolean enabled;
+   private final int window;
+   private final boolean earlyHints;
+
+   public PreloadHintServiceImpl(final FileStorageService fileStorageService,
+                                 @Value("${http.preload.enabled:true}") final boolean enabled,
+                                 @Value("${http.preload.window:2}") final int window,
+                                 @Value("${http.preload.early-hints:false}") final boolean earlyHints) {
+      this.fileStorageService = fileStorageService;
+      this.enabled = enabled;
+      this.window = window;
+      this.earlyHints = earlyHints;
+   }
+
+   @Override
+   public void addPreloadHints(final String storyId, final int currentPage, final HttpServletResponse response) {
+      if (!enabled || window < 1 || response.isCommitted()) {
+         return;
+      }
+
+      final List<String> links;
+      try {
+         links = preloadLinks(fileStorageService.loadStory(storyId), currentPage);
+      } catch (final RuntimeException e) {
+         // Still generating, deleted or unreadable: serve the response without hints
+         log.debug("No preload hints for story {}: {}", storyId, e.getMessage());
+         return;
+      }
+      if (links.isEmpty()) {
+         return;
+      }
+
+      links.forEach(link -> response.addHeader(HttpHeaders.LINK, link));
+      if (earlyHints) {
+         sendEarlyHints(response);
+      }
+   }
+
+   private List<String> preloadLinks(final Story story, final int currentPage) {
+      final List<String> links = new ArrayList<>();
+      if (story.getPages() == null) {
+         return links;
+      }
+      for (final StoryPage page : story.getPages()) {
+         if (page.getPageNumber() > currentPage && page.getPageNumber() <= currentPage + window) {
+            if (page.getImageUrl() != null) {
+               links.add("<" + page.getImageUrl() + ">; rel=preload; as=image");
+            }
+            if (page.getNarrationUrl() != null) {
+               links.add("<" + page.getNarrationUrl() + ">; rel=preload; as=audio");
+            }
+         }
+      }
+      return links;
+   }
+
+   /**
+    * Send the Link headers set so far as a 103 response; they stay on the final response too
+    */
+   private void sendEarlyHints(final HttpServletResponse response) {
+      final ResponseFacade tomcatResponse = WebUtils.getNativeResponse(response, ResponseFacade.class);
+      if (tomcatResponse != null) {
+         tomcatResponse.sendEarlyHints();
+      }
+   }
+}
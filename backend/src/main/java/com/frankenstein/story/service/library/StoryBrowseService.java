@@ -0,0 +1,29 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.StoryBrowsePage;
+import com.frankenstein.story.model.StoryFacet;
+import com.frankenstein.story.model.StorySort;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for filtering the story library by facets, answered from the story index alone
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryBrowseService {
+
+   /**
+    * Browse one page of the stories matching the filters. A story matches when it has any of the given values
+    * for every filtered facet.
+    *
+    * @param filters the accepted values per facet; facets without values are not filtered on
+    * @param sort    the order to list in
+    * @param cursor  the {@code nextCursor} of the previous page, or null for the first page
+    * @param limit   maximum number of stories on the page
+    * @return the page with the total match count and the counts per facet value
+    * @throws IllegalArgumentException if the cursor is malformed or belongs to a different sort, or the limit is out of range
+    */
+   StoryBrowsePage browse(Map<StoryFacet, List<String>> filters, StorySort sort, String cursor, int limit);
+}
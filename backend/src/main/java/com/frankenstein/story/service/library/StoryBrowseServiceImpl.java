@@ -0,0 +1,184 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryBrowsePage;
+import com.frankenstein.story.model.StoryFacet;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Filters the library with the facet id sets kept by the story index and pages through the index's sorted sets,
+ * so browsing never reads story.json. Values of one facet are OR'd, facets are AND'd.
+ * Index entries written before facets were indexed are filled in from story.json once, on the storage maintenance thread.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StoryBrowseServiceImpl implements StoryBrowseService {
+
+   static final int MAX_LIMIT = 100;
+
+   private final StoryIndexService storyIndexService;
+   private final FileStorageService fileStorageService;
+   private final Executor maintenanceExecutor;
+
+   public StoryBrowseServiceImpl(final StoryIndexService storyIndexService,
+                                 final FileStorageService fileStorageService,
+                                 @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor) {
+      this.storyIndexService = storyIndexService;
+      this.fileStorageService = fileStorageService;
+      this.maintenanceExecutor = maintenanceExecutor;
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void startBackfill() {
+      maintenanceExecutor.execute(this::backfill);
+   }
+
+   /**
+    * Fill in the facets of index entries that predate them. Entries without a status were never built from story.json.
+    */
+   void backfill() {
+      int updated = 0;
+      for (final StoryIndexEntry entry : storyIndexService.getAllStories()) {
+         if (entry.getStatus() != null) {
+            continue;
+         }
+         try {
+            final Story story = fileStorageService.peekStory(entry.getId());
+            final StoryIndexEntry filled = storyIndexService.createEntry(story, fileStorageService.getStoryDirectory(entry.getId()));
+            // Skip stories deleted while this pass ran, so they are not put back
+            if (storyIndexService.storyExists(entry.getId())) {
+               storyIndexService.updateStoryInIndex(filled);
+               updated++;
+            }
+         } catch (final RuntimeException e) {
+            log.warn("Failed to fill in facets for story {}", entry.getId(), e);
+         }
+      }
+      if (updated > 0) {
+         log.info("Filled in facets for {} indexed stories", updated);
+      }
+   }
+
+   @Override
+   public StoryBrowsePage browse(final Map<StoryFacet, List<String>> filters, final StorySort sort, final String cursor, final int limit) {
+      if (limit < 1 || limit > MAX_LIMIT) {
+         throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+      }
+
+      final Map<StoryFacet, Set<String>> matches = new EnumMap<>(StoryFacet.class);
+      filters.forEach((facet, values) -> {
+         final List<String> accepted = values == null ? List.of() : values.stream().map(StoryFacet::normalize).filter(Objects::nonNull).toList();
+         if (!accepted.isEmpty()) {
+            final Set<String> storyIds = new HashSet<>();
+            accepted.forEach(value -> storyIds.addAll(storyIndexService.getStoryIdsWithFacet(facet, value)));
+            matches.put(facet, storyIds);
+         }
+      });
+
+      final Set<String> selected = intersect(matches, null);
+      final StoryIndexEntry after = cursor == null || cursor.isBlank() ? null : decodeCursor(sort, cursor);
+      final List<StoryIndexEntry> found = storyIndexService.getStories(sort, after, selected, limit + 1);
+      final List<StoryIndexEntry> items = found.subList(0, Math.min(limit, found.size()));
+      final String nextCursor = found.size() > limit ? encodeCursor(sort, items.get(items.size() - 1)) : null;
+
+      return StoryBrowsePage.builder()
+                            .items(items)
+                            .nextCursor(nextCursor)
+                            .sort(sort)
+                            .total(selected == null ? storyIndexService.size() : selected.size())
+                            .facets(countFacets(matches))
+                            .build();
+   }
+
+   /**
+    * Each facet is counted over the stories matching every other facet's filter, so its own values stay selectable
+    */
+   private Map<String, Map<String, Integer>> countFacets(final Map<StoryFacet, Set<String>> matches) {
+      final Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+      for (final StoryFacet facet : StoryFacet.values()) {
+         final Set<String> others = intersect(matches, facet);
+         if (others == null) {
+            facets.put(facet.getValue(), storyIndexService.getFacetCounts(facet));
+            continue;
+         }
+         final Map<String, Integer> counts = new HashMap<>();
+         for (final String storyId : others) {
+            final String value = storyIndexService.getFacetValue(storyId, facet);
+            if (value != null) {
+               counts.merge(value, 1, Integer::sum);
+            }
+         }
+         facets.put(facet.getValue(), counts);
+      }
+      return facets;
+   }
+
+   /**
+    * The stories matching every facet filter except {@code skipped}, or null when nothing is filtered
+    */
+   private Set<String> intersect(final Map<StoryFacet, Set<String>> matches, final StoryFacet skipped) {
+      Set<String> result = null;
+      for (final Map.Entry<StoryFacet, Set<String>> match : matches.entrySet()) {
+         if (match.getKey() == skipped) {
+            continue;
+         }
+         if (result == null) {
+            result = new HashSet<>(match.getValue());
+         } else {
+            result.retainAll(match.getValue());
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Cursors carry the sort and the last item's sort key, so a page boundary stays stable while stories are added or deleted
+    */
+   private String encodeCursor(final StorySort sort, final StoryIndexEntry last) {
+      return LibraryCursors.encode(sort.getValue(),
+            last.getCreatedAt() == null ? null : last.getCreatedAt().toString(),
+            Double.toString(last.getDuration()),
+            last.getTitle(),
+            last.getId());
+   }
+
+   private StoryIndexEntry decodeCursor(final StorySort sort, final String cursor) {
+      final String[] parts = LibraryCursors.decode(cursor, 5);
+      final StoryIndexEntry after;
+      try {
+         after = StoryIndexEntry.builder()
+                                .createdAt(parts[1] == null ? null : LocalDateTime.parse(parts[1]))
+                                .duration(Double.parseDouble(parts[2]))
+                                .title(parts[3])
+                                .id(Objects.requireNonNull(parts[4]))
+                                .build();
+      } catch (final RuntimeException e) {
+         throw new IllegalArgumentException("Malformed cursor", e);
+      }
+      if (!sort.getValue().equals(parts[0])) {
+         throw new IllegalArgumentException("Cursor was issued for sort '" + parts[0] + "'");
+      }
+      return after;
+   }
+}
@@ -0,0 +1,25 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.StoryListPage;
+import com.frankenstein.story.model.StoryProjection;
+import com.frankenstein.story.model.StorySort;
+
+/**
+ * Service for paging through the story library without loading every story
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryListingService {
+
+   /**
+    * List one page of stories. Only the stories on the requested page are loaded.
+    *
+    * @param sort   the order to list in
+    * @param cursor the {@code nextCursor} of the previous page, or null for the first page
+    * @param limit  maximum number of stories on the page
+    * @param view   summary or full stories
+    * @return the page, with a cursor for the next one when more stories remain
+    * @throws IllegalArgumentException if the cursor is malformed or belongs to a different sort, or the limit is out of range
+    */
+   StoryListPage<?> listStories(StorySort sort, String cursor, int limit, StoryProjection view);
+}
@@ -0,0 +1,118 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryListPage;
+import com.frankenstein.story.model.StoryProjection;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.model.StorySummary;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Pages through the library using keyset cursors. Pages are read from the story index's in-memory sorted sets,
+ * resuming after the cursor, so listing neither scans the storage directory nor sorts the whole library.
+ * Only the stories on the requested page are loaded, in parallel on the storyListingExecutor.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StoryListingServiceImpl implements StoryListingService {
+
+   static final int MAX_LIMIT = 100;
+
+   private final FileStorageService fileStorageService;
+   private final StoryIndexService storyIndexService;
+   private final Executor listingExecutor;
+
+   public StoryListingServiceImpl(final FileStorageService fileStorageService,
+                                  final StoryIndexService storyIndexService,
+                                  @Qualifier("storyListingExecutor") final Executor listingExecutor) {
+      this.fileStorageService = fileStorageService;
+      this.storyIndexService = storyIndexService;
+      this.listingExecutor = listingExecutor;
+   }
+
+   @Override
+   public StoryListPage<?> listStories(final StorySort sort, final String cursor, final int limit, final StoryProjection view) {
+      if (limit < 1 || limit > MAX_LIMIT) {
+         throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+      }
+
+      final StoryIndexEntry after = cursor == null || cursor.isBlank() ? null : decodeCursor(sort, cursor);
+      final List<StoryIndexEntry> found = storyIndexService.getStories(sort, after, null, limit + 1);
+      final List<StoryIndexEntry> page = found.subList(0, Math.min(limit, found.size()));
+
+      final List<CompletableFuture<Object>> loads = page.stream()
+                                                        .map(entry -> CompletableFuture.supplyAsync(() -> load(entry, view), listingExecutor))
+                                                        .toList();
+      final List<Object> items = loads.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+
+      final String nextCursor = found.size() > limit ? encodeCursor(sort, page.get(page.size() - 1)) : null;
+      return StoryListPage.builder().items(items).nextCursor(nextCursor).sort(sort).view(view).build();
+   }
+
+   private Object load(final StoryIndexEntry entry, final StoryProjection view) {
+      try {
+         final Story story = fileStorageService.loadStory(entry.getId());
+         return view == StoryProjection.FULL ? story : summarize(story, entry.getThumbnailUrl());
+      } catch (final Exception e) {
+         log.warn("Failed to load story {} for listing", entry.getId(), e);
+         return null;
+      }
+   }
+
+   private StorySummary summarize(final Story story, final String thumbnailUrl) {
+      return StorySummary.builder()
+                         .id(story.getId())
+                         .title(story.getTitle())
+                         .status(story.getStatus())
+                         .characterName(story.getInput() == null ? null : story.getInput().getCharacterName())
+                         .theme(story.getInput() == null ? null : story.getInput().getTheme())
+                         .pageCount(story.getPages() == null ? 0 : story.getPages().size())
+                         .createdAt(story.getCreatedAt())
+                         .completedAt(story.getCompletedAt())
+                         .thumbnailUrl(thumbnailUrl)
+                         .build();
+   }
+
+   /**
+    * Cursors carry the sort and the last item's sort key, so a page boundary stays stable while stories are added or deleted
+    */
+   private String encodeCursor(final StorySort sort, final StoryIndexEntry last) {
+      return LibraryCursors.encode(sort.getValue(),
+            last.getCreatedAt() == null ? null : last.getCreatedAt().toString(),
+            Double.toString(last.getDuration()),
+            last.getTitle(),
+            last.getId());
+   }
+
+   private StoryIndexEntry decodeCursor(final StorySort sort, final String cursor) {
+      final String[] parts = LibraryCursors.decode(cursor, 5);
+      final StoryIndexEntry after;
+      try {
+         after = StoryIndexEntry.builder()
+                                .createdAt(parts[1] == null ? null : LocalDateTime.parse(parts[1]))
+                                .duration(Double.parseDouble(parts[2]))
+                                .title(parts[3])
+                                .id(Objects.requireNonNull(parts[4]))
+                                .build();
+      } catch (final RuntimeException e) {
+         throw new IllegalArgumentException("Malformed cursor", e);
+      }
+      if (!sort.getValue().equals(parts[0])) {
+         throw new IllegalArgumentException("Cursor was issued for sort '" + parts[0] + "'");
+      }
+      return after;
+   }
+}
@@ -0,0 +1,20 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.StoryAssetManifest;
+
+/**
+ * Service for describing every asset of a story up front, so clients can prefetch them
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryManifestService {
+
+   /**
+    * Build the asset manifest of a story. Assets that are not written yet (while generating) are left out.
+    *
+    * @param storyId the story identifier
+    * @return the manifest
+    * @throws com.frankenstein.story.exception.StoryNotFoundException if the story does not exist
+    */
+   StoryAssetManifest getManifest(String storyId);
+}
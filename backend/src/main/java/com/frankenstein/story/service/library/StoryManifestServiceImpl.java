@@ -0,0 +1,98 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryAssetManifest;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Builds story asset manifests from the per-story asset descriptors, so sizes and hashes come from
+ * assets.json (or the pack index) rather than from reading asset files.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoryManifestServiceImpl implements StoryManifestService {
+
+   private static final String IMAGE_PNG = "image/png";
+   private static final String IMAGE_JPEG = "image/jpeg";
+   private static final String AUDIO_MPEG = "audio/mpeg";
+   private static final int VERSION_LENGTH = 16;
+
+   private final StoryOrchestrationService orchestrationService;
+   private final FileStorageService fileStorageService;
+
+   @Override
+   public StoryAssetManifest getManifest(final String storyId) {
+      final Story story = orchestrationService.getStory(storyId);
+
+      final List<StoryAssetManifest.Asset> assets = new ArrayList<>();
+      addAsset(assets, storyId, fileStorageService.thumbnailAssetPath(), IMAGE_JPEG, null);
+      if (story.getPages() != null) {
+         for (final StoryPage page : story.getPages()) {
+            addAsset(assets, storyId, fileStorageService.imageAssetPath(page.getPageNumber()), IMAGE_PNG, page.getPageNumber());
+            addAsset(assets, storyId, fileStorageService.narrationAssetPath(page.getPageNumber()), AUDIO_MPEG, page.getPageNumber());
+         }
+      }
+
+      return StoryAssetManifest.builder()
+                               .storyId(storyId)
+                               .version(version(story, assets))
+                               .status(story.getStatus())
+                               .totalBytes(assets.stream().mapToLong(StoryAssetManifest.Asset::getSize).sum())
+                               .assets(assets)
+                               .build();
+   }
+
+   private void addAsset(final List<StoryAssetManifest.Asset> assets,
+                         final String storyId,
+                         final String assetPath,
+                         final String mimeType,
+                         final Integer pageNumber) {
+      if (!fileStorageService.assetExists(storyId, assetPath)) {
+         return;
+      }
+      try {
+         final AssetDescriptor descriptor = fileStorageService.getAssetDescriptor(storyId, assetPath);
+         assets.add(StoryAssetManifest.Asset.builder()
+                                            .url(fileStorageService.getAssetUrl(storyId, descriptor))
+                                            .path(assetPath)
+                                            .size(descriptor.getSize())
+                                            .sha256(descriptor.getSha256())
+                                            .mimeType(mimeType)
+                                            .pageNumber(pageNumber)
+                                            .build());
+      } catch (final IOException e) {
+         // Removed between the existence check and the lookup; leave it out rather than fail the manifest
+         log.warn("Failed to describe asset {} for story {}", assetPath, storyId, e);
+      }
+   }
+
+   private String version(final Story story, final List<StoryAssetManifest.Asset> assets) {
+      try {
+         final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update((story.getStatus() + "\n").getBytes(StandardCharsets.UTF_8));
+         for (final StoryAssetManifest.Asset asset : assets) {
+            digest.update((asset.getPath() + ":" + asset.getSha256() + "\n").getBytes(StandardCharsets.UTF_8));
+         }
+         return HexFormat.of().formatHex(digest.digest()).substring(0, VERSION_LENGTH);
+      } catch (final NoSuchAlgorithmException e) {
+         throw new IllegalStateException("SHA-256 not available", e);
+      }
+   }
+}
@@ -0,0 +1,170 @@
+package com.frankenstein.story.service.media;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Size-capped on-disk cache of derived (resized / re-encoded) images.
+ * Entries are keyed by relative path; when the total size exceeds the cap the least recently
+ * used entries are deleted until the cache is back under its low-water mark.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+class DerivedImageCache {
+
+   private static final double LOW_WATER_MARK = 0.9;
+
+   private final Path root;
+   private final long maxBytes;
+   private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+   private final AtomicLong totalBytes = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+   private final AtomicLong clock = new AtomicLong();
+
+   DerivedImageCache(final Path root, final long maxBytes) {
+      this.root = root;
+      this.maxBytes = maxBytes;
+      load();
+   }
+
+   /**
+    * Look up a cached entry, marking it as recently used
+    */
+   Optional<Path> get(final String key) {
+      final Entry entry = entries.get(key);
+      if (entry == null) {
+         return Optional.empty();
+      }
+      if (!Files.isRegularFile(entry.path)) {
+         remove(key);
+         return Optional.empty();
+      }
+      entry.lastAccess = clock.incrementAndGet();
+      return Optional.of(entry.path);
+   }
+
+   /**
+    * Atomically write an entry and evict older ones if the cap is exceeded
+    */
+   Path put(final String key, final byte[] data) throws IOException {
+      final Path target = root.resolve(key).normalize();
+      if (!target.startsWith(root)) {
+         throw new IOException("Invalid cache key: " + key);
+      }
+
+      Files.createDirectories(target.getParent());
+      final Path tmp = Files.createTempFile(target.getParent(), ".derived-", ".tmp");
+      try {
+         Files.write(tmp, data);
+         Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(tmp);
+      }
+
+      final Entry previous = entries.put(key, new Entry(target, data.length, clock.incrementAndGet()));
+      totalBytes.addAndGet(data.length - (previous == null ? 0 : previous.size));
+
+      if (totalBytes.get() > maxBytes) {
+         evict();
+      }
+      return target;
+   }
+
+   long getTotalBytes() {
+      return totalBytes.get();
+   }
+
+   long getEvictionCount() {
+      return evictions.get();
+   }
+
+   private synchronized void evict() {
+      final long lowWater = (long) (maxBytes * LOW_WATER_MARK);
+      if (totalBytes.get() <= maxBytes) {
+         return;
+      }
+
+      final List<Map.Entry<String, Entry>> byAge = entries.entrySet()
+                                                          .stream()
+                                                          .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                                                          .toList();
+      for (final Map.Entry<String, Entry> oldest : byAge) {
+         if (totalBytes.get() <= lowWater) {
+            break;
+         }
+         remove(oldest.getKey());
+         evictions.incrementAndGet();
+      }
+      log.debug("Evicted derived images, cache now {} bytes", totalBytes.get());
+   }
+
+   private void remove(final String key) {
+      final Entry entry = entries.remove(key);
+      if (entry == null) {
+         return;
+      }
+      totalBytes.addAndGet(-entry.size);
+      try {
+         Files.deleteIfExists(entry.path);
+      } catch (final IOException e) {
+         log.warn("Failed to delete derived image {}", entry.path, e);
+      }
+   }
+
+   /**
+    * Rebuild the index from disk, using modification time as the initial recency
+    */
+   private void load() {
+      try {
+         Files.createDirectories(root);
+         final List<Path> files;
+         try (final Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                        .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                        .sorted(Comparator.comparingLong(DerivedImageCache::lastModified))
+                        .toList();
+         }
+         for (final Path file : files) {
+            final long size = Files.size(file);
+            entries.put(root.relativize(file).toString().replace('\\', '/'), new Entry(file, size, clock.incrementAndGet()));
+            totalBytes.addAndGet(size);
+         }
+         log.info("Loaded derived image cache: {} entries, {} bytes", entries.size(), totalBytes.get());
+      } catch (final IOException e) {
+         log.error("Failed to load derived image cache at {}", root, e);
+      }
+   }
+
+   private static long lastModified(final Path file) {
+      try {
+         return Files.getLastModifiedTime(file).toMillis();
+      } catch (final IOException e) {
+         return 0L;
+      }
+   }
+
+   private static final class Entry {
+
+      private final Path path;
+      private final long size;
+      private volatile long lastAccess;
+
+      private Entry(final Path path, final long size, final long lastAccess) {
+         this.path = path;
+         this.size = size;
+         this.lastAccess = lastAccess;
+      }
+   }
+}
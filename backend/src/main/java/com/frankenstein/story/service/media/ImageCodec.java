@@ -0,0 +1,145 @@
+package com.frankenstein.story.service.media;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * ImageIO helpers shared by the transcoding and resizing services
+ *
+ * @author alarinel@gmail.com
+ */
+final class ImageCodec {
+
+   private ImageCodec() {
+   }
+
+   static boolean canWrite(final String formatName) {
+      return ImageIO.getImageWritersByFormatName(formatName).hasNext();
+   }
+
+   /**
+    * Encode with the first ImageIO writer for the format, applying lossy quality and optional progressive mode
+    */
+   static byte[] encode(final BufferedImage image, final String formatName, final float quality, final boolean progressive) throws IOException {
+      final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+      if (!writers.hasNext()) {
+         throw new IOException("No ImageIO writer for format: " + formatName);
+      }
+
+      final ImageWriter writer = writers.next();
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (final ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+         writer.setOutput(imageOut);
+
+         final ImageWriteParam param = writer.getDefaultWriteParam();
+         if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionTypes() != null && param.getCompressionType() == null) {
+               param.setCompressionType(param.getCompressionTypes()[0]);
+            }
+            param.setCompressionQuality(quality);
+         }
+         if (progressive && param.canWriteProgressive()) {
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+         }
+
+         writer.write(null, new IIOImage(image, null, null), param);
+      } finally {
+         writer.dispose();
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Lossless PNG encoding via the default writer
+    */
+   static byte[] encodePng(final BufferedImage image) throws IOException {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(image, "png", out);
+      return out.toByteArray();
+   }
+
+   /**
+    * JPEG has no alpha channel, so flatten onto white
+    */
+   static BufferedImage toRgb(final BufferedImage source) {
+      if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+         return source;
+      }
+
+      final BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+      final Graphics2D graphics = rgb.createGraphics();
+      try {
+         graphics.drawImage(source, 0, 0, Color.WHITE, null);
+      } finally {
+         graphics.dispose();
+      }
+      return rgb;
+   }
+
+   /**
+    * Downscale to the target width keeping aspect ratio. Halves repeatedly with bilinear filtering
+    * before the final step, which avoids the aliasing of a single large bilinear reduction.
+    */
+   static BufferedImage scaleToWidth(final BufferedImage source, final int targetWidth) {
+      if (targetWidth >= source.getWidth()) {
+         return source;
+      }
+
+      final int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+      final int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+      BufferedImage current = source;
+      int width = source.getWidth();
+      int height = source.getHeight();
+      do {
+         width = Math.max(targetWidth, width / 2);
+         height = Math.max(targetHeight, height / 2);
+
+         final BufferedImage step = new BufferedImage(width, height, type);
+         final Graphics2D graphics = step.createGraphics();
+         try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+         } finally {
+            graphics.dispose();
+         }
+         current = step;
+      } while (width != targetWidth || height != targetHeight);
+
+      return current;
+   }
+
+   /**
+    * Scale to fill the target box and crop the overflow around the center, producing fixed-size tiles
+    */
+   static BufferedImage coverCrop(final BufferedImage source, final int width, final int height) {
+      final double scale = Math.max((double) width / source.getWidth(), (double) height / source.getHeight());
+      final int scaledWidth = Math.max(width, (int) Math.ceil(source.getWidth() * scale));
+      final int scaledHeight = Math.max(height, (int) Math.ceil(source.getHeight() * scale));
+      final BufferedImage scaled = scale < 1 ? scaleToWidth(source, scaledWidth) : source;
+
+      final BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      final Graphics2D graphics = tile.createGraphics();
+      try {
+         graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+         graphics.setColor(Color.WHITE);
+         graphics.fillRect(0, 0, width, height);
+         graphics.drawImage(scaled, -(scaledWidth - width) / 2, -(scaledHeight - height) / 2, scaledWidth, scaledHeight, null);
+      } finally {
+         graphics.dispose();
+      }
+      return tile;
+   }
+}
@@ -0,0 +1,32 @@
+package com.frankenstein.story.service.media;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Service for serving page images at a requested width and format
+ *
+ * @author alarinel@gmail.com
+ */
+public interface ImageResizeService {
+
+   /**
+    * Get a page image resized to the nearest configured width at or above the requested one, encoded in the given format.
+    * Results are cached on disk, and concurrent requests for the same rendition share a single resize.
+    *
+    * @param storyId    the story identifier
+    * @param pageNumber the page number
+    * @param width      requested width in pixels, or null to keep the original width
+    * @param format     png, jpg/jpeg or webp; webp falls back to jpg when no WebP writer is installed
+    * @return the rendition with the media type it was encoded in, or empty if the resize pool is saturated
+    *         and the caller should fall back to the original
+    * @throws IOException              if the page image does not exist
+    * @throws IllegalArgumentException if the format or width is not supported
+    */
+   Optional<ResizedImage> resize(String storyId, int pageNumber, Integer width, String format) throws IOException;
+
+   /**
+    * Whether renditions can be encoded in the given format
+    */
+   boolean supportsFormat(String format);
+}
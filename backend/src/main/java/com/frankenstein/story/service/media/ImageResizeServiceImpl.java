@@ -0,0 +1,205 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resizes page images on demand on the bounded imageResizeExecutor.
+ * Widths snap to a configured set so the derived cache stays small, and renditions are keyed by
+ * the source image's content version so a regenerated page never serves a stale rendition.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class ImageResizeServiceImpl implements ImageResizeService {
+
+   private static final int ORIGINAL_WIDTH = 0;
+   private static final Map<String, String> MEDIA_TYPES = Map.of("png", "image/png", "jpg", "image/jpeg", "webp", "image/webp");
+
+   private final FileStorageService fileStorageService;
+   private final Executor resizeExecutor;
+   private final MeterRegistry meterRegistry;
+   private final List<Integer> widths;
+   private final Duration timeout;
+   private final float quality;
+   private final DerivedImageCache cache;
+   private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+   public ImageResizeServiceImpl(final FileStorageService fileStorageService,
+                                 @Qualifier("imageResizeExecutor") final Executor resizeExecutor,
+                                 final MeterRegistry meterRegistry,
+                                 @Value("${media.resize.widths:320,480,640,960,1280}") final List<Integer> widths,
+                                 @Value("${media.resize.cache-max-size:512MB}") final DataSize cacheMaxSize,
+                                 @Value("${media.resize.timeout:30s}") final Duration timeout,
+                                 @Value("${media.resize.quality:0.82}") final float quality) {
+      this.fileStorageService = fileStorageService;
+      this.resizeExecutor = resizeExecutor;
+      this.meterRegistry = meterRegistry;
+      this.widths = widths.stream().sorted().toList();
+      this.timeout = timeout;
+      this.quality = quality;
+      this.cache = new DerivedImageCache(fileStorageService.getDerivedDirectory(), cacheMaxSize.toBytes());
+
+      Gauge.builder("story.images.derived.bytes", cache, DerivedImageCache::getTotalBytes)
+           .description("Bytes held in the derived image cache")
+           .baseUnit("bytes")
+           .register(meterRegistry);
+      Gauge.builder("story.images.derived.evictions", cache, DerivedImageCache::getEvictionCount)
+           .description("Derived images evicted to stay under the cache size cap")
+           .register(meterRegistry);
+   }
+
+   @Override
+   public Optional<ResizedImage> resize(final String storyId, final int pageNumber, final Integer width, final String format) throws IOException {
+      final String extension = normalizeFormat(format);
+      final int targetWidth = snapWidth(width);
+      final AssetDescriptor source = fileStorageService.getAssetDescriptor(storyId, fileStorageService.imageAssetPath(pageNumber));
+
+      final String rendition = "page-" + pageNumber + "-" + source.getVersion() + (targetWidth == ORIGINAL_WIDTH ? "-full." : "-w" + targetWidth + ".") + extension;
+      final String key = storyId + "/" + rendition;
+      final ResizedImage.ResizedImageBuilder result = ResizedImage.builder()
+                                                                  .mediaType(MEDIA_TYPES.get(extension))
+                                                                  .eTag("\"" + rendition + "\"")
+                                                                  .lastModified(source.getLastModified());
+
+      final Optional<Path> cached = cache.get(key);
+      if (cached.isPresent()) {
+         lookupCounter("hit").increment();
+         return Optional.of(result.path(cached.get()).build());
+      }
+      lookupCounter("miss").increment();
+
+      final CompletableFuture<Path> rendering;
+      try {
+         rendering = inFlight.computeIfAbsent(key,
+               k -> CompletableFuture.supplyAsync(() -> render(storyId, pageNumber, targetWidth, extension, key), resizeExecutor));
+      } catch (final RejectedExecutionException e) {
+         log.warn("Resize pool saturated, serving original image for story {} page {}", storyId, pageNumber);
+         resizeCounter("rejected").increment();
+         return Optional.empty();
+      }
+      rendering.whenComplete((path, error) -> inFlight.remove(key, rendering));
+
+      try {
+         return Optional.of(result.path(rendering.get(timeout.toMillis(), TimeUnit.MILLISECONDS)).build());
+      } catch (final TimeoutException e) {
+         log.warn("Resize timed out for story {} page {}, serving original image", storyId, pageNumber);
+         return Optional.empty();
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return Optional.empty();
+      } catch (final ExecutionException e) {
+         throw new IOException("Failed to resize image for story " + storyId + " page " + pageNumber, e.getCause());
+      }
+   }
+
+   @Override
+   public boolean supportsFormat(final String format) {
+      final String extension = canonicalFormat(format);
+      return MEDIA_TYPES.containsKey(extension) && ImageCodec.canWrite(extension.equals("jpg") ? "jpeg" : extension);
+   }
+
+   private Path render(final String storyId, final int pageNumber, final int targetWidth, final String extension, final String key) {
+      final Timer.Sample sample = Timer.start(meterRegistry);
+      try {
+         final BufferedImage source;
+         try (final InputStream in = fileStorageService.loadAssetResource(storyId, fileStorageService.imageAssetPath(pageNumber)).getInputStream()) {
+            source = ImageIO.read(in);
+         }
+         if (source == null) {
+            throw new IOException("Unreadable image for story " + storyId + " page " + pageNumber);
+         }
+
+         final BufferedImage scaled = targetWidth == ORIGINAL_WIDTH ? source : ImageCodec.scaleToWidth(source, targetWidth);
+         final byte[] encoded = switch (extension) {
+            case "jpg" -> ImageCodec.encode(ImageCodec.toRgb(scaled), "jpeg", quality, true);
+            case "webp" -> ImageCodec.encode(ImageCodec.toRgb(scaled), "webp", quality, false);
+            default -> ImageCodec.encodePng(scaled);
+         };
+
+         final Path path = cache.put(key, encoded);
+         resizeCounter("success").increment();
+         log.debug("Resized story {} page {} to {}px {} ({} bytes)", storyId, pageNumber, targetWidth, extension, encoded.length);
+         return path;
+      } catch (final IOException e) {
+         resizeCounter("failure").increment();
+         throw new UncheckedIOException(e);
+      } finally {
+         sample.stop(Timer.builder("story.images.resize.duration").description("Time to resize and encode one page image").register(meterRegistry));
+      }
+   }
+
+   /**
+    * Snap to the smallest configured width that is at least the requested width
+    */
+   private int snapWidth(final Integer width) {
+      if (width == null) {
+         return ORIGINAL_WIDTH;
+      }
+      if (width <= 0) {
+         throw new IllegalArgumentException("Width must be positive: " + width);
+      }
+      return widths.stream().filter(candidate -> candidate >= width).findFirst().orElse(widths.get(widths.size() - 1));
+   }
+
+   /**
+    * A known format without an installed writer (WebP on a stock JDK) is served as JPEG instead of failing the request;
+    * the rendition's media type reports what was actually encoded
+    */
+   private String normalizeFormat(final String format) {
+      final String extension = canonicalFormat(format);
+      if (!MEDIA_TYPES.containsKey(extension)) {
+         throw new IllegalArgumentException("Unsupported image format: " + format);
+      }
+      if (!supportsFormat(extension)) {
+         log.debug("No ImageIO writer for {}, encoding rendition as jpg", extension);
+         return "jpg";
+      }
+      return extension;
+   }
+
+   private static String canonicalFormat(final String format) {
+      if (format == null) {
+         return "png";
+      }
+      final String lower = format.toLowerCase(Locale.ROOT);
+      return lower.equals("jpeg") ? "jpg" : lower;
+   }
+
+   private Counter resizeCounter(final String outcome) {
+      return Counter.builder("story.images.resize").description("Page image resizes").tag("outcome", outcome).register(meterRegistry);
+   }
+
+   private Counter lookupCounter(final String result) {
+      return Counter.builder("story.images.derived.lookups").description("Derived image cache lookups").tag("result", result).register(meterRegistry);
+   }
+}
@@ -0,0 +1,28 @@
+package com.frankenstein.story.service.media;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for producing compact web encodings of generated page images
+ *
+ * @author alarinel@gmail.com
+ */
+public interface ImageTranscodingService {
+
+   /**
+    * Queue transcoding of a saved page image on the bounded transcode pool.
+    * Returns immediately; if the pool is saturated the page keeps only its original PNG.
+    *
+    * @param storyId    the story identifier
+    * @param pageNumber the page whose image was just saved
+    */
+   void transcodeAsync(String storyId, int pageNumber);
+
+   /**
+    * A future that completes once every transcode queued so far for the story has finished, successfully or not
+    *
+    * @param storyId the story identifier
+    * @return the future, already complete when nothing is pending
+    */
+   CompletableFuture<Void> whenTranscoded(String storyId);
+}
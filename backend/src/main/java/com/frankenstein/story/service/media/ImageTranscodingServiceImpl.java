@@ -0,0 +1,161 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Transcodes page PNGs into progressive JPEG and, when an ImageIO WebP writer is installed, WebP variants.
+ * The JDK ships no WebP writer, so on a stock runtime only JPEG variants are produced.
+ * A variant that is not smaller than the original is dropped, so negotiation never serves more bytes than the PNG.
+ * Work runs on the dedicated imageTranscodeExecutor so it never delays story generation.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class ImageTranscodingServiceImpl implements ImageTranscodingService {
+
+   static final String JPEG = "jpg";
+   static final String WEBP = "webp";
+
+   private final FileStorageService fileStorageService;
+   private final Executor transcodeExecutor;
+   private final MeterRegistry meterRegistry;
+   private final boolean enabled;
+   private final float jpegQuality;
+   private final float webpQuality;
+   // Transcodes queued or running per story, so packing can wait for their variants
+   private final Map<String, Set<CompletableFuture<Void>>> pending = new ConcurrentHashMap<>();
+
+   public ImageTranscodingServiceImpl(final FileStorageService fileStorageService,
+                                      @Qualifier("imageTranscodeExecutor") final Executor transcodeExecutor,
+                                      final MeterRegistry meterRegistry,
+                                      @Value("${media.transcode.enabled:true}") final boolean enabled,
+                                      @Value("${media.transcode.jpeg-quality:0.82}") final float jpegQuality,
+                                      @Value("${media.transcode.webp-quality:0.80}") final float webpQuality) {
+      this.fileStorageService = fileStorageService;
+      this.transcodeExecutor = transcodeExecutor;
+      this.meterRegistry = meterRegistry;
+      this.enabled = enabled;
+      this.jpegQuality = jpegQuality;
+      this.webpQuality = webpQuality;
+      if (enabled && !ImageCodec.canWrite(WEBP)) {
+         log.info("No ImageIO WebP writer installed, page images are transcoded to JPEG only");
+      }
+   }
+
+   @Override
+   public void transcodeAsync(final String storyId, final int pageNumber) {
+      if (!enabled) {
+         return;
+      }
+
+      final CompletableFuture<Void> transcoding;
+      try {
+         transcoding = CompletableFuture.runAsync(() -> transcode(storyId, pageNumber), transcodeExecutor);
+      } catch (final RejectedExecutionException e) {
+         log.warn("Transcode queue full, serving original PNG only for story {} page {}", storyId, pageNumber);
+         outcomeCounter("skipped").increment();
+         return;
+      }
+
+      pending.compute(storyId, (key, futures) -> {
+         final Set<CompletableFuture<Void>> queued = futures == null ? ConcurrentHashMap.newKeySet() : futures;
+         queued.add(transcoding);
+         return queued;
+      });
+      transcoding.whenComplete((result, error) -> pending.computeIfPresent(storyId, (key, futures) -> {
+         futures.remove(transcoding);
+         return futures.isEmpty() ? null : futures;
+      }));
+   }
+
+   @Override
+   public CompletableFuture<Void> whenTranscoded(final String storyId) {
+      final Set<CompletableFuture<Void>> futures = pending.get(storyId);
+      if (futures == null) {
+         return CompletableFuture.completedFuture(null);
+      }
+      // transcode() never throws, so the combined future only ever completes normally
+      return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+   }
+
+   /**
+    * Transcode one page image synchronously
+    */
+   void transcode(final String storyId, final int pageNumber) {
+      final Timer.Sample sample = Timer.start(meterRegistry);
+      try {
+         final String originalPath = fileStorageService.imageAssetPath(pageNumber);
+         final long originalSize = fileStorageService.getAssetDescriptor(storyId, originalPath).getSize();
+
+         final BufferedImage source;
+         try (final InputStream in = fileStorageService.loadAssetResource(storyId, originalPath).getInputStream()) {
+            source = ImageIO.read(in);
+         }
+         if (source == null) {
+            log.warn("Unreadable image for story {} page {}, skipping transcode", storyId, pageNumber);
+            outcomeCounter("failure").increment();
+            return;
+         }
+
+         final BufferedImage opaque = ImageCodec.toRgb(source);
+         saveVariant(storyId, pageNumber, JPEG, ImageCodec.encode(opaque, "jpeg", jpegQuality, true), originalSize);
+
+         if (ImageCodec.canWrite(WEBP)) {
+            saveVariant(storyId, pageNumber, WEBP, ImageCodec.encode(opaque, WEBP, webpQuality, false), originalSize);
+         }
+
+         outcomeCounter("success").increment();
+      } catch (final Exception e) {
+         // Variants are an optimization - the original PNG is still served
+         log.error("Failed to transcode image for story {} page {}", storyId, pageNumber, e);
+         outcomeCounter("failure").increment();
+      } finally {
+         sample.stop(Timer.builder("story.images.transcode.duration").description("Time to transcode one page image").register(meterRegistry));
+      }
+   }
+
+   private void saveVariant(final String storyId, final int pageNumber, final String extension, final byte[] data, final long originalSize) {
+      if (data.length >= originalSize) {
+         log.debug("Dropping {} variant for story {} page {}: {} bytes is not smaller than the {} byte original",
+               extension, storyId, pageNumber, data.length, originalSize);
+         Counter.builder("story.images.transcode.dropped")
+                .description("Transcoded variants dropped for not being smaller than the original PNG")
+                .tag("format", extension)
+                .register(meterRegistry)
+                .increment();
+         return;
+      }
+      fileStorageService.saveImageVariant(storyId, pageNumber, extension, data);
+
+      DistributionSummary.builder("story.images.transcode.saved.bytes")
+                         .description("Bytes saved by a transcoded variant compared to the original PNG")
+                         .baseUnit("bytes")
+                         .tag("format", extension)
+                         .register(meterRegistry)
+                         .record(originalSize - data.length);
+      log.debug("Transcoded story {} page {} to {}: {} -> {} bytes", storyId, pageNumber, extension, originalSize, data.length);
+   }
+
+   private Counter outcomeCounter(final String outcome) {
+      return Counter.builder("story.images.transcode").description("Page image transcode attempts").tag("outcome", outcome).register(meterRegistry);
+   }
+}
@@ -0,0 +1,21 @@
+package com.frankenstein.story.service.media;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * A resized page image held in the derived image cache
+ *
+ * @author alarinel@gmail.com
+ */
+@Value
+@Builder
+public class ResizedImage {
+
+   Path path;
+   String mediaType;
+   String eTag;
+   long lastModified;
+}
@@ -0,0 +1,26 @@
+package com.frankenstein.story.service.media;
+
+import java.util.Optional;
+
+/**
+ * Service for library cover thumbnails
+ *
+ * @author alarinel@gmail.com
+ */
+public interface ThumbnailService {
+
+   /**
+    * Generate the cover thumbnail for a completed story from its first page image
+    *
+    * @param storyId the story identifier
+    * @return the versioned thumbnail URL, or empty if the story has no usable cover image
+    */
+   Optional<String> generateCoverThumbnail(String storyId);
+
+   /**
+    * Get the sprite of all library thumbnails, rebuilding it only when the set of thumbnails has changed
+    *
+    * @return the current sprite and its manifest
+    */
+   ThumbnailSprite getSprite();
+}
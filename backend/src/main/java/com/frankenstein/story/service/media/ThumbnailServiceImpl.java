@@ -0,0 +1,199 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.ThumbnailSpriteManifest;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds cover thumbnails with subsampled ImageIO reads, decoding only every n-th pixel of the
+ * full-size page image instead of the whole image, and packs them into a single library sprite.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+   static final String SPRITE_URL = "/api/stories/thumbnails/sprite.jpg";
+
+   private static final int COVER_PAGE = 1;
+
+   private final FileStorageService fileStorageService;
+   private final StoryIndexService storyIndexService;
+   private final int width;
+   private final int height;
+   private final float quality;
+   private final int spriteColumns;
+   private final int spriteMaxTiles;
+
+   private volatile ThumbnailSprite sprite;
+
+   public ThumbnailServiceImpl(final FileStorageService fileStorageService,
+                               final StoryIndexService storyIndexService,
+                               @Value("${media.thumbnails.width:320}") final int width,
+                               @Value("${media.thumbnails.height:180}") final int height,
+                               @Value("${media.thumbnails.quality:0.8}") final float quality,
+                               @Value("${media.thumbnails.sprite-columns:10}") final int spriteColumns,
+                               @Value("${media.thumbnails.sprite-max-tiles:200}") final int spriteMaxTiles) {
+      this.fileStorageService = fileStorageService;
+      this.storyIndexService = storyIndexService;
+      this.width = width;
+      this.height = height;
+      this.quality = quality;
+      this.spriteColumns = spriteColumns;
+      this.spriteMaxTiles = spriteMaxTiles;
+   }
+
+   @Override
+   public Optional<String> generateCoverThumbnail(final String storyId) {
+      try {
+         final BufferedImage cover = readSubsampled(storyId, fileStorageService.imageAssetPath(COVER_PAGE));
+         final BufferedImage thumbnail = ImageCodec.coverCrop(cover, width, height);
+         fileStorageService.saveThumbnail(storyId, ImageCodec.encode(thumbnail, "jpeg", quality, false));
+         log.debug("Generated cover thumbnail for story {}", storyId);
+         return Optional.of(fileStorageService.getThumbnailUrl(storyId));
+      } catch (final Exception e) {
+         // A missing thumbnail only affects the library view
+         log.warn("Failed to generate cover thumbnail for story {}: {}", storyId, e.getMessage());
+         return Optional.empty();
+      }
+   }
+
+   @Override
+   public ThumbnailSprite getSprite() {
+      final List<String> storyIds = new ArrayList<>();
+      final List<String> thumbnailHashes = new ArrayList<>();
+      for (final StoryIndexEntry entry : storyIndexService.getAllStories()) {
+         if (storyIds.size() >= spriteMaxTiles) {
+            break;
+         }
+         try {
+            final AssetDescriptor descriptor = fileStorageService.getAssetDescriptor(entry.getId(), fileStorageService.thumbnailAssetPath());
+            storyIds.add(entry.getId());
+            thumbnailHashes.add(descriptor.getSha256());
+         } catch (final IOException e) {
+            // Story has no thumbnail yet
+         }
+      }
+
+      final String version = spriteVersion(storyIds, thumbnailHashes);
+      final ThumbnailSprite current = sprite;
+      if (current != null && current.getManifest().getVersion().equals(version)) {
+         return current;
+      }
+
+      synchronized (this) {
+         if (sprite != null && sprite.getManifest().getVersion().equals(version)) {
+            return sprite;
+         }
+         sprite = buildSprite(storyIds, version);
+         log.info("Rebuilt thumbnail sprite with {} tiles (version {})", storyIds.size(), version);
+         return sprite;
+      }
+   }
+
+   private ThumbnailSprite buildSprite(final List<String> storyIds, final String version) {
+      final int columns = Math.max(1, Math.min(spriteColumns, storyIds.size()));
+      final int rows = Math.max(1, (storyIds.size() + columns - 1) / columns);
+      final BufferedImage sheet = new BufferedImage(columns * width, rows * height, BufferedImage.TYPE_INT_RGB);
+      final List<ThumbnailSpriteManifest.Tile> tiles = new ArrayList<>();
+
+      final Graphics2D graphics = sheet.createGraphics();
+      try {
+         for (final String storyId : storyIds) {
+            final int x = (tiles.size() % columns) * width;
+            final int y = (tiles.size() / columns) * height;
+            try (final InputStream in = fileStorageService.loadAssetResource(storyId, fileStorageService.thumbnailAssetPath()).getInputStream()) {
+               final BufferedImage thumbnail = ImageIO.read(in);
+               if (thumbnail == null) {
+                  continue;
+               }
+               graphics.drawImage(thumbnail, x, y, width, height, null);
+               tiles.add(ThumbnailSpriteManifest.Tile.builder().storyId(storyId).x(x).y(y).build());
+            } catch (final IOException e) {
+               log.warn("Skipping unreadable thumbnail for story {}", storyId, e);
+            }
+         }
+      } finally {
+         graphics.dispose();
+      }
+
+      final byte[] image;
+      try {
+         image = ImageCodec.encode(sheet, "jpeg", quality, true);
+      } catch (final IOException e) {
+         throw new IllegalStateException("Failed to encode thumbnail sprite", e);
+      }
+
+      final ThumbnailSpriteManifest manifest = ThumbnailSpriteManifest.builder()
+                                                                      .version(version)
+                                                                      .spriteUrl(SPRITE_URL + "?v=" + version)
+                                                                      .tileWidth(width)
+                                                                      .tileHeight(height)
+                                                                      .columns(columns)
+                                                                      .tiles(tiles)
+                                                                      .build();
+      return new ThumbnailSprite(manifest, image);
+   }
+
+   /**
+    * Decode the image with source subsampling so that only about twice the thumbnail resolution
+    * is ever materialized, then let the final cover crop do the high-quality reduction
+    */
+   private BufferedImage readSubsampled(final String storyId, final String assetPath) throws IOException {
+      try (final InputStream in = fileStorageService.loadAssetResource(storyId, assetPath).getInputStream();
+           final ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+         final Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+         if (!readers.hasNext()) {
+            throw new IOException("No ImageIO reader for " + assetPath);
+         }
+
+         final ImageReader reader = readers.next();
+         try {
+            reader.setInput(imageIn, true, true);
+            final int factor = Math.max(1, Math.min(reader.getWidth(0) / (width * 2), reader.getHeight(0) / (height * 2)));
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(factor, factor, 0, 0);
+            return reader.read(0, param);
+         } finally {
+            reader.dispose();
+         }
+      }
+   }
+
+   private String spriteVersion(final List<String> storyIds, final List<String> thumbnailHashes) {
+      try {
+         final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update((width + "x" + height + ":" + spriteColumns).getBytes(StandardCharsets.UTF_8));
+         for (int i = 0; i < storyIds.size(); i++) {
+            digest.update(storyIds.get(i).getBytes(StandardCharsets.UTF_8));
+            digest.update(thumbnailHashes.get(i).getBytes(StandardCharsets.UTF_8));
+         }
+         return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+      } catch (final NoSuchAlgorithmException e) {
+         throw new IllegalStateException("SHA-256 not available", e);
+      }
+   }
+}
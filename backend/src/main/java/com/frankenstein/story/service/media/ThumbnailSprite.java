@@ -0,0 +1,16 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.model.ThumbnailSpriteManifest;
+import lombok.Value;
+
+/**
+ * A rendered thumbnail sprite together with the manifest describing its tiles
+ *
+ * @author alarinel@gmail.com
+ */
+@Value
+public class ThumbnailSprite {
+
+   ThumbnailSpriteManifest manifest;
+   byte[] image;
+}
@@ -0,0 +1,57 @@
+package com.frankenstein.story.service.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Service for recording Micrometer metrics across the story generation pipeline
+ *
+ * @author alarinel@gmail.com
+ */
+public interface GenerationMetricsService {
+
+   String PHASE_OUTLINE = "outline";
+   String PHASE_FULL_STORY = "full_story";
+   String PHASE_IMAGES = "images";
+   String PHASE_AUDIO = "audio";
+   String PHASE_ASSEMBLY = "assembly";
+
+   String PROVIDER_ANTHROPIC = "ANTHROPIC";
+   String PROVIDER_STABILITY_AI = "STABILITY_AI";
+   String PROVIDER_ELEVENLABS = "ELEVENLABS";
+
+   /**
+    * Run a generation phase and record its duration and outcome
+    *
+    * @param phase  the phase name (outline, full_story, images, audio, assembly)
+    * @param action the phase body
+    * @return the result of the phase body
+    */
+   <T> T recordPhase(String phase, Supplier<T> action);
+
+   /**
+    * Run a single provider call, tracking in-flight count, duration, outcome and failures
+    *
+    * @param provider  the API provider (ANTHROPIC, STABILITY_AI, ELEVENLABS)
+    * @param operation the provider operation (e.g. IMAGE_GENERATION)
+    * @param call      the provider call
+    * @return the result of the provider call
+    */
+   <T> T recordProviderCall(String provider, String operation, Supplier<T> call);
+
+   /**
+    * Record a retry of a provider call
+    */
+   void recordRetry(String provider, String operation);
+
+   /**
+    * Record a page that ended up without an image
+    */
+   void recordEmptyImage(String provider);
+
+   /**
+    * Register the gauge reporting stories currently being generated
+    *
+    * @param activeStoryCount supplier of the current number of in-progress stories
+    */
+   void registerActiveStoriesGauge(Supplier<Number> activeStoryCount);
+}
@@ -0,0 +1,123 @@
+package com.frankenstein.story.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer-backed implementation of generation metrics.
+ * Timers publish percentile histograms bounded to the range of real provider latencies (10ms - 10min).
+ *
+ * @author alarinel@gmail.com
+ */
+@Service
+@RequiredArgsConstructor
+public class GenerationMetricsServiceImpl implements GenerationMetricsService {
+
+   static final String PHASE_TIMER = "story.generation.phase";
+   static final String PROVIDER_TIMER = "story.provider.call";
+   static final String PROVIDER_IN_FLIGHT = "story.provider.inflight";
+   static final String PROVIDER_RETRIES = "story.provider.retries";
+   static final String PROVIDER_FAILURES = "story.provider.failures";
+   static final String EMPTY_IMAGES = "story.images.empty";
+   static final String ACTIVE_STORIES = "story.generation.active";
+
+   private static final Duration MIN_EXPECTED_DURATION = Duration.ofMillis(10);
+   private static final Duration MAX_EXPECTED_DURATION = Duration.ofMinutes(10);
+
+   private final MeterRegistry meterRegistry;
+   private final ConcurrentHashMap<Tags, AtomicInteger> inFlightCalls = new ConcurrentHashMap<>();
+
+   @Override
+   public <T> T recordPhase(final String phase, final Supplier<T> action) {
+      final long startTime = System.nanoTime();
+      boolean success = false;
+      try {
+         final T result = action.get();
+         success = true;
+         return result;
+      } finally {
+         timer(PHASE_TIMER, "Duration of a story generation phase", Tags.of("phase", phase, "outcome", outcome(success)))
+               .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+      }
+   }
+
+   @Override
+   public <T> T recordProviderCall(final String provider, final String operation, final Supplier<T> call) {
+      final Tags tags = Tags.of("provider", provider, "operation", operation);
+      final AtomicInteger inFlight = inFlightGauge(tags);
+      final long startTime = System.nanoTime();
+      boolean success = false;
+
+      inFlight.incrementAndGet();
+      try {
+         final T result = call.get();
+         success = true;
+         return result;
+      } finally {
+         inFlight.decrementAndGet();
+         timer(PROVIDER_TIMER, "Duration of a single provider API call", tags.and("outcome", outcome(success)))
+               .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+         if (!success) {
+            counter(PROVIDER_FAILURES, "Failed provider API calls", tags).increment();
+         }
+      }
+   }
+
+   @Override
+   public void recordRetry(final String provider, final String operation) {
+      counter(PROVIDER_RETRIES, "Retried provider API calls", Tags.of("provider", provider, "operation", operation)).increment();
+   }
+
+   @Override
+   public void recordEmptyImage(final String provider) {
+      counter(EMPTY_IMAGES, "Pages stored without an image after all retries", Tags.of("provider", provider)).increment();
+   }
+
+   @Override
+   public void registerActiveStoriesGauge(final Supplier<Number> activeStoryCount) {
+      Gauge.builder(ACTIVE_STORIES, activeStoryCount, supplier -> supplier.get().doubleValue())
+           .description("Stories currently being generated")
+           .strongReference(true)
+           .register(meterRegistry);
+   }
+
+   private AtomicInteger inFlightGauge(final Tags tags) {
+      return inFlightCalls.computeIfAbsent(tags, key -> {
+         final AtomicInteger inFlight = new AtomicInteger();
+         Gauge.builder(PROVIDER_IN_FLIGHT, inFlight, AtomicInteger::get)
+              .description("Provider API calls currently in flight")
+              .tags(key)
+              .register(meterRegistry);
+         return inFlight;
+      });
+   }
+
+   private Timer timer(final String name, final String description, final Tags tags) {
+      return Timer.builder(name)
+                  .description(description)
+                  .tags(tags)
+                  .publishPercentileHistogram()
+                  .minimumExpectedValue(MIN_EXPECTED_DURATION)
+                  .maximumExpectedValue(MAX_EXPECTED_DURATION)
+                  .register(meterRegistry);
+   }
+
+   private Counter counter(final String name, final String description, final Tags tags) {
+      return Counter.builder(name).description(description).tags(tags).register(meterRegistry);
+   }
+
+   private String outcome(final boolean success) {
+      return success ? "success" : "failure";
+   }
+}
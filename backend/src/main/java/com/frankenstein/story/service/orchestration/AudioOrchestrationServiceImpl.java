@@ -3,8 +3,10 @@ package com.frankenstein.story.service.orchestration;
 import com.frankenstein.story.model.ApiCallLog;
 import com.frankenstein.story.model.StoryStructure;
 import com.frankenstein.story.model.orchestration.AudioSet;
+import com.frankenstein.story.model.timeline.TimelineCategory;
 import com.frankenstein.story.service.AudioGenerationService;
-import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.storage.AssetWriteService;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,9 +30,10 @@ public class AudioOrchestrationServiceImpl implements AudioOrchestrationService
    private static final int MAX_CONCURRENT_AUDIO_REQUESTS = 3;
 
    private final AudioGenerationService audioGenerationService;
-   private final FileStorageService fileStorageService;
+   private final AssetWriteService assetWriteService;
    private final ProgressCoordinatorService progressCoordinator;
    private final ApiTrackingFacade apiTrackingFacade;
+   private final StoryTimelineService storyTimeline;
 
    @Override
    public CompletableFuture<List<AudioSet>> generateAllAudio(final String storyId, final StoryStructure structure, final String voiceType) {
@@ -47,11 +50,19 @@ public class AudioOrchestrationServiceImpl implements AudioOrchestrationService
             final int pageNumber = i + 1;
             final StoryStructure.PageStructure page = structure.getPages().get(i);
 
-            final CompletableFuture<AudioSet> audioFuture = CompletableFuture.supplyAsync(() -> generateAudioForPage(storyId,
-                  pageNumber,
-                  page,
-                  structure.getPages().size(),
-                  voiceType));
+            final long submittedAt = System.currentTimeMillis();
+            final CompletableFuture<AudioSet> audioFuture = CompletableFuture.supplyAsync(() -> {
+               storyTimeline.recordSpan(storyId, TimelineCategory.QUEUE_WAIT, "NARRATION_GENERATION", pageNumber, submittedAt, System.currentTimeMillis());
+               return generateAudioForPage(storyId, pageNumber, page, voiceType);
+            }).thenCompose(audioSet -> assetWriteService.saveNarration(storyId, pageNumber, audioSet.getNarration()).handle((written, failure) -> {
+               if (failure != null) {
+                  // Only this page loses its narration; a write the queue never took must not fail the whole story
+                  log.error("Failed to write narration for story {} page {}", storyId, pageNumber, failure);
+                  return audioSet;
+               }
+               progressCoordinator.notifyAudioProgress(storyId, pageNumber, structure.getPages().size());
+               return audioSet;
+            }));
 
             batchFutures.add(audioFuture);
          }
@@ -65,20 +76,20 @@ public class AudioOrchestrationServiceImpl implements AudioOrchestrationService
       return CompletableFuture.completedFuture(audioSets);
    }
 
-   private AudioSet generateAudioForPage(final String storyId, final int pageNumber, final StoryStructure.PageStructure page, final int totalPages, final String voiceType) {
+   private AudioSet generateAudioForPage(final String storyId, final int pageNumber, final StoryStructure.PageStructure page, final String voiceType) {
       final long startTime = System.currentTimeMillis();
 
       try {
          // Generate narration with selected voice type
-         final byte[] narration = audioGenerationService.generateNarration(page.getText(), voiceType).join();
-         fileStorageService.saveNarration(storyId, pageNumber, narration);
+         final byte[] narration = storyTimeline.record(storyId,
+               TimelineCategory.PROVIDER_CALL,
+               "NARRATION_GENERATION",
+               pageNumber,
+               () -> audioGenerationService.generateNarration(page.getText(), voiceType).join());
 
          // Log API call for narration
          logAudioApiCall(storyId, "NARRATION_GENERATION", page.getText().length(), startTime, "SUCCESS", null);
 
-         // Notify progress
-         progressCoordinator.notifyAudioProgress(storyId, pageNumber, totalPages);
-
          // Calculate duration
          final double duration = audioGenerationService.estimateNarrationDuration(page.getText());
 
@@ -2,8 +2,10 @@ package com.frankenstein.story.service.orchestration;
 
 import com.frankenstein.story.model.ApiCallLog;
 import com.frankenstein.story.model.StoryStructure;
-import com.frankenstein.story.service.FileStorageService;
 import com.frankenstein.story.service.ImageGenerationService;
+import com.frankenstein.story.service.media.ImageTranscodingService;
+import com.frankenstein.story.service.metrics.GenerationMetricsService;
+import com.frankenstein.story.service.storage.AssetWriteService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,9 +27,11 @@ import java.util.stream.Collectors;
 public class ImageOrchestrationServiceImpl implements ImageOrchestrationService {
 
    private final ImageGenerationService imageGenerationService;
-   private final FileStorageService fileStorageService;
+   private final AssetWriteService assetWriteService;
    private final ProgressCoordinatorService progressCoordinator;
    private final ApiTrackingFacade apiTrackingFacade;
+   private final GenerationMetricsService generationMetrics;
+   private final ImageTranscodingService imageTranscodingService;
 
    @Override
    public CompletableFuture<List<byte[]>> generateAllImages(final String storyId, final StoryStructure structure) {
@@ -40,14 +44,17 @@ public class ImageOrchestrationServiceImpl implements ImageOrchestrationService
          final int pageNumber = i + 1;
          final StoryStructure.PageStructure page = structure.getPages().get(i);
 
-         final CompletableFuture<byte[]> imageFuture = imageGenerationService.generateImageWithRetry(page.getImagePrompt(),
+         final CompletableFuture<byte[]> imageFuture = imageGenerationService.generateImageWithRetry(storyId,
+               pageNumber,
+               page.getImagePrompt(),
                structure.getImageSeed() + i,
-               3).thenApply(imageData -> {
-            fileStorageService.saveImage(storyId, pageNumber, imageData);
+               3).thenCompose(imageData -> assetWriteService.saveImage(storyId, pageNumber, imageData).thenApply(written -> {
+            imageTranscodingService.transcodeAsync(storyId, pageNumber);
             progressCoordinator.notifyImageProgress(storyId, pageNumber, structure.getPages().size());
             return imageData;
-         }).exceptionally(throwable -> {
+         })).exceptionally(throwable -> {
             log.error("Failed to generate image for page {}", pageNumber, throwable);
+            generationMetrics.recordEmptyImage(GenerationMetricsService.PROVIDER_STABILITY_AI);
             return new byte[0];
          });
 
@@ -0,0 +1,414 @@
+package com.frankenstein.story.service.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index ranked with BM25. Each story is a document with an int id; postings are parallel
+ * int arrays of ascending doc ids and term frequencies, appended to as stories are added.
+ * Removing a story only marks its doc id deleted (queries skip it), and the postings are compacted once deleted
+ * documents pile up or before the index is written, the way segment-based search engines handle deletes.
+ * Document counts and frequencies used for idf are taken over live documents only, so scores don't depend on
+ * whether a compaction has run yet.
+ * <p>
+ * The on-disk format is a small header, then each live document's story id and length, then each term with its
+ * postings as varint-encoded doc id gaps and frequencies.
+ *
+ * @author alarinel@gmail.com
+ */
+public class InvertedIndex {
+
+   private static final int MAGIC = 0x46535831; // "FSX1"
+   private static final int FORMAT_VERSION = 1;
+   private static final double K1 = 1.2;
+   private static final double B = 0.75;
+   private static final double COMPACT_DELETED_RATIO = 0.25;
+
+   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+   private final Map<String, Postings> postings = new HashMap<>();
+   private final Map<String, Integer> docIds = new HashMap<>();
+   // Doc id to story id; null once the document is deleted
+   private final List<String> storyIds = new ArrayList<>();
+   private int[] docLengths = new int[64];
+   private long totalLength;
+   private int deleted;
+   private volatile boolean dirty;
+
+   /**
+    * The ranked top of a query and the number of stories it matched
+    */
+   public record SearchHits(int total, List<ScoredStory> top) {
+   }
+
+   public record ScoredStory(String storyId, double score) {
+   }
+
+   /**
+    * Add a story, replacing it if it is already indexed
+    *
+    * @param termFrequencies how often each term occurs in the story, already weighted by field
+    */
+   public void add(final String storyId, final Map<String, Integer> termFrequencies) {
+      lock.writeLock().lock();
+      try {
+         removeLocked(storyId);
+         final int docId = storyIds.size();
+         storyIds.add(storyId);
+         docIds.put(storyId, docId);
+         if (docId == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+         }
+         int length = 0;
+         for (final Map.Entry<String, Integer> term : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new Postings()).append(docId, term.getValue());
+            length += term.getValue();
+         }
+         docLengths[docId] = length;
+         totalLength += length;
+         dirty = true;
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   public void remove(final String storyId) {
+      lock.writeLock().lock();
+      try {
+         if (removeLocked(storyId)) {
+            dirty = true;
+            if (deleted > storyIds.size() * COMPACT_DELETED_RATIO) {
+               compactLocked();
+            }
+         }
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Rank stories containing any of the terms, best first
+    */
+   public SearchHits search(final Collection<String> terms, final int limit) {
+      lock.readLock().lock();
+      try {
+         final int documents = storyIds.size();
+         final int live = documents - deleted;
+         if (live == 0) {
+            return new SearchHits(0, List.of());
+         }
+         final double averageLength = Math.max(1.0, (double) totalLength / live);
+
+         final float[] scores = new float[documents];
+         int matched = 0;
+         for (final String term : new LinkedHashSet<>(terms)) {
+            final Postings list = postings.get(term);
+            if (list == null) {
+               continue;
+            }
+            final int frequency = liveFrequency(list);
+            if (frequency == 0) {
+               continue;
+            }
+            final double idf = Math.log(1 + (live - frequency + 0.5) / (frequency + 0.5));
+            for (int i = 0; i < list.size; i++) {
+               final int docId = list.docIds[i];
+               if (storyIds.get(docId) == null) {
+                  continue;
+               }
+               final int tf = list.frequencies[i];
+               final double norm = K1 * (1 - B + B * docLengths[docId] / averageLength);
+               if (scores[docId] == 0) {
+                  matched++;
+               }
+               scores[docId] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+            }
+         }
+
+         // Min-heap of the best so far; on equal scores the newer story (higher doc id) ranks first
+         final PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(a, b));
+         for (int docId = 0; docId < documents && matched > 0; docId++) {
+            if (scores[docId] > 0) {
+               best.add(docId);
+               if (best.size() > limit) {
+                  best.poll();
+               }
+            }
+         }
+         final List<ScoredStory> top = new ArrayList<>(best.size());
+         while (!best.isEmpty()) {
+            final int docId = best.poll();
+            top.add(0, new ScoredStory(storyIds.get(docId), scores[docId]));
+         }
+         return new SearchHits(matched, top);
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Documents in a postings list that are not deleted, so scores don't drift while deletes wait for compaction
+    */
+   private int liveFrequency(final Postings list) {
+      if (deleted == 0) {
+         return list.size;
+      }
+      int frequency = 0;
+      for (int i = 0; i < list.size; i++) {
+         if (storyIds.get(list.docIds[i]) != null) {
+            frequency++;
+         }
+      }
+      return frequency;
+   }
+
+   public boolean contains(final String storyId) {
+      lock.readLock().lock();
+      try {
+         return docIds.containsKey(storyId);
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   public Set<String> getStoryIds() {
+      lock.readLock().lock();
+      try {
+         return new HashSet<>(docIds.keySet());
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   public int size() {
+      lock.readLock().lock();
+      try {
+         return docIds.size();
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Whether anything changed since the index was last written
+    */
+   public boolean isDirty() {
+      return dirty;
+   }
+
+   /**
+    * Compact, then write the index to a temp file and move it into place. Queries keep running while it is written.
+    */
+   public void writeTo(final Path file) throws IOException {
+      lock.writeLock().lock();
+      try {
+         if (deleted > 0) {
+            compactLocked();
+         }
+         dirty = false;
+         // Downgrade: keep readers running, hold writers back while the postings are serialized
+         lock.readLock().lock();
+      } finally {
+         lock.writeLock().unlock();
+      }
+
+      final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      try {
+         Files.createDirectories(file.getParent());
+         try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeVarint(out, storyIds.size());
+            for (int docId = 0; docId < storyIds.size(); docId++) {
+               out.writeUTF(storyIds.get(docId));
+               writeVarint(out, docLengths[docId]);
+            }
+            writeVarint(out, postings.size());
+            for (final Map.Entry<String, Postings> term : postings.entrySet()) {
+               out.writeUTF(term.getKey());
+               final Postings list = term.getValue();
+               writeVarint(out, list.size);
+               int previous = 0;
+               for (int i = 0; i < list.size; i++) {
+                  writeVarint(out, list.docIds[i] - previous);
+                  writeVarint(out, list.frequencies[i]);
+                  previous = list.docIds[i];
+               }
+            }
+         }
+         Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final IOException e) {
+         Files.deleteIfExists(temp);
+         dirty = true;
+         throw e;
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Read an index written by {@link #writeTo}
+    *
+    * @throws IOException if the file is unreadable or in another format
+    */
+   public static InvertedIndex readFrom(final Path file) throws IOException {
+      final InvertedIndex index = new InvertedIndex();
+      try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+         if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a search index in the current format: " + file);
+         }
+         final int documents = readVarint(in);
+         index.docLengths = new int[Math.max(64, documents)];
+         for (int docId = 0; docId < documents; docId++) {
+            final String storyId = in.readUTF();
+            index.storyIds.add(storyId);
+            index.docIds.put(storyId, docId);
+            index.docLengths[docId] = readVarint(in);
+            index.totalLength += index.docLengths[docId];
+         }
+         final int terms = readVarint(in);
+         for (int t = 0; t < terms; t++) {
+            final String term = in.readUTF();
+            final int count = readVarint(in);
+            final Postings list = new Postings(count);
+            int docId = 0;
+            for (int i = 0; i < count; i++) {
+               docId += readVarint(in);
+               if (docId >= documents) {
+                  throw new IOException("Corrupt search index: posting for unknown document " + docId);
+               }
+               list.append(docId, readVarint(in));
+            }
+            index.postings.put(term, list);
+         }
+      }
+      return index;
+   }
+
+   private boolean removeLocked(final String storyId) {
+      final Integer docId = docIds.remove(storyId);
+      if (docId == null) {
+         return false;
+      }
+      storyIds.set(docId, null);
+      totalLength -= docLengths[docId];
+      deleted++;
+      return true;
+   }
+
+   /**
+    * Renumber live documents densely and drop deleted ones from every postings list
+    */
+   private void compactLocked() {
+      final int[] remap = new int[storyIds.size()];
+      final List<String> liveIds = new ArrayList<>(storyIds.size() - deleted);
+      final int[] liveLengths = new int[Math.max(64, storyIds.size() - deleted)];
+      for (int docId = 0; docId < storyIds.size(); docId++) {
+         final String storyId = storyIds.get(docId);
+         if (storyId == null) {
+            remap[docId] = -1;
+         } else {
+            remap[docId] = liveIds.size();
+            liveLengths[liveIds.size()] = docLengths[docId];
+            liveIds.add(storyId);
+         }
+      }
+
+      final Iterator<Postings> lists = postings.values().iterator();
+      while (lists.hasNext()) {
+         final Postings list = lists.next();
+         list.remap(remap);
+         if (list.size == 0) {
+            lists.remove();
+         }
+      }
+
+      storyIds.clear();
+      storyIds.addAll(liveIds);
+      docIds.clear();
+      for (int docId = 0; docId < liveIds.size(); docId++) {
+         docIds.put(liveIds.get(docId), docId);
+      }
+      docLengths = liveLengths;
+      deleted = 0;
+   }
+
+   private static void writeVarint(final DataOutputStream out, int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+         out.writeByte((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      out.writeByte(value);
+   }
+
+   private static int readVarint(final DataInputStream in) throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+         final int b = in.readUnsignedByte();
+         value |= (b & 0x7F) << shift;
+         if ((b & 0x80) == 0) {
+            return value;
+         }
+      }
+      throw new IOException("Malformed varint in search index");
+   }
+
+   /**
+    * Doc ids (ascending) and term frequencies of one term
+    */
+   private static final class Postings {
+
+      private int[] docIds;
+      private int[] frequencies;
+      private int size;
+
+      private Postings() {
+         this(4);
+      }
+
+      private Postings(final int capacity) {
+         this.docIds = new int[Math.max(4, capacity)];
+         this.frequencies = new int[docIds.length];
+      }
+
+      private void append(final int docId, final int frequency) {
+         if (size == docIds.length) {
+            docIds = Arrays.copyOf(docIds, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+         }
+         docIds[size] = docId;
+         frequencies[size] = frequency;
+         size++;
+      }
+
+      private void remap(final int[] remap) {
+         int kept = 0;
+         for (int i = 0; i < size; i++) {
+            final int docId = remap[docIds[i]];
+            if (docId >= 0) {
+               docIds[kept] = docId;
+               frequencies[kept] = frequencies[i];
+               kept++;
+            }
+         }
+         size = kept;
+      }
+   }
+}
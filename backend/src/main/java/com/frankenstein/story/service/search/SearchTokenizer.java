@@ -0,0 +1,37 @@
+package com.frankenstein.story.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lower-case search terms on anything that is not a letter or digit, dropping common English
+ * stop words. Queries and documents go through the same tokenizer, so they always agree on terms.
+ *
+ * @author alarinel@gmail.com
+ */
+public final class SearchTokenizer {
+
+   private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+   private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "had", "has", "he",
+         "her", "his", "in", "into", "is", "it", "its", "of", "on", "or", "she", "so", "that", "the", "their", "them", "then", "there", "they",
+         "this", "to", "was", "were", "with");
+
+   private SearchTokenizer() {
+   }
+
+   public static List<String> tokenize(final String text) {
+      final List<String> terms = new ArrayList<>();
+      if (text == null || text.isBlank()) {
+         return terms;
+      }
+      for (final String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+         if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+            terms.add(token);
+         }
+      }
+      return terms;
+   }
+}
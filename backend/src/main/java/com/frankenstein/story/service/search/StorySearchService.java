@@ -0,0 +1,38 @@
+package com.frankenstein.story.service.search;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StorySearchResult;
+
+import java.util.Collection;
+
+/**
+ * Service for full-text search over the story library: title, page text, theme, character name, villain and setting
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorySearchService {
+
+   /**
+    * Rank library stories against a free-text query
+    *
+    * @param query the words to look for; stories matching any of them are ranked by BM25
+    * @param limit maximum number of hits
+    * @return the best hits and the total number of matching stories
+    * @throws IllegalArgumentException if the limit is out of range
+    */
+   StorySearchResult search(String query, int limit);
+
+   /**
+    * Index a story, replacing its previous version if it was indexed
+    *
+    * @param story the story to index
+    */
+   void indexStory(Story story);
+
+   /**
+    * Drop stories from the index
+    *
+    * @param storyIds the stories to drop; ids that are not indexed are ignored
+    */
+   void removeStories(Collection<String> storyIds);
+}
@@ -0,0 +1,199 @@
+package com.frankenstein.story.service.search;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryInput;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StorySearchResult;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an {@link InvertedIndex} of the library in memory, updated as stories complete, are deleted or change on disk.
+ * Title terms count three times and story setup fields (theme, character, villain, setting) twice, so a story
+ * about a dragon outranks one that mentions a dragon once in passing.
+ * The index is written to search-index.bin on the storage maintenance thread when it changed; on startup it is
+ * loaded from there and brought in line with the story index, so only stories added while it was not saved are read.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StorySearchServiceImpl implements StorySearchService {
+
+   static final String INDEX_FILE = "search-index.bin";
+   static final int MAX_LIMIT = 100;
+
+   private static final int TITLE_WEIGHT = 3;
+   private static final int SETUP_WEIGHT = 2;
+   private static final int TEXT_WEIGHT = 1;
+
+   private final FileStorageService fileStorageService;
+   private final StoryIndexService storyIndexService;
+   private final Executor maintenanceExecutor;
+   private final Timer searchTimer;
+   private final Path indexFile;
+   private final AtomicBoolean writePending = new AtomicBoolean();
+
+   private volatile InvertedIndex index = new InvertedIndex();
+
+   public StorySearchServiceImpl(final FileStorageService fileStorageService,
+                                 final StoryIndexService storyIndexService,
+                                 @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                 final MeterRegistry meterRegistry) {
+      this.fileStorageService = fileStorageService;
+      this.storyIndexService = storyIndexService;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.indexFile = fileStorageService.getStorageRoot().resolve(INDEX_FILE);
+      this.searchTimer = Timer.builder("story.search.duration").description("Time to rank a full-text story search").register(meterRegistry);
+      Gauge.builder("story.search.documents", this, service -> service.index.size()).description("Stories in the full-text index").register(meterRegistry);
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void startLoading() {
+      maintenanceExecutor.execute(this::load);
+   }
+
+   /**
+    * Load the saved index, then index stories it is missing and drop stories that left the library
+    */
+   void load() {
+      if (Files.exists(indexFile)) {
+         try {
+            index = InvertedIndex.readFrom(indexFile);
+            log.info("Loaded full-text index with {} stories", index.size());
+         } catch (final IOException e) {
+            log.warn("Full-text index at {} is unreadable, rebuilding it", indexFile, e);
+         }
+      }
+
+      final Set<String> library = storyIndexService.getAllStories().stream().map(StoryIndexEntry::getId).collect(Collectors.toSet());
+      final List<String> gone = index.getStoryIds().stream().filter(storyId -> !library.contains(storyId)).toList();
+      removeStories(gone);
+
+      int added = 0;
+      for (final String storyId : library) {
+         if (index.contains(storyId)) {
+            continue;
+         }
+         try {
+            indexStory(fileStorageService.peekStory(storyId));
+            added++;
+         } catch (final RuntimeException e) {
+            log.warn("Failed to index story {} for search", storyId, e);
+         }
+      }
+      log.info("Full-text index in line with the library: {} stories indexed, {} dropped", added, gone.size());
+      writeIfChanged();
+   }
+
+   @Scheduled(initialDelayString = "${search.write-interval:PT1M}", fixedDelayString = "${search.write-interval:PT1M}")
+   public void scheduleWrite() {
+      if (index.isDirty() && writePending.compareAndSet(false, true)) {
+         maintenanceExecutor.execute(() -> {
+            try {
+               writeIfChanged();
+            } finally {
+               writePending.set(false);
+            }
+         });
+      }
+   }
+
+   void writeIfChanged() {
+      final InvertedIndex current = index;
+      if (!current.isDirty()) {
+         return;
+      }
+      try {
+         current.writeTo(indexFile);
+         log.debug("Wrote full-text index with {} stories", current.size());
+      } catch (final IOException e) {
+         // Still dirty, so the next pass retries; on restart missing stories are re-read from disk
+         log.error("Failed to write full-text index", e);
+      }
+   }
+
+   @Override
+   public StorySearchResult search(final String query, final int limit) {
+      if (limit < 1 || limit > MAX_LIMIT) {
+         throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+      }
+
+      final List<String> terms = SearchTokenizer.tokenize(query);
+      final InvertedIndex.SearchHits hits = searchTimer.record(() -> index.search(terms, limit));
+
+      final List<StorySearchResult.Hit> results = hits.top()
+                                                      .stream()
+                                                      .map(scored -> toHit(scored.storyId(), scored.score()))
+                                                      .flatMap(Optional::stream)
+                                                      .toList();
+      return StorySearchResult.builder().query(query).total(hits.total()).hits(results).build();
+   }
+
+   @Override
+   public void indexStory(final Story story) {
+      final Map<String, Integer> frequencies = new HashMap<>();
+      addTerms(frequencies, story.getTitle(), TITLE_WEIGHT);
+      final StoryInput input = story.getInput();
+      if (input != null) {
+         addTerms(frequencies, input.getTheme(), SETUP_WEIGHT);
+         addTerms(frequencies, input.getCharacterName(), SETUP_WEIGHT);
+         addTerms(frequencies, input.getVillain(), SETUP_WEIGHT);
+         addTerms(frequencies, input.getSetting(), SETUP_WEIGHT);
+      }
+      if (story.getPages() != null) {
+         for (final StoryPage page : story.getPages()) {
+            addTerms(frequencies, page.getText(), TEXT_WEIGHT);
+         }
+      }
+      index.add(story.getId(), frequencies);
+   }
+
+   @Override
+   public void removeStories(final Collection<String> storyIds) {
+      storyIds.forEach(index::remove);
+   }
+
+   private void addTerms(final Map<String, Integer> frequencies, final String text, final int weight) {
+      for (final String term : SearchTokenizer.tokenize(text)) {
+         frequencies.merge(term, weight, Integer::sum);
+      }
+   }
+
+   /**
+    * Library details for a hit; a story deleted since the query ran is left out
+    */
+   private Optional<StorySearchResult.Hit> toHit(final String storyId, final double score) {
+      return storyIndexService.getStory(storyId)
+                              .map(entry -> StorySearchResult.Hit.builder()
+                                                                 .id(entry.getId())
+                                                                 .title(entry.getTitle())
+                                                                 .createdAt(entry.getCreatedAt())
+                                                                 .thumbnailUrl(entry.getThumbnailUrl())
+                                                                 .score(score)
+                                                                 .build());
+   }
+}
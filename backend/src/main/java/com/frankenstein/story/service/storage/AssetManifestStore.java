@@ -0,0 +1,158 @@
+package com.frankenstein.story.service.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frankenstein.story.model.AssetDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a per-story manifest (assets.json) of asset sizes, content hashes and modification times.
+ * Hashes are computed once, when an asset is written (or lazily for assets written before the manifest existed),
+ * so conditional requests can be answered without reading asset files.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class AssetManifestStore {
+
+   public static final String MANIFEST_FILE = "assets.json";
+
+   private static final int MAX_CACHED_STORIES = 1000;
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final ObjectMapper objectMapper;
+   private final Map<String, Map<String, AssetDescriptor>> manifests = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Map<String, AssetDescriptor>> eldest) {
+         return size() > MAX_CACHED_STORIES;
+      }
+   });
+
+   public AssetManifestStore(final ObjectMapper objectMapper) {
+      this.objectMapper = objectMapper;
+   }
+
+   /**
+    * Record an asset that was just written from in-memory data
+    */
+   public AssetDescriptor record(final String storyId, final Path storyDir, final String assetPath, final byte[] data) throws IOException {
+      final Path file = storyDir.resolve(assetPath);
+      final AssetDescriptor descriptor = AssetDescriptor.builder()
+                                                        .path(assetPath)
+                                                        .size(data.length)
+                                                        .sha256(toHex(newDigest().digest(data)))
+                                                        .lastModified(Files.getLastModifiedTime(file).toMillis())
+                                                        .build();
+      put(storyId, storyDir, descriptor);
+      return descriptor;
+   }
+
+   /**
+    * Describe an existing asset, hashing it (streamed, once) if the manifest has no up-to-date entry
+    */
+   public AssetDescriptor describe(final String storyId, final Path storyDir, final String assetPath) throws IOException {
+      final Path file = storyDir.resolve(assetPath);
+      final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      final AssetDescriptor cached = manifest(storyId, storyDir).get(assetPath);
+
+      if (cached != null && cached.getSize() == attributes.size() && cached.getLastModified() == attributes.lastModifiedTime().toMillis()) {
+         return cached;
+      }
+
+      final AssetDescriptor descriptor = AssetDescriptor.builder()
+                                                        .path(assetPath)
+                                                        .size(attributes.size())
+                                                        .sha256(hashFile(file))
+                                                        .lastModified(attributes.lastModifiedTime().toMillis())
+                                                        .build();
+      put(storyId, storyDir, descriptor);
+      log.debug("Hashed asset {} for story {}", assetPath, storyId);
+      return descriptor;
+   }
+
+   /**
+    * Look up a recorded descriptor without touching the asset file
+    */
+   public AssetDescriptor find(final String storyId, final Path storyDir, final String assetPath) {
+      return manifest(storyId, storyDir).get(assetPath);
+   }
+
+   /**
+    * All recorded descriptors of a story, keyed by asset path
+    */
+   public Map<String, AssetDescriptor> getAll(final String storyId, final Path storyDir) {
+      return Collections.unmodifiableMap(new HashMap<>(manifest(storyId, storyDir)));
+   }
+
+   public void evict(final String storyId) {
+      manifests.remove(storyId);
+   }
+
+   private void put(final String storyId, final Path storyDir, final AssetDescriptor descriptor) throws IOException {
+      final Map<String, AssetDescriptor> entries = manifest(storyId, storyDir);
+      synchronized (entries) {
+         entries.put(descriptor.getPath(), descriptor);
+         final Path manifestPath = storyDir.resolve(MANIFEST_FILE);
+         final Path tempFile = manifestPath.resolveSibling(MANIFEST_FILE + ".tmp");
+         objectMapper.writeValue(tempFile.toFile(), entries);
+         Files.move(tempFile, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+   }
+
+   private Map<String, AssetDescriptor> manifest(final String storyId, final Path storyDir) {
+      return manifests.computeIfAbsent(storyId, id -> loadManifest(storyDir));
+   }
+
+   private Map<String, AssetDescriptor> loadManifest(final Path storyDir) {
+      final Path manifestPath = storyDir.resolve(MANIFEST_FILE);
+      final Map<String, AssetDescriptor> entries = new ConcurrentHashMap<>();
+      if (Files.exists(manifestPath)) {
+         try {
+            entries.putAll(objectMapper.readValue(manifestPath.toFile(), new TypeReference<Map<String, AssetDescriptor>>() {}));
+         } catch (final IOException e) {
+            // A broken manifest is rebuilt lazily as assets are requested
+            log.warn("Failed to read asset manifest: {}", manifestPath, e);
+         }
+      }
+      return entries;
+   }
+
+   private String hashFile(final Path file) throws IOException {
+      final MessageDigest digest = newDigest();
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      try (final InputStream in = Files.newInputStream(file)) {
+         int read;
+         while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+         }
+      }
+      return toHex(digest.digest());
+   }
+
+   private static MessageDigest newDigest() {
+      try {
+         return MessageDigest.getInstance("SHA-256");
+      } catch (final NoSuchAlgorithmException e) {
+         throw new IllegalStateException("SHA-256 not available", e);
+      }
+   }
+
+   private static String toHex(final byte[] bytes) {
+      return HexFormat.of().formatHex(bytes);
+   }
+}
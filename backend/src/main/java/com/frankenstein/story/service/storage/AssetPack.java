@@ -0,0 +1,191 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A story's assets packed into one file, read through a single read-only memory mapping.
+ * <p>
+ * Layout: the asset bytes back to back, then an index, then a fixed 16-byte footer.
+ * The index holds an entry count and, per entry, the path, offset, length, last-modified time and SHA-256.
+ * The footer holds the index offset (long), index length (int) and a magic number (int).
+ *
+ * @author alarinel@gmail.com
+ */
+public final class AssetPack {
+
+   public static final String PACK_FILE = "assets.pack";
+
+   private static final int MAGIC = 0x46534B31; // "FSK1"
+   private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+   private static final int SHA256_BYTES = 32;
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final Path file;
+   private final ByteBuffer data;
+   private final Map<String, Entry> entries;
+
+   private AssetPack(final Path file, final ByteBuffer data, final Map<String, Entry> entries) {
+      this.file = file;
+      this.data = data;
+      this.entries = entries;
+   }
+
+   /**
+    * Open a pack, reading its index and mapping its data region
+    */
+   public static AssetPack open(final Path file) throws IOException {
+      try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+         final long fileSize = channel.size();
+         if (fileSize < FOOTER_SIZE) {
+            throw new IOException("Not an asset pack: " + file);
+         }
+
+         final ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+         channel.read(footer, fileSize - FOOTER_SIZE);
+         footer.flip();
+         final long indexOffset = footer.getLong();
+         final int indexLength = footer.getInt();
+         if (footer.getInt() != MAGIC || indexOffset + indexLength + FOOTER_SIZE != fileSize) {
+            throw new IOException("Corrupt asset pack: " + file);
+         }
+         if (indexOffset > Integer.MAX_VALUE) {
+            throw new IOException("Asset pack too large to map: " + file);
+         }
+
+         final ByteBuffer index = ByteBuffer.allocate(indexLength);
+         channel.read(index, indexOffset);
+         final Map<String, Entry> entries = readIndex(index.array());
+
+         // The mapping stays valid after the channel is closed
+         final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexOffset);
+         return new AssetPack(file, data, Collections.unmodifiableMap(entries));
+      }
+   }
+
+   /**
+    * Write a pack atomically from the given sources, replacing any existing pack
+    *
+    * @param file    the pack file to write
+    * @param sources asset resources keyed by descriptor, in the order they should be laid out
+    */
+   public static void write(final Path file, final Map<AssetDescriptor, Resource> sources) throws IOException {
+      final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+      final Map<String, Entry> entries = new LinkedHashMap<>();
+
+      try (final OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE)) {
+         long offset = 0;
+         final byte[] buffer = new byte[BUFFER_SIZE];
+         for (final Map.Entry<AssetDescriptor, Resource> source : sources.entrySet()) {
+            final AssetDescriptor descriptor = source.getKey();
+            long length = 0;
+            try (final InputStream in = source.getValue().getInputStream()) {
+               int read;
+               while ((read = in.read(buffer)) != -1) {
+                  out.write(buffer, 0, read);
+                  length += read;
+               }
+            }
+            entries.put(descriptor.getPath(), new Entry(descriptor.getPath(), offset, length, descriptor.getLastModified(), descriptor.getSha256()));
+            offset += length;
+         }
+
+         final byte[] index = writeIndex(entries.values());
+         out.write(index);
+
+         final ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+         footer.putLong(offset).putInt(index.length).putInt(MAGIC);
+         out.write(footer.array());
+      }
+
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   public boolean contains(final String assetPath) {
+      return entries.containsKey(assetPath);
+   }
+
+   public List<String> getAssetPaths() {
+      return List.copyOf(entries.keySet());
+   }
+
+   public AssetDescriptor describe(final String assetPath) {
+      final Entry entry = entries.get(assetPath);
+      if (entry == null) {
+         return null;
+      }
+      return AssetDescriptor.builder().path(entry.path).size(entry.length).sha256(entry.sha256).lastModified(entry.lastModified).build();
+   }
+
+   /**
+    * A zero-copy view of one asset, backed by the pack's memory mapping
+    */
+   public Resource slice(final String assetPath) {
+      final Entry entry = entries.get(assetPath);
+      if (entry == null) {
+         return null;
+      }
+      final String filename = entry.path.substring(entry.path.lastIndexOf('/') + 1);
+      return new ByteBufferResource(data.slice((int) entry.offset, (int) entry.length), filename, entry.lastModified);
+   }
+
+   public Path getFile() {
+      return file;
+   }
+
+   private static byte[] writeIndex(final Collection<Entry> entries) throws IOException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (final DataOutputStream out = new DataOutputStream(bytes)) {
+         out.writeInt(entries.size());
+         for (final Entry entry : entries) {
+            out.writeUTF(entry.path);
+            out.writeLong(entry.offset);
+            out.writeLong(entry.length);
+            out.writeLong(entry.lastModified);
+            out.write(HexFormat.of().parseHex(entry.sha256));
+         }
+      }
+      return bytes.toByteArray();
+   }
+
+   private static Map<String, Entry> readIndex(final byte[] index) throws IOException {
+      final Map<String, Entry> entries = new LinkedHashMap<>();
+      try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(index))) {
+         final int count = in.readInt();
+         for (int i = 0; i < count; i++) {
+            final String path = in.readUTF();
+            final long offset = in.readLong();
+            final long length = in.readLong();
+            final long lastModified = in.readLong();
+            final byte[] sha256 = new byte[SHA256_BYTES];
+            in.readFully(sha256);
+            entries.put(path, new Entry(path, offset, length, lastModified, HexFormat.of().formatHex(sha256)));
+         }
+      }
+      return entries;
+   }
+
+   private record Entry(String path, long offset, long length, long lastModified, String sha256) {
+   }
+}
@@ -0,0 +1,90 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Opens and caches per-story asset packs, and builds them from loose asset files.
+ * Open packs are kept in a bounded LRU so frequently read stories stay mapped.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class AssetPackStore {
+
+   private static final int MAX_OPEN_PACKS = 256;
+
+   private final Map<String, Optional<AssetPack>> packs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Optional<AssetPack>> eldest) {
+         return size() > MAX_OPEN_PACKS;
+      }
+   });
+
+   /**
+    * The story's pack, if it has one
+    */
+   public Optional<AssetPack> find(final String storyId, final Path storyDir) {
+      final Optional<AssetPack> cached = packs.get(storyId);
+      if (cached != null && (cached.isEmpty() || Files.isRegularFile(cached.get().getFile()))) {
+         return cached;
+      }
+
+      final Path packFile = storyDir.resolve(AssetPack.PACK_FILE);
+      Optional<AssetPack> pack = Optional.empty();
+      if (Files.isRegularFile(packFile)) {
+         try {
+            pack = Optional.of(AssetPack.open(packFile));
+         } catch (final IOException e) {
+            log.error("Failed to open asset pack for story {}", storyId, e);
+         }
+      }
+      packs.put(storyId, pack);
+      return pack;
+   }
+
+   /**
+    * Pack loose assets together with anything already packed, then swap the new pack in.
+    * Loose files win over packed entries with the same path.
+    *
+    * @param looseAssets descriptors of loose files to include, relative to the story directory
+    * @return the paths of the loose assets that are now packed
+    */
+   public List<String> pack(final String storyId, final Path storyDir, final List<AssetDescriptor> looseAssets) throws IOException {
+      final Map<AssetDescriptor, Resource> sources = new LinkedHashMap<>();
+      final Map<String, AssetDescriptor> byPath = new LinkedHashMap<>();
+
+      find(storyId, storyDir).ifPresent(existing -> existing.getAssetPaths().forEach(path -> byPath.put(path, existing.describe(path))));
+      looseAssets.forEach(descriptor -> byPath.put(descriptor.getPath(), descriptor));
+
+      final Optional<AssetPack> existing = find(storyId, storyDir);
+      for (final AssetDescriptor descriptor : byPath.values()) {
+         final Path loose = storyDir.resolve(descriptor.getPath());
+         if (Files.isRegularFile(loose)) {
+            sources.put(descriptor, new FileSystemResource(loose));
+         } else if (existing.isPresent() && existing.get().contains(descriptor.getPath())) {
+            sources.put(descriptor, existing.get().slice(descriptor.getPath()));
+         }
+      }
+
+      AssetPack.write(storyDir.resolve(AssetPack.PACK_FILE), sources);
+      packs.remove(storyId);
+      log.info("Packed {} assets for story {}", sources.size(), storyId);
+      return looseAssets.stream().map(AssetDescriptor::getPath).toList();
+   }
+
+   public void evict(final String storyId) {
+      packs.remove(storyId);
+   }
+}
@@ -0,0 +1,42 @@
+package com.frankenstein.story.service.storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for writing generated assets on a dedicated I/O pool, so provider callback threads
+ * never block on disk and disk stalls never show up as provider latency
+ *
+ * @author alarinel@gmail.com
+ */
+public interface AssetWriteService {
+
+   /**
+    * Queue a page image write
+    *
+    * @param storyId    the story identifier
+    * @param pageNumber the page the image belongs to
+    * @param imageData  the PNG bytes
+    * @return future completed once the image is written (and forced, under ALWAYS durability),
+    * or failed if the write queue stayed full for every submit attempt
+    */
+   CompletableFuture<Void> saveImage(String storyId, int pageNumber, byte[] imageData);
+
+   /**
+    * Queue a page narration write
+    *
+    * @param storyId    the story identifier
+    * @param pageNumber the page the narration belongs to
+    * @param audioData  the MP3 bytes
+    * @return future completed once the narration is written (and forced, under ALWAYS durability),
+    * or failed if the write queue stayed full for every submit attempt
+    */
+   CompletableFuture<Void> saveNarration(String storyId, int pageNumber, byte[] audioData);
+
+   /**
+    * Force every asset written for a story since the last flush to stable storage.
+    * A no-op unless the durability policy is BATCH.
+    *
+    * @param storyId the story identifier
+    */
+   void flush(String storyId);
+}
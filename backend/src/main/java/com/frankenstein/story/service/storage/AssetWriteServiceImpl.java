@@ -0,0 +1,196 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Writes generated assets on the assetWriteExecutor pool through FileStorageService,
+ * applying the configured durability policy and recording queue wait, write and fsync latency.
+ * A write rejected by a full queue is resubmitted after a growing delay instead of blocking the caller;
+ * only once every attempt is rejected does its future fail.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class AssetWriteServiceImpl implements AssetWriteService {
+
+   static final String KIND_IMAGE = "image";
+   static final String KIND_NARRATION = "narration";
+
+   private final FileStorageService fileStorageService;
+   private final Executor writeExecutor;
+   private final StoryTimelineService storyTimeline;
+   private final MeterRegistry meterRegistry;
+   private final WriteDurability durability;
+   private final int submitAttempts;
+   private final Duration retryDelay;
+
+   // Files written under BATCH durability that still need forcing, per story
+   private final Map<String, Set<Path>> unsynced = new ConcurrentHashMap<>();
+
+   public AssetWriteServiceImpl(final FileStorageService fileStorageService,
+                                @Qualifier("assetWriteExecutor") final Executor writeExecutor,
+                                final StoryTimelineService storyTimeline,
+                                final MeterRegistry meterRegistry,
+                                @Value("${storage.write.durability:BATCH}") final WriteDurability durability,
+                                @Value("${storage.write.submit-attempts:5}") final int submitAttempts,
+                                @Value("${storage.write.retry-delay:500ms}") final Duration retryDelay) {
+      this.fileStorageService = fileStorageService;
+      this.writeExecutor = writeExecutor;
+      this.storyTimeline = storyTimeline;
+      this.meterRegistry = meterRegistry;
+      this.durability = durability;
+      this.submitAttempts = Math.max(1, submitAttempts);
+      this.retryDelay = retryDelay;
+   }
+
+   @Override
+   public CompletableFuture<Void> saveImage(final String storyId, final int pageNumber, final byte[] imageData) {
+      return submit(storyId, pageNumber, KIND_IMAGE, "saveImage", fileStorageService.imageAssetPath(pageNumber),
+            () -> fileStorageService.saveImage(storyId, pageNumber, imageData), System.currentTimeMillis(), 1);
+   }
+
+   @Override
+   public CompletableFuture<Void> saveNarration(final String storyId, final int pageNumber, final byte[] audioData) {
+      return submit(storyId, pageNumber, KIND_NARRATION, "saveNarration", fileStorageService.narrationAssetPath(pageNumber),
+            () -> fileStorageService.saveNarration(storyId, pageNumber, audioData), System.currentTimeMillis(), 1);
+   }
+
+   @Override
+   public void flush(final String storyId) {
+      final Set<Path> paths = unsynced.remove(storyId);
+      if (paths == null || paths.isEmpty()) {
+         return;
+      }
+
+      final Set<Path> directories = new LinkedHashSet<>();
+      final Timer.Sample sample = Timer.start(meterRegistry);
+      synchronized (paths) {
+         for (final Path path : paths) {
+            force(path, false);
+            directories.add(path.getParent());
+         }
+      }
+      directories.forEach(directory -> force(directory, true));
+      sample.stop(fsyncTimer(WriteDurability.BATCH));
+      log.debug("Flushed {} assets for story {}", paths.size(), storyId);
+   }
+
+   private CompletableFuture<Void> submit(final String storyId,
+                                          final int pageNumber,
+                                          final String kind,
+                                          final String spanName,
+                                          final String assetPath,
+                                          final Runnable write,
+                                          final long submittedAt,
+                                          final int attempt) {
+      try {
+         return CompletableFuture.runAsync(() -> {
+            final long startedAt = System.currentTimeMillis();
+            storyTimeline.recordSpan(storyId, TimelineCategory.QUEUE_WAIT, "assetWriteExecutor", pageNumber, submittedAt, startedAt);
+            Timer.builder("story.storage.write.queue.wait")
+                 .description("Time an asset write waited for a writer thread")
+                 .tag("kind", kind)
+                 .register(meterRegistry)
+                 .record(startedAt - submittedAt, TimeUnit.MILLISECONDS);
+
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            storyTimeline.record(storyId, TimelineCategory.DISK_WRITE, spanName, pageNumber, () -> {
+               write.run();
+               applyDurability(storyId, fileStorageService.getStoryDirectory(storyId).resolve(assetPath));
+               return null;
+            });
+            sample.stop(Timer.builder("story.storage.write.duration")
+                             .description("Time to write an asset, including any per-file fsync")
+                             .tag("kind", kind)
+                             .tag("durability", durability.name().toLowerCase())
+                             .register(meterRegistry));
+         }, writeExecutor);
+      } catch (final RejectedExecutionException e) {
+         if (attempt < submitAttempts) {
+            // Hold on to the bytes and try again once the writers had time to drain the queue; nothing blocks meanwhile
+            log.debug("Asset write queue full, retrying {} write for story {} page {} (attempt {})", kind, storyId, pageNumber, attempt);
+            Counter.builder("story.storage.write.retried")
+                   .description("Asset write submissions retried because the write queue was full")
+                   .tag("kind", kind)
+                   .register(meterRegistry)
+                   .increment();
+            final Executor later = CompletableFuture.delayedExecutor(retryDelay.toMillis() << (attempt - 1), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> submit(storyId, pageNumber, kind, spanName, assetPath, write, submittedAt, attempt + 1), later)
+                                    .thenCompose(Function.identity());
+         }
+         log.error("Asset write queue stayed full, failing {} write for story {} page {} after {} attempts", kind, storyId, pageNumber, attempt);
+         Counter.builder("story.storage.write.rejected")
+                .description("Asset writes rejected because the write queue stayed full for every submit attempt")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment();
+         return CompletableFuture.failedFuture(e);
+      }
+   }
+
+   private void applyDurability(final String storyId, final Path file) {
+      switch (durability) {
+         case NONE -> {
+         }
+         case BATCH -> {
+            final Set<Path> paths = unsynced.computeIfAbsent(storyId, id -> new LinkedHashSet<>());
+            synchronized (paths) {
+               paths.add(file);
+            }
+         }
+         case ALWAYS -> {
+            final Timer.Sample sample = Timer.start(meterRegistry);
+            force(file, false);
+            force(file.getParent(), true);
+            sample.stop(fsyncTimer(WriteDurability.ALWAYS));
+         }
+      }
+   }
+
+   /**
+    * Fsync a file or directory. Directory fsync is not supported on every platform, so failures there are only logged.
+    */
+   private void force(final Path path, final boolean directory) {
+      try (final FileChannel channel = FileChannel.open(path, directory ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+         channel.force(true);
+      } catch (final IOException e) {
+         if (directory) {
+            log.debug("Directory fsync not supported for {}: {}", path, e.getMessage());
+         } else {
+            log.warn("Failed to fsync {}: {}", path, e.getMessage());
+         }
+      }
+   }
+
+   private Timer fsyncTimer(final WriteDurability policy) {
+      return Timer.builder("story.storage.fsync.duration")
+                  .description("Time spent forcing assets to stable storage")
+                  .tag("durability", policy.name().toLowerCase())
+                  .register(meterRegistry);
+   }
+}
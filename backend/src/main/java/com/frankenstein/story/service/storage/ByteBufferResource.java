@@ -0,0 +1,92 @@
+package com.frankenstein.story.service.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link org.springframework.core.io.Resource} over a byte buffer, typically a slice of a memory-mapped file.
+ * Every stream gets its own view of the buffer, and skipping is a position change, so range requests
+ * never copy the skipped bytes.
+ *
+ * @author alarinel@gmail.com
+ */
+public class ByteBufferResource extends AbstractResource {
+
+   private final ByteBuffer buffer;
+   private final String filename;
+   private final long lastModified;
+
+   public ByteBufferResource(final ByteBuffer buffer, final String filename, final long lastModified) {
+      this.buffer = buffer.asReadOnlyBuffer();
+      this.filename = filename;
+      this.lastModified = lastModified;
+   }
+
+   @Override
+   public InputStream getInputStream() {
+      return new ByteBufferInputStream(buffer.duplicate());
+   }
+
+   @Override
+   public long contentLength() {
+      return buffer.remaining();
+   }
+
+   @Override
+   public long lastModified() {
+      return lastModified;
+   }
+
+   @Override
+   public boolean exists() {
+      return true;
+   }
+
+   @Override
+   public String getFilename() {
+      return filename;
+   }
+
+   @Override
+   public String getDescription() {
+      return "Byte buffer resource [" + filename + "]";
+   }
+
+   private static final class ByteBufferInputStream extends InputStream {
+
+      private final ByteBuffer buffer;
+
+      private ByteBufferInputStream(final ByteBuffer buffer) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(final byte[] bytes, final int offset, final int length) {
+         if (!buffer.hasRemaining()) {
+            return -1;
+         }
+         final int count = Math.min(length, buffer.remaining());
+         buffer.get(bytes, offset, count);
+         return count;
+      }
+
+      @Override
+      public long skip(final long n) {
+         final int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+         buffer.position(buffer.position() + count);
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+   }
+}
@@ -0,0 +1,21 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * Order in which completed stories are evicted when storage is over quota
+ *
+ * @author alarinel@gmail.com
+ */
+public enum EvictionPolicy {
+   /**
+    * Oldest stories first, by creation time
+    */
+   OLDEST,
+   /**
+    * Stories that have gone longest without being read first
+    */
+   LEAST_RECENTLY_READ,
+   /**
+    * Failed stories first, then the oldest completed ones
+    */
+   FAILED_FIRST
+}
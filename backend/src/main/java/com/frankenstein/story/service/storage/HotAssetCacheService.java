@@ -0,0 +1,32 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+/**
+ * Service for serving frequently read story assets from memory instead of disk
+ *
+ * @author alarinel@gmail.com
+ */
+public interface HotAssetCacheService {
+
+   /**
+    * Load an asset, from memory when it is hot. Entries are keyed by the asset's content hash,
+    * so a regenerated asset is never served from a stale entry.
+    *
+    * @param storyId    the story identifier
+    * @param descriptor the asset's current descriptor
+    * @return resource over the asset contents
+    * @throws IOException if the asset cannot be read
+    */
+   Resource load(String storyId, AssetDescriptor descriptor) throws IOException;
+
+   /**
+    * Drop every cached asset of a story
+    *
+    * @param storyId the story identifier
+    */
+   void evictStory(String storyId);
+}
@@ -0,0 +1,153 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps hot page images and narrations in a byte-weighted LRU, on heap or in direct buffers.
+ * Concurrent misses for the same asset share one disk read. Assets over the per-entry limit,
+ * and packed assets that are already memory-mapped, are served straight from storage.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class HotAssetCacheServiceImpl implements HotAssetCacheService {
+
+   private final FileStorageService fileStorageService;
+   private final MeterRegistry meterRegistry;
+   private final boolean enabled;
+   private final long maxEntryBytes;
+   private final boolean offHeap;
+   private final WeightedAssetCache cache;
+   private final Map<String, CompletableFuture<ByteBuffer>> inFlight = new ConcurrentHashMap<>();
+
+   public HotAssetCacheServiceImpl(final FileStorageService fileStorageService,
+                                   final MeterRegistry meterRegistry,
+                                   @Value("${storage.cache.enabled:true}") final boolean enabled,
+                                   @Value("${storage.cache.max-size:64MB}") final DataSize maxSize,
+                                   @Value("${storage.cache.max-entry-size:4MB}") final DataSize maxEntrySize,
+                                   @Value("${storage.cache.off-heap:false}") final boolean offHeap) {
+      this.fileStorageService = fileStorageService;
+      this.meterRegistry = meterRegistry;
+      this.enabled = enabled;
+      this.maxEntryBytes = maxEntrySize.toBytes();
+      this.offHeap = offHeap;
+      this.cache = new WeightedAssetCache(maxSize.toBytes());
+
+      Gauge.builder("story.assets.cache.bytes", cache, WeightedAssetCache::getTotalBytes)
+           .description("Bytes held in the hot asset cache")
+           .baseUnit("bytes")
+           .tag("memory", offHeap ? "direct" : "heap")
+           .register(meterRegistry);
+      Gauge.builder("story.assets.cache.entries", cache, WeightedAssetCache::size)
+           .description("Assets held in the hot asset cache")
+           .register(meterRegistry);
+      FunctionCounter.builder("story.assets.cache.evictions", cache, WeightedAssetCache::getEvictionCount)
+                     .description("Assets evicted to stay under the hot asset cache size cap")
+                     .register(meterRegistry);
+   }
+
+   @Override
+   public Resource load(final String storyId, final AssetDescriptor descriptor) throws IOException {
+      if (!enabled || descriptor.getSize() > maxEntryBytes) {
+         lookupCounter("bypass").increment();
+         return fileStorageService.loadAssetResource(storyId, descriptor.getPath());
+      }
+
+      final String key = storyId + "/" + descriptor.getPath() + "@" + descriptor.getSha256();
+      final ByteBuffer cached = cache.get(key);
+      if (cached != null) {
+         lookupCounter("hit").increment();
+         return resource(cached, descriptor);
+      }
+
+      final CompletableFuture<ByteBuffer> loading = new CompletableFuture<>();
+      final CompletableFuture<ByteBuffer> existing = inFlight.putIfAbsent(key, loading);
+      if (existing != null) {
+         lookupCounter("coalesced").increment();
+         final ByteBuffer shared = await(existing);
+         return shared != null ? resource(shared, descriptor) : fileStorageService.loadAssetResource(storyId, descriptor.getPath());
+      }
+
+      lookupCounter("miss").increment();
+      try {
+         final Resource source = fileStorageService.loadAssetResource(storyId, descriptor.getPath());
+         if (source instanceof ByteBufferResource) {
+            // Packed assets are already slices of a memory mapping; copying them would only double the memory
+            loading.complete(null);
+            return source;
+         }
+         final ByteBuffer buffer = read(source, descriptor.getSize());
+         cache.put(key, buffer);
+         loading.complete(buffer);
+         return resource(buffer, descriptor);
+      } catch (final IOException | RuntimeException e) {
+         loading.completeExceptionally(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, loading);
+      }
+   }
+
+   @Override
+   public void evictStory(final String storyId) {
+      cache.invalidatePrefix(storyId + "/");
+   }
+
+   private ByteBuffer read(final Resource source, final long size) throws IOException {
+      final ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect((int) size) : ByteBuffer.allocate((int) size);
+      try (final InputStream in = source.getInputStream();
+           final ReadableByteChannel channel = Channels.newChannel(in)) {
+         while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the stream ends
+         }
+      }
+      if (buffer.hasRemaining()) {
+         throw new IOException("Asset shorter than its descriptor: " + source.getDescription());
+      }
+      return buffer.flip();
+   }
+
+   private ByteBuffer await(final CompletableFuture<ByteBuffer> future) throws IOException {
+      try {
+         return future.join();
+      } catch (final CompletionException e) {
+         if (e.getCause() instanceof IOException io) {
+            throw io;
+         }
+         throw e;
+      }
+   }
+
+   private Resource resource(final ByteBuffer buffer, final AssetDescriptor descriptor) {
+      final String path = descriptor.getPath();
+      return new ByteBufferResource(buffer, path.substring(path.lastIndexOf('/') + 1), descriptor.getLastModified());
+   }
+
+   private Counter lookupCounter(final String outcome) {
+      return Counter.builder("story.assets.cache.lookups")
+                    .description("Hot asset cache lookups by outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+   }
+}
@@ -0,0 +1,117 @@
+package com.frankenstein.story.service.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes files together with a gzip-compressed sibling ({@code name.gz}) so they can be served
+ * to gzip-capable clients without compressing on every request.
+ * A sibling is only served while its gzip trailer (CRC-32 and length of the uncompressed data) matches the file,
+ * so a stale sibling is never served, whatever the write order or timestamp resolution.
+ *
+ * @author alarinel@gmail.com
+ */
+public final class PrecompressedFiles {
+
+   public static final String GZIP_SUFFIX = ".gz";
+
+   // CRC-32 and uncompressed length, both little-endian, at the end of every gzip member
+   private static final int GZIP_TRAILER_BYTES = 8;
+
+   private PrecompressedFiles() {
+   }
+
+   /**
+    * Atomically write the file and then its gzip sibling. A crash or a concurrent save in between leaves a sibling
+    * that no longer matches the file, which {@link #findFreshGzip} ignores.
+    */
+   public static void write(final Path target, final byte[] data) throws IOException {
+      writeAtomically(target, data);
+      writeAtomically(gzipSibling(target), gzip(data));
+   }
+
+   /**
+    * The gzip sibling of a file, if it exists and holds exactly the file's current content
+    */
+   public static Optional<Path> findFreshGzip(final Path target) {
+      final Path gzip = gzipSibling(target);
+      try {
+         if (Files.isRegularFile(target) && Files.isRegularFile(gzip) && matchesContent(gzip, target)) {
+            return Optional.of(gzip);
+         }
+      } catch (final IOException e) {
+         // Treat an unreadable sibling as missing
+      }
+      return Optional.empty();
+   }
+
+   public static Path gzipSibling(final Path target) {
+      return target.resolveSibling(target.getFileName() + GZIP_SUFFIX);
+   }
+
+   /**
+    * Compare the sibling's gzip trailer with the file: the length first, which is free, then the CRC-32 of the content
+    */
+   private static boolean matchesContent(final Path gzip, final Path target) throws IOException {
+      final ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      try (final FileChannel channel = FileChannel.open(gzip)) {
+         final long trailerStart = channel.size() - GZIP_TRAILER_BYTES;
+         if (trailerStart < 0) {
+            return false;
+         }
+         while (trailer.hasRemaining()) {
+            if (channel.read(trailer, trailerStart + trailer.position()) < 0) {
+               return false;
+            }
+         }
+      }
+      final long crc = Integer.toUnsignedLong(trailer.getInt(0));
+      final long length = Integer.toUnsignedLong(trailer.getInt(4));
+      if ((Files.size(target) & 0xFFFFFFFFL) != length) {
+         return false;
+      }
+      final CRC32 checksum = new CRC32();
+      checksum.update(Files.readAllBytes(target));
+      return checksum.getValue() == crc;
+   }
+
+   /**
+    * Compress at the highest level; this runs once per save, not per request
+    */
+   static byte[] gzip(final byte[] data) throws IOException {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+      try (final GZIPOutputStream gzip = new GZIPOutputStream(out) {
+         {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+         }
+      }) {
+         gzip.write(data);
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Each write gets its own temp file, so concurrent saves of the same file never interleave their bytes;
+    * the last move wins with a complete file
+    */
+   private static void writeAtomically(final Path target, final byte[] data) throws IOException {
+      Files.createDirectories(target.getParent());
+      final Path tempFile = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+      try {
+         Files.write(tempFile, data);
+         Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(tempFile);
+      }
+   }
+}
@@ -0,0 +1,23 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * Service for moving stories between the flat and sharded storage layouts while the app keeps serving them
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorageLayoutMigrationService {
+
+   /**
+    * Start a migration on the storage maintenance thread unless one is already running
+    *
+    * @return whether a new migration was started
+    */
+   boolean startMigration();
+
+   /**
+    * Move every story that is not yet in the configured layout, one atomic directory rename at a time
+    *
+    * @return the number of stories moved
+    */
+   int migrate();
+}
@@ -0,0 +1,88 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Migrates stories into the configured layout in the background. Readers resolve a story in either layout,
+ * and each story moves with a single rename, so there is no window in which it cannot be found.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StorageLayoutMigrationServiceImpl implements StorageLayoutMigrationService {
+
+   private final FileStorageService fileStorageService;
+   private final Executor maintenanceExecutor;
+   private final boolean migrateOnStartup;
+   private final Counter migrated;
+   private final AtomicBoolean running = new AtomicBoolean();
+
+   public StorageLayoutMigrationServiceImpl(final FileStorageService fileStorageService,
+                                            @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                            @Value("${storage.layout.migrate-on-startup:false}") final boolean migrateOnStartup,
+                                            final MeterRegistry meterRegistry) {
+      this.fileStorageService = fileStorageService;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.migrateOnStartup = migrateOnStartup;
+      this.migrated = Counter.builder("story.storage.layout.migrated").description("Stories moved into the configured storage layout").register(meterRegistry);
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void onApplicationReady() {
+      if (migrateOnStartup) {
+         startMigration();
+      }
+   }
+
+   @Override
+   public boolean startMigration() {
+      if (!running.compareAndSet(false, true)) {
+         return false;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            try {
+               migrate();
+            } finally {
+               running.set(false);
+            }
+         });
+         return true;
+      } catch (final RuntimeException e) {
+         running.set(false);
+         log.warn("Could not schedule storage layout migration", e);
+         return false;
+      }
+   }
+
+   @Override
+   public int migrate() {
+      final List<String> storyIds = fileStorageService.findStoriesToMigrate();
+      if (storyIds.isEmpty()) {
+         return 0;
+      }
+      log.info("Migrating {} stories to the configured storage layout", storyIds.size());
+      int moved = 0;
+      for (final String storyId : storyIds) {
+         if (fileStorageService.migrateStoryLayout(storyId)) {
+            migrated.increment();
+            moved++;
+         }
+      }
+      log.info("Storage layout migration moved {} of {} stories", moved, storyIds.size());
+      return moved;
+   }
+}
@@ -0,0 +1,27 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * Service that keeps storage within its configured story count and size, and cleans up what failed generations leave behind
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorageQuotaService {
+
+   /**
+    * Run one incremental pass: measure new or changed story directories, delete stale temp files and orphaned
+    * directories, then evict completed stories by the configured policy while over quota
+    *
+    * @return the number of story directories removed
+    */
+   int reclaim();
+
+   /**
+    * Total bytes of the hot story directories measured so far; archived stories are not counted
+    */
+   long getTotalBytes();
+
+   /**
+    * Number of completed or failed stories in storage
+    */
+   int getStoryCount();
+}
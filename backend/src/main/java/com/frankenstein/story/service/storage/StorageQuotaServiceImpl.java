@@ -0,0 +1,284 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Enforces storage.max-story-count and storage.quota.max-size on the storage maintenance thread.
+ * Each pass measures a bounded batch of new or changed story directories, so a large library is
+ * measured over several passes instead of in one long walk. Directories left without a story.json
+ * by failed generations, and temp files from interrupted writes, are reclaimed once they are older
+ * than the orphan grace period.
+ * Only the hot tier is measured: stories moved to the archive tier have no story directory and count toward
+ * neither limit, and measuring never restores them or fills the parsed-story cache.
+ * Eviction deletes stories, so nothing runs unless storage.quota.enabled is set.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StorageQuotaServiceImpl implements StorageQuotaService {
+
+   private static final String STORY_FILE = "story.json";
+   private static final long NO_METADATA = -1L;
+
+   private final FileStorageService fileStorageService;
+   private final StoryOrchestrationService orchestrationService;
+   private final StorySearchService storySearchService;
+   private final StoryAccessTracker accessTracker;
+   private final Executor maintenanceExecutor;
+   private final MeterRegistry meterRegistry;
+   private final boolean enabled;
+   private final int maxStories;
+   private final long maxBytes;
+   private final EvictionPolicy policy;
+   private final Duration orphanGrace;
+   private final int scanBatch;
+   private final int maxEvictionsPerPass;
+   private final Map<String, StoryUsage> usage = new ConcurrentHashMap<>();
+   private final AtomicBoolean running = new AtomicBoolean();
+
+   public StorageQuotaServiceImpl(final FileStorageService fileStorageService,
+                                  final StoryOrchestrationService orchestrationService,
+                                  final StorySearchService storySearchService,
+                                  final StoryAccessTracker accessTracker,
+                                  @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                  final MeterRegistry meterRegistry,
+                                  @Value("${storage.quota.enabled:false}") final boolean enabled,
+                                  @Value("${storage.max-story-count:0}") final int maxStories,
+                                  @Value("${storage.quota.max-size:0}") final DataSize maxSize,
+                                  @Value("${storage.quota.policy:OLDEST}") final EvictionPolicy policy,
+                                  @Value("${storage.quota.orphan-grace:PT2H}") final Duration orphanGrace,
+                                  @Value("${storage.quota.scan-batch:200}") final int scanBatch,
+                                  @Value("${storage.quota.max-evictions-per-pass:20}") final int maxEvictionsPerPass) {
+      this.fileStorageService = fileStorageService;
+      this.orchestrationService = orchestrationService;
+      this.storySearchService = storySearchService;
+      this.accessTracker = accessTracker;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.meterRegistry = meterRegistry;
+      this.enabled = enabled;
+      this.maxStories = maxStories;
+      this.maxBytes = maxSize.toBytes();
+      this.policy = policy;
+      this.orphanGrace = orphanGrace;
+      this.scanBatch = scanBatch;
+      this.maxEvictionsPerPass = maxEvictionsPerPass;
+
+      Gauge.builder("story.storage.bytes", this, StorageQuotaServiceImpl::getTotalBytes)
+           .description("Bytes used by hot story directories; archived stories are not counted")
+           .baseUnit("bytes")
+           .register(meterRegistry);
+      Gauge.builder("story.storage.stories", this, StorageQuotaServiceImpl::getStoryCount)
+           .description("Completed and failed stories in storage")
+           .register(meterRegistry);
+   }
+
+   /**
+    * Hand a pass to the maintenance thread; the scheduler thread only ever enqueues it
+    */
+   @Scheduled(initialDelayString = "${storage.quota.initial-delay:PT1M}", fixedDelayString = "${storage.quota.interval:PT5M}")
+   public void scheduleReclaim() {
+      if (!enabled || !running.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            try {
+               reclaim();
+            } finally {
+               running.set(false);
+            }
+         });
+      } catch (final RuntimeException e) {
+         running.set(false);
+         log.warn("Could not schedule storage quota pass", e);
+      }
+   }
+
+   @Override
+   public synchronized int reclaim() {
+      final Map<String, Path> directories = new LinkedHashMap<>();
+      try {
+         for (final Path directory : StoryLayout.findStoryDirectories(fileStorageService.getStorageRoot())) {
+            final String name = directory.getFileName().toString();
+            if (StoryLayout.isStoryId(name)) {
+               directories.put(name, directory);
+            }
+         }
+      } catch (final IOException e) {
+         log.warn("Failed to scan storage for quota enforcement", e);
+         return 0;
+      }
+      usage.keySet().retainAll(directories.keySet());
+
+      final Instant orphanCutoff = Instant.now().minus(orphanGrace);
+      int measured = 0;
+      for (final Map.Entry<String, Path> directory : directories.entrySet()) {
+         if (measured >= scanBatch) {
+            break;
+         }
+         final long stamp = metadataStamp(directory.getValue());
+         final StoryUsage known = usage.get(directory.getKey());
+         if (known != null && known.stamp() == stamp && stamp != NO_METADATA) {
+            continue;
+         }
+         measure(directory.getKey(), directory.getValue(), stamp, orphanCutoff);
+         measured++;
+      }
+
+      int removed = 0;
+      for (final StoryUsage story : List.copyOf(usage.values())) {
+         if (story.stamp() == NO_METADATA && story.lastModified().isBefore(orphanCutoff) && !orchestrationService.isGenerating(story.storyId())) {
+            removed += remove(story, "orphan") ? 1 : 0;
+         }
+      }
+      removed += evictOverQuota();
+
+      if (removed > 0) {
+         log.info("Storage pass removed {} stories; {} stories, {} bytes remain", removed, getStoryCount(), getTotalBytes());
+      }
+      return removed;
+   }
+
+   @Override
+   public long getTotalBytes() {
+      return usage.values().stream().mapToLong(StoryUsage::bytes).sum();
+   }
+
+   @Override
+   public int getStoryCount() {
+      return (int) usage.values().stream().filter(story -> story.stamp() != NO_METADATA).count();
+   }
+
+   private int evictOverQuota() {
+      final List<StoryUsage> candidates = usage.values().stream().filter(story -> story.stamp() != NO_METADATA).sorted(evictionOrder()).toList();
+      int stories = candidates.size();
+      long bytes = getTotalBytes();
+      int evicted = 0;
+      for (final StoryUsage candidate : candidates) {
+         if (evicted >= maxEvictionsPerPass || !overQuota(stories, bytes)) {
+            break;
+         }
+         if (remove(candidate, "evicted")) {
+            stories--;
+            bytes -= candidate.bytes();
+            evicted++;
+         }
+      }
+      return evicted;
+   }
+
+   private boolean overQuota(final int stories, final long bytes) {
+      return (maxStories > 0 && stories > maxStories) || (maxBytes > 0 && bytes > maxBytes);
+   }
+
+   private Comparator<StoryUsage> evictionOrder() {
+      final Comparator<StoryUsage> oldest = Comparator.comparing(StoryUsage::createdAt);
+      return switch (policy) {
+         case OLDEST -> oldest;
+         case LEAST_RECENTLY_READ -> Comparator.comparing(story -> accessTracker.getLastRead(story.storyId()).orElse(story.createdAt()));
+         case FAILED_FIRST -> Comparator.<StoryUsage, Boolean>comparing(story -> !story.failed()).thenComparing(oldest);
+      };
+   }
+
+   private boolean remove(final StoryUsage story, final String reason) {
+      try {
+         orchestrationService.deleteStoryWithAssets(story.storyId());
+         // Orchestration only drops it from search alongside the story index, and logs rather than throws if that fails
+         storySearchService.removeStories(List.of(story.storyId()));
+         usage.remove(story.storyId());
+         meterRegistry.counter("story.storage.reclaimed", "reason", reason).increment();
+         log.info("Removed story {} ({}, {} bytes)", story.storyId(), reason, story.bytes());
+         return true;
+      } catch (final RuntimeException e) {
+         log.warn("Failed to remove story {} ({})", story.storyId(), reason, e);
+         return false;
+      }
+   }
+
+   /**
+    * Size up one story directory, deleting temp files that interrupted writes left behind
+    */
+   private void measure(final String storyId, final Path directory, final long stamp, final Instant orphanCutoff) {
+      long bytes = 0;
+      Instant lastModified = Instant.EPOCH;
+      try (final Stream<Path> files = Files.walk(directory)) {
+         for (final Path file : files.filter(Files::isRegularFile).toList()) {
+            final Instant modified = Files.getLastModifiedTime(file).toInstant();
+            if (file.getFileName().toString().endsWith(".tmp") && modified.isBefore(orphanCutoff)) {
+               Files.deleteIfExists(file);
+               meterRegistry.counter("story.storage.reclaimed", "reason", "partial").increment();
+               log.debug("Deleted stale temp file {}", file);
+               continue;
+            }
+            bytes += Files.size(file);
+            lastModified = modified.isAfter(lastModified) ? modified : lastModified;
+         }
+         if (lastModified.equals(Instant.EPOCH)) {
+            lastModified = Files.getLastModifiedTime(directory).toInstant();
+         }
+      } catch (final IOException e) {
+         log.warn("Failed to measure story directory {}", directory, e);
+         return;
+      }
+
+      Instant createdAt = lastModified;
+      boolean failed = false;
+      if (stamp != NO_METADATA) {
+         try {
+            // A background read: leave the parsed-story cache to the stories readers actually open
+            final Story story = fileStorageService.peekStory(storyId);
+            failed = story.getStatus() == StoryStatus.FAILED;
+            if (story.getCreatedAt() != null) {
+               createdAt = story.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            }
+         } catch (final RuntimeException e) {
+            // An unreadable story.json is as good as a failed story
+            failed = true;
+         }
+      }
+      usage.put(storyId, new StoryUsage(storyId, stamp, bytes, lastModified, createdAt, failed));
+   }
+
+   private long metadataStamp(final Path directory) {
+      try {
+         final Path metadata = directory.resolve(STORY_FILE);
+         return Files.isRegularFile(metadata) ? Files.getLastModifiedTime(metadata).toMillis() : NO_METADATA;
+      } catch (final IOException e) {
+         return NO_METADATA;
+      }
+   }
+
+   /**
+    * What one pass learned about a story directory; {@code stamp} is story.json's modification time, or NO_METADATA while there is none
+    */
+   private record StoryUsage(String storyId, long stamp, long bytes, Instant lastModified, Instant createdAt, boolean failed) {
+   }
+}
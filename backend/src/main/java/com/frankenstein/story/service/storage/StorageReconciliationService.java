@@ -0,0 +1,27 @@
+package com.frankenstein.story.service.storage;
+
+import java.util.Collection;
+
+/**
+ * Service that brings the story index and caches in line with story directories changed outside the API,
+ * such as restores, migrations or copies from other nodes
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorageReconciliationService {
+
+   /**
+    * Scan the story directories and reconcile only those whose modification times changed since the last scan.
+    * The first scan only parses stories that are missing from the index.
+    *
+    * @return the number of stories whose index entry or caches were updated
+    */
+   int reconcile();
+
+   /**
+    * Reconcile specific stories, e.g. those a file watch reported as created or deleted
+    *
+    * @return the number of stories whose index entry or caches were updated
+    */
+   int reconcileStories(Collection<String> storyIds);
+}
@@ -0,0 +1,245 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles story directories against the index on the storage maintenance thread. Each story is fingerprinted
+ * by the modification times of its directory, its story.json and its asset directories; a scan only touches
+ * stories whose fingerprint changed. Stories whose story.json is younger than the settle period are left for a
+ * later scan, so a story that is still being copied in, or finished by the API a moment ago, is not read half-done.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StorageReconciliationServiceImpl implements StorageReconciliationService {
+
+   private static final String STORY_FILE = "story.json";
+
+   private final FileStorageService fileStorageService;
+   private final StoryIndexService storyIndexService;
+   private final StorySearchService storySearchService;
+   private final HotAssetCacheService hotAssetCache;
+   private final Executor maintenanceExecutor;
+   private final MeterRegistry meterRegistry;
+   private final boolean enabled;
+   private final Duration settle;
+   private final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+   private final AtomicBoolean running = new AtomicBoolean();
+   private boolean seeded;
+
+   public StorageReconciliationServiceImpl(final FileStorageService fileStorageService,
+                                           final StoryIndexService storyIndexService,
+                                           final StorySearchService storySearchService,
+                                           final HotAssetCacheService hotAssetCache,
+                                           @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                           final MeterRegistry meterRegistry,
+                                           @Value("${storage.reconcile.enabled:true}") final boolean enabled,
+                                           @Value("${storage.reconcile.settle:PT10S}") final Duration settle) {
+      this.fileStorageService = fileStorageService;
+      this.storyIndexService = storyIndexService;
+      this.storySearchService = storySearchService;
+      this.hotAssetCache = hotAssetCache;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.meterRegistry = meterRegistry;
+      this.enabled = enabled;
+      this.settle = settle;
+   }
+
+   /**
+    * Hand a scan to the maintenance thread; the scheduler thread only ever enqueues it
+    */
+   @Scheduled(initialDelayString = "${storage.reconcile.initial-delay:PT15S}", fixedDelayString = "${storage.reconcile.interval:PT1M}")
+   public void scheduleReconcile() {
+      if (!enabled || !running.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            try {
+               reconcile();
+            } finally {
+               running.set(false);
+            }
+         });
+      } catch (final RuntimeException e) {
+         running.set(false);
+         log.warn("Could not schedule storage reconciliation", e);
+      }
+   }
+
+   @Override
+   public synchronized int reconcile() {
+      final Map<String, Path> directories = new LinkedHashMap<>();
+      try {
+         for (final Path directory : StoryLayout.findStoryDirectories(fileStorageService.getStorageRoot())) {
+            final String name = directory.getFileName().toString();
+            if (StoryLayout.isStoryId(name)) {
+               directories.put(name, directory);
+            }
+         }
+      } catch (final IOException e) {
+         log.warn("Failed to scan storage for reconciliation", e);
+         return 0;
+      }
+
+      int changed = 0;
+      for (final Map.Entry<String, Path> directory : directories.entrySet()) {
+         changed += reconcileStory(directory.getKey(), directory.getValue()) ? 1 : 0;
+      }
+
+      final Set<String> gone = new HashSet<>(fingerprints.keySet());
+      if (!seeded) {
+         storyIndexService.getAllStories().forEach(entry -> gone.add(entry.getId()));
+         seeded = true;
+      }
+      gone.removeAll(directories.keySet());
+      for (final String storyId : gone) {
+         changed += removeStory(storyId) ? 1 : 0;
+      }
+
+      if (changed > 0) {
+         log.info("Reconciled {} changed stories", changed);
+      }
+      return changed;
+   }
+
+   @Override
+   public synchronized int reconcileStories(final Collection<String> storyIds) {
+      int changed = 0;
+      for (final String storyId : storyIds) {
+         final Path directory = fileStorageService.getStoryDirectory(storyId);
+         if (Files.isDirectory(directory)) {
+            changed += reconcileStory(storyId, directory) ? 1 : 0;
+         } else {
+            changed += removeStory(storyId) ? 1 : 0;
+         }
+      }
+      return changed;
+   }
+
+   private boolean reconcileStory(final String storyId, final Path directory) {
+      final Optional<Long> fingerprint = fingerprint(directory);
+      if (fingerprint.isEmpty() || fingerprint.get().equals(fingerprints.get(storyId))) {
+         return false;
+      }
+      final Path metadata = directory.resolve(STORY_FILE);
+      if (!Files.isRegularFile(metadata)) {
+         // Still generating, or an orphan the quota pass will reclaim
+         fingerprints.put(storyId, fingerprint.get());
+         return false;
+      }
+      if (isSettling(metadata)) {
+         return false;
+      }
+
+      final Optional<StoryIndexEntry> indexed = storyIndexService.getStory(storyId);
+      if (!seeded && indexed.isPresent()) {
+         // First scan after startup: trust the index for stories it already has
+         fingerprints.put(storyId, fingerprint.get());
+         return false;
+      }
+
+      fileStorageService.invalidateStory(storyId);
+      hotAssetCache.evictStory(storyId);
+      try {
+         final Story story = fileStorageService.loadStory(storyId);
+         if (story.getStatus() == StoryStatus.COMPLETED || story.getStatus() == StoryStatus.FAILED) {
+            final StoryIndexEntry entry = storyIndexService.createEntry(story, directory);
+            if (indexed.isEmpty() || isStale(indexed.get(), entry)) {
+               storyIndexService.updateStoryInIndex(entry);
+            }
+         }
+         if (story.getStatus() == StoryStatus.COMPLETED) {
+            // Page text may have changed even when the index entry did not
+            storySearchService.indexStory(story);
+         }
+      } catch (final RuntimeException e) {
+         log.warn("Failed to reconcile story {}", storyId, e);
+         return false;
+      }
+      fingerprints.put(storyId, fingerprint.get());
+      meterRegistry.counter("story.storage.reconciled", "change", indexed.isPresent() ? "updated" : "added").increment();
+      log.debug("Reconciled story {}", storyId);
+      return true;
+   }
+
+   private boolean removeStory(final String storyId) {
+      fingerprints.remove(storyId);
+      fileStorageService.invalidateStory(storyId);
+      hotAssetCache.evictStory(storyId);
+      if (fileStorageService.isSharedStorage() || fileStorageService.isArchived(storyId) || !storyIndexService.storyExists(storyId)) {
+         // With shared storage a missing local copy only means it was never fetched here; archived stories have no directory
+         return false;
+      }
+      storyIndexService.removeStoryFromIndex(storyId);
+      storySearchService.removeStories(List.of(storyId));
+      meterRegistry.counter("story.storage.reconciled", "change", "removed").increment();
+      log.info("Removed story {} from index; its directory is gone", storyId);
+      return true;
+   }
+
+   /**
+    * The index entry keeps its own thumbnail URL (with a content version) unless the story gained or lost a thumbnail
+    */
+   private boolean isStale(final StoryIndexEntry indexed, final StoryIndexEntry current) {
+      return !Objects.equals(indexed.getTitle(), current.getTitle())
+            || !Objects.equals(indexed.getCreatedAt(), current.getCreatedAt())
+            || !Objects.equals(indexed.getThumbnailUrl(), current.getThumbnailUrl())
+            || indexed.getStatus() != current.getStatus();
+   }
+
+   private boolean isSettling(final Path metadata) {
+      try {
+         return Files.getLastModifiedTime(metadata).toInstant().isAfter(Instant.now().minus(settle));
+      } catch (final IOException e) {
+         return true;
+      }
+   }
+
+   /**
+    * Newest modification time of the story directory, its story.json and its immediate subdirectories
+    */
+   private Optional<Long> fingerprint(final Path directory) {
+      try (final Stream<Path> children = Files.list(directory)) {
+         long newest = Files.getLastModifiedTime(directory).toMillis();
+         for (final Path child : children.toList()) {
+            if (Files.isDirectory(child) || child.getFileName().toString().equals(STORY_FILE)) {
+               newest = Math.max(newest, Files.getLastModifiedTime(child).toMillis());
+            }
+         }
+         return Optional.of(newest);
+      } catch (final IOException e) {
+         return Optional.empty();
+      }
+   }
+}
@@ -0,0 +1,17 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * Service that moves stories nobody reads to the compressed archive tier. Archived stories are restored to the hot
+ * tier transparently by the first read that needs them.
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorageTieringService {
+
+   /**
+    * Archive completed stories that have not been read within the cold-after period
+    *
+    * @return the number of stories archived
+    */
+   int demoteColdStories();
+}
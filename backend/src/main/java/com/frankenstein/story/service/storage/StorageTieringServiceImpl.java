@@ -0,0 +1,189 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Demotes cold stories to the archive tier on the storage maintenance thread. A story is cold when it has not been
+ * read, restored or written within storage.tier.cold-after; reads from before startup are unknown, so the clock for
+ * every story starts no earlier than startup. Off unless storage.tier.enabled is set, and always off with shared storage,
+ * where local directories are only a cache.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StorageTieringServiceImpl implements StorageTieringService {
+
+   private final FileStorageService fileStorageService;
+   private final StoryOrchestrationService orchestrationService;
+   private final StoryAccessTracker accessTracker;
+   private final Executor maintenanceExecutor;
+   private final boolean enabled;
+   private final Duration coldAfter;
+   private final int maxDemotionsPerPass;
+   private final Counter demotions;
+   private final AtomicLong hotStories = new AtomicLong();
+   private final AtomicLong hotBytes = new AtomicLong();
+   private final AtomicLong archivedStories = new AtomicLong();
+   private final AtomicLong archivedBytes = new AtomicLong();
+   private final AtomicBoolean running = new AtomicBoolean();
+
+   public StorageTieringServiceImpl(final FileStorageService fileStorageService,
+                                    final StoryOrchestrationService orchestrationService,
+                                    final StoryAccessTracker accessTracker,
+                                    @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                    final MeterRegistry meterRegistry,
+                                    @Value("${storage.tier.enabled:false}") final boolean enabled,
+                                    @Value("${storage.tier.cold-after:P30D}") final Duration coldAfter,
+                                    @Value("${storage.tier.max-demotions-per-pass:20}") final int maxDemotionsPerPass) {
+      this.fileStorageService = fileStorageService;
+      this.orchestrationService = orchestrationService;
+      this.accessTracker = accessTracker;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.enabled = enabled;
+      this.coldAfter = coldAfter;
+      this.maxDemotionsPerPass = maxDemotionsPerPass;
+      this.demotions = Counter.builder("story.storage.tier.demotions").description("Stories moved to the archive tier").register(meterRegistry);
+
+      Gauge.builder("story.storage.tier.bytes", hotBytes, AtomicLong::get)
+           .description("Bytes held in each storage tier")
+           .baseUnit("bytes")
+           .tag("tier", "hot")
+           .register(meterRegistry);
+      Gauge.builder("story.storage.tier.bytes", archivedBytes, AtomicLong::get)
+           .description("Bytes held in each storage tier")
+           .baseUnit("bytes")
+           .tag("tier", "archive")
+           .register(meterRegistry);
+      Gauge.builder("story.storage.tier.stories", hotStories, AtomicLong::get)
+           .description("Stories held in each storage tier")
+           .tag("tier", "hot")
+           .register(meterRegistry);
+      Gauge.builder("story.storage.tier.stories", archivedStories, AtomicLong::get)
+           .description("Stories held in each storage tier")
+           .tag("tier", "archive")
+           .register(meterRegistry);
+      FunctionTimer.builder("story.storage.tier.promotion",
+                         fileStorageService.getStoryArchive(),
+                         StoryArchive::getRestoreCount,
+                         StoryArchive::getRestoreNanos,
+                         TimeUnit.NANOSECONDS)
+                   .description("Time to restore an archived story to the hot tier on first read")
+                   .register(meterRegistry);
+   }
+
+   /**
+    * Hand a pass to the maintenance thread; the scheduler thread only ever enqueues it
+    */
+   @Scheduled(initialDelayString = "${storage.tier.initial-delay:PT5M}", fixedDelayString = "${storage.tier.interval:PT15M}")
+   public void scheduleDemotion() {
+      if (!enabled || fileStorageService.isSharedStorage() || !running.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            try {
+               demoteColdStories();
+            } finally {
+               running.set(false);
+            }
+         });
+      } catch (final RuntimeException e) {
+         running.set(false);
+         log.warn("Could not schedule storage tiering pass", e);
+      }
+   }
+
+   @Override
+   public synchronized int demoteColdStories() {
+      final Instant cutoff = Instant.now().minus(coldAfter);
+      final List<String> hot = fileStorageService.listStoryIds().stream().filter(storyId -> !fileStorageService.isArchived(storyId)).toList();
+      int demoted = 0;
+      for (final String storyId : hot) {
+         if (demoted >= maxDemotionsPerPass) {
+            break;
+         }
+         if (isCold(storyId, cutoff) && !orchestrationService.isGenerating(storyId) && fileStorageService.archiveStory(storyId)) {
+            demotions.increment();
+            demoted++;
+         }
+      }
+      refreshTierSizes(hot);
+      if (demoted > 0) {
+         log.info("Moved {} cold stories to the archive tier", demoted);
+      }
+      return demoted;
+   }
+
+   private boolean isCold(final String storyId, final Instant cutoff) {
+      Instant lastUsed = accessTracker.getLastRead(storyId).orElse(accessTracker.getStartedAt());
+      try {
+         // A restore or a write touches the directory, which counts as use too
+         final Instant modified = Files.getLastModifiedTime(fileStorageService.getStoryDirectory(storyId)).toInstant();
+         lastUsed = modified.isAfter(lastUsed) ? modified : lastUsed;
+      } catch (final IOException e) {
+         return false;
+      }
+      return lastUsed.isBefore(cutoff);
+   }
+
+   /**
+    * Size both tiers for the gauges. The hot tier is measured here rather than taken from the quota service,
+    * whose sizes are only kept while quota enforcement is on.
+    */
+   private void refreshTierSizes(final List<String> candidates) {
+      long stories = 0;
+      long bytes = 0;
+      for (final String storyId : candidates) {
+         if (fileStorageService.isArchived(storyId)) {
+            continue;
+         }
+         stories++;
+         bytes += directoryBytes(fileStorageService.getStoryDirectory(storyId));
+      }
+      hotStories.set(stories);
+      hotBytes.set(bytes);
+      try {
+         final StoryArchive archive = fileStorageService.getStoryArchive();
+         archivedStories.set(archive.list().size());
+         archivedBytes.set(archive.totalBytes());
+      } catch (final IOException e) {
+         log.warn("Failed to measure the archive tier", e);
+      }
+   }
+
+   private long directoryBytes(final Path directory) {
+      if (!Files.isDirectory(directory)) {
+         return 0;
+      }
+      try (final Stream<Path> files = Files.walk(directory)) {
+         return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+      } catch (final IOException | UncheckedIOException e) {
+         log.warn("Failed to measure story directory {}", directory, e);
+         return 0;
+      }
+   }
+}
@@ -0,0 +1,184 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.service.FileStorageService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the storage root and its shard directories for story directories appearing or disappearing, and hands
+ * the affected stories to the reconciler. Individual story directories are not watched, which keeps the number of
+ * watches independent of library size; changes inside a story are picked up by the periodic scan instead.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Component
+public class StorageWatcher {
+
+   private static final int SHARD_DEPTH = 2;
+
+   private final FileStorageService fileStorageService;
+   private final StorageReconciliationService reconciliationService;
+   private final Executor maintenanceExecutor;
+   private final boolean enabled;
+   private final Duration debounce;
+   private final Map<WatchKey, WatchedDirectory> watched = new ConcurrentHashMap<>();
+   private WatchService watchService;
+   private Thread thread;
+
+   public StorageWatcher(final FileStorageService fileStorageService,
+                         final StorageReconciliationService reconciliationService,
+                         @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                         @Value("${storage.reconcile.watch:true}") final boolean enabled,
+                         @Value("${storage.reconcile.debounce:PT1S}") final Duration debounce) {
+      this.fileStorageService = fileStorageService;
+      this.reconciliationService = reconciliationService;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.enabled = enabled;
+      this.debounce = debounce;
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   public void start() {
+      if (!enabled) {
+         return;
+      }
+      final Path root = fileStorageService.getStorageRoot();
+      try {
+         watchService = root.getFileSystem().newWatchService();
+         register(root, 0);
+      } catch (final IOException e) {
+         log.warn("Cannot watch {}; changes made outside the API are only seen by the periodic scan", root, e);
+         return;
+      }
+      thread = new Thread(this::watch, "storage-watch");
+      thread.setDaemon(true);
+      thread.start();
+      log.info("Watching {} ({} directories) for story changes", root, watched.size());
+   }
+
+   @PreDestroy
+   public void stop() {
+      if (thread != null) {
+         thread.interrupt();
+      }
+      if (watchService != null) {
+         try {
+            watchService.close();
+         } catch (final IOException e) {
+            log.debug("Failed to close storage watch", e);
+         }
+      }
+   }
+
+   private void register(final Path directory, final int depth) throws IOException {
+      watched.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE), new WatchedDirectory(directory, depth));
+      if (depth >= SHARD_DEPTH) {
+         return;
+      }
+      try (final Stream<Path> children = Files.list(directory)) {
+         for (final Path child : children.filter(Files::isDirectory).toList()) {
+            if (StoryLayout.isShardName(child.getFileName().toString())) {
+               register(child, depth + 1);
+            }
+         }
+      }
+   }
+
+   private void watch() {
+      while (!Thread.currentThread().isInterrupted()) {
+         try {
+            WatchKey key = watchService.take();
+            final Set<String> storyIds = new HashSet<>();
+            boolean rescan = false;
+            // Collect events until the directory has been quiet for the debounce period, so a restore is one batch
+            while (key != null) {
+               rescan |= drain(key, storyIds);
+               key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            submit(storyIds, rescan);
+         } catch (final InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   /**
+    * Collect the stories a key's events touched, and start watching new shard directories
+    *
+    * @return whether events were lost or may have been missed, so a full scan is needed
+    */
+   private boolean drain(final WatchKey key, final Set<String> storyIds) {
+      final WatchedDirectory directory = watched.get(key);
+      boolean rescan = false;
+      for (final WatchEvent<?> event : key.pollEvents()) {
+         if (event.kind() == OVERFLOW || directory == null) {
+            rescan = true;
+            continue;
+         }
+         final Path child = directory.path().resolve((Path) event.context());
+         final String name = child.getFileName().toString();
+         if (StoryLayout.isStoryId(name)) {
+            storyIds.add(name);
+         } else if (event.kind() == ENTRY_CREATE && directory.depth() < SHARD_DEPTH && StoryLayout.isShardName(name) && Files.isDirectory(child)) {
+            try {
+               register(child, directory.depth() + 1);
+               // Stories may have landed in the shard before it was watched
+               rescan = true;
+            } catch (final IOException e) {
+               log.warn("Failed to watch {}", child, e);
+            }
+         }
+      }
+      if (!key.reset()) {
+         watched.remove(key);
+      }
+      return rescan;
+   }
+
+   private void submit(final Set<String> storyIds, final boolean rescan) {
+      if (storyIds.isEmpty() && !rescan) {
+         return;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            if (rescan) {
+               reconciliationService.reconcile();
+            } else {
+               reconciliationService.reconcileStories(storyIds);
+            }
+         });
+      } catch (final RejectedExecutionException e) {
+         log.debug("Maintenance queue full; {} watched changes left to the periodic scan", storyIds.size());
+      }
+   }
+
+   private record WatchedDirectory(Path path, int depth) {
+   }
+}
@@ -0,0 +1,40 @@
+package com.frankenstein.story.service.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each story was last read, for least-recently-read eviction. Kept in memory only;
+ * after a restart stories fall back to their creation time until they are read again.
+ *
+ * @author alarinel@gmail.com
+ */
+@Component
+public class StoryAccessTracker {
+
+   private final Map<String, Instant> lastRead = new ConcurrentHashMap<>();
+   private final Instant startedAt = Instant.now();
+
+   public void recordRead(final String storyId) {
+      lastRead.put(storyId, Instant.now());
+   }
+
+   public Optional<Instant> getLastRead(final String storyId) {
+      return Optional.ofNullable(lastRead.get(storyId));
+   }
+
+   /**
+    * When tracking began; reads before it are unknown
+    */
+   public Instant getStartedAt() {
+      return startedAt;
+   }
+
+   public void forget(final String storyId) {
+      lastRead.remove(storyId);
+   }
+}
@@ -0,0 +1,211 @@
+package com.frankenstein.story.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Cold tier for stories: each archived story is one deflated zip of its directory, kept under the archive root in
+ * the same hash-prefix layout as story directories. Restoring unpacks next to the hot directory and renames it into
+ * place, so readers never see a half-restored story.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class StoryArchive {
+
+   private static final String ARCHIVE_SUFFIX = ".zip";
+   private static final int LOCK_STRIPES = 64;
+
+   private final Path root;
+   private final Object[] locks = new Object[LOCK_STRIPES];
+   private final AtomicLong restoreCount = new AtomicLong();
+   private final AtomicLong restoreNanos = new AtomicLong();
+
+   public StoryArchive(final Path root) {
+      this.root = root;
+      for (int i = 0; i < LOCK_STRIPES; i++) {
+         locks[i] = new Object();
+      }
+   }
+
+   public Path getRoot() {
+      return root;
+   }
+
+   public boolean contains(final String storyId) {
+      return Files.isRegularFile(archiveFile(storyId));
+   }
+
+   /**
+    * Zip a story directory into the archive, then remove the directory
+    *
+    * @return the size of the archive file
+    */
+   public long archive(final String storyId, final Path storyDir) throws IOException {
+      synchronized (lockFor(storyId)) {
+         final Path target = archiveFile(storyId);
+         Files.createDirectories(target.getParent());
+         final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+         try (final OutputStream out = Files.newOutputStream(temp); final ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(Deflater.BEST_COMPRESSION);
+            try (final Stream<Path> files = Files.walk(storyDir)) {
+               for (final Path file : files.filter(Files::isRegularFile).filter(file -> !file.getFileName().toString().endsWith(".tmp")).sorted().toList()) {
+                  final ZipEntry entry = new ZipEntry(storyDir.relativize(file).toString().replace('\\', '/'));
+                  entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+                  zip.putNextEntry(entry);
+                  Files.copy(file, zip);
+                  zip.closeEntry();
+               }
+            }
+         } catch (final IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+         }
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         FileUtils.deleteDirectory(storyDir.toFile());
+         return Files.size(target);
+      }
+   }
+
+   /**
+    * Unpack an archived story into its hot directory and drop the archive
+    *
+    * @return whether the story was restored; false if it was not archived or another reader restored it first
+    */
+   public boolean restore(final String storyId, final Path storyDir) throws IOException {
+      synchronized (lockFor(storyId)) {
+         final Path source = archiveFile(storyId);
+         if (Files.isDirectory(storyDir) || !Files.isRegularFile(source)) {
+            return false;
+         }
+         final long started = System.nanoTime();
+         Files.createDirectories(storyDir.getParent());
+         // Dot-prefixed so listings skip it until it is renamed into place
+         final Path temp = storyDir.resolveSibling("." + storyId + ".restoring");
+         FileUtils.deleteDirectory(temp.toFile());
+         try (final ZipFile zip = new ZipFile(source.toFile())) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+               final ZipEntry entry = entries.nextElement();
+               final Path file = temp.resolve(entry.getName()).normalize();
+               if (!file.startsWith(temp)) {
+                  throw new IOException("Archive entry escapes the story directory: " + entry.getName());
+               }
+               if (entry.isDirectory()) {
+                  continue;
+               }
+               Files.createDirectories(file.getParent());
+               try (final InputStream in = zip.getInputStream(entry)) {
+                  Files.copy(in, file);
+               }
+               if (entry.getLastModifiedTime() != null) {
+                  Files.setLastModifiedTime(file, entry.getLastModifiedTime());
+               }
+            }
+            Files.move(temp, storyDir, StandardCopyOption.ATOMIC_MOVE);
+         } catch (final IOException e) {
+            FileUtils.deleteDirectory(temp.toFile());
+            throw e;
+         }
+         Files.delete(source);
+         restoreNanos.addAndGet(System.nanoTime() - started);
+         restoreCount.incrementAndGet();
+         return true;
+      }
+   }
+
+   public void delete(final String storyId) throws IOException {
+      synchronized (lockFor(storyId)) {
+         Files.deleteIfExists(archiveFile(storyId));
+      }
+   }
+
+   /**
+    * Read one file of an archived story without restoring it
+    *
+    * @return the file's bytes, or empty if the story is not archived or the archive has no such file
+    */
+   public Optional<byte[]> readEntry(final String storyId, final String name) throws IOException {
+      synchronized (lockFor(storyId)) {
+         final Path source = archiveFile(storyId);
+         if (!Files.isRegularFile(source)) {
+            return Optional.empty();
+         }
+         try (final ZipFile zip = new ZipFile(source.toFile())) {
+            final ZipEntry entry = zip.getEntry(name);
+            if (entry == null) {
+               return Optional.empty();
+            }
+            try (final InputStream in = zip.getInputStream(entry)) {
+               return Optional.of(in.readAllBytes());
+            }
+         }
+      }
+   }
+
+   /**
+    * Ids of all archived stories
+    */
+   public List<String> list() throws IOException {
+      final List<String> storyIds = new ArrayList<>();
+      for (final Path file : archiveFiles()) {
+         final String name = file.getFileName().toString();
+         storyIds.add(name.substring(0, name.length() - ARCHIVE_SUFFIX.length()));
+      }
+      return storyIds;
+   }
+
+   /**
+    * Combined size of all archive files
+    */
+   public long totalBytes() throws IOException {
+      long total = 0;
+      for (final Path file : archiveFiles()) {
+         total += Files.size(file);
+      }
+      return total;
+   }
+
+   public long getRestoreCount() {
+      return restoreCount.get();
+   }
+
+   public double getRestoreNanos() {
+      return restoreNanos.get();
+   }
+
+   private List<Path> archiveFiles() throws IOException {
+      if (!Files.isDirectory(root)) {
+         return List.of();
+      }
+      try (final Stream<Path> files = Files.walk(root)) {
+         return files.filter(Files::isRegularFile).filter(file -> file.getFileName().toString().endsWith(ARCHIVE_SUFFIX)).toList();
+      }
+   }
+
+   private Path archiveFile(final String storyId) {
+      final Path sharded = StoryLayout.shardedDirectory(root, storyId);
+      return sharded.resolveSibling(storyId + ARCHIVE_SUFFIX);
+   }
+
+   private Object lockFor(final String storyId) {
+      return locks[Math.floorMod(storyId.hashCode(), LOCK_STRIPES)];
+   }
+}
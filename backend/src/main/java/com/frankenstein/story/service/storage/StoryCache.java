@@ -0,0 +1,63 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.Story;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of parsed stories, so repeated reads and status polls don't re-parse story.json.
+ * Every invalidation bumps a generation counter; a load that raced with an invalidation is returned
+ * to its caller but not cached, so a stale parse can never outlive the write that replaced it.
+ *
+ * @author alarinel@gmail.com
+ */
+public class StoryCache {
+
+   private final int maxEntries;
+   private final AtomicLong generation = new AtomicLong();
+   private final Map<String, Story> stories;
+
+   public StoryCache(final int maxEntries) {
+      this.maxEntries = maxEntries;
+      this.stories = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(final Map.Entry<String, Story> eldest) {
+            return size() > StoryCache.this.maxEntries;
+         }
+      };
+   }
+
+   /**
+    * The cached story, or the result of the loader, which is cached unless the story was invalidated meanwhile
+    */
+   public Story get(final String storyId, final Supplier<Story> loader) {
+      final long before;
+      synchronized (this) {
+         final Story cached = stories.get(storyId);
+         if (cached != null) {
+            return cached;
+         }
+         before = generation.get();
+      }
+
+      final Story loaded = loader.get();
+      synchronized (this) {
+         if (generation.get() == before) {
+            stories.put(storyId, loaded);
+         }
+      }
+      return loaded;
+   }
+
+   public synchronized void invalidate(final String storyId) {
+      generation.incrementAndGet();
+      stories.remove(storyId);
+   }
+
+   public synchronized int size() {
+      return stories.size();
+   }
+}
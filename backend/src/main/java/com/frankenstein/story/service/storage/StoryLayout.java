@@ -0,0 +1,96 @@
+package com.frankenstein.story.service.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Story directory layouts under storage.root. The flat layout keeps every story directly under the root;
+ * the sharded layout spreads them over two levels of hash-prefix directories ({@code ab/cd/<storyId>})
+ * so no single directory grows past a few thousand entries.
+ *
+ * @author alarinel@gmail.com
+ */
+public final class StoryLayout {
+
+   private static final Pattern SHARD_NAME = Pattern.compile("[0-9a-f]{2}");
+   private static final Pattern STORY_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+   private StoryLayout() {
+   }
+
+   /**
+    * Whether a directory name is a generated story id, as opposed to housekeeping directories such as api-tracking
+    */
+   public static boolean isStoryId(final String name) {
+      return STORY_ID.matcher(name).matches();
+   }
+
+   /**
+    * Whether a directory name is one level of the sharded layout
+    */
+   public static boolean isShardName(final String name) {
+      return SHARD_NAME.matcher(name).matches();
+   }
+
+   public static Path flatDirectory(final Path root, final String storyId) {
+      return root.resolve(storyId);
+   }
+
+   /**
+    * {@code root/ab/cd/storyId}, where ab and cd are the first two bytes of the SHA-256 of the story id
+    */
+   public static Path shardedDirectory(final Path root, final String storyId) {
+      final String hash = sha256Hex(storyId);
+      return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(storyId);
+   }
+
+   /**
+    * Every story directory under the root in either layout. Dot-directories (e.g. .derived) are skipped,
+    * and two-character hex directories are treated as shards rather than stories.
+    */
+   public static List<Path> findStoryDirectories(final Path root) throws IOException {
+      final List<Path> directories = new ArrayList<>();
+      if (!Files.isDirectory(root)) {
+         return directories;
+      }
+      for (final Path child : list(root)) {
+         final String name = child.getFileName().toString();
+         if (name.startsWith(".")) {
+            continue;
+         }
+         if (!SHARD_NAME.matcher(name).matches()) {
+            directories.add(child);
+            continue;
+         }
+         for (final Path shard : list(child)) {
+            if (SHARD_NAME.matcher(shard.getFileName().toString()).matches()) {
+               list(shard).stream().filter(directory -> !directory.getFileName().toString().startsWith(".")).forEach(directories::add);
+            }
+         }
+      }
+      return directories;
+   }
+
+   private static List<Path> list(final Path directory) throws IOException {
+      try (final Stream<Path> paths = Files.list(directory)) {
+         return paths.filter(Files::isDirectory).toList();
+      }
+   }
+
+   private static String sha256Hex(final String value) {
+      try {
+         return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+      } catch (final NoSuchAlgorithmException e) {
+         throw new IllegalStateException("SHA-256 unavailable", e);
+      }
+   }
+}
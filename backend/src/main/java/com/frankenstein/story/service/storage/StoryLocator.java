@@ -0,0 +1,287 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.exception.StoryNotFoundException;
+import com.frankenstein.story.service.storage.backend.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Works out where a story lives: its directory in the flat or sharded layout, the archive tier it is restored
+ * from, the trash that hides it once deleted, and the shared backend that is the system of record when one is
+ * configured. Holds no caches; callers drop theirs when a story moves.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class StoryLocator {
+
+   private static final String STORY_FILE = "story.json";
+
+   private final Path storageRoot;
+   // Read on every lookup, since the layout flag is injected after construction
+   private final BooleanSupplier sharded;
+   // Shared object store that is the system of record when configured; storage.root is then a local working copy
+   private final StorageBackend sharedBackend;
+   // Cold tier: archived stories are restored to their hot directory on first read
+   private final StoryArchive storyArchive;
+   // Deleted stories: tombstoned at once, their files purged in the background
+   private final StoryTrash storyTrash;
+
+   public StoryLocator(final Path storageRoot, final Path archiveRoot, final StorageBackend storageBackend, final BooleanSupplier sharded) {
+      this.storageRoot = storageRoot;
+      this.sharded = sharded;
+      this.sharedBackend = storageBackend != null && storageBackend.isShared() ? storageBackend : null;
+      this.storyArchive = new StoryArchive(archiveRoot);
+      this.storyTrash = new StoryTrash(storageRoot.resolve(".trash"));
+   }
+
+   /**
+    * The story's directory in the configured layout, or in the other layout while it has not been migrated yet
+    */
+   public Path getStoryDirectory(final String storyId) {
+      final Path preferred = preferredDirectory(storyId);
+      if (Files.isDirectory(preferred)) {
+         return preferred;
+      }
+      final Path legacy = legacyDirectory(storyId);
+      return Files.isDirectory(legacy) ? legacy : preferred;
+   }
+
+   /**
+    * The story's directory, restoring it from the archive tier first when it was archived
+    *
+    * @throws StoryNotFoundException if the story was deleted
+    */
+   public Path hotDirectory(final String storyId) throws IOException {
+      if (storyTrash.contains(storyId)) {
+         throw new StoryNotFoundException(storyId);
+      }
+      final Path directory = getStoryDirectory(storyId);
+      if (!Files.isDirectory(directory) && storyArchive.restore(storyId, preferredDirectory(storyId))) {
+         log.debug("Restored story {} from the archive tier", storyId);
+         return getStoryDirectory(storyId);
+      }
+      return directory;
+   }
+
+   public boolean isSharded() {
+      return sharded.getAsBoolean();
+   }
+
+   private Path preferredDirectory(final String storyId) {
+      return isSharded() ? StoryLayout.shardedDirectory(storageRoot, storyId) : StoryLayout.flatDirectory(storageRoot, storyId);
+   }
+
+   private Path legacyDirectory(final String storyId) {
+      return isSharded() ? StoryLayout.flatDirectory(storageRoot, storyId) : StoryLayout.shardedDirectory(storageRoot, storyId);
+   }
+
+   /**
+    * Ids of stories with a story.json that still sit in the layout that is not configured
+    */
+   public List<String> findStoriesToMigrate() throws IOException {
+      return StoryLayout.findStoryDirectories(storageRoot)
+                        .stream()
+                        .filter(dir -> Files.isRegularFile(dir.resolve(STORY_FILE)))
+                        .filter(dir -> dir.equals(legacyDirectory(dir.getFileName().toString())))
+                        .map(dir -> dir.getFileName().toString())
+                        .filter(storyId -> !Files.exists(preferredDirectory(storyId)))
+                        .collect(Collectors.toList());
+   }
+
+   /**
+    * Move one story into the configured layout with a single atomic rename, so readers see it in one place or the other
+    *
+    * @return the directory the story now lives in, or empty when there was nothing to move
+    */
+   public Optional<Path> moveToPreferredLayout(final String storyId) throws IOException {
+      final Path source = legacyDirectory(storyId);
+      final Path target = preferredDirectory(storyId);
+      if (!Files.isDirectory(source) || Files.exists(target)) {
+         return Optional.empty();
+      }
+      Files.createDirectories(target.getParent());
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+      return Optional.of(target);
+   }
+
+   /**
+    * Ids of every story with a saved story.json, hot, archived or only in shared storage, leaving out deleted ones
+    */
+   public List<String> listStoryIds() throws IOException {
+      // Insertion-ordered set: hot stories first, then archived, then shared-only, each id once
+      final Set<String> storyIds = StoryLayout.findStoryDirectories(storageRoot)
+                                              .stream()
+                                              .filter(dir -> Files.isRegularFile(dir.resolve(STORY_FILE)))
+                                              .map(dir -> dir.getFileName().toString())
+                                              .filter(storyId -> !storyTrash.contains(storyId))
+                                              .collect(Collectors.toCollection(LinkedHashSet::new));
+
+      try {
+         storyArchive.list().stream().filter(storyId -> !storyTrash.contains(storyId)).forEach(storyIds::add);
+      } catch (final IOException e) {
+         log.error("Failed to list archived stories", e);
+      }
+
+      if (sharedBackend != null) {
+         try {
+            sharedBackend.list("")
+                         .stream()
+                         .filter(key -> key.endsWith("/" + STORY_FILE) && key.indexOf('/') == key.length() - STORY_FILE.length() - 1)
+                         .map(key -> key.substring(0, key.indexOf('/')))
+                         .filter(storyId -> !storyTrash.contains(storyId))
+                         .forEach(storyIds::add);
+         } catch (final IOException e) {
+            log.error("Failed to list stories in shared storage", e);
+         }
+      }
+      return new ArrayList<>(storyIds);
+   }
+
+   public StoryArchive getArchive() {
+      return storyArchive;
+   }
+
+   public boolean isArchived(final String storyId) {
+      return storyArchive.contains(storyId);
+   }
+
+   /**
+    * Whether the story can move to the archive tier: it is saved locally, and shared storage is not the system of record
+    */
+   public boolean isArchivable(final String storyId) {
+      return sharedBackend == null && Files.isRegularFile(getStoryDirectory(storyId).resolve(STORY_FILE));
+   }
+
+   /**
+    * Move the story's directory into the archive tier
+    *
+    * @return bytes written to the archive
+    */
+   public long archive(final String storyId) throws IOException {
+      return storyArchive.archive(storyId, getStoryDirectory(storyId));
+   }
+
+   /**
+    * The story's story.json read straight from its archive, without restoring it to the hot tier
+    */
+   public Optional<byte[]> readArchivedStory(final String storyId) throws IOException {
+      return storyArchive.readEntry(storyId, STORY_FILE);
+   }
+
+   public boolean isDeleted(final String storyId) {
+      return storyTrash.contains(storyId);
+   }
+
+   /**
+    * Tombstone a story and move its directory into the trash, dropping any archived copy
+    */
+   public void bury(final String storyId) throws IOException {
+      storyTrash.bury(storyId, getStoryDirectory(storyId));
+      storyArchive.delete(storyId);
+   }
+
+   /**
+    * Stories deleted but not yet purged
+    */
+   public List<String> getDeletedStoryIds() {
+      return storyTrash.pending();
+   }
+
+   /**
+    * Remove a deleted story's files from the trash and from shared storage, then drop its tombstone
+    */
+   public void purge(final String storyId) throws IOException {
+      if (sharedBackend != null) {
+         sharedBackend.deletePrefix(storyId + "/");
+      }
+      storyTrash.purge(storyId);
+   }
+
+   /**
+    * Whether stories live in shared storage, making the local directories only a working copy
+    */
+   public boolean isShared() {
+      return sharedBackend != null;
+   }
+
+   /**
+    * Mirror a file just written under the story directory to shared storage, when configured
+    */
+   public void publish(final String storyId, final String relativePath) throws IOException {
+      if (sharedBackend == null) {
+         return;
+      }
+      final Path file = getStoryDirectory(storyId).resolve(relativePath);
+      try (final InputStream in = Files.newInputStream(file)) {
+         sharedBackend.put(storyId + "/" + relativePath, in, Files.size(file));
+      }
+   }
+
+   /**
+    * Mirror a story's freshly serialized story.json to shared storage, when configured
+    */
+   public void publishStory(final String storyId, final byte[] json) throws IOException {
+      if (sharedBackend != null) {
+         sharedBackend.put(storyId + "/" + STORY_FILE, json);
+      }
+   }
+
+   /**
+    * Copy a story file from shared storage into the local working copy
+    *
+    * @return whether shared storage had the file
+    */
+   public boolean hydrate(final String storyId, final String relativePath) throws IOException {
+      if (sharedBackend == null) {
+         return false;
+      }
+      final Optional<InputStream> remote = sharedBackend.get(storyId + "/" + relativePath);
+      if (remote.isEmpty()) {
+         return false;
+      }
+      final Path target = getStoryDirectory(storyId).resolve(relativePath);
+      Files.createDirectories(target.getParent());
+      final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      try (final InputStream in = remote.get()) {
+         Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+      log.debug("Fetched {}/{} from shared storage", storyId, relativePath);
+      return true;
+   }
+
+   /**
+    * Fetch story.json from shared storage, writing its precompressed sibling as a local save would
+    *
+    * @return whether shared storage had the story
+    */
+   public boolean hydrateStory(final String storyId, final Path metadataPath) throws IOException {
+      if (sharedBackend == null) {
+         return false;
+      }
+      final Optional<InputStream> remote = sharedBackend.get(storyId + "/" + STORY_FILE);
+      if (remote.isEmpty()) {
+         return false;
+      }
+      try (final InputStream in = remote.get()) {
+         Files.createDirectories(metadataPath.getParent());
+         PrecompressedFiles.write(metadataPath, in.readAllBytes());
+      }
+      return true;
+   }
+}
@@ -0,0 +1,21 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * Service that purges the files of deleted stories in the background
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryReaperService {
+
+   /**
+    * Queue a purge on the storage maintenance thread, e.g. right after a delete; does nothing if one is already queued
+    */
+   void requestPurge();
+
+   /**
+    * Purge every deleted story still in the trash
+    *
+    * @return the number of stories purged
+    */
+   int purge();
+}
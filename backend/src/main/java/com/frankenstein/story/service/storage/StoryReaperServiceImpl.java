@@ -0,0 +1,91 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Purges deleted stories from the trash on the storage maintenance thread. Deletes request a purge straight away;
+ * the scheduled pass retries stories whose purge failed and picks up tombstones left over from before a restart.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+public class StoryReaperServiceImpl implements StoryReaperService {
+
+   private final FileStorageService fileStorageService;
+   private final StorySearchService storySearchService;
+   private final Executor maintenanceExecutor;
+   private final Counter purged;
+   private final Timer purgeDuration;
+   private final AtomicBoolean queued = new AtomicBoolean();
+
+   public StoryReaperServiceImpl(final FileStorageService fileStorageService,
+                                 final StorySearchService storySearchService,
+                                 @Qualifier("storageMaintenanceExecutor") final Executor maintenanceExecutor,
+                                 final MeterRegistry meterRegistry) {
+      this.fileStorageService = fileStorageService;
+      this.storySearchService = storySearchService;
+      this.maintenanceExecutor = maintenanceExecutor;
+      this.purged = Counter.builder("story.storage.purged").description("Deleted stories whose files were purged").register(meterRegistry);
+      this.purgeDuration = Timer.builder("story.storage.purge.duration").description("Time to purge one deleted story's files").register(meterRegistry);
+      Gauge.builder("story.storage.trash.pending", fileStorageService, storage -> storage.getDeletedStoryIds().size())
+           .description("Deleted stories waiting to be purged")
+           .register(meterRegistry);
+   }
+
+   @Scheduled(initialDelayString = "${storage.trash.initial-delay:PT30S}", fixedDelayString = "${storage.trash.interval:PT5M}")
+   public void schedulePurge() {
+      requestPurge();
+   }
+
+   @Override
+   public void requestPurge() {
+      if (!queued.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         maintenanceExecutor.execute(() -> {
+            // Cleared before the pass, so deletes made while it runs queue another
+            queued.set(false);
+            purge();
+         });
+      } catch (final RuntimeException e) {
+         queued.set(false);
+         log.warn("Could not schedule trash purge; the next scheduled pass will retry", e);
+      }
+   }
+
+   @Override
+   public synchronized int purge() {
+      final List<String> purgedIds = new ArrayList<>();
+      for (final String storyId : fileStorageService.getDeletedStoryIds()) {
+         try {
+            purgeDuration.record(() -> fileStorageService.purgeDeletedStory(storyId));
+            purged.increment();
+            purgedIds.add(storyId);
+         } catch (final RuntimeException e) {
+            log.warn("Failed to purge deleted story {}; will retry", storyId, e);
+         }
+      }
+      if (!purgedIds.isEmpty()) {
+         // Covers tombstones from before a restart and deletes whose search update failed
+         storySearchService.removeStories(purgedIds);
+         log.info("Purged {} deleted stories", purgedIds.size());
+      }
+      return purgedIds.size();
+   }
+}
@@ -0,0 +1,78 @@
+package com.frankenstein.story.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Trash area for deleted stories. Deleting writes a tombstone and renames the story directory in here, both
+ * constant-time; the slow recursive delete happens later in {@link #purge}. Tombstones are files, so stories
+ * deleted before a restart stay deleted and are still purged after it.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class StoryTrash {
+
+   private static final String TOMBSTONE_SUFFIX = ".tombstone";
+
+   private final Path root;
+   private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+
+   public StoryTrash(final Path root) {
+      this.root = root;
+      if (Files.isDirectory(root)) {
+         try (final Stream<Path> files = Files.list(root)) {
+            files.map(file -> file.getFileName().toString())
+                 .filter(name -> name.endsWith(TOMBSTONE_SUFFIX))
+                 .map(name -> name.substring(0, name.length() - TOMBSTONE_SUFFIX.length()))
+                 .forEach(tombstones::add);
+         } catch (final IOException e) {
+            log.error("Failed to read tombstones from {}", root, e);
+         }
+      }
+   }
+
+   public boolean contains(final String storyId) {
+      return tombstones.contains(storyId);
+   }
+
+   /**
+    * Tombstone a story, then move its directory (if it has one) into the trash with a single rename
+    */
+   public void bury(final String storyId, final Path storyDir) throws IOException {
+      Files.createDirectories(root);
+      Files.writeString(root.resolve(storyId + TOMBSTONE_SUFFIX), Instant.now().toString());
+      tombstones.add(storyId);
+      if (Files.isDirectory(storyDir)) {
+         final Path target = root.resolve(storyId);
+         Files.createDirectories(target);
+         Files.move(storyDir, target.resolve(Long.toString(System.nanoTime())), StandardCopyOption.ATOMIC_MOVE);
+      }
+   }
+
+   /**
+    * Stories whose tombstone is waiting for their files to be purged
+    */
+   public List<String> pending() {
+      return List.copyOf(tombstones);
+   }
+
+   /**
+    * Delete a buried story's files, then its tombstone
+    */
+   public void purge(final String storyId) throws IOException {
+      FileUtils.deleteDirectory(root.resolve(storyId).toFile());
+      Files.deleteIfExists(root.resolve(storyId + TOMBSTONE_SUFFIX));
+      tombstones.remove(storyId);
+   }
+}
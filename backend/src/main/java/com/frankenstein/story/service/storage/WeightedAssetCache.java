@@ -0,0 +1,76 @@
+package com.frankenstein.story.service.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte-weighted LRU of asset contents. The cap is on total buffer bytes rather than entry count,
+ * so a handful of large narrations cannot crowd out many page images unnoticed.
+ *
+ * @author alarinel@gmail.com
+ */
+public final class WeightedAssetCache {
+
+   private final long maxBytes;
+   private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+   private final AtomicLong evictions = new AtomicLong();
+   private long totalBytes;
+
+   public WeightedAssetCache(final long maxBytes) {
+      this.maxBytes = maxBytes;
+   }
+
+   public synchronized ByteBuffer get(final String key) {
+      return entries.get(key);
+   }
+
+   /**
+    * Add an entry, evicting least recently used entries until the cache fits its cap again
+    */
+   public synchronized void put(final String key, final ByteBuffer buffer) {
+      if (buffer.capacity() > maxBytes) {
+         return;
+      }
+      final ByteBuffer previous = entries.put(key, buffer);
+      if (previous != null) {
+         totalBytes -= previous.capacity();
+      }
+      totalBytes += buffer.capacity();
+
+      final Iterator<ByteBuffer> eldest = entries.values().iterator();
+      while (totalBytes > maxBytes && eldest.hasNext()) {
+         totalBytes -= eldest.next().capacity();
+         eldest.remove();
+         evictions.incrementAndGet();
+      }
+   }
+
+   /**
+    * Drop every entry whose key starts with the given prefix
+    */
+   public synchronized void invalidatePrefix(final String prefix) {
+      final Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+         final Map.Entry<String, ByteBuffer> entry = iterator.next();
+         if (entry.getKey().startsWith(prefix)) {
+            totalBytes -= entry.getValue().capacity();
+            iterator.remove();
+         }
+      }
+   }
+
+   public synchronized long getTotalBytes() {
+      return totalBytes;
+   }
+
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   public long getEvictionCount() {
+      return evictions.get();
+   }
+}
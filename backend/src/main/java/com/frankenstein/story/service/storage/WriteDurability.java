@@ -0,0 +1,24 @@
+package com.frankenstein.story.service.storage;
+
+/**
+ * How hard generated assets are pushed to stable storage before a write is reported complete
+ *
+ * @author alarinel@gmail.com
+ */
+public enum WriteDurability {
+
+   /**
+    * Leave flushing to the OS page cache; fastest, an asset written just before a crash may be lost
+    */
+   NONE,
+
+   /**
+    * Write without fsync and force every file written for a story in one pass when the story is flushed
+    */
+   BATCH,
+
+   /**
+    * Fsync each asset and its directory before the write completes
+    */
+   ALWAYS
+}
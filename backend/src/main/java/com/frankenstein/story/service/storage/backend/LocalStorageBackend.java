@@ -0,0 +1,142 @@
+package com.frankenstein.story.service.storage.backend;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend over a local directory, with keys mapped to relative paths. Writes go to a temporary
+ * sibling and are moved into place, so readers never see a partial object.
+ *
+ * @author alarinel@gmail.com
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+   private final Path root;
+
+   public LocalStorageBackend(final Path root) {
+      this.root = root.toAbsolutePath().normalize();
+   }
+
+   @Override
+   public void put(final String key, final InputStream content, final long length) throws IOException {
+      final Path target = resolve(key);
+      Files.createDirectories(target.getParent());
+      final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      try {
+         final long copied = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+         if (copied != length) {
+            throw new IOException("Expected " + length + " bytes for " + key + " but read " + copied);
+         }
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+
+   @Override
+   public Optional<InputStream> get(final String key) throws IOException {
+      try {
+         return Optional.of(Files.newInputStream(resolve(key)));
+      } catch (final NoSuchFileException e) {
+         return Optional.empty();
+      }
+   }
+
+   @Override
+   public Optional<InputStream> getRange(final String key, final long offset, final long length) throws IOException {
+      final FileChannel channel;
+      try {
+         channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+      } catch (final NoSuchFileException e) {
+         return Optional.empty();
+      }
+      channel.position(offset);
+      final InputStream in = Channels.newInputStream(channel);
+      return Optional.of(new BoundedInputStream(in, length));
+   }
+
+   @Override
+   public List<String> list(final String prefix) throws IOException {
+      if (!Files.isDirectory(root)) {
+         return List.of();
+      }
+      try (final Stream<Path> files = Files.walk(root)) {
+         return files.filter(Files::isRegularFile)
+                     .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                     .filter(key -> key.startsWith(prefix) && !key.endsWith(".tmp"))
+                     .sorted()
+                     .toList();
+      }
+   }
+
+   @Override
+   public void delete(final String key) throws IOException {
+      Files.deleteIfExists(resolve(key));
+   }
+
+   @Override
+   public boolean isShared() {
+      return false;
+   }
+
+   private Path resolve(final String key) throws IOException {
+      final Path path = root.resolve(key).normalize();
+      if (!path.startsWith(root) || path.equals(root)) {
+         throw new IOException("Invalid key: " + key);
+      }
+      return path;
+   }
+
+   /**
+    * Stream that ends after a fixed number of bytes, used for range reads
+    */
+   static final class BoundedInputStream extends InputStream {
+
+      private final InputStream in;
+      private long remaining;
+
+      BoundedInputStream(final InputStream in, final long limit) {
+         this.in = in;
+         this.remaining = limit;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (remaining <= 0) {
+            return -1;
+         }
+         final int b = in.read();
+         if (b >= 0) {
+            remaining--;
+         }
+         return b;
+      }
+
+      @Override
+      public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+         if (remaining <= 0) {
+            return -1;
+         }
+         final int count = in.read(bytes, offset, (int) Math.min(length, remaining));
+         if (count > 0) {
+            remaining -= count;
+         }
+         return count;
+      }
+
+      @Override
+      public void close() throws IOException {
+         in.close();
+      }
+   }
+}
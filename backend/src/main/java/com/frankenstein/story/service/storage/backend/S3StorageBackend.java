@@ -0,0 +1,225 @@
+package com.frankenstein.story.service.storage.backend;
+
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage backend for S3-compatible object stores, speaking the S3 REST API directly over {@link HttpClient}
+ * with SigV4 signing. Objects above the multipart threshold are uploaded in fixed-size parts, so memory use is
+ * bounded by one part; reads and range reads are streamed from the response body.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+   private final S3StorageSettings settings;
+   private final S3RequestSigner signer;
+   private final HttpClient httpClient;
+
+   public S3StorageBackend(final S3StorageSettings settings) {
+      this(settings, HttpClient.newBuilder().connectTimeout(settings.getTimeout()).build());
+   }
+
+   S3StorageBackend(final S3StorageSettings settings, final HttpClient httpClient) {
+      this.settings = settings;
+      this.signer = new S3RequestSigner(settings.getRegion(), settings.getAccessKey(), settings.getSecretKey());
+      this.httpClient = httpClient;
+   }
+
+   @Override
+   public void put(final String key, final InputStream content, final long length) throws IOException {
+      if (length > settings.getMultipartThreshold()) {
+         putMultipart(key, content, length);
+         return;
+      }
+      // The publisher closes the stream it reads, but the caller owns content
+      final InputStream unclosable = new FilterInputStream(content) {
+         @Override
+         public void close() {
+         }
+      };
+      final HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> unclosable), length);
+      expectSuccess(send(request("PUT", objectUri(key, null)).PUT(body), HttpResponse.BodyHandlers.ofString()), "PUT " + key);
+   }
+
+   @Override
+   public Optional<InputStream> get(final String key) throws IOException {
+      return open(request("GET", objectUri(key, null)).GET(), key);
+   }
+
+   @Override
+   public Optional<InputStream> getRange(final String key, final long offset, final long length) throws IOException {
+      final HttpRequest.Builder request = request("GET", objectUri(key, null)).header("Range", "bytes=" + offset + "-" + (offset + length - 1)).GET();
+      return open(request, key);
+   }
+
+   @Override
+   public List<String> list(final String prefix) throws IOException {
+      final List<String> keys = new ArrayList<>();
+      String continuationToken = null;
+      do {
+         String query = "list-type=2&prefix=" + S3RequestSigner.encode(prefix, false);
+         if (continuationToken != null) {
+            query += "&continuation-token=" + S3RequestSigner.encode(continuationToken, false);
+         }
+         final HttpResponse<String> response = send(request("GET", bucketUri(query)).GET(), HttpResponse.BodyHandlers.ofString());
+         expectSuccess(response, "LIST " + prefix);
+
+         final Document document = parse(response.body());
+         final NodeList contents = document.getElementsByTagName("Key");
+         for (int i = 0; i < contents.getLength(); i++) {
+            keys.add(contents.item(i).getTextContent());
+         }
+         final boolean truncated = "true".equals(text(document, "IsTruncated"));
+         continuationToken = truncated ? text(document, "NextContinuationToken") : null;
+      } while (continuationToken != null);
+      return keys;
+   }
+
+   @Override
+   public void delete(final String key) throws IOException {
+      final HttpResponse<String> response = send(request("DELETE", objectUri(key, null)).DELETE(), HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 404) {
+         expectSuccess(response, "DELETE " + key);
+      }
+   }
+
+   @Override
+   public boolean isShared() {
+      return true;
+   }
+
+   private void putMultipart(final String key, final InputStream content, final long length) throws IOException {
+      final HttpResponse<String> initiated = send(request("POST", objectUri(key, "uploads=")).POST(HttpRequest.BodyPublishers.noBody()),
+            HttpResponse.BodyHandlers.ofString());
+      expectSuccess(initiated, "initiate multipart upload of " + key);
+      final String uploadId = text(parse(initiated.body()), "UploadId");
+
+      try {
+         final StringBuilder completion = new StringBuilder("<CompleteMultipartUpload>");
+         long remaining = length;
+         int partNumber = 1;
+         while (remaining > 0) {
+            final byte[] part = content.readNBytes((int) Math.min(settings.getPartSize(), remaining));
+            if (part.length == 0) {
+               throw new IOException("Stream ended " + remaining + " bytes early while uploading " + key);
+            }
+            final String query = "partNumber=" + partNumber + "&uploadId=" + S3RequestSigner.encode(uploadId, false);
+            final HttpResponse<String> uploaded = send(request("PUT", objectUri(key, query)).PUT(HttpRequest.BodyPublishers.ofByteArray(part)),
+                  HttpResponse.BodyHandlers.ofString());
+            expectSuccess(uploaded, "upload part " + partNumber + " of " + key);
+            final String eTag = uploaded.headers().firstValue("ETag").orElseThrow(() -> new IOException("No ETag for part of " + key));
+            completion.append("<Part><PartNumber>").append(partNumber).append("</PartNumber><ETag>").append(eTag).append("</ETag></Part>");
+            remaining -= part.length;
+            partNumber++;
+         }
+         completion.append("</CompleteMultipartUpload>");
+
+         final HttpResponse<String> completed = send(request("POST", objectUri(key, "uploadId=" + S3RequestSigner.encode(uploadId, false)))
+                                                           .header("Content-Type", "application/xml")
+                                                           .POST(HttpRequest.BodyPublishers.ofString(completion.toString())),
+               HttpResponse.BodyHandlers.ofString());
+         // S3 can report a failed completion with a 200 status and an Error document
+         expectSuccess(completed, "complete multipart upload of " + key);
+         if (completed.body() != null && completed.body().contains("<Error>")) {
+            throw new IOException("Failed to complete multipart upload of " + key + ": " + completed.body());
+         }
+      } catch (final IOException | RuntimeException e) {
+         abortQuietly(key, uploadId);
+         throw e;
+      }
+   }
+
+   private void abortQuietly(final String key, final String uploadId) {
+      try {
+         send(request("DELETE", objectUri(key, "uploadId=" + S3RequestSigner.encode(uploadId, false))).DELETE(), HttpResponse.BodyHandlers.discarding());
+      } catch (final IOException e) {
+         log.warn("Failed to abort multipart upload {} of {}", uploadId, key, e);
+      }
+   }
+
+   private Optional<InputStream> open(final HttpRequest.Builder request, final String key) throws IOException {
+      final HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+      if (response.statusCode() == 404) {
+         response.body().close();
+         return Optional.empty();
+      }
+      if (response.statusCode() / 100 != 2) {
+         final String error = new String(response.body().readAllBytes(), StandardCharsets.UTF_8);
+         response.body().close();
+         throw new IOException("GET " + key + " failed with status " + response.statusCode() + ": " + error);
+      }
+      return Optional.of(response.body());
+   }
+
+   private HttpRequest.Builder request(final String method, final URI uri) {
+      final HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(settings.getTimeout());
+      signer.sign(method, uri, ZonedDateTime.now()).forEach(builder::header);
+      return builder;
+   }
+
+   private URI bucketUri(final String query) {
+      return URI.create(base() + "/" + S3RequestSigner.encode(settings.getBucket(), false) + "?" + query);
+   }
+
+   private URI objectUri(final String key, final String query) {
+      final String path = base() + "/" + S3RequestSigner.encode(settings.getBucket(), false) + "/" + S3RequestSigner.encode(key, true);
+      return URI.create(query == null ? path : path + "?" + query);
+   }
+
+   private String base() {
+      final String endpoint = settings.getEndpoint().toString();
+      return endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+   }
+
+   private <T> HttpResponse<T> send(final HttpRequest.Builder request, final HttpResponse.BodyHandler<T> handler) throws IOException {
+      try {
+         return httpClient.send(request.build(), handler);
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted during S3 request");
+      }
+   }
+
+   private void expectSuccess(final HttpResponse<?> response, final String operation) throws IOException {
+      if (response.statusCode() / 100 != 2) {
+         throw new IOException(operation + " failed with status " + response.statusCode() + ": " + response.body());
+      }
+   }
+
+   private Document parse(final String xml) throws IOException {
+      try {
+         final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+         factory.setNamespaceAware(false);
+         return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+      } catch (final ParserConfigurationException | SAXException e) {
+         throw new IOException("Malformed S3 response", e);
+      }
+   }
+
+   private String text(final Document document, final String tag) {
+      final NodeList nodes = document.getElementsByTagName(tag);
+      return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+   }
+}
@@ -0,0 +1,36 @@
+package com.frankenstein.story.service.storage.backend;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Connection settings for an S3-compatible object store (AWS S3, MinIO, Ceph RGW, ...).
+ * Buckets are addressed path-style ({@code endpoint/bucket/key}), which every S3-compatible store accepts.
+ *
+ * @author alarinel@gmail.com
+ */
+@Value
+@Builder
+public class S3StorageSettings {
+
+   URI endpoint;
+   String region;
+   String bucket;
+   String accessKey;
+   String secretKey;
+
+   /**
+    * Objects larger than this are uploaded in parts
+    */
+   long multipartThreshold;
+
+   /**
+    * Size of each multipart upload part; S3 requires at least 5 MB for all but the last part
+    */
+   int partSize;
+
+   Duration timeout;
+}
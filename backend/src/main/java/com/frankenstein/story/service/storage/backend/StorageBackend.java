@@ -0,0 +1,81 @@
+package com.frankenstein.story.service.storage.backend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Object store for story metadata and assets. Keys are story-relative paths prefixed with the story id,
+ * e.g. {@code <storyId>/images/page-1.png}. Reads are streamed, so large assets are never buffered whole.
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StorageBackend {
+
+   /**
+    * Store an object, replacing any existing one with the same key
+    *
+    * @param key     the object key
+    * @param content the object content, read to the end but not closed
+    * @param length  the exact number of bytes in content
+    * @throws IOException if the object could not be stored
+    */
+   void put(String key, InputStream content, long length) throws IOException;
+
+   default void put(final String key, final byte[] content) throws IOException {
+      put(key, new ByteArrayInputStream(content), content.length);
+   }
+
+   /**
+    * Open an object for streaming
+    *
+    * @param key the object key
+    * @return the content stream, which the caller must close, or empty if there is no such object
+    * @throws IOException if the object could not be read
+    */
+   Optional<InputStream> get(String key) throws IOException;
+
+   /**
+    * Open a byte range of an object for streaming
+    *
+    * @param key    the object key
+    * @param offset first byte to return
+    * @param length number of bytes to return (fewer if the object ends first)
+    * @return the content stream, which the caller must close, or empty if there is no such object
+    * @throws IOException if the object could not be read
+    */
+   Optional<InputStream> getRange(String key, long offset, long length) throws IOException;
+
+   /**
+    * Keys of all objects whose key starts with the prefix
+    *
+    * @param prefix the key prefix, empty for all objects
+    * @return matching keys in lexicographic order
+    * @throws IOException if the listing failed
+    */
+   List<String> list(String prefix) throws IOException;
+
+   /**
+    * Delete an object; deleting a missing object is not an error
+    *
+    * @param key the object key
+    * @throws IOException if the object could not be deleted
+    */
+   void delete(String key) throws IOException;
+
+   /**
+    * Delete every object whose key starts with the prefix
+    */
+   default void deletePrefix(final String prefix) throws IOException {
+      for (final String key : list(prefix)) {
+         delete(key);
+      }
+   }
+
+   /**
+    * Whether objects in this backend are visible to other app nodes. Local storage is not, and needs no mirroring.
+    */
+   boolean isShared();
+}
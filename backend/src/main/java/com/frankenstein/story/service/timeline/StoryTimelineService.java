@@ -0,0 +1,65 @@
+package com.frankenstein.story.service.timeline;
+
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+
+import java.util.function.Supplier;
+
+/**
+ * Service for recording per-story execution timelines (phases, provider calls, retries, backoff, disk writes and queue waits).
+ * Recording calls for stories without an active timeline are ignored, so callers never need to check.
+ *
+ * @author alarinel@gmail.com
+ */
+public interface StoryTimelineService {
+
+   /**
+    * Start a timeline for a story; span offsets are measured from this moment
+    */
+   void start(String storyId);
+
+   /**
+    * Open a span that is closed later, possibly on another thread
+    *
+    * @param storyId    the story identifier (may be null, in which case nothing is recorded)
+    * @param category   the kind of work
+    * @param name       the span name (e.g. IMAGE_GENERATION)
+    * @param pageNumber the page the work belongs to, or null for story-level work
+    * @return the open span
+    */
+   Span startSpan(String storyId, TimelineCategory category, String name, Integer pageNumber);
+
+   /**
+    * Record a span whose start and end are already known, such as a queue wait
+    */
+   void recordSpan(String storyId, TimelineCategory category, String name, Integer pageNumber, long startMillis, long endMillis);
+
+   /**
+    * Run an action inside a span, marking the span failed if the action throws
+    */
+   <T> T record(String storyId, TimelineCategory category, String name, Integer pageNumber, Supplier<T> action);
+
+   /**
+    * Persist the story's timeline and release it from memory
+    */
+   void complete(String storyId);
+
+   /**
+    * Get the timeline of a story, live if generation is still running
+    *
+    * @throws com.frankenstein.story.exception.ResourceNotFoundException if no timeline exists
+    */
+   StoryTimeline getTimeline(String storyId);
+
+   /**
+    * An open timeline span
+    */
+   interface Span {
+
+      void end();
+
+      void end(String detail);
+
+      void fail(String errorMessage);
+   }
+}
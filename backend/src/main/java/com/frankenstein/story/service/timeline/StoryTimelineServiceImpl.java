@@ -0,0 +1,201 @@
+package com.frankenstein.story.service.timeline;
+
+import com.frankenstein.story.exception.ResourceNotFoundException;
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.model.timeline.TimelineSpan;
+import com.frankenstein.story.service.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of story timeline service.
+ * Active timelines live in memory and are written to timeline.json once generation completes or fails.
+ *
+ * @author alarinel@gmail.com
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoryTimelineServiceImpl implements StoryTimelineService {
+
+   private static final Span NO_OP_SPAN = new Span() {
+      @Override
+      public void end() {
+      }
+
+      @Override
+      public void end(final String detail) {
+      }
+
+      @Override
+      public void fail(final String errorMessage) {
+      }
+   };
+
+   private final FileStorageService fileStorageService;
+   private final ConcurrentHashMap<String, ActiveTimeline> activeTimelines = new ConcurrentHashMap<>();
+
+   @Override
+   public void start(final String storyId) {
+      activeTimelines.put(storyId, new ActiveTimeline(System.currentTimeMillis(), LocalDateTime.now()));
+   }
+
+   @Override
+   public Span startSpan(final String storyId, final TimelineCategory category, final String name, final Integer pageNumber) {
+      final ActiveTimeline timeline = storyId == null ? null : activeTimelines.get(storyId);
+      if (timeline == null) {
+         return NO_OP_SPAN;
+      }
+      return new RecordingSpan(timeline, category, name, pageNumber, System.currentTimeMillis(), Thread.currentThread().getName());
+   }
+
+   @Override
+   public void recordSpan(final String storyId, final TimelineCategory category, final String name, final Integer pageNumber, final long startMillis, final long endMillis) {
+      final ActiveTimeline timeline = storyId == null ? null : activeTimelines.get(storyId);
+      if (timeline == null) {
+         return;
+      }
+      timeline.add(TimelineSpan.builder()
+                               .category(category)
+                               .name(name)
+                               .pageNumber(pageNumber)
+                               .startOffsetMs(startMillis - timeline.originMillis)
+                               .durationMs(Math.max(0, endMillis - startMillis))
+                               .thread(Thread.currentThread().getName())
+                               .status("SUCCESS")
+                               .build());
+   }
+
+   @Override
+   public <T> T record(final String storyId, final TimelineCategory category, final String name, final Integer pageNumber, final Supplier<T> action) {
+      final Span span = startSpan(storyId, category, name, pageNumber);
+      try {
+         final T result = action.get();
+         span.end();
+         return result;
+      } catch (final RuntimeException e) {
+         span.fail(e.getMessage());
+         throw e;
+      }
+   }
+
+   @Override
+   public void complete(final String storyId) {
+      final ActiveTimeline timeline = activeTimelines.remove(storyId);
+      if (timeline == null) {
+         return;
+      }
+
+      try {
+         fileStorageService.saveStoryTimeline(storyId, timeline.snapshot(storyId, true));
+         log.debug("Saved timeline for story: {}", storyId);
+      } catch (final Exception e) {
+         // Timeline is diagnostic only - never fail generation over it
+         log.error("Failed to save timeline for story: {}", storyId, e);
+      }
+   }
+
+   @Override
+   public StoryTimeline getTimeline(final String storyId) {
+      final ActiveTimeline timeline = activeTimelines.get(storyId);
+      if (timeline != null) {
+         return timeline.snapshot(storyId, false);
+      }
+      return fileStorageService.loadStoryTimeline(storyId)
+                               .orElseThrow(() -> new ResourceNotFoundException("Timeline not found for story: " + storyId));
+   }
+
+   /**
+    * Mutable timeline of a story that is still generating
+    */
+   private static final class ActiveTimeline {
+      private final long originMillis;
+      private final LocalDateTime startedAt;
+      private final ConcurrentLinkedQueue<TimelineSpan> spans = new ConcurrentLinkedQueue<>();
+
+      private ActiveTimeline(final long originMillis, final LocalDateTime startedAt) {
+         this.originMillis = originMillis;
+         this.startedAt = startedAt;
+      }
+
+      private void add(final TimelineSpan span) {
+         spans.add(span);
+      }
+
+      private StoryTimeline snapshot(final String storyId, final boolean completed) {
+         final List<TimelineSpan> sorted = new ArrayList<>(spans);
+         sorted.sort(Comparator.comparingLong(TimelineSpan::getStartOffsetMs));
+
+         final long totalDuration = completed
+                                    ? sorted.stream().mapToLong(span -> span.getStartOffsetMs() + span.getDurationMs()).max().orElse(0)
+                                    : System.currentTimeMillis() - originMillis;
+
+         return StoryTimeline.builder()
+                             .storyId(storyId)
+                             .startedAt(startedAt)
+                             .totalDurationMs(totalDuration)
+                             .completed(completed)
+                             .spans(sorted)
+                             .build();
+      }
+   }
+
+   /**
+    * Span that appends itself to its timeline when closed
+    */
+   private static final class RecordingSpan implements Span {
+      private final ActiveTimeline timeline;
+      private final TimelineCategory category;
+      private final String name;
+      private final Integer pageNumber;
+      private final long startMillis;
+      private final String thread;
+
+      private RecordingSpan(final ActiveTimeline timeline, final TimelineCategory category, final String name, final Integer pageNumber, final long startMillis, final String thread) {
+         this.timeline = timeline;
+         this.category = category;
+         this.name = name;
+         this.pageNumber = pageNumber;
+         this.startMillis = startMillis;
+         this.thread = thread;
+      }
+
+      @Override
+      public void end() {
+         close("SUCCESS", null);
+      }
+
+      @Override
+      public void end(final String detail) {
+         close("SUCCESS", detail);
+      }
+
+      @Override
+      public void fail(final String errorMessage) {
+         close("FAILED", errorMessage);
+      }
+
+      private void close(final String status, final String detail) {
+         timeline.add(TimelineSpan.builder()
+                                  .category(category)
+                                  .name(name)
+                                  .pageNumber(pageNumber)
+                                  .startOffsetMs(startMillis - timeline.originMillis)
+                                  .durationMs(System.currentTimeMillis() - startMillis)
+                                  .thread(thread)
+                                  .status(status)
+                                  .detail(detail)
+                                  .build());
+      }
+   }
+}
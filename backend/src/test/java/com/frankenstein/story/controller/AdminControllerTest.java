@@ -1,7 +1,12 @@
 package com.frankenstein.story.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frankenstein.story.exception.ResourceNotFoundException;
 import com.frankenstein.story.model.ApiConfiguration;
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.model.timeline.TimelineSpan;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
 import com.frankenstein.story.service.tracking.ApiTrackingFacade;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +15,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -34,6 +41,44 @@ class AdminControllerTest {
    @MockBean
    private ApiTrackingFacade apiTrackingFacade;
 
+   @MockBean
+   private StoryTimelineService storyTimelineService;
+
+   @Test
+   void getStoryTimeline_ReturnsSpans() throws Exception {
+      // Given
+      final StoryTimeline timeline = StoryTimeline.builder()
+                                                  .storyId("story-1")
+                                                  .totalDurationMs(1500)
+                                                  .completed(true)
+                                                  .spans(List.of(TimelineSpan.builder()
+                                                                             .category(TimelineCategory.PROVIDER_CALL)
+                                                                             .name("IMAGE_GENERATION")
+                                                                             .pageNumber(2)
+                                                                             .startOffsetMs(100)
+                                                                             .durationMs(1200)
+                                                                             .status("SUCCESS")
+                                                                             .build()))
+                                                  .build();
+      when(storyTimelineService.getTimeline("story-1")).thenReturn(timeline);
+
+      // When/Then
+      mockMvc.perform(get("/api/admin/stories/story-1/timeline"))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.totalDurationMs").value(1500))
+             .andExpect(jsonPath("$.spans[0].category").value("PROVIDER_CALL"))
+             .andExpect(jsonPath("$.spans[0].pageNumber").value(2));
+   }
+
+   @Test
+   void getStoryTimeline_WithUnknownStory_ReturnsNotFound() throws Exception {
+      // Given
+      when(storyTimelineService.getTimeline("missing")).thenThrow(new ResourceNotFoundException("Timeline not found for story: missing"));
+
+      // When/Then
+      mockMvc.perform(get("/api/admin/stories/missing/timeline")).andExpect(status().isNotFound());
+   }
+
    @Test
    void getConfiguration_ReturnsConfigurationWithVoiceFields() throws Exception {
       // Given
@@ -0,0 +1,264 @@
+package com.frankenstein.story.controller;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.library.PreloadHintService;
+import com.frankenstein.story.service.media.ImageResizeService;
+import com.frankenstein.story.service.media.ResizedImage;
+import com.frankenstein.story.service.storage.HotAssetCacheService;
+import com.frankenstein.story.service.storage.StoryAccessTracker;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for AssetController streaming and range support
+ *
+ * @author alarinel@gmail.com
+ */
+@WebMvcTest(AssetController.class)
+class AssetControllerTest {
+
+   @TempDir
+   Path tempDir;
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @MockBean
+   private FileStorageService fileStorageService;
+
+   @MockBean
+   private ImageResizeService imageResizeService;
+
+   @MockBean
+   private HotAssetCacheService hotAssetCache;
+
+   @MockBean
+   private PreloadHintService preloadHintService;
+
+   @MockBean
+   private StoryAccessTracker accessTracker;
+
+   private static final String SHA256 = "a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f60718293a4b5c6d7e8f90";
+
+   private Path narrationFile;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      when(hotAssetCache.load(anyString(), any(AssetDescriptor.class))).thenAnswer(invocation -> fileStorageService.loadAssetResource(invocation.getArgument(0),
+            invocation.getArgument(1, AssetDescriptor.class).getPath()));
+      narrationFile = tempDir.resolve("page-1.mp3");
+      Files.writeString(narrationFile, "0123456789");
+      when(fileStorageService.loadAssetResource("story-1", "audio/narration/page-1.mp3")).thenReturn(new FileSystemResource(narrationFile));
+      when(fileStorageService.getAssetDescriptor("story-1", "audio/narration/page-1.mp3")).thenReturn(AssetDescriptor.builder()
+                                                                                                                     .path("audio/narration/page-1.mp3")
+                                                                                                                     .size(10)
+                                                                                                                     .sha256(SHA256)
+                                                                                                                     .lastModified(1_700_000_000_000L)
+                                                                                                                     .build());
+   }
+
+   @Test
+   void getNarration_SetsValidators() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ETAG, "\"" + SHA256 + "\""))
+             .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+             .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600"));
+   }
+
+   @Test
+   void getNarration_AddsPreloadHintsForFollowingPages() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3"))
+             .andExpect(status().isOk());
+
+      verify(preloadHintService).addPreloadHints(eq("story-1"), eq(1), any(HttpServletResponse.class));
+   }
+
+   @Test
+   void getNarration_WithMatchingIfNoneMatch_ReturnsNotModifiedWithoutOpeningAsset() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").header(HttpHeaders.IF_NONE_MATCH, "\"" + SHA256 + "\""))
+             .andExpect(status().isNotModified())
+             .andExpect(content().string(""));
+
+      verify(fileStorageService, never()).loadAssetResource(anyString(), anyString());
+   }
+
+   @Test
+   void getNarration_RecordsReadOfStory() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3"))
+             .andExpect(status().isOk());
+
+      verify(accessTracker).recordRead("story-1");
+   }
+
+   @Test
+   void getNarration_WithCurrentVersion_IsImmutable() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").param("v", SHA256.substring(0, 16)))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+   }
+
+   @Test
+   void getNarration_WithStaleVersion_IsNotImmutable() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").param("v", "0000000000000000"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600"));
+   }
+
+   @Test
+   void getNarration_WithoutRange_ReturnsWholeFile() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "audio/mpeg"))
+             .andExpect(content().string("0123456789"));
+   }
+
+   @Test
+   void getNarration_WithSingleRange_ReturnsPartialContent() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").header(HttpHeaders.RANGE, "bytes=2-5"))
+             .andExpect(status().isPartialContent())
+             .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+             .andExpect(content().string("2345"));
+   }
+
+   @Test
+   void getNarration_WithMultipleRanges_ReturnsMultipartByteRanges() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").header(HttpHeaders.RANGE, "bytes=0-1,8-9"))
+             .andExpect(status().isPartialContent())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith("multipart/byteranges")));
+   }
+
+   @Test
+   void getNarration_WithUnsatisfiableRange_Returns416() throws Exception {
+      mockMvc.perform(get("/api/stories/story-1/assets/audio/narration/page-1.mp3").header(HttpHeaders.RANGE, "bytes=50-60"))
+             .andExpect(status().isRequestedRangeNotSatisfiable());
+   }
+
+   @Test
+   void getImage_WhenMissing_ReturnsNotFound() throws Exception {
+      when(fileStorageService.getAssetDescriptor("story-1", "images/page-9.png")).thenThrow(new IOException("Asset not found"));
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-9.png")).andExpect(status().isNotFound());
+   }
+
+   @Test
+   void getImage_WhenClientAcceptsWebp_ServesWebpVariant() throws Exception {
+      givenImage("images/page-1.png", "png");
+      givenImage("images/page-1.webp", "webp");
+      givenImage("images/page-1.jpg", "jpg");
+      when(imageResizeService.supportsFormat("webp")).thenReturn(true);
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png").header(HttpHeaders.ACCEPT, "image/avif,image/webp,*/*;q=0.8"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/webp"))
+             .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("Accept")))
+             .andExpect(content().string("webp"));
+   }
+
+   @Test
+   void getImage_WithoutWebpWriter_DoesNotNegotiateWebp() throws Exception {
+      givenImage("images/page-1.png", "png");
+      givenImage("images/page-1.webp", "webp");
+      givenImage("images/page-1.jpg", "jpg");
+      when(imageResizeService.supportsFormat("webp")).thenReturn(false);
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png").header(HttpHeaders.ACCEPT, "image/webp,image/*;q=0.8"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+             .andExpect(content().string("jpg"));
+   }
+
+   @Test
+   void getImage_WhenClientAcceptsImageWildcard_ServesJpegVariant() throws Exception {
+      givenImage("images/page-1.png", "png");
+      givenImage("images/page-1.jpg", "jpg");
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png").header(HttpHeaders.ACCEPT, "image/*"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+             .andExpect(content().string("jpg"));
+   }
+
+   @Test
+   void getImage_WithoutAcceptHeader_ServesOriginalPng() throws Exception {
+      givenImage("images/page-1.png", "png");
+      givenImage("images/page-1.jpg", "jpg");
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+             .andExpect(content().string("png"));
+   }
+
+   @Test
+   void getImage_WithWidthAndFormat_ServesResizedRendition() throws Exception {
+      givenImage("images/page-1.png", "png");
+      final Path rendition = tempDir.resolve("rendition.webp");
+      Files.writeString(rendition, "small");
+      when(imageResizeService.resize("story-1", 1, 640, "webp")).thenReturn(Optional.of(ResizedImage.builder()
+                                                                                                  .path(rendition)
+                                                                                                  .mediaType("image/webp")
+                                                                                                  .eTag("\"page-1-a1b2-w640.webp\"")
+                                                                                                  .lastModified(1_700_000_000_000L)
+                                                                                                  .build()));
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png").param("w", "640").param("fmt", "webp"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/webp"))
+             .andExpect(header().string(HttpHeaders.ETAG, "\"page-1-a1b2-w640.webp\""))
+             .andExpect(content().string("small"));
+   }
+
+   @Test
+   void getImage_WhenResizePoolSaturated_FallsBackToOriginal() throws Exception {
+      givenImage("images/page-1.png", "png");
+      when(imageResizeService.resize("story-1", 1, 640, "png")).thenReturn(Optional.empty());
+
+      mockMvc.perform(get("/api/stories/story-1/assets/images/page-1.png").param("w", "640"))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+             .andExpect(content().string("png"));
+   }
+
+   private void givenImage(final String assetPath, final String content) throws IOException {
+      final Path file = tempDir.resolve(assetPath.replace('/', '-'));
+      Files.writeString(file, content);
+      when(fileStorageService.assetExists("story-1", assetPath)).thenReturn(true);
+      when(fileStorageService.loadAssetResource("story-1", assetPath)).thenReturn(new FileSystemResource(file));
+      when(fileStorageService.getAssetDescriptor("story-1", assetPath)).thenReturn(AssetDescriptor.builder()
+                                                                                                 .path(assetPath)
+                                                                                                 .size(content.length())
+                                                                                                 .sha256(SHA256)
+                                                                                                 .lastModified(1_700_000_000_000L)
+                                                                                                 .build());
+   }
+}
@@ -0,0 +1,59 @@
+package com.frankenstein.story.controller;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import com.frankenstein.story.service.export.StoryExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for StoryExportController
+ *
+ * @author alarinel@gmail.com
+ */
+@WebMvcTest(StoryExportController.class)
+@TestPropertySource(properties = "http.export.timeout=7m")
+class StoryExportControllerTest {
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @MockBean
+   private StoryOrchestrationService orchestrationService;
+
+   @MockBean
+   private StoryExportService storyExportService;
+
+   @Test
+   void exportStory_UsesExportTimeoutForItsOwnStream() throws Exception {
+      // Given
+      when(orchestrationService.getStory("story-1")).thenReturn(Story.builder().id("story-1").title("Story").status(StoryStatus.COMPLETED).build());
+
+      // When
+      final MvcResult result = mockMvc.perform(get("/api/stories/story-1/export")).andExpect(request().asyncStarted()).andReturn();
+
+      // Then
+      assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(7 * 60 * 1000L);
+   }
+
+   @Test
+   void exportStory_WhenStoryNotCompleted_ReturnsConflictWithoutStreaming() throws Exception {
+      // Given
+      when(orchestrationService.getStory("story-1")).thenReturn(Story.builder().id("story-1").status(StoryStatus.GENERATING_IMAGES).build());
+
+      // When / Then
+      mockMvc.perform(get("/api/stories/story-1/export")).andExpect(status().isConflict()).andExpect(request().asyncNotStarted());
+   }
+}
@@ -1,8 +1,13 @@
 package com.frankenstein.story.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryFacet;
 import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.model.StoryStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -10,8 +15,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -32,13 +40,15 @@ class StoryIndexServiceTest {
 
     private StoryIndexService service;
     private ObjectMapper objectMapper;
+    private FileStorageService fileStorageService;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        fileStorageService = new FileStorageService(tempDir.toString());
         
-        service = new StoryIndexService(objectMapper);
+        service = new StoryIndexService(objectMapper, fileStorageService);
         ReflectionTestUtils.setField(service, "storageRoot", tempDir.toString());
         service.initializeIndex();
     }
@@ -125,6 +135,22 @@ class StoryIndexServiceTest {
         assertThat(stories.get(0).getId()).isEqualTo("existing-story");
     }
 
+    @Test
+    void removeStoriesFromIndex_RemovesAllGivenEntries() {
+        // Given
+        service.addStoryToIndex("story-1", "First", LocalDateTime.now());
+        service.addStoryToIndex("story-2", "Second", LocalDateTime.now());
+        service.addStoryToIndex("story-3", "Third", LocalDateTime.now());
+
+        // When
+        service.removeStoriesFromIndex(List.of("story-1", "story-3", "non-existent-story"));
+
+        // Then
+        final List<StoryIndexEntry> stories = service.getAllStories();
+        assertThat(stories).hasSize(1);
+        assertThat(stories.get(0).getId()).isEqualTo("story-2");
+    }
+
     @Test
     void getAllStories_ReturnsSortedByDateDesc() {
         // Given
@@ -215,7 +241,7 @@ class StoryIndexServiceTest {
     void initializeIndex_CreatesEmptyIndex_WhenStorageDirectoryDoesNotExist() {
         // Given - Fresh service with non-existent storage
         final Path nonExistentDir = tempDir.resolve("non-existent");
-        final StoryIndexService newService = new StoryIndexService(objectMapper);
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
         ReflectionTestUtils.setField(newService, "storageRoot", nonExistentDir.toString());
 
         // When
@@ -233,7 +259,7 @@ class StoryIndexServiceTest {
         service.addStoryToIndex(storyId, "Persisted Story", LocalDateTime.now());
 
         // When - Create new service instance
-        final StoryIndexService newService = new StoryIndexService(objectMapper);
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
         ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
         newService.initializeIndex();
 
@@ -252,4 +278,197 @@ class StoryIndexServiceTest {
         final Path indexFile = tempDir.resolve("story-index.json");
         assertThat(Files.exists(indexFile)).isTrue();
     }
+
+    @Test
+    void addStoryToIndex_WithThumbnail_StoresThumbnailUrl() {
+        // Given
+        final String thumbnailUrl = "/api/stories/test-story/assets/images/cover-thumb.jpg?v=0123456789abcdef";
+
+        // When
+        service.addStoryToIndex("test-story", "Test Story", LocalDateTime.now(), thumbnailUrl);
+
+        // Then
+        assertThat(service.getAllStories().get(0).getThumbnailUrl()).isEqualTo(thumbnailUrl);
+    }
+
+    @Test
+    void initializeIndex_RebuildsEntriesWithVersionedThumbnailUrls() throws Exception {
+        // Given - a story on disk and no index file
+        fileStorageService.createStoryDirectories("story-1");
+        fileStorageService.saveStoryMetadata(Story.builder().id("story-1").title("On Disk").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+        fileStorageService.saveThumbnail("story-1", new byte[] {1, 2, 3});
+        Files.delete(tempDir.resolve("story-index.json"));
+
+        // When
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
+        ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
+        newService.initializeIndex();
+
+        // Then - the same URL the thumbnail service stores for live stories
+        assertThat(newService.getStory("story-1")).get()
+            .extracting(StoryIndexEntry::getThumbnailUrl)
+            .isEqualTo(fileStorageService.getThumbnailUrl("story-1"));
+        assertThat(fileStorageService.getThumbnailUrl("story-1")).contains("?v=");
+    }
+
+    @Test
+    void initializeIndex_RebuildIncludesArchivedStoriesWithoutRestoringThem() throws Exception {
+        // Given - one hot and one archived story, and no index file
+        fileStorageService.createStoryDirectories("story-1");
+        fileStorageService.saveStoryMetadata(Story.builder().id("story-1").title("Hot").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+        fileStorageService.createStoryDirectories("story-2");
+        fileStorageService.saveStoryMetadata(Story.builder().id("story-2").title("Archived").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+        fileStorageService.saveThumbnail("story-2", new byte[] {1, 2, 3});
+        assertThat(fileStorageService.archiveStory("story-2")).isTrue();
+        Files.delete(tempDir.resolve("story-index.json"));
+
+        // When
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
+        ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
+        newService.initializeIndex();
+
+        // Then
+        assertThat(newService.getAllStories()).extracting(StoryIndexEntry::getId).containsExactlyInAnyOrder("story-1", "story-2");
+        assertThat(newService.getStory("story-2")).get().satisfies(entry -> {
+            assertThat(entry.getTitle()).isEqualTo("Archived");
+            assertThat(entry.getThumbnailUrl()).isNotNull();
+        });
+        assertThat(fileStorageService.isArchived("story-2")).isTrue();
+    }
+
+    @Test
+    void compact_WritesSnapshotWithoutIndentation() throws Exception {
+        // Given
+        service.addStoryToIndex("story-1", "First", LocalDateTime.now());
+
+        // When
+        service.compactIfChanged();
+
+        // Then
+        assertThat(Files.readString(tempDir.resolve("story-index.json"))).doesNotContain("\n").doesNotContain("  ");
+    }
+
+    @Test
+    void changes_AreAppendedToLogAndReplayedOnRestart() throws Exception {
+        // Given
+        service.addStoryToIndex("story-1", "First", LocalDateTime.now().minusDays(1));
+        service.addStoryToIndex("story-2", "Second", LocalDateTime.now());
+        service.removeStoryFromIndex("story-1");
+
+        // Then - the snapshot is untouched until compaction, the log holds one line per change
+        assertThat(Files.readAllLines(tempDir.resolve("story-index.log"))).hasSize(3);
+
+        // When - restart without compacting
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
+        ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
+        newService.initializeIndex();
+
+        // Then
+        assertThat(newService.getAllStories()).extracting(StoryIndexEntry::getId).containsExactly("story-2");
+    }
+
+    @Test
+    void initializeIndex_SkipsTornLastLogLine() throws Exception {
+        // Given - a crash left half a line at the end of the log
+        service.addStoryToIndex("story-1", "First", LocalDateTime.now());
+        Files.writeString(tempDir.resolve("story-index.log"), "{\"op\":\"put\",\"entry\":{\"id\":\"sto", StandardOpenOption.APPEND);
+
+        // When
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
+        ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
+        newService.initializeIndex();
+
+        // Then
+        assertThat(newService.getAllStories()).extracting(StoryIndexEntry::getId).containsExactly("story-1");
+    }
+
+    @Test
+    void initializeIndex_WithUnreadableSnapshot_RebuildsInsteadOfWipingIt() throws Exception {
+        // Given - a story on disk and a truncated snapshot
+        fileStorageService.createStoryDirectories("story-1");
+        fileStorageService.saveStoryMetadata(Story.builder().id("story-1").title("On Disk").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+        Files.writeString(tempDir.resolve("story-index.json"), "[{\"id\":\"story-1\",\"tit");
+
+        // When
+        final StoryIndexService newService = new StoryIndexService(objectMapper, fileStorageService);
+        ReflectionTestUtils.setField(newService, "storageRoot", tempDir.toString());
+        newService.initializeIndex();
+
+        // Then - the index is rebuilt from the story files and the bad snapshot kept aside
+        assertThat(newService.getAllStories()).extracting(StoryIndexEntry::getId).containsExactly("story-1");
+        final List<StoryIndexEntry> snapshot = objectMapper.readValue(tempDir.resolve("story-index.json").toFile(), new TypeReference<List<StoryIndexEntry>>() {});
+        assertThat(snapshot).extracting(StoryIndexEntry::getId).containsExactly("story-1");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.map(path -> path.getFileName().toString())).anyMatch(name -> name.startsWith("story-index.json.corrupt-"));
+        }
+    }
+
+    @Test
+    void compactIfChanged_FoldsLogIntoSnapshot() throws Exception {
+        // Given
+        service.addStoryToIndex("story-1", "First", LocalDateTime.now());
+
+        // When
+        service.compactIfChanged();
+
+        // Then
+        assertThat(Files.size(tempDir.resolve("story-index.log"))).isZero();
+        final List<StoryIndexEntry> snapshot = objectMapper.readValue(tempDir.resolve("story-index.json").toFile(), new TypeReference<List<StoryIndexEntry>>() {});
+        assertThat(snapshot).extracting(StoryIndexEntry::getId).containsExactly("story-1");
+    }
+
+    @Test
+    void getAllStories_ReturnsCopiesThatDoNotChangeTheIndex() {
+        // Given
+        service.addStoryToIndex("story-1", "Original", LocalDateTime.now());
+
+        // When
+        service.getAllStories().get(0).setTitle("Changed");
+
+        // Then
+        assertThat(service.getStory("story-1")).get().extracting(StoryIndexEntry::getTitle).isEqualTo("Original");
+    }
+
+    @Test
+    void facetIndex_FollowsUpdatesAndRemovals() {
+        // Given
+        service.addStoryToIndex(facetEntry("story-1", "Space", 60));
+        service.addStoryToIndex(facetEntry("story-2", "space", 30));
+
+        // When
+        service.updateStoryInIndex(facetEntry("story-1", "Ocean", 60));
+        service.removeStoryFromIndex("story-2");
+
+        // Then
+        assertThat(service.getStoryIdsWithFacet(StoryFacet.THEME, "ocean")).containsExactly("story-1");
+        assertThat(service.getFacetCounts(StoryFacet.THEME)).containsExactlyEntriesOf(Map.of("ocean", 1));
+    }
+
+    @Test
+    void getStories_WalksSortedIndexFromPosition() {
+        // Given
+        service.addStoryToIndex(facetEntry("story-1", "space", 60));
+        service.addStoryToIndex(facetEntry("story-2", "space", 30));
+        service.addStoryToIndex(facetEntry("story-3", "ocean", 90));
+
+        // When
+        final List<StoryIndexEntry> longest = service.getStories(StorySort.LONGEST, null, null, 10);
+        final List<StoryIndexEntry> shortestAfterFirst = service.getStories(StorySort.SHORTEST, longest.get(2), null, 10);
+        final List<StoryIndexEntry> spaceOnly = service.getStories(StorySort.LONGEST, null, Set.of("story-1", "story-2"), 1);
+
+        // Then
+        assertThat(longest).extracting(StoryIndexEntry::getId).containsExactly("story-3", "story-1", "story-2");
+        assertThat(shortestAfterFirst).extracting(StoryIndexEntry::getId).containsExactly("story-1", "story-3");
+        assertThat(spaceOnly).extracting(StoryIndexEntry::getId).containsExactly("story-1");
+    }
+
+    private StoryIndexEntry facetEntry(final String storyId, final String theme, final double duration) {
+        return StoryIndexEntry.builder()
+            .id(storyId)
+            .title(storyId)
+            .createdAt(LocalDateTime.now())
+            .theme(theme)
+            .duration(duration)
+            .build();
+    }
 }
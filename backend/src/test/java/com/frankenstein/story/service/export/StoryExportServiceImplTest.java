@@ -0,0 +1,109 @@
+package com.frankenstein.story.service.export;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryExportFormat;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for StoryExportServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryExportServiceImplTest {
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryExportServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      service = new StoryExportServiceImpl(fileStorageService);
+
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, "png-page-1".getBytes(StandardCharsets.UTF_8));
+      fileStorageService.saveNarration("story-1", 1, "mp3-page-1".getBytes(StandardCharsets.UTF_8));
+      fileStorageService.saveImage("story-1", 2, "png-page-2".getBytes(StandardCharsets.UTF_8));
+      fileStorageService.saveStoryMetadata(Story.builder()
+                                                .id("story-1")
+                                                .title("Luna & the <Dark> Wizard")
+                                                .status(StoryStatus.COMPLETED)
+                                                .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+                                                .completedAt(LocalDateTime.of(2025, 1, 1, 10, 5))
+                                                .pages(List.of(StoryPage.builder().pageNumber(1).text("Once upon a time.\nThe end?").build(),
+                                                      StoryPage.builder().pageNumber(2).text("Not quite.").build()))
+                                                .build());
+   }
+
+   @Test
+   void export_Zip_StoresMediaAndDeflatesMetadata() throws IOException {
+      // When
+      final Map<String, ZipEntry> entries = export(StoryExportFormat.ZIP, new LinkedHashMap<>());
+
+      // Then
+      assertThat(entries).containsOnlyKeys("story.json", "images/page-1.png", "audio/narration/page-1.mp3", "images/page-2.png");
+      assertThat(entries.get("story.json").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+      assertThat(entries.get("images/page-1.png").getMethod()).isEqualTo(ZipEntry.STORED);
+      assertThat(entries.get("audio/narration/page-1.mp3").getMethod()).isEqualTo(ZipEntry.STORED);
+   }
+
+   @Test
+   void export_Epub_StartsWithStoredMimetypeAndEscapesText() throws IOException {
+      // When
+      final Map<String, String> contents = new LinkedHashMap<>();
+      final Map<String, ZipEntry> entries = export(StoryExportFormat.EPUB, contents);
+
+      // Then
+      final String firstEntry = entries.keySet().iterator().next();
+      assertThat(firstEntry).isEqualTo("mimetype");
+      assertThat(entries.get("mimetype").getMethod()).isEqualTo(ZipEntry.STORED);
+      assertThat(contents.get("mimetype")).isEqualTo("application/epub+zip");
+      assertThat(entries).containsKeys("META-INF/container.xml",
+            "OEBPS/content.opf",
+            "OEBPS/nav.xhtml",
+            "OEBPS/page-1.xhtml",
+            "OEBPS/page-2.xhtml",
+            "OEBPS/images/page-1.png",
+            "OEBPS/audio/page-1.mp3");
+      assertThat(entries).doesNotContainKey("OEBPS/audio/page-2.mp3");
+      assertThat(contents.get("OEBPS/content.opf")).contains("<dc:title>Luna &amp; the &lt;Dark&gt; Wizard</dc:title>")
+                                                  .contains("<meta property=\"dcterms:modified\">");
+      assertThat(contents.get("OEBPS/page-1.xhtml")).contains("<p>Once upon a time.</p>").contains("<p>The end?</p>");
+   }
+
+   private Map<String, ZipEntry> export(final StoryExportFormat format, final Map<String, String> contents) throws IOException {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      service.export("story-1", format, out);
+
+      final Map<String, ZipEntry> entries = new LinkedHashMap<>();
+      try (final ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+         ZipEntry entry;
+         while ((entry = zip.getNextEntry()) != null) {
+            contents.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            entries.put(entry.getName(), entry);
+         }
+      }
+      return entries;
+   }
+}
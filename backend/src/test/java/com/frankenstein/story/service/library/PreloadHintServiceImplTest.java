@@ -0,0 +1,97 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.exception.StoryNotFoundException;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for PreloadHintServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class PreloadHintServiceImplTest {
+
+   private static final String STORY_ID = "story-1";
+
+   private FileStorageService fileStorageService;
+   private MockHttpServletResponse response;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = mock(FileStorageService.class);
+      response = new MockHttpServletResponse();
+      final List<StoryPage> pages = IntStream.rangeClosed(1, 4)
+                                             .mapToObj(number -> StoryPage.builder()
+                                                                          .pageNumber(number)
+                                                                          .imageUrl("/img/" + number + "?v=abc")
+                                                                          .narrationUrl("/audio/" + number)
+                                                                          .build())
+                                             .toList();
+      when(fileStorageService.loadStory(STORY_ID)).thenReturn(Story.builder().id(STORY_ID).status(StoryStatus.COMPLETED).pages(pages).build());
+   }
+
+   @Test
+   void addPreloadHints_LinksTheNextPagesWithinTheWindow() {
+      // Given
+      final PreloadHintServiceImpl service = new PreloadHintServiceImpl(fileStorageService, true, 2, false);
+
+      // When
+      service.addPreloadHints(STORY_ID, 1, response);
+
+      // Then
+      assertThat(response.getHeaders(HttpHeaders.LINK)).containsExactly("</img/2?v=abc>; rel=preload; as=image",
+            "</audio/2>; rel=preload; as=audio",
+            "</img/3?v=abc>; rel=preload; as=image",
+            "</audio/3>; rel=preload; as=audio");
+   }
+
+   @Test
+   void addPreloadHints_StopsAtTheLastPage() {
+      // Given
+      final PreloadHintServiceImpl service = new PreloadHintServiceImpl(fileStorageService, true, 3, false);
+
+      // When
+      service.addPreloadHints(STORY_ID, 4, response);
+
+      // Then
+      assertThat(response.getHeaders(HttpHeaders.LINK)).isEmpty();
+   }
+
+   @Test
+   void addPreloadHints_AddsNothingWhenDisabled() {
+      // Given
+      final PreloadHintServiceImpl service = new PreloadHintServiceImpl(fileStorageService, false, 2, false);
+
+      // When
+      service.addPreloadHints(STORY_ID, 0, response);
+
+      // Then
+      assertThat(response.getHeaders(HttpHeaders.LINK)).isEmpty();
+   }
+
+   @Test
+   void addPreloadHints_IgnoresStoriesThatCannotBeRead() {
+      // Given
+      when(fileStorageService.loadStory("missing")).thenThrow(new StoryNotFoundException("missing"));
+      final PreloadHintServiceImpl service = new PreloadHintServiceImpl(fileStorageService, true, 2, true);
+
+      // When
+      service.addPreloadHints("missing", 0, response);
+
+      // Then
+      assertThat(response.getHeaders(HttpHeaders.LINK)).isEmpty();
+   }
+}
@@ -0,0 +1,177 @@
+package com.frankenstein.story.service.library;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryBrowsePage;
+import com.frankenstein.story.model.StoryFacet;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryInput;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for StoryBrowseServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryBrowseServiceImplTest {
+
+   private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryIndexService storyIndexService;
+   private StoryBrowseServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      final ObjectMapper objectMapper = new ObjectMapper();
+      objectMapper.registerModule(new JavaTimeModule());
+      storyIndexService = new StoryIndexService(objectMapper, fileStorageService);
+      ReflectionTestUtils.setField(storyIndexService, "storageRoot", tempDir.toString());
+      storyIndexService.initializeIndex();
+      service = new StoryBrowseServiceImpl(storyIndexService, fileStorageService, Runnable::run);
+
+      index(story("story-a", "Space", "happy", 1, 30));
+      index(story("story-b", "Space", "Spooky", 2, 90));
+      index(story("story-c", "ocean", "happy", 3, 60));
+      index(story("story-d", "forest", "spooky", 4, 10));
+   }
+
+   @Test
+   void browse_ReturnsAllStoriesWithFacetCounts_WhenUnfiltered() {
+      // When
+      final StoryBrowsePage page = service.browse(Map.of(), StorySort.NEWEST, null, 10);
+
+      // Then
+      assertThat(page.getItems()).extracting(StoryIndexEntry::getId).containsExactly("story-d", "story-c", "story-b", "story-a");
+      assertThat(page.getTotal()).isEqualTo(4);
+      assertThat(page.getNextCursor()).isNull();
+      assertThat(page.getFacets().get("theme")).containsExactlyInAnyOrderEntriesOf(Map.of("space", 2, "ocean", 1, "forest", 1));
+      assertThat(page.getFacets().get("status")).containsExactlyEntriesOf(Map.of("completed", 4));
+   }
+
+   @Test
+   void browse_OrsValuesOfAFacetAndAndsFacets() {
+      // When
+      final StoryBrowsePage page = service.browse(Map.of(StoryFacet.THEME, List.of("SPACE", "forest"), StoryFacet.MOOD, List.of("spooky")),
+            StorySort.NEWEST,
+            null,
+            10);
+
+      // Then
+      assertThat(page.getItems()).extracting(StoryIndexEntry::getId).containsExactly("story-d", "story-b");
+      assertThat(page.getTotal()).isEqualTo(2);
+      // Each facet is counted under the other facets' filters only
+      assertThat(page.getFacets().get("mood")).containsExactlyInAnyOrderEntriesOf(Map.of("happy", 1, "spooky", 2));
+      assertThat(page.getFacets().get("theme")).containsExactlyInAnyOrderEntriesOf(Map.of("space", 1, "forest", 1));
+   }
+
+   @Test
+   void browse_PagesByDurationWithCursor() {
+      // Given
+      final List<String> ids = new ArrayList<>();
+      String cursor = null;
+
+      // When
+      do {
+         final StoryBrowsePage page = service.browse(Map.of(), StorySort.LONGEST, cursor, 3);
+         page.getItems().forEach(item -> ids.add(item.getId()));
+         cursor = page.getNextCursor();
+      } while (cursor != null);
+
+      // Then
+      assertThat(ids).containsExactly("story-b", "story-c", "story-a", "story-d");
+   }
+
+   @Test
+   void browse_PagesByTitleWithCursorsForAnyTitle() {
+      // Given - a title with a line break and an empty one, next to the regular titles
+      final Story multiline = story("story-e", "Space", "happy", 5, 20);
+      multiline.setTitle("Line one\nLine two");
+      final Story untitled = story("story-f", "Space", "happy", 6, 20);
+      untitled.setTitle("");
+      index(multiline);
+      index(untitled);
+      final List<String> expected = service.browse(Map.of(), StorySort.TITLE, null, 10).getItems().stream().map(StoryIndexEntry::getId).toList();
+      final List<String> ids = new ArrayList<>();
+      String cursor = null;
+
+      // When
+      do {
+         final StoryBrowsePage page = service.browse(Map.of(), StorySort.TITLE, cursor, 1);
+         page.getItems().forEach(item -> ids.add(item.getId()));
+         cursor = page.getNextCursor();
+      } while (cursor != null);
+
+      // Then - one story per page, none skipped or repeated
+      assertThat(expected).hasSize(6);
+      assertThat(ids).isEqualTo(expected);
+   }
+
+   @Test
+   void browse_RejectsBadInput() {
+      final String cursor = service.browse(Map.of(), StorySort.TITLE, null, 1).getNextCursor();
+
+      assertThatThrownBy(() -> service.browse(Map.of(), StorySort.NEWEST, cursor, 1)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> service.browse(Map.of(), StorySort.NEWEST, "not-a-cursor", 1)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> service.browse(Map.of(), StorySort.NEWEST, null, 101)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> StoryFacet.fromValue("villain")).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   @Test
+   void backfill_FillsInFacetsOfLegacyEntries() {
+      // Given - an entry indexed before facets existed
+      final Story legacy = story("story-legacy", "Castle", "gloomy", 5, 45);
+      fileStorageService.createStoryDirectories(legacy.getId());
+      fileStorageService.saveStoryMetadata(legacy);
+      fileStorageService.saveThumbnail(legacy.getId(), new byte[] {1, 2, 3});
+      storyIndexService.addStoryToIndex(legacy.getId(), legacy.getTitle(), legacy.getCreatedAt(), "/api/stories/story-legacy/assets/images/cover-thumb.jpg");
+
+      // When
+      service.startBackfill();
+
+      // Then
+      final StoryIndexEntry entry = storyIndexService.getStory("story-legacy").orElseThrow();
+      assertThat(entry.getTheme()).isEqualTo("Castle");
+      assertThat(entry.getDuration()).isEqualTo(45);
+      // Same versioned URL the thumbnail service hands out for new stories
+      assertThat(entry.getThumbnailUrl()).isEqualTo(fileStorageService.getThumbnailUrl("story-legacy")).contains("?v=");
+      assertThat(storyIndexService.getStoryIdsWithFacet(StoryFacet.MOOD, "Gloomy")).containsExactly("story-legacy");
+   }
+
+   private void index(final Story story) {
+      storyIndexService.addStoryToIndex(storyIndexService.createEntry(story, tempDir.resolve(story.getId())));
+   }
+
+   private Story story(final String storyId, final String theme, final String mood, final int day, final double seconds) {
+      return Story.builder()
+                  .id(storyId)
+                  .title("Title " + storyId)
+                  .status(StoryStatus.COMPLETED)
+                  .input(StoryInput.builder().characterName("Hero").theme(theme).mood(mood).build())
+                  .pages(List.of(StoryPage.builder().pageNumber(1).duration(seconds).build()))
+                  .createdAt(BASE.plusDays(day))
+                  .build();
+   }
+}
@@ -0,0 +1,204 @@
+package com.frankenstein.story.service.library;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryInput;
+import com.frankenstein.story.model.StoryListPage;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StoryProjection;
+import com.frankenstein.story.model.StorySort;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.model.StorySummary;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for StoryListingServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryListingServiceImplTest {
+
+   private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryIndexService storyIndexService;
+   private StoryListingServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      final ObjectMapper objectMapper = new ObjectMapper();
+      objectMapper.registerModule(new JavaTimeModule());
+      storyIndexService = new StoryIndexService(objectMapper, fileStorageService);
+      ReflectionTestUtils.setField(storyIndexService, "storageRoot", tempDir.toString());
+      storyIndexService.initializeIndex();
+      service = new StoryListingServiceImpl(fileStorageService, storyIndexService, Runnable::run);
+
+      saveStory("story-a", "Cobwebs", 1);
+      saveStory("story-b", "Anvil", 2);
+      saveStory("story-c", "Bats", 3);
+      saveStory("story-d", "Dungeon", 4);
+      saveStory("story-e", "Eclipse", 5);
+   }
+
+   @Test
+   void listStories_PagesNewestFirstWithCursor() {
+      // Given
+      final List<String> ids = new ArrayList<>();
+      String cursor = null;
+
+      // When
+      do {
+         final StoryListPage<?> page = service.listStories(StorySort.NEWEST, cursor, 2, StoryProjection.SUMMARY);
+         assertThat(page.getItems()).hasSizeLessThanOrEqualTo(2);
+         page.getItems().forEach(item -> ids.add(((StorySummary) item).getId()));
+         cursor = page.getNextCursor();
+      } while (cursor != null);
+
+      // Then
+      assertThat(ids).containsExactly("story-e", "story-d", "story-c", "story-b", "story-a");
+   }
+
+   @Test
+   void listStories_SortsByTitleAndSummarizes() {
+      // When
+      final StoryListPage<?> page = service.listStories(StorySort.TITLE, null, 3, StoryProjection.SUMMARY);
+
+      // Then
+      assertThat(page.getItems()).extracting(item -> ((StorySummary) item).getTitle()).containsExactly("Anvil", "Bats", "Cobwebs");
+      final StorySummary first = (StorySummary) page.getItems().get(0);
+      assertThat(first.getPageCount()).isEqualTo(2);
+      assertThat(first.getCharacterName()).isEqualTo("Hero story-b");
+      assertThat(first.getStatus()).isEqualTo(StoryStatus.COMPLETED);
+      assertThat(page.getNextCursor()).isNotNull();
+   }
+
+   @Test
+   void listStories_PagesByTitleWithCursorsForAnyTitle() {
+      // Given - a title with a line break and an empty one
+      saveStory("story-f", "Ghost\nTown", 6);
+      saveStory("story-g", "", 7);
+      final List<String> expected = service.listStories(StorySort.TITLE, null, 10, StoryProjection.SUMMARY).getItems().stream()
+                                           .map(item -> ((StorySummary) item).getId())
+                                           .toList();
+      final List<String> ids = new ArrayList<>();
+      String cursor = null;
+
+      // When
+      do {
+         final StoryListPage<?> page = service.listStories(StorySort.TITLE, cursor, 1, StoryProjection.SUMMARY);
+         page.getItems().forEach(item -> ids.add(((StorySummary) item).getId()));
+         cursor = page.getNextCursor();
+      } while (cursor != null);
+
+      // Then - one story per page, none skipped or repeated
+      assertThat(expected).hasSize(7);
+      assertThat(ids).isEqualTo(expected);
+   }
+
+   @Test
+   void listStories_CursorSurvivesDeletionOfLastSeenStory() {
+      // Given
+      final StoryListPage<?> first = service.listStories(StorySort.OLDEST, null, 2, StoryProjection.SUMMARY);
+      storyIndexService.removeStoryFromIndex("story-b");
+      fileStorageService.deleteStory("story-b");
+
+      // When
+      final StoryListPage<?> second = service.listStories(StorySort.OLDEST, first.getNextCursor(), 2, StoryProjection.SUMMARY);
+
+      // Then
+      assertThat(second.getItems()).extracting(item -> ((StorySummary) item).getId()).containsExactly("story-c", "story-d");
+   }
+
+   @Test
+   void listStories_FullViewReturnsStoriesWithPages() {
+      // When
+      final StoryListPage<?> page = service.listStories(StorySort.NEWEST, null, 1, StoryProjection.FULL);
+
+      // Then
+      assertThat(page.getItems()).singleElement().isInstanceOfSatisfying(Story.class, story -> assertThat(story.getPages()).hasSize(2));
+   }
+
+   @Test
+   void listStories_IncludesIndexedFailedStories() {
+      // Given - a failed story is indexed with its status
+      fileStorageService.createStoryDirectories("story-failed");
+      final Story failed = Story.builder().id("story-failed").status(StoryStatus.FAILED).createdAt(LocalDateTime.now()).build();
+      fileStorageService.saveStoryMetadata(failed);
+      storyIndexService.addStoryToIndex(storyIndexService.createEntry(failed, fileStorageService.getStoryDirectory("story-failed")));
+
+      // When
+      final StoryListPage<?> page = service.listStories(StorySort.OLDEST, null, 10, StoryProjection.SUMMARY);
+
+      // Then
+      assertThat(page.getItems()).extracting(item -> ((StorySummary) item).getId()).contains("story-failed").hasSize(6);
+      assertThat(page.getNextCursor()).isNull();
+   }
+
+   @Test
+   void listStories_ServesOrderFromIndexWithoutScanningStorage() {
+      // Given - a story saved on disk but not in the index
+      fileStorageService.createStoryDirectories("story-unindexed");
+      fileStorageService.saveStoryMetadata(Story.builder().id("story-unindexed").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+
+      // When
+      final StoryListPage<?> page = service.listStories(StorySort.NEWEST, null, 10, StoryProjection.SUMMARY);
+
+      // Then - the listing follows the index; reconciliation is what brings the story in
+      assertThat(page.getItems()).extracting(item -> ((StorySummary) item).getId())
+                                 .containsExactly("story-e", "story-d", "story-c", "story-b", "story-a");
+   }
+
+   @Test
+   void listStories_SortsTitlesCaseInsensitively() {
+      // Given
+      saveStory("story-f", "anvil", 6);
+
+      // When
+      final StoryListPage<?> page = service.listStories(StorySort.TITLE, null, 2, StoryProjection.SUMMARY);
+
+      // Then - equal titles ignoring case fall back to id order
+      assertThat(page.getItems()).extracting(item -> ((StorySummary) item).getId()).containsExactly("story-b", "story-f");
+   }
+
+   @Test
+   void listStories_RejectsBadInput() {
+      final String titleCursor = service.listStories(StorySort.TITLE, null, 1, StoryProjection.SUMMARY).getNextCursor();
+
+      assertThatThrownBy(() -> service.listStories(StorySort.NEWEST, titleCursor, 1, StoryProjection.SUMMARY)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> service.listStories(StorySort.NEWEST, "not-a-cursor", 1, StoryProjection.SUMMARY)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> service.listStories(StorySort.NEWEST, null, 0, StoryProjection.SUMMARY)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> StorySort.fromValue("random")).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   private void saveStory(final String storyId, final String title, final int day) {
+      final LocalDateTime createdAt = BASE.plusDays(day);
+      fileStorageService.createStoryDirectories(storyId);
+      fileStorageService.saveStoryMetadata(Story.builder()
+                                                .id(storyId)
+                                                .title(title)
+                                                .status(StoryStatus.COMPLETED)
+                                                .input(StoryInput.builder().characterName("Hero " + storyId).theme("spooky").build())
+                                                .pages(List.of(StoryPage.builder().pageNumber(1).build(), StoryPage.builder().pageNumber(2).build()))
+                                                .createdAt(createdAt)
+                                                .build());
+      storyIndexService.addStoryToIndex(storyId, title, createdAt);
+   }
+}
@@ -0,0 +1,114 @@
+package com.frankenstein.story.service.library;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryAssetManifest;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for StoryManifestServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryManifestServiceImplTest {
+
+   private static final String STORY_ID = "00000000-0000-0000-0000-000000000001";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryOrchestrationService orchestrationService;
+   private StoryManifestServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      orchestrationService = mock(StoryOrchestrationService.class);
+      service = new StoryManifestServiceImpl(orchestrationService, fileStorageService);
+      fileStorageService.createStoryDirectories(STORY_ID);
+   }
+
+   @Test
+   void getManifest_ListsCoverThenPageAssetsWithVersionedUrls() {
+      // Given
+      givenStory(StoryStatus.COMPLETED, 2);
+      fileStorageService.saveThumbnail(STORY_ID, "cover".getBytes());
+      fileStorageService.saveImage(STORY_ID, 1, "image-1".getBytes());
+      fileStorageService.saveNarration(STORY_ID, 1, "narration-1".getBytes());
+      fileStorageService.saveImage(STORY_ID, 2, "image-2".getBytes());
+      fileStorageService.saveNarration(STORY_ID, 2, "narration-2".getBytes());
+
+      // When
+      final StoryAssetManifest manifest = service.getManifest(STORY_ID);
+
+      // Then
+      assertThat(manifest.getAssets()).extracting(StoryAssetManifest.Asset::getPath)
+                                      .containsExactly("images/cover-thumb.jpg",
+                                            "images/page-1.png",
+                                            "audio/narration/page-1.mp3",
+                                            "images/page-2.png",
+                                            "audio/narration/page-2.mp3");
+      final StoryAssetManifest.Asset image = manifest.getAssets().get(1);
+      assertThat(image.getPageNumber()).isEqualTo(1);
+      assertThat(image.getMimeType()).isEqualTo("image/png");
+      assertThat(image.getSize()).isEqualTo("image-1".length());
+      assertThat(image.getUrl()).isEqualTo("/api/stories/" + STORY_ID + "/assets/images/page-1.png?v=" + image.getSha256().substring(0, 16));
+      assertThat(manifest.getAssets().get(0).getPageNumber()).isNull();
+      assertThat(manifest.getTotalBytes()).isEqualTo(manifest.getAssets().stream().mapToLong(StoryAssetManifest.Asset::getSize).sum());
+   }
+
+   @Test
+   void getManifest_LeavesOutAssetsNotWrittenYet() {
+      // Given - still generating, only page 1's image exists
+      givenStory(StoryStatus.GENERATING_AUDIO, 2);
+      fileStorageService.saveImage(STORY_ID, 1, "image-1".getBytes());
+
+      // When
+      final StoryAssetManifest manifest = service.getManifest(STORY_ID);
+
+      // Then
+      assertThat(manifest.getStatus()).isEqualTo(StoryStatus.GENERATING_AUDIO);
+      assertThat(manifest.getAssets()).extracting(StoryAssetManifest.Asset::getPath).containsExactly("images/page-1.png");
+   }
+
+   @Test
+   void getManifest_VersionChangesWhenAnAssetIsAdded() {
+      // Given
+      givenStory(StoryStatus.GENERATING_AUDIO, 1);
+      fileStorageService.saveImage(STORY_ID, 1, "image-1".getBytes());
+      final String before = service.getManifest(STORY_ID).getVersion();
+
+      // When
+      fileStorageService.saveNarration(STORY_ID, 1, "narration-1".getBytes());
+
+      // Then
+      assertThat(service.getManifest(STORY_ID).getVersion()).isNotEqualTo(before);
+   }
+
+   private void givenStory(final StoryStatus status, final int pageCount) {
+      final List<StoryPage> pages = IntStream.rangeClosed(1, pageCount)
+                                             .mapToObj(number -> StoryPage.builder().pageNumber(number).build())
+                                             .toList();
+      when(orchestrationService.getStory(STORY_ID)).thenReturn(Story.builder()
+                                                                    .id(STORY_ID)
+                                                                    .status(status)
+                                                                    .pages(pages)
+                                                                    .createdAt(LocalDateTime.now())
+                                                                    .build());
+   }
+}
@@ -0,0 +1,204 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Tests for ImageResizeServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class ImageResizeServiceImplTest {
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private MeterRegistry meterRegistry;
+   private ExecutorService resizeExecutor;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, samplePng(800, 600));
+      meterRegistry = new SimpleMeterRegistry();
+      resizeExecutor = Executors.newFixedThreadPool(2);
+   }
+
+   @AfterEach
+   void tearDown() {
+      resizeExecutor.shutdownNow();
+   }
+
+   @Test
+   void resize_SnapsToConfiguredWidthAndEncodesRequestedFormat() throws IOException {
+      // Given
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+
+      // When
+      final ResizedImage resized = service.resize("story-1", 1, 600, "jpeg").orElseThrow();
+
+      // Then
+      final BufferedImage image = ImageIO.read(resized.getPath().toFile());
+      assertThat(image.getWidth()).isEqualTo(640);
+      assertThat(image.getHeight()).isEqualTo(480);
+      assertThat(resized.getMediaType()).isEqualTo("image/jpeg");
+      assertThat(resized.getPath()).startsWith(tempDir.resolve(".derived"));
+   }
+
+   @Test
+   void resize_RepeatedRequests_ResizeOnlyOnce() throws IOException {
+      // Given
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+
+      // When
+      final ResizedImage first = service.resize("story-1", 1, 320, "png").orElseThrow();
+      final ResizedImage second = service.resize("story-1", 1, 320, "png").orElseThrow();
+      final ResizedImage snapped = service.resize("story-1", 1, 300, "png").orElseThrow();
+
+      // Then
+      assertThat(second.getPath()).isEqualTo(first.getPath());
+      assertThat(snapped.getPath()).isEqualTo(first.getPath());
+      assertThat(second.getETag()).isEqualTo(first.getETag());
+      assertThat(resizeCount()).isEqualTo(1.0);
+   }
+
+   @Test
+   void resize_ConcurrentRequests_ShareOneResize() throws Exception {
+      // Given
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+      final ExecutorService clients = Executors.newFixedThreadPool(8);
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<Optional<ResizedImage>>> results = new ArrayList<>();
+
+      try {
+         // When
+         for (int i = 0; i < 8; i++) {
+            final Callable<Optional<ResizedImage>> request = () -> {
+               start.await();
+               return service.resize("story-1", 1, 480, "jpg");
+            };
+            results.add(clients.submit(request));
+         }
+         start.countDown();
+
+         // Then
+         for (final Future<Optional<ResizedImage>> result : results) {
+            assertThat(result.get()).isPresent();
+         }
+         assertThat(resizeCount()).isEqualTo(1.0);
+      } finally {
+         clients.shutdownNow();
+      }
+   }
+
+   @Test
+   void resize_AfterRestart_ServesRenditionFromDiskWithoutResizing() throws IOException {
+      // Given
+      newService(DataSize.ofMegabytes(10)).resize("story-1", 1, 320, "png");
+      meterRegistry = new SimpleMeterRegistry();
+
+      // When
+      final ImageResizeServiceImpl restarted = newService(DataSize.ofMegabytes(10));
+      restarted.resize("story-1", 1, 320, "png");
+
+      // Then
+      assertThat(meterRegistry.find("story.images.resize").counter()).isNull();
+   }
+
+   @Test
+   void resize_WhenCacheExceedsCap_EvictsLeastRecentlyUsed() throws IOException {
+      // Given - a cap smaller than two renditions
+      final ImageResizeServiceImpl service = newService(DataSize.ofBytes(1));
+      final Path first = service.resize("story-1", 1, 320, "png").orElseThrow().getPath();
+
+      // When
+      final Path second = service.resize("story-1", 1, 640, "png").orElseThrow().getPath();
+
+      // Then
+      assertThat(Files.exists(first)).isFalse();
+      assertThat(second).isNotEqualTo(first);
+      assertThat(meterRegistry.get("story.images.derived.evictions").gauge().value()).isGreaterThanOrEqualTo(1.0);
+   }
+
+   @Test
+   void resize_WithUnsupportedFormat_Throws() {
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+
+      assertThatThrownBy(() -> service.resize("story-1", 1, 320, "gif")).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   @Test
+   void resize_WithWebpAndNoWebpWriter_FallsBackToJpeg() throws IOException {
+      assumeFalse(ImageIO.getImageWritersByFormatName("webp").hasNext(), "a WebP writer is installed");
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+
+      final ResizedImage resized = service.resize("story-1", 1, 320, "webp").orElseThrow();
+
+      assertThat(resized.getMediaType()).isEqualTo("image/jpeg");
+      assertThat(resized.getPath().toString()).endsWith(".jpg");
+      assertThat(ImageIO.read(resized.getPath().toFile())).isNotNull();
+   }
+
+   @Test
+   void resize_WhenPageMissing_ThrowsIOException() {
+      final ImageResizeServiceImpl service = newService(DataSize.ofMegabytes(10));
+
+      assertThatThrownBy(() -> service.resize("story-1", 9, 320, "png")).isInstanceOf(IOException.class);
+   }
+
+   private ImageResizeServiceImpl newService(final DataSize cacheMaxSize) {
+      return new ImageResizeServiceImpl(fileStorageService,
+            resizeExecutor,
+            meterRegistry,
+            List.of(320, 480, 640, 960, 1280),
+            cacheMaxSize,
+            Duration.ofSeconds(10),
+            0.8f);
+   }
+
+   private double resizeCount() {
+      return meterRegistry.get("story.images.resize").tag("outcome", "success").counter().count();
+   }
+
+   private byte[] samplePng(final int width, final int height) throws IOException {
+      final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      final Graphics2D graphics = image.createGraphics();
+      graphics.setColor(Color.ORANGE);
+      graphics.fillRect(0, 0, width / 2, height);
+      graphics.dispose();
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(image, "png", out);
+      return out.toByteArray();
+   }
+}
@@ -0,0 +1,156 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for ImageTranscodingServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class ImageTranscodingServiceImplTest {
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private MeterRegistry meterRegistry;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      meterRegistry = new SimpleMeterRegistry();
+   }
+
+   @Test
+   void transcodeAsync_WritesProgressiveJpegVariantAndRecordsSavings() throws IOException {
+      // Given
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, samplePng());
+      final ImageTranscodingServiceImpl service = new ImageTranscodingServiceImpl(fileStorageService, Runnable::run, meterRegistry, true, 0.8f, 0.8f);
+
+      // When
+      service.transcodeAsync("story-1", 1);
+
+      // Then
+      final Path jpeg = tempDir.resolve("story-1/images/page-1.jpg");
+      assertThat(Files.exists(jpeg)).isTrue();
+      assertThat(ImageIO.read(jpeg.toFile())).isNotNull();
+      assertThat(fileStorageService.getAssetDescriptor("story-1", "images/page-1.jpg").getSize()).isEqualTo(Files.size(jpeg));
+      assertThat(meterRegistry.get("story.images.transcode.saved.bytes").tag("format", "jpg").summary().count()).isEqualTo(1);
+      assertThat(meterRegistry.get("story.images.transcode").tag("outcome", "success").counter().count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void transcodeAsync_WhenVariantIsNotSmaller_DropsIt() throws IOException {
+      // Given - a tiny flat PNG compresses better than any JPEG
+      final BufferedImage flat = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+      final ByteArrayOutputStream png = new ByteArrayOutputStream();
+      ImageIO.write(flat, "png", png);
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, png.toByteArray());
+      final ImageTranscodingServiceImpl service = new ImageTranscodingServiceImpl(fileStorageService, Runnable::run, meterRegistry, true, 0.8f, 0.8f);
+
+      // When
+      service.transcodeAsync("story-1", 1);
+
+      // Then
+      assertThat(Files.exists(tempDir.resolve("story-1/images/page-1.jpg"))).isFalse();
+      assertThat(meterRegistry.get("story.images.transcode.dropped").tag("format", "jpg").counter().count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void whenTranscoded_CompletesOnceQueuedTranscodesFinish() throws IOException {
+      // Given - a transcode queued but not yet run
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, samplePng());
+      final List<Runnable> queued = new ArrayList<>();
+      final ImageTranscodingServiceImpl service = new ImageTranscodingServiceImpl(fileStorageService, queued::add, meterRegistry, true, 0.8f, 0.8f);
+      service.transcodeAsync("story-1", 1);
+
+      // When
+      final CompletableFuture<Void> transcoded = service.whenTranscoded("story-1");
+
+      // Then
+      assertThat(transcoded).isNotDone();
+      assertThat(service.whenTranscoded("story-2")).isDone();
+      queued.forEach(Runnable::run);
+      assertThat(transcoded).isDone();
+      assertThat(Files.exists(tempDir.resolve("story-1/images/page-1.jpg"))).isTrue();
+      assertThat(service.whenTranscoded("story-1")).isDone();
+   }
+
+   @Test
+   void transcodeAsync_WhenPoolSaturated_SkipsWithoutThrowing() throws IOException {
+      // Given
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, samplePng());
+      final Executor saturated = task -> {
+         throw new RejectedExecutionException("queue full");
+      };
+      final ImageTranscodingServiceImpl service = new ImageTranscodingServiceImpl(fileStorageService, saturated, meterRegistry, true, 0.8f, 0.8f);
+
+      // When
+      service.transcodeAsync("story-1", 1);
+
+      // Then
+      assertThat(Files.exists(tempDir.resolve("story-1/images/page-1.jpg"))).isFalse();
+      assertThat(meterRegistry.get("story.images.transcode").tag("outcome", "skipped").counter().count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void transcodeAsync_WhenDisabled_DoesNothing() throws IOException {
+      // Given
+      fileStorageService.createStoryDirectories("story-1");
+      fileStorageService.saveImage("story-1", 1, samplePng());
+      final ImageTranscodingServiceImpl service = new ImageTranscodingServiceImpl(fileStorageService, Runnable::run, meterRegistry, false, 0.8f, 0.8f);
+
+      // When
+      service.transcodeAsync("story-1", 1);
+
+      // Then
+      assertThat(Files.exists(tempDir.resolve("story-1/images/page-1.jpg"))).isFalse();
+   }
+
+   /**
+    * A painterly gradient, like a generated illustration, so the lossy variants come out smaller than the PNG
+    */
+   private byte[] samplePng() throws IOException {
+      final BufferedImage image = new BufferedImage(256, 192, BufferedImage.TYPE_INT_ARGB);
+      final Random random = new Random(42);
+      for (int y = 0; y < image.getHeight(); y++) {
+         for (int x = 0; x < image.getWidth(); x++) {
+            image.setRGB(x, y, new Color(x % 256, (y + random.nextInt(24)) % 256, (x + y) / 2 % 256).getRGB());
+         }
+      }
+      final Graphics2D graphics = image.createGraphics();
+      graphics.setColor(new Color(120, 40, 160, 200));
+      graphics.fillOval(32, 32, 160, 120);
+      graphics.dispose();
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(image, "png", out);
+      return out.toByteArray();
+   }
+}
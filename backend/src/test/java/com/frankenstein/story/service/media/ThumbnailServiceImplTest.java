@@ -0,0 +1,118 @@
+package com.frankenstein.story.service.media;
+
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.ThumbnailSpriteManifest;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for ThumbnailServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class ThumbnailServiceImplTest {
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryIndexService storyIndexService;
+   private ThumbnailServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      storyIndexService = mock(StoryIndexService.class);
+      service = new ThumbnailServiceImpl(fileStorageService, storyIndexService, 320, 180, 0.8f, 10, 200);
+   }
+
+   @Test
+   void generateCoverThumbnail_CropsFirstPageToTileSize() throws IOException {
+      // Given
+      givenStoryWithCover("story-1");
+
+      // When
+      final Optional<String> url = service.generateCoverThumbnail("story-1");
+
+      // Then
+      assertThat(url).hasValueSatisfying(value -> assertThat(value).startsWith("/api/stories/story-1/assets/images/cover-thumb.jpg?v="));
+      final BufferedImage thumbnail = ImageIO.read(tempDir.resolve("story-1/images/cover-thumb.jpg").toFile());
+      assertThat(thumbnail.getWidth()).isEqualTo(320);
+      assertThat(thumbnail.getHeight()).isEqualTo(180);
+   }
+
+   @Test
+   void generateCoverThumbnail_WithoutCoverImage_ReturnsEmpty() {
+      // Given
+      fileStorageService.createStoryDirectories("story-1");
+
+      // When / Then
+      assertThat(service.generateCoverThumbnail("story-1")).isEmpty();
+   }
+
+   @Test
+   void getSprite_PacksThumbnailsAndRebuildsOnlyWhenTheyChange() throws IOException {
+      // Given
+      givenStoryWithCover("story-1");
+      givenStoryWithCover("story-2");
+      service.generateCoverThumbnail("story-1");
+      service.generateCoverThumbnail("story-2");
+      when(storyIndexService.getAllStories()).thenReturn(List.of(entry("story-1"), entry("story-2")));
+
+      // When
+      final ThumbnailSprite first = service.getSprite();
+      final ThumbnailSprite second = service.getSprite();
+
+      // Then
+      final ThumbnailSpriteManifest manifest = first.getManifest();
+      assertThat(second).isSameAs(first);
+      assertThat(manifest.getTiles()).extracting(ThumbnailSpriteManifest.Tile::getStoryId).containsExactly("story-1", "story-2");
+      assertThat(manifest.getTiles().get(1).getX()).isEqualTo(320);
+      assertThat(manifest.getSpriteUrl()).endsWith("?v=" + manifest.getVersion());
+      final BufferedImage sheet = ImageIO.read(new ByteArrayInputStream(first.getImage()));
+      assertThat(sheet.getWidth()).isEqualTo(640);
+      assertThat(sheet.getHeight()).isEqualTo(180);
+
+      // And a new story changes the version
+      givenStoryWithCover("story-3");
+      service.generateCoverThumbnail("story-3");
+      when(storyIndexService.getAllStories()).thenReturn(List.of(entry("story-3"), entry("story-1"), entry("story-2")));
+      assertThat(service.getSprite().getManifest().getVersion()).isNotEqualTo(manifest.getVersion());
+   }
+
+   private void givenStoryWithCover(final String storyId) throws IOException {
+      final BufferedImage image = new BufferedImage(1344, 768, BufferedImage.TYPE_INT_RGB);
+      final Graphics2D graphics = image.createGraphics();
+      graphics.setColor(Color.GREEN);
+      graphics.fillRect(0, 0, 672, 768);
+      graphics.dispose();
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(image, "png", out);
+      fileStorageService.createStoryDirectories(storyId);
+      fileStorageService.saveImage(storyId, 1, out.toByteArray());
+   }
+
+   private StoryIndexEntry entry(final String storyId) {
+      return StoryIndexEntry.builder().id(storyId).title(storyId).createdAt(LocalDateTime.now()).build();
+   }
+}
@@ -0,0 +1,106 @@
+package com.frankenstein.story.service.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for GenerationMetricsServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class GenerationMetricsServiceImplTest {
+
+   private SimpleMeterRegistry meterRegistry;
+   private GenerationMetricsServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      meterRegistry = new SimpleMeterRegistry();
+      service = new GenerationMetricsServiceImpl(meterRegistry);
+   }
+
+   @Test
+   void recordPhase_Success_RecordsTimerTaggedByPhase() {
+      // When
+      final String result = service.recordPhase(GenerationMetricsService.PHASE_OUTLINE, () -> "outline");
+
+      // Then
+      assertThat(result).isEqualTo("outline");
+      final Timer timer = meterRegistry.get(GenerationMetricsServiceImpl.PHASE_TIMER)
+                                       .tag("phase", "outline")
+                                       .tag("outcome", "success")
+                                       .timer();
+      assertThat(timer.count()).isEqualTo(1);
+   }
+
+   @Test
+   void recordPhase_Failure_RecordsFailureOutcomeAndRethrows() {
+      // When/Then
+      assertThatThrownBy(() -> service.recordPhase(GenerationMetricsService.PHASE_IMAGES, () -> {
+         throw new IllegalStateException("boom");
+      })).isInstanceOf(IllegalStateException.class);
+
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PHASE_TIMER).tag("outcome", "failure").timer().count()).isEqualTo(1);
+   }
+
+   @Test
+   void recordProviderCall_TracksInFlightDuringCall() {
+      // Given
+      final AtomicReference<Double> inFlightDuringCall = new AtomicReference<>();
+
+      // When
+      service.recordProviderCall(GenerationMetricsService.PROVIDER_STABILITY_AI, "IMAGE_GENERATION", () -> {
+         inFlightDuringCall.set(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_IN_FLIGHT).tag("provider", "STABILITY_AI").gauge().value());
+         return new byte[0];
+      });
+
+      // Then
+      assertThat(inFlightDuringCall.get()).isEqualTo(1.0);
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_IN_FLIGHT).gauge().value()).isZero();
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_TIMER)
+                              .tag("provider", "STABILITY_AI")
+                              .tag("operation", "IMAGE_GENERATION")
+                              .tag("outcome", "success")
+                              .timer()
+                              .count()).isEqualTo(1);
+   }
+
+   @Test
+   void recordProviderCall_Failure_IncrementsFailureCounter() {
+      // When/Then
+      assertThatThrownBy(() -> service.recordProviderCall(GenerationMetricsService.PROVIDER_ELEVENLABS, "NARRATION_GENERATION", () -> {
+         throw new RuntimeException("timeout");
+      })).isInstanceOf(RuntimeException.class);
+
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_FAILURES).tag("provider", "ELEVENLABS").counter().count()).isEqualTo(1);
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_IN_FLIGHT).gauge().value()).isZero();
+   }
+
+   @Test
+   void recordRetryAndEmptyImage_IncrementCounters() {
+      // When
+      service.recordRetry(GenerationMetricsService.PROVIDER_STABILITY_AI, "IMAGE_GENERATION");
+      service.recordRetry(GenerationMetricsService.PROVIDER_STABILITY_AI, "IMAGE_GENERATION");
+      service.recordEmptyImage(GenerationMetricsService.PROVIDER_STABILITY_AI);
+
+      // Then
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.PROVIDER_RETRIES).counter().count()).isEqualTo(2);
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.EMPTY_IMAGES).counter().count()).isEqualTo(1);
+   }
+
+   @Test
+   void registerActiveStoriesGauge_ReportsSupplierValue() {
+      // When
+      service.registerActiveStoriesGauge(() -> 3);
+
+      // Then
+      assertThat(meterRegistry.get(GenerationMetricsServiceImpl.ACTIVE_STORIES).gauge().value()).isEqualTo(3.0);
+   }
+}
@@ -0,0 +1,43 @@
+package com.frankenstein.story.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for InvertedIndex
+ *
+ * @author alarinel@gmail.com
+ */
+class InvertedIndexTest {
+
+   @Test
+   void search_ScoresDeletedButUncompactedIndexLikeOneBuiltWithoutTheDeletedStory() {
+      // Given - one of five stories removed, below the ratio that triggers compaction
+      final InvertedIndex withDelete = new InvertedIndex();
+      withDelete.add("dragon-1", Map.of("dragon", 2, "cave", 1));
+      withDelete.add("dragon-2", Map.of("dragon", 1, "egg", 1));
+      withDelete.add("pirate", Map.of("ship", 2, "sea", 1));
+      withDelete.add("village", Map.of("baron", 1, "valley", 1));
+      withDelete.add("witch", Map.of("storm", 1, "sea", 1));
+      withDelete.remove("dragon-2");
+
+      final InvertedIndex fresh = new InvertedIndex();
+      fresh.add("dragon-1", Map.of("dragon", 2, "cave", 1));
+      fresh.add("pirate", Map.of("ship", 2, "sea", 1));
+      fresh.add("village", Map.of("baron", 1, "valley", 1));
+      fresh.add("witch", Map.of("storm", 1, "sea", 1));
+
+      // When
+      final InvertedIndex.SearchHits afterDelete = withDelete.search(List.of("dragon"), 10);
+      final InvertedIndex.SearchHits expected = fresh.search(List.of("dragon"), 10);
+
+      // Then - idf comes from live documents only
+      assertThat(afterDelete.top()).extracting(InvertedIndex.ScoredStory::storyId).containsExactly("dragon-1");
+      assertThat(afterDelete.top().get(0).score()).isCloseTo(expected.top().get(0).score(), within(1e-6));
+   }
+}
@@ -0,0 +1,160 @@
+package com.frankenstein.story.service.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryInput;
+import com.frankenstein.story.model.StoryPage;
+import com.frankenstein.story.model.StorySearchResult;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for StorySearchServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StorySearchServiceImplTest {
+
+   private static final String DRAGON = "00000000-0000-0000-0000-000000000001";
+   private static final String PIRATE = "00000000-0000-0000-0000-000000000002";
+   private static final String MENTION = "00000000-0000-0000-0000-000000000003";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryIndexService storyIndexService;
+   private StorySearchServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      final ObjectMapper objectMapper = new ObjectMapper();
+      objectMapper.registerModule(new JavaTimeModule());
+      storyIndexService = new StoryIndexService(objectMapper, fileStorageService);
+      ReflectionTestUtils.setField(storyIndexService, "storageRoot", tempDir.toString());
+      storyIndexService.initializeIndex();
+      service = newService();
+
+      addStory(DRAGON, "The Dragon of Ember Peak", "Mira", "a sleeping dragon", "Ember Peak", "Mira climbs toward the dragon's cave.");
+      addStory(PIRATE, "Captain Finn's Treasure", "Finn", "a storm witch", "the Coral Sea", "Finn hoists the sails at dawn.");
+      addStory(MENTION, "A Quiet Village", "Ada", "a greedy baron", "the valley", "Ada hears a rumor about a dragon far away.");
+   }
+
+   @Test
+   void search_RanksStoriesAboutTheTermAbovePassingMentions() {
+      // When
+      final StorySearchResult result = service.search("dragon", 10);
+
+      // Then
+      assertThat(result.getTotal()).isEqualTo(2);
+      assertThat(result.getHits()).extracting(StorySearchResult.Hit::getId).containsExactly(DRAGON, MENTION);
+      assertThat(result.getHits().get(0).getTitle()).isEqualTo("The Dragon of Ember Peak");
+      assertThat(result.getHits().get(0).getScore()).isGreaterThan(result.getHits().get(1).getScore());
+   }
+
+   @Test
+   void search_MatchesSetupFieldsAndIgnoresCaseAndPunctuation() {
+      // When
+      final StorySearchResult result = service.search("CORAL-sea!", 10);
+
+      // Then
+      assertThat(result.getHits()).extracting(StorySearchResult.Hit::getId).containsExactly(PIRATE);
+   }
+
+   @Test
+   void search_ReturnsNothingForStopWordsOrUnknownTerms() {
+      assertThat(service.search("the of and", 10).getHits()).isEmpty();
+      assertThat(service.search("unicorn", 10).getTotal()).isZero();
+   }
+
+   @Test
+   void search_RejectsLimitOutOfRange() {
+      assertThatThrownBy(() -> service.search("dragon", 0)).isInstanceOf(IllegalArgumentException.class);
+      assertThatThrownBy(() -> service.search("dragon", StorySearchServiceImpl.MAX_LIMIT + 1)).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   @Test
+   void removeStories_DropsThemFromResults() {
+      // When
+      service.removeStories(List.of(DRAGON));
+
+      // Then
+      assertThat(service.search("dragon", 10).getHits()).extracting(StorySearchResult.Hit::getId).containsExactly(MENTION);
+   }
+
+   @Test
+   void indexStory_ReplacesThePreviousVersion() {
+      // When
+      service.indexStory(story(PIRATE, "Captain Finn's Treasure", "Finn", "a storm witch", "the Coral Sea", "A dragon circles the mast."));
+
+      // Then
+      assertThat(service.search("sails", 10).getHits()).isEmpty();
+      assertThat(service.search("dragon", 10).getTotal()).isEqualTo(3);
+   }
+
+   @Test
+   void load_RestoresWrittenIndexAndCatchesUpWithTheLibrary() throws Exception {
+      // Given - the index was written, then one story was deleted and another added while it was not saved
+      service.removeStories(List.of(MENTION));
+      service.writeIfChanged();
+      assertThat(Files.exists(tempDir.resolve(StorySearchServiceImpl.INDEX_FILE))).isTrue();
+      storyIndexService.removeStoryFromIndex(DRAGON);
+      addStoryToLibraryOnly("00000000-0000-0000-0000-000000000004", "The Dragon Egg");
+
+      // When
+      final StorySearchServiceImpl restarted = newService();
+      restarted.load();
+
+      // Then
+      assertThat(restarted.search("dragon", 10).getHits()).extracting(StorySearchResult.Hit::getId)
+                                                           .containsExactlyInAnyOrder(MENTION, "00000000-0000-0000-0000-000000000004");
+      assertThat(restarted.search("treasure", 10).getHits()).extracting(StorySearchResult.Hit::getId).containsExactly(PIRATE);
+   }
+
+   private StorySearchServiceImpl newService() {
+      return new StorySearchServiceImpl(fileStorageService, storyIndexService, Runnable::run, new SimpleMeterRegistry());
+   }
+
+   private void addStory(final String id, final String title, final String character, final String villain, final String setting, final String text) {
+      final Story story = story(id, title, character, villain, setting, text);
+      saveToLibrary(story);
+      service.indexStory(story);
+   }
+
+   private void addStoryToLibraryOnly(final String id, final String title) {
+      saveToLibrary(story(id, title, "Tom", "a fox", "the farm", "Tom finds an egg."));
+   }
+
+   private void saveToLibrary(final Story story) {
+      fileStorageService.createStoryDirectories(story.getId());
+      fileStorageService.saveStoryMetadata(story);
+      storyIndexService.addStoryToIndex(story.getId(), story.getTitle(), story.getCreatedAt());
+   }
+
+   private Story story(final String id, final String title, final String character, final String villain, final String setting, final String text) {
+      return Story.builder()
+                  .id(id)
+                  .title(title)
+                  .status(StoryStatus.COMPLETED)
+                  .createdAt(LocalDateTime.now())
+                  .input(StoryInput.builder().characterName(character).villain(villain).setting(setting).theme("adventure").build())
+                  .pages(List.of(StoryPage.builder().pageNumber(1).text(text).build()))
+                  .build();
+   }
+}
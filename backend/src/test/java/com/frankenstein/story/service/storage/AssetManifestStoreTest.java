@@ -0,0 +1,87 @@
+package com.frankenstein.story.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frankenstein.story.model.AssetDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for AssetManifestStore
+ *
+ * @author alarinel@gmail.com
+ */
+class AssetManifestStoreTest {
+
+   @TempDir
+   Path storyDir;
+
+   private ObjectMapper objectMapper;
+   private AssetManifestStore store;
+
+   @BeforeEach
+   void setUp() throws IOException {
+      objectMapper = new ObjectMapper();
+      store = new AssetManifestStore(objectMapper);
+      Files.createDirectories(storyDir.resolve("images"));
+   }
+
+   @Test
+   void record_PersistsDescriptorWithContentHash() throws IOException {
+      // Given
+      final byte[] data = "png-bytes".getBytes();
+      Files.write(storyDir.resolve("images/page-1.png"), data);
+
+      // When
+      final AssetDescriptor descriptor = store.record("story-1", storyDir, "images/page-1.png", data);
+
+      // Then
+      assertThat(descriptor.getSize()).isEqualTo(data.length);
+      assertThat(descriptor.getSha256()).hasSize(64);
+      assertThat(descriptor.getETag()).isEqualTo("\"" + descriptor.getSha256() + "\"");
+      assertThat(Files.exists(storyDir.resolve(AssetManifestStore.MANIFEST_FILE))).isTrue();
+
+      // A fresh store reads the persisted manifest
+      final AssetManifestStore reloaded = new AssetManifestStore(objectMapper);
+      assertThat(reloaded.find("story-1", storyDir, "images/page-1.png")).isEqualTo(descriptor);
+   }
+
+   @Test
+   void describe_HashesLegacyAssetOnceAndMatchesRecordedHash() throws IOException {
+      // Given
+      final byte[] data = "legacy-image".getBytes();
+      final Path file = storyDir.resolve("images/page-2.png");
+      Files.write(file, data);
+
+      // When
+      final AssetDescriptor described = store.describe("story-1", storyDir, "images/page-2.png");
+
+      // Then
+      assertThat(described.getSha256()).isEqualTo(new AssetManifestStore(objectMapper).record("story-2", storyDir, "images/page-2.png", data).getSha256());
+      assertThat(store.describe("story-1", storyDir, "images/page-2.png")).isSameAs(described);
+   }
+
+   @Test
+   void describe_RehashesWhenFileChanged() throws IOException {
+      // Given
+      final Path file = storyDir.resolve("images/page-3.png");
+      Files.write(file, "v1".getBytes());
+      final AssetDescriptor first = store.describe("story-1", storyDir, "images/page-3.png");
+
+      // When
+      Files.write(file, "version-2".getBytes());
+      Files.setLastModifiedTime(file, FileTime.fromMillis(first.getLastModified() + 5000));
+      final AssetDescriptor second = store.describe("story-1", storyDir, "images/page-3.png");
+
+      // Then
+      assertThat(second.getSha256()).isNotEqualTo(first.getSha256());
+      assertThat(second.getSize()).isEqualTo(9);
+   }
+}
@@ -0,0 +1,119 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for AssetPack and packed asset serving through FileStorageService
+ *
+ * @author alarinel@gmail.com
+ */
+class AssetPackTest {
+
+   private static final String SHA_A = "a".repeat(64);
+   private static final String SHA_B = "b".repeat(64);
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void writeAndOpen_RoundTripsEntriesThroughFooterIndex() throws IOException {
+      // Given
+      final Path packFile = tempDir.resolve(AssetPack.PACK_FILE);
+      final Map<AssetDescriptor, Resource> sources = new LinkedHashMap<>();
+      sources.put(descriptor("images/page-1.png", 5, SHA_A), new ByteArrayResource("image".getBytes(StandardCharsets.UTF_8)));
+      sources.put(descriptor("audio/narration/page-1.mp3", 10, SHA_B), new ByteArrayResource("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+      // When
+      AssetPack.write(packFile, sources);
+      final AssetPack pack = AssetPack.open(packFile);
+
+      // Then
+      assertThat(pack.getAssetPaths()).containsExactly("images/page-1.png", "audio/narration/page-1.mp3");
+      assertThat(pack.describe("audio/narration/page-1.mp3").getSha256()).isEqualTo(SHA_B);
+      assertThat(pack.describe("audio/narration/page-1.mp3").getLastModified()).isEqualTo(1_700_000_000_000L);
+      assertThat(pack.slice("images/page-1.png").getContentAsByteArray()).isEqualTo("image".getBytes(StandardCharsets.UTF_8));
+
+      final Resource narration = pack.slice("audio/narration/page-1.mp3");
+      assertThat(narration.contentLength()).isEqualTo(10);
+      try (final InputStream in = narration.getInputStream()) {
+         assertThat(in.skip(4)).isEqualTo(4);
+         assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("456789");
+      }
+      assertThat(pack.slice("images/missing.png")).isNull();
+   }
+
+   @Test
+   void open_WithCorruptFooter_Throws() throws IOException {
+      // Given
+      final Path packFile = tempDir.resolve(AssetPack.PACK_FILE);
+      Files.write(packFile, "definitely not a pack file".getBytes(StandardCharsets.UTF_8));
+
+      // When / Then
+      assertThatThrownBy(() -> AssetPack.open(packFile)).isInstanceOf(IOException.class);
+   }
+
+   @Test
+   void packAssets_ServesPackedAssetsAndKeepsDescriptors() throws IOException {
+      // Given
+      final FileStorageService storage = new FileStorageService(tempDir.toString());
+      ReflectionTestUtils.setField(storage, "packEnabled", true);
+      storage.createStoryDirectories("story-1");
+      storage.saveImage("story-1", 1, "png-bytes".getBytes(StandardCharsets.UTF_8));
+      storage.saveNarration("story-1", 1, "mp3-bytes".getBytes(StandardCharsets.UTF_8));
+      final AssetDescriptor before = storage.getAssetDescriptor("story-1", "images/page-1.png");
+
+      // When
+      storage.packAssets("story-1");
+
+      // Then
+      final Path storyDir = tempDir.resolve("story-1");
+      assertThat(Files.exists(storyDir.resolve(AssetPack.PACK_FILE))).isTrue();
+      assertThat(Files.exists(storyDir.resolve("images/page-1.png"))).isFalse();
+      assertThat(storage.assetExists("story-1", "images/page-1.png")).isTrue();
+      assertThat(storage.getAssetDescriptor("story-1", "images/page-1.png")).isEqualTo(before);
+      assertThat(storage.loadAssetResource("story-1", "audio/narration/page-1.mp3").getContentAsByteArray()).isEqualTo("mp3-bytes".getBytes(StandardCharsets.UTF_8));
+      assertThat(storage.loadAsset("story-1", "images/page-1.png")).isEqualTo("png-bytes".getBytes(StandardCharsets.UTF_8));
+
+      // And a late asset is merged into the pack on the next run
+      storage.saveImage("story-1", 2, "late-png".getBytes(StandardCharsets.UTF_8));
+      storage.packAssets("story-1");
+      assertThat(storage.loadAsset("story-1", "images/page-2.png")).isEqualTo("late-png".getBytes(StandardCharsets.UTF_8));
+      assertThat(storage.loadAsset("story-1", "images/page-1.png")).isEqualTo("png-bytes".getBytes(StandardCharsets.UTF_8));
+   }
+
+   @Test
+   void packAssets_WhenDisabled_LeavesLooseFiles() {
+      // Given
+      final FileStorageService storage = new FileStorageService(tempDir.toString());
+      storage.createStoryDirectories("story-1");
+      storage.saveImage("story-1", 1, "png-bytes".getBytes(StandardCharsets.UTF_8));
+
+      // When
+      storage.packAssets("story-1");
+
+      // Then
+      assertThat(Files.exists(tempDir.resolve("story-1").resolve(AssetPack.PACK_FILE))).isFalse();
+      assertThat(Files.exists(tempDir.resolve("story-1/images/page-1.png"))).isTrue();
+   }
+
+   private AssetDescriptor descriptor(final String path, final long size, final String sha256) {
+      return AssetDescriptor.builder().path(path).size(size).sha256(sha256).lastModified(1_700_000_000_000L).build();
+   }
+}
@@ -0,0 +1,172 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.timeline.StoryTimelineService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for AssetWriteServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class AssetWriteServiceImplTest {
+
+   private static final Duration RETRY_DELAY = Duration.ofMillis(20);
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryTimelineService storyTimeline;
+   private MeterRegistry meterRegistry;
+   private ExecutorService writeExecutor;
+
+   @BeforeEach
+   @SuppressWarnings("unchecked")
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      fileStorageService.createStoryDirectories("story-1");
+      storyTimeline = mock(StoryTimelineService.class);
+      when(storyTimeline.record(anyString(), any(), anyString(), anyInt(), any())).thenAnswer(invocation -> ((Supplier<Object>) invocation.getArgument(4)).get());
+      meterRegistry = new SimpleMeterRegistry();
+      writeExecutor = Executors.newSingleThreadExecutor();
+   }
+
+   @AfterEach
+   void tearDown() {
+      writeExecutor.shutdownNow();
+   }
+
+   @Test
+   void saveImage_WhenWriteQueueStaysFull_FailsAfterRetriesWithoutWritingOnCallerThread() {
+      // Given - a pool whose queue never frees up
+      final Executor saturated = task -> {
+         throw new RejectedExecutionException("queue full");
+      };
+      final AssetWriteServiceImpl service = new AssetWriteServiceImpl(fileStorageService, saturated, storyTimeline, meterRegistry, WriteDurability.NONE, 3, RETRY_DELAY);
+
+      // When
+      final CompletableFuture<Void> write = service.saveImage("story-1", 1, new byte[] {1, 2, 3});
+
+      // Then - the caller gets a future back at once, which fails only after every attempt was rejected
+      assertThat(write).isNotDone();
+      assertThat(write).failsWithin(5, TimeUnit.SECONDS);
+      assertThat(Files.exists(fileStorageService.getStoryDirectory("story-1").resolve("images/page-1.png"))).isFalse();
+      assertThat(meterRegistry.get("story.storage.write.retried").tag("kind", "image").counter().count()).isEqualTo(2.0);
+      assertThat(meterRegistry.get("story.storage.write.rejected").tag("kind", "image").counter().count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void saveImage_WhenWriteQueueIsFull_DoesNotBlockAndWritesOnceQueueDrains() throws Exception {
+      // Given - one writer stalled on disk and its one-slot queue taken, so the next submit is rejected
+      final ThreadPoolExecutor bounded = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+      final CountDownLatch stall = new CountDownLatch(1);
+      bounded.execute(() -> awaitQuietly(stall));
+      bounded.execute(() -> {
+      });
+      final AssetWriteServiceImpl service = new AssetWriteServiceImpl(fileStorageService, bounded, storyTimeline, meterRegistry, WriteDurability.NONE, 10, RETRY_DELAY);
+
+      try {
+         // When
+         final long startedAt = System.nanoTime();
+         final CompletableFuture<Void> write = service.saveImage("story-1", 1, "png".getBytes(StandardCharsets.UTF_8));
+         final long callMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+         // Then - the provider thread got its future back without waiting for room, and the image is kept and written later
+         assertThat(callMillis).isLessThan(1_000L);
+         assertThat(write).isNotDone();
+         stall.countDown();
+         write.get(5, TimeUnit.SECONDS);
+         assertThat(Files.readString(tempDir.resolve("story-1/images/page-1.png"))).isEqualTo("png");
+         assertThat(meterRegistry.get("story.storage.write.retried").tag("kind", "image").counter().count()).isGreaterThanOrEqualTo(1.0);
+         assertThat(meterRegistry.find("story.storage.write.rejected").counter()).isNull();
+      } finally {
+         bounded.shutdownNow();
+      }
+   }
+
+   @Test
+   void saveImage_ReturnsBeforeWriteAndCompletesOnWriterThread() throws Exception {
+      // Given - a writer that is stalled on disk
+      final CountDownLatch stall = new CountDownLatch(1);
+      writeExecutor.execute(() -> awaitQuietly(stall));
+      final AssetWriteServiceImpl service = new AssetWriteServiceImpl(fileStorageService, writeExecutor, storyTimeline, meterRegistry, WriteDurability.NONE, 3, RETRY_DELAY);
+
+      // When
+      final CompletableFuture<Void> write = service.saveImage("story-1", 1, "png".getBytes(StandardCharsets.UTF_8));
+
+      // Then - the caller is not blocked by the stall
+      assertThat(write).isNotDone();
+      stall.countDown();
+      write.get(5, TimeUnit.SECONDS);
+      assertThat(Files.readString(tempDir.resolve("story-1/images/page-1.png"))).isEqualTo("png");
+      assertThat(meterRegistry.get("story.storage.write.duration").tag("kind", "image").timer().count()).isEqualTo(1);
+      assertThat(meterRegistry.get("story.storage.write.queue.wait").tag("kind", "image").timer().count()).isEqualTo(1);
+   }
+
+   @Test
+   void flush_UnderBatchDurability_ForcesStoryAssetsOnce() throws Exception {
+      // Given
+      final AssetWriteServiceImpl service = new AssetWriteServiceImpl(fileStorageService, writeExecutor, storyTimeline, meterRegistry, WriteDurability.BATCH, 3, RETRY_DELAY);
+      CompletableFuture.allOf(service.saveImage("story-1", 1, "png".getBytes(StandardCharsets.UTF_8)),
+            service.saveNarration("story-1", 1, "mp3".getBytes(StandardCharsets.UTF_8))).get(5, TimeUnit.SECONDS);
+
+      // When
+      service.flush("story-1");
+      service.flush("story-1");
+
+      // Then
+      assertThat(meterRegistry.get("story.storage.fsync.duration").tag("durability", "batch").timer().count()).isEqualTo(1);
+      assertThat(Files.readString(tempDir.resolve("story-1/audio/narration/page-1.mp3"))).isEqualTo("mp3");
+   }
+
+   @Test
+   void saveNarration_UnderAlwaysDurability_ForcesEachWrite() throws Exception {
+      // Given
+      final AssetWriteServiceImpl service = new AssetWriteServiceImpl(fileStorageService, writeExecutor, storyTimeline, meterRegistry, WriteDurability.ALWAYS, 3, RETRY_DELAY);
+
+      // When
+      service.saveNarration("story-1", 1, "mp3".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+      service.saveNarration("story-1", 2, "mp3".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+      service.flush("story-1");
+
+      // Then
+      assertThat(meterRegistry.get("story.storage.fsync.duration").tag("durability", "always").timer().count()).isEqualTo(2);
+      assertThat(meterRegistry.find("story.storage.fsync.duration").tag("durability", "batch").timer()).isNull();
+   }
+
+   private void awaitQuietly(final CountDownLatch latch) {
+      try {
+         latch.await(5, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,181 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.AssetDescriptor;
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for HotAssetCacheServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class HotAssetCacheServiceImplTest {
+
+   private FileStorageService fileStorageService;
+   private MeterRegistry meterRegistry;
+
+   @BeforeEach
+   void setUp() throws Exception {
+      fileStorageService = mock(FileStorageService.class);
+      meterRegistry = new SimpleMeterRegistry();
+      when(fileStorageService.loadAssetResource(anyString(), anyString())).thenAnswer(invocation -> new ByteArrayResource(content(invocation.getArgument(1))));
+   }
+
+   @Test
+   void load_SecondReadIsServedFromMemory() throws Exception {
+      // Given
+      final HotAssetCacheServiceImpl service = service(DataSize.ofKilobytes(1), false);
+      final AssetDescriptor page = descriptor("images/page-1.png");
+
+      // When
+      service.load("story-1", page);
+      final Resource second = service.load("story-1", page);
+
+      // Then
+      assertThat(second.getContentAsByteArray()).isEqualTo(content("images/page-1.png"));
+      verify(fileStorageService, times(1)).loadAssetResource("story-1", "images/page-1.png");
+      assertThat(meterRegistry.get("story.assets.cache.lookups").tag("outcome", "hit").counter().count()).isEqualTo(1.0);
+      assertThat(meterRegistry.get("story.assets.cache.bytes").gauge().value()).isEqualTo(page.getSize());
+   }
+
+   @Test
+   void load_EvictsLeastRecentlyUsedWhenOverByteCap() throws Exception {
+      // Given - room for two 17-byte entries
+      final HotAssetCacheServiceImpl service = service(DataSize.ofBytes(40), false);
+      service.load("story-1", descriptor("images/page-1.png"));
+      service.load("story-1", descriptor("images/page-2.png"));
+      service.load("story-1", descriptor("images/page-1.png"));
+
+      // When
+      service.load("story-1", descriptor("images/page-3.png"));
+
+      // Then - page 2 was least recently used
+      service.load("story-1", descriptor("images/page-1.png"));
+      service.load("story-1", descriptor("images/page-2.png"));
+      verify(fileStorageService, times(1)).loadAssetResource("story-1", "images/page-1.png");
+      verify(fileStorageService, times(2)).loadAssetResource("story-1", "images/page-2.png");
+      assertThat(meterRegistry.get("story.assets.cache.evictions").functionCounter().count()).isGreaterThanOrEqualTo(1.0);
+   }
+
+   @Test
+   void load_CoalescesConcurrentMisses() throws Exception {
+      // Given - a slow disk read
+      final CountDownLatch reading = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      when(fileStorageService.loadAssetResource("story-1", "images/page-1.png")).thenAnswer(invocation -> {
+         reading.countDown();
+         release.await(5, TimeUnit.SECONDS);
+         return new ByteArrayResource(content("images/page-1.png"));
+      });
+      final HotAssetCacheServiceImpl service = service(DataSize.ofKilobytes(1), false);
+      final AssetDescriptor page = descriptor("images/page-1.png");
+
+      // When
+      final CompletableFuture<Resource> first = CompletableFuture.supplyAsync(() -> loadQuietly(service, page));
+      reading.await(5, TimeUnit.SECONDS);
+      final CompletableFuture<Resource> second = CompletableFuture.supplyAsync(() -> loadQuietly(service, page));
+      Thread.sleep(100);
+      release.countDown();
+
+      // Then
+      assertThat(first.get(5, TimeUnit.SECONDS).getContentAsByteArray()).isEqualTo(content("images/page-1.png"));
+      assertThat(second.get(5, TimeUnit.SECONDS).getContentAsByteArray()).isEqualTo(content("images/page-1.png"));
+      verify(fileStorageService, times(1)).loadAssetResource("story-1", "images/page-1.png");
+   }
+
+   @Test
+   void load_OffHeap_ServesRangeSkipsFromDirectBuffer() throws Exception {
+      // Given
+      final HotAssetCacheServiceImpl service = service(DataSize.ofKilobytes(1), true);
+      final AssetDescriptor page = descriptor("images/page-1.png");
+      service.load("story-1", page);
+
+      // When
+      final Resource cached = service.load("story-1", page);
+
+      // Then
+      assertThat(cached).isInstanceOf(ByteBufferResource.class);
+      try (final InputStream in = cached.getInputStream()) {
+         assertThat(in.skip(7)).isEqualTo(7);
+         assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("page-1.png");
+      }
+      assertThat(meterRegistry.get("story.assets.cache.bytes").tag("memory", "direct").gauge().value()).isEqualTo(page.getSize());
+   }
+
+   @Test
+   void evictStory_DropsOnlyThatStory() throws Exception {
+      // Given
+      final HotAssetCacheServiceImpl service = service(DataSize.ofKilobytes(1), false);
+      service.load("story-1", descriptor("images/page-1.png"));
+      service.load("story-2", descriptor("images/page-1.png"));
+
+      // When
+      service.evictStory("story-1");
+      service.load("story-1", descriptor("images/page-1.png"));
+      service.load("story-2", descriptor("images/page-1.png"));
+
+      // Then
+      verify(fileStorageService, times(2)).loadAssetResource("story-1", "images/page-1.png");
+      verify(fileStorageService, times(1)).loadAssetResource("story-2", "images/page-1.png");
+   }
+
+   @Test
+   void load_LargerThanEntryLimit_BypassesCache() throws Exception {
+      // Given
+      final HotAssetCacheServiceImpl service = new HotAssetCacheServiceImpl(fileStorageService, meterRegistry, true,
+            DataSize.ofKilobytes(1), DataSize.ofBytes(8), false);
+      final AssetDescriptor page = descriptor("images/page-1.png");
+
+      // When
+      service.load("story-1", page);
+      service.load("story-1", page);
+
+      // Then
+      verify(fileStorageService, times(2)).loadAssetResource("story-1", "images/page-1.png");
+      assertThat(meterRegistry.get("story.assets.cache.lookups").tag("outcome", "bypass").counter().count()).isEqualTo(2.0);
+   }
+
+   private HotAssetCacheServiceImpl service(final DataSize maxSize, final boolean offHeap) {
+      return new HotAssetCacheServiceImpl(fileStorageService, meterRegistry, true, maxSize, DataSize.ofKilobytes(1), offHeap);
+   }
+
+   private Resource loadQuietly(final HotAssetCacheServiceImpl service, final AssetDescriptor descriptor) {
+      try {
+         return service.load("story-1", descriptor);
+      } catch (final Exception e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static byte[] content(final String assetPath) {
+      return assetPath.getBytes(StandardCharsets.UTF_8);
+   }
+
+   private static AssetDescriptor descriptor(final String assetPath) {
+      return AssetDescriptor.builder()
+                            .path(assetPath)
+                            .size(content(assetPath).length)
+                            .sha256("0".repeat(64))
+                            .lastModified(1_700_000_000_000L)
+                            .build();
+   }
+}
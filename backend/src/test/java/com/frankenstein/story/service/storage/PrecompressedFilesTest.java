@@ -0,0 +1,140 @@
+package com.frankenstein.story.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for PrecompressedFiles
+ *
+ * @author alarinel@gmail.com
+ */
+class PrecompressedFilesTest {
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void write_CreatesFileAndMatchingGzipSibling() throws IOException {
+      // Given
+      final Path target = tempDir.resolve("story.json");
+      final byte[] json = "{\"id\":\"story-1\",\"pages\":[]}".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+      // When
+      PrecompressedFiles.write(target, json);
+
+      // Then
+      final Path gzip = tempDir.resolve("story.json.gz");
+      assertThat(Files.readAllBytes(target)).isEqualTo(json);
+      assertThat(Files.size(gzip)).isLessThan(json.length);
+      try (final InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+         assertThat(in.readAllBytes()).isEqualTo(json);
+      }
+      assertThat(PrecompressedFiles.findFreshGzip(target)).contains(gzip);
+      assertThat(Files.exists(tempDir.resolve("story.json.tmp"))).isFalse();
+   }
+
+   @Test
+   void write_ConcurrentSavesOfTheSameFile_LeaveOneCompleteVersion() throws Exception {
+      // Given - progress saves racing the final save of one story
+      final Path target = tempDir.resolve("story.json");
+      final List<byte[]> versions = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+         versions.add(String.valueOf((char) ('a' + i)).repeat(64 * 1024).getBytes(StandardCharsets.UTF_8));
+      }
+      final ExecutorService executor = Executors.newFixedThreadPool(versions.size());
+
+      // When
+      try {
+         final List<Future<?>> writes = new ArrayList<>();
+         for (int round = 0; round < 10; round++) {
+            for (final byte[] version : versions) {
+               writes.add(executor.submit(() -> {
+                  PrecompressedFiles.write(target, version);
+                  return null;
+               }));
+            }
+         }
+         for (final Future<?> write : writes) {
+            write.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+
+      // Then
+      final byte[] written = Files.readAllBytes(target);
+      assertThat(versions).anySatisfy(version -> assertThat(written).isEqualTo(version));
+      PrecompressedFiles.findFreshGzip(target).ifPresent(gzip -> {
+         try (final InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+            assertThat(in.readAllBytes()).isEqualTo(written);
+         } catch (final IOException e) {
+            throw new AssertionError(e);
+         }
+      });
+      try (final Stream<Path> files = Files.list(tempDir)) {
+         assertThat(files.map(path -> path.getFileName().toString())).containsExactlyInAnyOrder("story.json", "story.json.gz");
+      }
+   }
+
+   @Test
+   void findFreshGzip_WhenFileChangedAfterSibling_ReturnsEmptyEvenIfSiblingLooksNewer() throws IOException {
+      // Given - story.json rewritten in place with content of the same length, and the stale sibling stamped later
+      final Path target = tempDir.resolve("story.json");
+      PrecompressedFiles.write(target, "{\"status\":\"GENERATING\"}".getBytes(StandardCharsets.UTF_8));
+      Files.writeString(target, "{\"status\":\"COMPLETED!\"}");
+      Files.setLastModifiedTime(target, FileTime.fromMillis(1_000L));
+      Files.setLastModifiedTime(PrecompressedFiles.gzipSibling(target), FileTime.fromMillis(2_000L));
+
+      // When / Then
+      assertThat(PrecompressedFiles.findFreshGzip(target)).isEmpty();
+   }
+
+   @Test
+   void findFreshGzip_WhenSiblingMatchesContent_IgnoresTimestamps() throws IOException {
+      // Given - a matching sibling whose timestamp is older than the file, as after a coarse-clock or out-of-order write
+      final Path target = tempDir.resolve("story.json");
+      PrecompressedFiles.write(target, "{}".getBytes(StandardCharsets.UTF_8));
+      Files.setLastModifiedTime(PrecompressedFiles.gzipSibling(target), FileTime.fromMillis(1_000L));
+      Files.setLastModifiedTime(target, FileTime.fromMillis(2_000L));
+
+      // When / Then
+      assertThat(PrecompressedFiles.findFreshGzip(target)).contains(PrecompressedFiles.gzipSibling(target));
+   }
+
+   @Test
+   void findFreshGzip_WhenSiblingTruncated_ReturnsEmpty() throws IOException {
+      // Given
+      final Path target = tempDir.resolve("story.json");
+      Files.writeString(target, "{}");
+      Files.write(PrecompressedFiles.gzipSibling(target), new byte[] {0x1f, (byte) 0x8b});
+
+      // When / Then
+      assertThat(PrecompressedFiles.findFreshGzip(target)).isEmpty();
+   }
+
+   @Test
+   void findFreshGzip_WhenSiblingMissing_ReturnsEmpty() throws IOException {
+      // Given - a story saved before precompression existed
+      final Path target = tempDir.resolve("story.json");
+      Files.writeString(target, "{}");
+
+      // When / Then
+      assertThat(PrecompressedFiles.findFreshGzip(target)).isEmpty();
+   }
+}
@@ -0,0 +1,111 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for StorageLayoutMigrationServiceImpl and the dual-layout lookups in FileStorageService
+ *
+ * @author alarinel@gmail.com
+ */
+class StorageLayoutMigrationServiceImplTest {
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService flatStorage;
+   private FileStorageService shardedStorage;
+   private SimpleMeterRegistry meterRegistry;
+   private StorageLayoutMigrationServiceImpl migrationService;
+
+   @BeforeEach
+   void setUp() {
+      flatStorage = new FileStorageService(tempDir.toString());
+      shardedStorage = new FileStorageService(tempDir.toString());
+      ReflectionTestUtils.setField(shardedStorage, "sharded", true);
+      meterRegistry = new SimpleMeterRegistry();
+      migrationService = new StorageLayoutMigrationServiceImpl(shardedStorage, Runnable::run, false, meterRegistry);
+   }
+
+   @Test
+   void shardedDirectory_UsesTwoLevelsOfHashPrefix() {
+      // When
+      final Path directory = StoryLayout.shardedDirectory(tempDir, "story-1");
+
+      // Then
+      assertThat(tempDir.relativize(directory).getNameCount()).isEqualTo(3);
+      assertThat(directory.getParent().getFileName().toString()).matches("[0-9a-f]{2}");
+      assertThat(directory.getFileName().toString()).isEqualTo("story-1");
+      assertThat(StoryLayout.shardedDirectory(tempDir, "story-1")).isEqualTo(directory);
+   }
+
+   @Test
+   void migrate_MovesFlatStoriesAndBothLayoutsStayReadable() throws Exception {
+      // Given - one legacy story and one written after sharding was enabled
+      saveStory(flatStorage, "legacy-story");
+      Files.writeString(flatStorage.getStoryDirectory("legacy-story").resolve("images/page-1.png"), "image");
+      saveStory(shardedStorage, "new-story");
+
+      // Then - before migration both are found where they are
+      assertThat(shardedStorage.getStoryDirectory("legacy-story")).isEqualTo(tempDir.resolve("legacy-story"));
+      assertThat(shardedStorage.listStoryIds()).containsExactlyInAnyOrder("legacy-story", "new-story");
+      assertThat(shardedStorage.findStoriesToMigrate()).containsExactly("legacy-story");
+
+      // When
+      final int moved = migrationService.migrate();
+
+      // Then
+      assertThat(moved).isEqualTo(1);
+      assertThat(Files.exists(tempDir.resolve("legacy-story"))).isFalse();
+      assertThat(shardedStorage.getStoryDirectory("legacy-story")).isEqualTo(StoryLayout.shardedDirectory(tempDir, "legacy-story"));
+      assertThat(Files.readString(shardedStorage.getStoryDirectory("legacy-story").resolve("images/page-1.png"))).isEqualTo("image");
+      assertThat(shardedStorage.loadStory("legacy-story").getTitle()).isEqualTo("legacy-story");
+      assertThat(shardedStorage.listStoryIds()).containsExactlyInAnyOrder("legacy-story", "new-story");
+      assertThat(shardedStorage.findStoriesToMigrate()).isEmpty();
+      assertThat(meterRegistry.counter("story.storage.layout.migrated").count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void onApplicationReady_WithoutOptIn_LeavesFlatStoriesInPlace() {
+      // Given
+      saveStory(flatStorage, "legacy-story");
+
+      // When
+      migrationService.onApplicationReady();
+
+      // Then
+      assertThat(shardedStorage.getStoryDirectory("legacy-story")).isEqualTo(tempDir.resolve("legacy-story"));
+      assertThat(shardedStorage.loadStory("legacy-story").getTitle()).isEqualTo("legacy-story");
+      assertThat(meterRegistry.counter("story.storage.layout.migrated").count()).isZero();
+   }
+
+   @Test
+   void migrate_SkipsStoriesStillGenerating() {
+      // Given - no story.json yet
+      flatStorage.createStoryDirectories("in-progress");
+
+      // When
+      final int moved = migrationService.migrate();
+
+      // Then
+      assertThat(moved).isZero();
+      assertThat(Files.isDirectory(tempDir.resolve("in-progress"))).isTrue();
+   }
+
+   private void saveStory(final FileStorageService storage, final String storyId) {
+      storage.createStoryDirectories(storyId);
+      storage.saveStoryMetadata(Story.builder().id(storyId).title(storyId).status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+   }
+}
@@ -0,0 +1,235 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.exception.StoryGenerationException;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for StorageQuotaServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StorageQuotaServiceImplTest {
+
+   private static final String OLDEST = "00000000-0000-0000-0000-000000000001";
+   private static final String MIDDLE = "00000000-0000-0000-0000-000000000002";
+   private static final String NEWEST = "00000000-0000-0000-0000-000000000003";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryOrchestrationService orchestrationService;
+   private StorySearchService storySearchService;
+   private StoryAccessTracker accessTracker;
+   private SimpleMeterRegistry meterRegistry;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      orchestrationService = mock(StoryOrchestrationService.class);
+      doAnswer(invocation -> {
+         fileStorageService.deleteStory(invocation.getArgument(0));
+         return null;
+      }).when(orchestrationService).deleteStoryWithAssets(anyString());
+      storySearchService = mock(StorySearchService.class);
+      accessTracker = new StoryAccessTracker();
+      meterRegistry = new SimpleMeterRegistry();
+   }
+
+   @Test
+   void reclaim_EvictsOldestStoriesOverStoryCount() {
+      // Given
+      saveStory(OLDEST, StoryStatus.COMPLETED, 3);
+      saveStory(MIDDLE, StoryStatus.COMPLETED, 2);
+      saveStory(NEWEST, StoryStatus.COMPLETED, 1);
+
+      // When
+      final int removed = quotaService(EvictionPolicy.OLDEST, 2, 0).reclaim();
+
+      // Then
+      assertThat(removed).isEqualTo(1);
+      assertThat(fileStorageService.listStoryIds()).containsExactlyInAnyOrder(MIDDLE, NEWEST);
+      assertThat(meterRegistry.counter("story.storage.reclaimed", "reason", "evicted").count()).isEqualTo(1.0);
+      verify(storySearchService).removeStories(List.of(OLDEST));
+   }
+
+   @Test
+   void reclaim_FailedFirstEvictsFailedStoryBeforeOlderCompletedOne() {
+      // Given
+      saveStory(OLDEST, StoryStatus.COMPLETED, 3);
+      saveStory(MIDDLE, StoryStatus.COMPLETED, 2);
+      saveStory(NEWEST, StoryStatus.FAILED, 1);
+
+      // When
+      quotaService(EvictionPolicy.FAILED_FIRST, 2, 0).reclaim();
+
+      // Then
+      assertThat(fileStorageService.listStoryIds()).containsExactlyInAnyOrder(OLDEST, MIDDLE);
+   }
+
+   @Test
+   void reclaim_LeastRecentlyReadKeepsOldStoryThatWasRead() {
+      // Given
+      saveStory(OLDEST, StoryStatus.COMPLETED, 3);
+      saveStory(MIDDLE, StoryStatus.COMPLETED, 2);
+      saveStory(NEWEST, StoryStatus.COMPLETED, 1);
+      accessTracker.recordRead(OLDEST);
+
+      // When
+      quotaService(EvictionPolicy.LEAST_RECENTLY_READ, 2, 0).reclaim();
+
+      // Then
+      assertThat(fileStorageService.listStoryIds()).containsExactlyInAnyOrder(OLDEST, NEWEST);
+   }
+
+   @Test
+   void reclaim_EvictsUntilUnderByteQuota() throws Exception {
+      // Given - three stories of about 1KB each
+      for (final String storyId : new String[]{OLDEST, MIDDLE, NEWEST}) {
+         saveStory(storyId, StoryStatus.COMPLETED, storyId.equals(OLDEST) ? 3 : storyId.equals(MIDDLE) ? 2 : 1);
+         Files.write(fileStorageService.getImagesDirectory(storyId).resolve("page-1.png"), new byte[1024]);
+      }
+      final StorageQuotaServiceImpl quotaService = quotaService(EvictionPolicy.OLDEST, 0, 2500);
+
+      // When
+      final int removed = quotaService.reclaim();
+
+      // Then
+      assertThat(removed).isEqualTo(2);
+      assertThat(fileStorageService.listStoryIds()).containsExactly(NEWEST);
+      assertThat(quotaService.getTotalBytes()).isLessThanOrEqualTo(2500);
+      assertThat(quotaService.getStoryCount()).isEqualTo(1);
+   }
+
+   @Test
+   void reclaim_ReclaimsStaleOrphansAndTempFilesButNotRecentOnes() throws Exception {
+      // Given - a failed generation left images without a story.json, another generation is still writing
+      fileStorageService.createStoryDirectories(OLDEST);
+      Files.write(fileStorageService.getImagesDirectory(OLDEST).resolve("page-1.png"), new byte[16]);
+      age(fileStorageService.getStoryDirectory(OLDEST));
+      fileStorageService.createStoryDirectories(MIDDLE);
+      Files.write(fileStorageService.getImagesDirectory(MIDDLE).resolve("page-1.png"), new byte[16]);
+      saveStory(NEWEST, StoryStatus.COMPLETED, 1);
+      final Path staleTemp = fileStorageService.getImagesDirectory(NEWEST).resolve("page-2.png123.tmp");
+      Files.write(staleTemp, new byte[16]);
+      age(staleTemp);
+      Files.createDirectories(tempDir.resolve("api-tracking"));
+      age(tempDir.resolve("api-tracking"));
+
+      // When
+      final int removed = quotaService(EvictionPolicy.OLDEST, 0, 0).reclaim();
+
+      // Then
+      assertThat(removed).isEqualTo(1);
+      assertThat(Files.exists(fileStorageService.getStoryDirectory(OLDEST))).isFalse();
+      assertThat(Files.exists(fileStorageService.getStoryDirectory(MIDDLE))).isTrue();
+      assertThat(Files.exists(staleTemp)).isFalse();
+      assertThat(Files.exists(tempDir.resolve("api-tracking"))).isTrue();
+      assertThat(meterRegistry.counter("story.storage.reclaimed", "reason", "orphan").count()).isEqualTo(1.0);
+      assertThat(meterRegistry.counter("story.storage.reclaimed", "reason", "partial").count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void reclaim_MeasuresWithoutFillingStoryCache() throws Exception {
+      // Given
+      saveStory(OLDEST, StoryStatus.COMPLETED, 1);
+      quotaService(EvictionPolicy.OLDEST, 0, 0).reclaim();
+
+      // When - story.json changes behind the service's back
+      final Path metadata = fileStorageService.getStoryDirectory(OLDEST).resolve("story.json");
+      Files.writeString(metadata, Files.readString(metadata).replace("\"title\":\"" + OLDEST + "\"", "\"title\":\"Renamed\""));
+
+      // Then - the first real read goes to disk, so the quota pass cached nothing
+      assertThat(fileStorageService.loadStory(OLDEST).getTitle()).isEqualTo("Renamed");
+   }
+
+   @Test
+   void reclaim_DoesNotCountOrRestoreArchivedStories() throws Exception {
+      // Given
+      saveStory(OLDEST, StoryStatus.COMPLETED, 2);
+      saveStory(NEWEST, StoryStatus.COMPLETED, 1);
+      fileStorageService.archiveStory(OLDEST);
+      final StorageQuotaServiceImpl quotaService = quotaService(EvictionPolicy.OLDEST, 1, 0);
+
+      // When
+      final int removed = quotaService.reclaim();
+
+      // Then - only the hot story is counted, so nothing is over the limit
+      assertThat(removed).isZero();
+      assertThat(quotaService.getStoryCount()).isEqualTo(1);
+      assertThat(fileStorageService.isArchived(OLDEST)).isTrue();
+      assertThat(Files.exists(fileStorageService.getStoryDirectory(OLDEST))).isFalse();
+   }
+
+   @Test
+   void saveImage_RejectsAssetOverMaxFileSize() {
+      // Given
+      ReflectionTestUtils.setField(fileStorageService, "maxFileSize", DataSize.ofBytes(8));
+      fileStorageService.createStoryDirectories(OLDEST);
+
+      // When / Then
+      assertThatThrownBy(() -> fileStorageService.saveImage(OLDEST, 1, new byte[16])).isInstanceOf(StoryGenerationException.class);
+      assertThat(Files.exists(fileStorageService.getImagesDirectory(OLDEST).resolve("page-1.png"))).isFalse();
+   }
+
+   private StorageQuotaServiceImpl quotaService(final EvictionPolicy policy, final int maxStories, final long maxBytes) {
+      return new StorageQuotaServiceImpl(fileStorageService,
+            orchestrationService,
+            storySearchService,
+            accessTracker,
+            Runnable::run,
+            meterRegistry,
+            true,
+            maxStories,
+            DataSize.ofBytes(maxBytes),
+            policy,
+            Duration.ofHours(2),
+            100,
+            10);
+   }
+
+   private void saveStory(final String storyId, final StoryStatus status, final int daysAgo) {
+      fileStorageService.createStoryDirectories(storyId);
+      fileStorageService.saveStoryMetadata(Story.builder()
+                                                .id(storyId)
+                                                .title(storyId)
+                                                .status(status)
+                                                .createdAt(LocalDateTime.now().minusDays(daysAgo))
+                                                .build());
+   }
+
+   private void age(final Path path) throws Exception {
+      final FileTime threeHoursAgo = FileTime.from(Instant.now().minus(Duration.ofHours(3)));
+      try (final Stream<Path> paths = Files.walk(path)) {
+         for (final Path entry : paths.toList()) {
+            Files.setLastModifiedTime(entry, threeHoursAgo);
+         }
+      }
+   }
+}
@@ -0,0 +1,153 @@
+package com.frankenstein.story.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryIndexEntry;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryIndexService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for StorageReconciliationServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StorageReconciliationServiceImplTest {
+
+   private static final String INDEXED = "00000000-0000-0000-0000-000000000001";
+   private static final String RESTORED = "00000000-0000-0000-0000-000000000002";
+   private static final String MISSING = "00000000-0000-0000-0000-000000000003";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryIndexService storyIndexService;
+   private StorySearchService storySearchService;
+   private HotAssetCacheService hotAssetCache;
+   private SimpleMeterRegistry meterRegistry;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      final ObjectMapper objectMapper = new ObjectMapper();
+      objectMapper.registerModule(new JavaTimeModule());
+      storyIndexService = new StoryIndexService(objectMapper, fileStorageService);
+      ReflectionTestUtils.setField(storyIndexService, "storageRoot", tempDir.toString());
+      storyIndexService.initializeIndex();
+      storySearchService = mock(StorySearchService.class);
+      hotAssetCache = mock(HotAssetCacheService.class);
+      meterRegistry = new SimpleMeterRegistry();
+   }
+
+   @Test
+   void reconcile_FirstScanAddsUnindexedStoriesAndDropsEntriesWithoutDirectories() {
+      // Given - one story indexed by the API, one restored from backup, one index entry whose directory was removed by hand
+      saveStory(INDEXED, "Indexed");
+      storyIndexService.addStoryToIndex(INDEXED, "Indexed", LocalDateTime.now(), "/api/stories/" + INDEXED + "/assets/images/cover-thumb.jpg?v=1");
+      saveStory(RESTORED, "Restored");
+      storyIndexService.addStoryToIndex(MISSING, "Missing", LocalDateTime.now());
+
+      // When
+      final int changed = reconciliationService(Duration.ZERO).reconcile();
+
+      // Then
+      assertThat(changed).isEqualTo(2);
+      assertThat(storyIndexService.getAllStories()).extracting(StoryIndexEntry::getId).containsExactlyInAnyOrder(INDEXED, RESTORED);
+      assertThat(storyIndexService.getStory(INDEXED).orElseThrow().getThumbnailUrl()).endsWith("?v=1");
+      assertThat(meterRegistry.counter("story.storage.reconciled", "change", "added").count()).isEqualTo(1.0);
+      assertThat(meterRegistry.counter("story.storage.reconciled", "change", "removed").count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void reconcile_LaterScanOnlyRereadsStoriesWhoseDirectoryChanged() throws Exception {
+      // Given
+      saveStory(INDEXED, "Before");
+      final Path metadata = fileStorageService.getStoryDirectory(INDEXED).resolve("story.json");
+      final FileTime aMinuteAgo = FileTime.from(Instant.now().minusSeconds(60));
+      Files.setLastModifiedTime(metadata, aMinuteAgo);
+      Files.setLastModifiedTime(metadata.getParent(), aMinuteAgo);
+      final StorageReconciliationServiceImpl reconciliationService = reconciliationService(Duration.ZERO);
+      reconciliationService.reconcile();
+      assertThat(fileStorageService.loadStory(INDEXED).getTitle()).isEqualTo("Before");
+      clearInvocations(hotAssetCache);
+
+      // When - story.json is replaced outside the API
+      Files.writeString(metadata, Files.readString(metadata).replace("Before", "After"));
+      final int changed = reconciliationService.reconcile();
+
+      // Then
+      assertThat(changed).isEqualTo(1);
+      assertThat(storyIndexService.getStory(INDEXED).orElseThrow().getTitle()).isEqualTo("After");
+      assertThat(fileStorageService.loadStory(INDEXED).getTitle()).isEqualTo("After");
+      verify(hotAssetCache).evictStory(INDEXED);
+      verify(storySearchService).indexStory(argThat(story -> story.getTitle().equals("After")));
+      assertThat(reconciliationService.reconcile()).isZero();
+   }
+
+   @Test
+   void reconcile_LeavesStoryThatIsStillSettlingForALaterScan() {
+      // Given
+      saveStory(RESTORED, "Restored");
+
+      // When
+      final int changed = reconciliationService(Duration.ofMinutes(1)).reconcile();
+
+      // Then
+      assertThat(changed).isZero();
+      assertThat(storyIndexService.storyExists(RESTORED)).isFalse();
+   }
+
+   @Test
+   void reconcileStories_RemovesDeletedStoryFromIndex() throws Exception {
+      // Given
+      saveStory(INDEXED, "Indexed");
+      final StorageReconciliationServiceImpl reconciliationService = reconciliationService(Duration.ZERO);
+      reconciliationService.reconcile();
+      FileUtils.deleteDirectory(fileStorageService.getStoryDirectory(INDEXED).toFile());
+
+      // When
+      final int changed = reconciliationService.reconcileStories(List.of(INDEXED));
+
+      // Then
+      assertThat(changed).isEqualTo(1);
+      assertThat(storyIndexService.storyExists(INDEXED)).isFalse();
+      verify(storySearchService).removeStories(List.of(INDEXED));
+   }
+
+   private StorageReconciliationServiceImpl reconciliationService(final Duration settle) {
+      return new StorageReconciliationServiceImpl(fileStorageService, storyIndexService, storySearchService, hotAssetCache, Runnable::run, meterRegistry, true, settle);
+   }
+
+   private void saveStory(final String storyId, final String title) {
+      fileStorageService.createStoryDirectories(storyId);
+      fileStorageService.saveStoryMetadata(Story.builder()
+                                                .id(storyId)
+                                                .title(title)
+                                                .status(StoryStatus.COMPLETED)
+                                                .createdAt(LocalDateTime.now())
+                                                .build());
+   }
+}
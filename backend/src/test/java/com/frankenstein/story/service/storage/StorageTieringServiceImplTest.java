@@ -0,0 +1,108 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.StoryOrchestrationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for StorageTieringServiceImpl and transparent restores from the archive tier
+ *
+ * @author alarinel@gmail.com
+ */
+class StorageTieringServiceImplTest {
+
+   private static final String COLD = "00000000-0000-0000-0000-000000000001";
+   private static final String GENERATING = "00000000-0000-0000-0000-000000000002";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private StoryOrchestrationService orchestrationService;
+   private SimpleMeterRegistry meterRegistry;
+   private StorageTieringServiceImpl tieringService;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.resolve("hot").toString(), null, tempDir.resolve("archive").toString());
+      orchestrationService = mock(StoryOrchestrationService.class);
+      meterRegistry = new SimpleMeterRegistry();
+      tieringService = new StorageTieringServiceImpl(fileStorageService,
+            orchestrationService,
+            new StoryAccessTracker(),
+            Runnable::run,
+            meterRegistry,
+            true,
+            Duration.ZERO,
+            10);
+   }
+
+   @Test
+   void demoteColdStories_ArchivesStoryAndFirstReadRestoresIt() throws Exception {
+      // Given
+      saveStory(COLD);
+      fileStorageService.saveImage(COLD, 1, "page one".getBytes());
+      age(COLD);
+
+      // When
+      final int demoted = tieringService.demoteColdStories();
+
+      // Then - archived, still listed, and restored by the first read
+      assertThat(demoted).isEqualTo(1);
+      assertThat(fileStorageService.isArchived(COLD)).isTrue();
+      assertThat(Files.exists(fileStorageService.getStoryDirectory(COLD))).isFalse();
+      assertThat(fileStorageService.listStoryIds()).containsExactly(COLD);
+      assertThat(meterRegistry.get("story.storage.tier.stories").tag("tier", "archive").gauge().value()).isEqualTo(1.0);
+      assertThat(meterRegistry.get("story.storage.tier.bytes").tag("tier", "archive").gauge().value()).isPositive();
+      assertThat(meterRegistry.get("story.storage.tier.bytes").tag("tier", "hot").gauge().value()).isZero();
+
+      assertThat(fileStorageService.loadAsset(COLD, "images/page-1.png")).isEqualTo("page one".getBytes());
+      assertThat(fileStorageService.loadStory(COLD).getTitle()).isEqualTo(COLD);
+      assertThat(fileStorageService.isArchived(COLD)).isFalse();
+      assertThat(meterRegistry.get("story.storage.tier.promotion").functionTimer().count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void demoteColdStories_LeavesGeneratingStoriesHot() throws Exception {
+      // Given
+      saveStory(GENERATING);
+      age(GENERATING);
+      when(orchestrationService.isGenerating(GENERATING)).thenReturn(true);
+
+      // When
+      final int demoted = tieringService.demoteColdStories();
+
+      // Then
+      assertThat(demoted).isZero();
+      assertThat(fileStorageService.isArchived(GENERATING)).isFalse();
+      assertThat(meterRegistry.get("story.storage.tier.stories").tag("tier", "hot").gauge().value()).isEqualTo(1.0);
+      assertThat(meterRegistry.get("story.storage.tier.bytes").tag("tier", "hot").gauge().value())
+            .isEqualTo((double) Files.size(fileStorageService.getStoryDirectory(GENERATING).resolve("story.json"))
+                  + Files.size(fileStorageService.getStoryDirectory(GENERATING).resolve("story.json.gz")));
+   }
+
+   private void saveStory(final String storyId) {
+      fileStorageService.createStoryDirectories(storyId);
+      fileStorageService.saveStoryMetadata(Story.builder().id(storyId).title(storyId).status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+   }
+
+   private void age(final String storyId) throws Exception {
+      Files.setLastModifiedTime(fileStorageService.getStoryDirectory(storyId), FileTime.from(Instant.now().minusSeconds(60)));
+   }
+}
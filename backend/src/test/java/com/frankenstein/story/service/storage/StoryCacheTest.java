@@ -0,0 +1,94 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.exception.StoryNotFoundException;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for StoryCache and its use by FileStorageService
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryCacheTest {
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void get_LoadsOnceAndEvictsLeastRecentlyUsed() {
+      // Given
+      final StoryCache cache = new StoryCache(2);
+      final AtomicInteger loads = new AtomicInteger();
+
+      // When
+      cache.get("story-1", () -> story("story-1", loads));
+      cache.get("story-2", () -> story("story-2", loads));
+      cache.get("story-1", () -> story("story-1", loads));
+      cache.get("story-3", () -> story("story-3", loads));
+      cache.get("story-1", () -> story("story-1", loads));
+      cache.get("story-2", () -> story("story-2", loads));
+
+      // Then - story-2 was evicted by story-3 and loaded again
+      assertThat(loads.get()).isEqualTo(4);
+      assertThat(cache.size()).isEqualTo(2);
+   }
+
+   @Test
+   void get_DoesNotCacheLoadThatRacedWithInvalidation() {
+      // Given
+      final StoryCache cache = new StoryCache(10);
+      final AtomicInteger loads = new AtomicInteger();
+
+      // When - the story is rewritten while it is being parsed
+      cache.get("story-1", () -> {
+         cache.invalidate("story-1");
+         return story("story-1", loads);
+      });
+      cache.get("story-1", () -> story("story-1", loads));
+
+      // Then
+      assertThat(loads.get()).isEqualTo(2);
+   }
+
+   @Test
+   void fileStorageService_ServesCachedStoryUntilSavedOrDeleted() throws Exception {
+      // Given
+      final FileStorageService storage = new FileStorageService(tempDir.toString());
+      storage.createStoryDirectories("story-1");
+      final Story story = Story.builder().id("story-1").title("Draft").status(StoryStatus.GENERATING_STORY).createdAt(LocalDateTime.now()).build();
+      storage.saveStoryMetadata(story);
+      final Story first = storage.loadStory("story-1");
+
+      // When - read again, then rewritten through the service
+      assertThat(storage.loadStory("story-1")).isSameAs(first);
+      story.setTitle("Final");
+      story.setStatus(StoryStatus.COMPLETED);
+      storage.saveStoryMetadata(story);
+
+      // Then
+      final Story reloaded = storage.loadStory("story-1");
+      assertThat(reloaded).isNotSameAs(first);
+      assertThat(reloaded.getStatus()).isEqualTo(StoryStatus.COMPLETED);
+      assertThat(reloaded.getTitle()).isEqualTo("Final");
+
+      storage.deleteStory("story-1");
+      assertThat(Files.exists(tempDir.resolve("story-1"))).isFalse();
+      assertThatThrownBy(() -> storage.loadStory("story-1")).isInstanceOf(StoryNotFoundException.class);
+   }
+
+   private Story story(final String storyId, final AtomicInteger loads) {
+      loads.incrementAndGet();
+      return Story.builder().id(storyId).build();
+   }
+}
@@ -0,0 +1,75 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.exception.StoryNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for StoryLocator
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryLocatorTest {
+
+   @TempDir
+   Path tempDir;
+
+   private StoryLocator locator;
+
+   @BeforeEach
+   void setUp() {
+      locator = new StoryLocator(tempDir, tempDir.resolve(".archive"), null, () -> true);
+   }
+
+   @Test
+   void getStoryDirectory_WhenStoryStillInLegacyLayout_ReturnsLegacyDirectory() throws Exception {
+      // Given
+      final Path flat = StoryLayout.flatDirectory(tempDir, "story-1");
+      Files.createDirectories(flat);
+
+      // When / Then
+      assertThat(locator.getStoryDirectory("story-1")).isEqualTo(flat);
+      assertThat(locator.getStoryDirectory("story-2")).isEqualTo(StoryLayout.shardedDirectory(tempDir, "story-2"));
+   }
+
+   @Test
+   void hotDirectory_WhenStoryArchived_RestoresItToPreferredLayout() throws Exception {
+      // Given
+      writeStory("story-1");
+      locator.archive("story-1");
+
+      // When
+      final Path directory = locator.hotDirectory("story-1");
+
+      // Then
+      assertThat(directory).isEqualTo(StoryLayout.shardedDirectory(tempDir, "story-1"));
+      assertThat(directory.resolve("story.json")).exists();
+   }
+
+   @Test
+   void listStoryIds_IncludesArchivedStoriesOnceAndLeavesOutDeletedOnes() throws Exception {
+      // Given
+      writeStory("story-1");
+      writeStory("story-2");
+      writeStory("story-3");
+      locator.archive("story-2");
+      locator.bury("story-3");
+
+      // When / Then
+      assertThat(locator.listStoryIds()).containsExactlyInAnyOrder("story-1", "story-2");
+      assertThatThrownBy(() -> locator.hotDirectory("story-3")).isInstanceOf(StoryNotFoundException.class);
+   }
+
+   private void writeStory(final String storyId) throws Exception {
+      final Path directory = locator.getStoryDirectory(storyId);
+      Files.createDirectories(directory);
+      Files.writeString(directory.resolve("story.json"), "{\"id\":\"" + storyId + "\"}");
+   }
+}
@@ -0,0 +1,103 @@
+package com.frankenstein.story.service.storage;
+
+import com.frankenstein.story.exception.StoryNotFoundException;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.service.search.StorySearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for StoryReaperServiceImpl and tombstoned deletes in FileStorageService
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryReaperServiceImplTest {
+
+   private static final String STORY_ID = "00000000-0000-0000-0000-000000000001";
+
+   @TempDir
+   Path tempDir;
+
+   private FileStorageService fileStorageService;
+   private SimpleMeterRegistry meterRegistry;
+   private StorySearchService storySearchService;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = new FileStorageService(tempDir.toString());
+      meterRegistry = new SimpleMeterRegistry();
+      storySearchService = mock(StorySearchService.class);
+      fileStorageService.createStoryDirectories(STORY_ID);
+      fileStorageService.saveStoryMetadata(Story.builder().id(STORY_ID).title("Doomed").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+      fileStorageService.saveImage(STORY_ID, 1, "page".getBytes());
+   }
+
+   @Test
+   void trashStory_ReadsFailAtOnceAndFilesWaitForTheReaper() {
+      // Given
+      final Path storyDir = fileStorageService.getStoryDirectory(STORY_ID);
+      fileStorageService.loadStory(STORY_ID);
+
+      // When
+      fileStorageService.trashStory(STORY_ID);
+
+      // Then
+      assertThat(Files.exists(storyDir)).isFalse();
+      assertThatThrownBy(() -> fileStorageService.loadStory(STORY_ID)).isInstanceOf(StoryNotFoundException.class);
+      assertThat(fileStorageService.assetExists(STORY_ID, "images/page-1.png")).isFalse();
+      assertThat(fileStorageService.listStoryIds()).isEmpty();
+      assertThat(fileStorageService.getDeletedStoryIds()).containsExactly(STORY_ID);
+      assertThat(tempDir.resolve(".trash").resolve(STORY_ID)).isNotEmptyDirectory();
+   }
+
+   @Test
+   void requestPurge_PurgesOnMaintenanceThreadAndClearsTombstone() {
+      // Given
+      final List<Runnable> queue = new ArrayList<>();
+      final StoryReaperServiceImpl reaper = new StoryReaperServiceImpl(fileStorageService, storySearchService, queue::add, meterRegistry);
+      fileStorageService.trashStory(STORY_ID);
+
+      // When - two deletes in a row queue a single purge
+      reaper.requestPurge();
+      reaper.requestPurge();
+      assertThat(queue).hasSize(1);
+      queue.get(0).run();
+
+      // Then
+      assertThat(fileStorageService.getDeletedStoryIds()).isEmpty();
+      assertThat(fileStorageService.isDeleted(STORY_ID)).isFalse();
+      assertThat(tempDir.resolve(".trash").resolve(STORY_ID)).doesNotExist();
+      assertThat(meterRegistry.counter("story.storage.purged").count()).isEqualTo(1.0);
+   }
+
+   @Test
+   void purge_FinishesDeletesLeftOverFromBeforeRestart() {
+      // Given - deleted, then the app restarted before the reaper ran
+      fileStorageService.trashStory(STORY_ID);
+      final FileStorageService restarted = new FileStorageService(tempDir.toString());
+      assertThat(restarted.isDeleted(STORY_ID)).isTrue();
+
+      // When
+      final int purged = new StoryReaperServiceImpl(restarted, storySearchService, Runnable::run, meterRegistry).purge();
+
+      // Then
+      assertThat(purged).isEqualTo(1);
+      assertThat(tempDir.resolve(".trash").resolve(STORY_ID)).doesNotExist();
+      verify(storySearchService).removeStories(List.of(STORY_ID));
+   }
+}
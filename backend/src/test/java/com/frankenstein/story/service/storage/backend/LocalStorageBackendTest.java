@@ -0,0 +1,54 @@
+package com.frankenstein.story.service.storage.backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for LocalStorageBackend
+ *
+ * @author alarinel@gmail.com
+ */
+class LocalStorageBackendTest {
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void putGetRangeListAndDelete_RoundTrip() throws IOException {
+      // Given
+      final LocalStorageBackend backend = new LocalStorageBackend(tempDir);
+      backend.put("story-1/audio/narration/page-1.mp3", "0123456789".getBytes(StandardCharsets.UTF_8));
+      backend.put("story-1/story.json", "{}".getBytes(StandardCharsets.UTF_8));
+      backend.put("story-2/story.json", "{}".getBytes(StandardCharsets.UTF_8));
+
+      // When
+      final byte[] range;
+      try (final InputStream in = backend.getRange("story-1/audio/narration/page-1.mp3", 7, 10).orElseThrow()) {
+         range = in.readAllBytes();
+      }
+
+      // Then
+      assertThat(new String(range, StandardCharsets.UTF_8)).isEqualTo("789");
+      assertThat(backend.list("story-1/")).containsExactly("story-1/audio/narration/page-1.mp3", "story-1/story.json");
+      assertThat(backend.get("story-3/story.json")).isEmpty();
+      assertThat(backend.isShared()).isFalse();
+
+      backend.deletePrefix("story-1/");
+      assertThat(backend.list("")).containsExactly("story-2/story.json");
+   }
+
+   @Test
+   void put_RejectsKeysOutsideRoot() {
+      final LocalStorageBackend backend = new LocalStorageBackend(tempDir.resolve("root"));
+
+      assertThatThrownBy(() -> backend.put("../escape.txt", new byte[] {1})).isInstanceOf(IOException.class);
+   }
+}
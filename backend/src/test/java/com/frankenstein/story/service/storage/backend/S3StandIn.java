@@ -0,0 +1,186 @@
+package com.frankenstein.story.service.storage.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process stand-in for an S3-compatible store, covering the subset of the REST API that
+ * S3StorageBackend uses: object PUT/GET (with Range)/DELETE, ListObjectsV2 with paging, and multipart uploads.
+ * It checks that requests are SigV4 signed but does not verify signatures.
+ *
+ * @author alarinel@gmail.com
+ */
+final class S3StandIn implements AutoCloseable {
+
+   private static final int LIST_PAGE_SIZE = 2;
+
+   final Map<String, byte[]> objects = new TreeMap<>();
+   final List<String> requests = new CopyOnWriteArrayList<>();
+   private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+   private final AtomicInteger uploadIds = new AtomicInteger();
+   private final String bucket;
+   private final HttpServer server;
+
+   S3StandIn(final String bucket) throws IOException {
+      this.bucket = bucket;
+      this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+   }
+
+   URI endpoint() {
+      return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+   }
+
+   @Override
+   public void close() {
+      server.stop(0);
+   }
+
+   private void handle(final HttpExchange exchange) throws IOException {
+      try (exchange) {
+         final String method = exchange.getRequestMethod();
+         final Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+         requests.add(method + " " + exchange.getRequestURI());
+
+         final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+         if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=")) {
+            respond(exchange, 403, "<Error><Code>AccessDenied</Code></Error>");
+            return;
+         }
+
+         final String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8).substring(1);
+         if (!path.startsWith(bucket)) {
+            respond(exchange, 404, "<Error><Code>NoSuchBucket</Code></Error>");
+            return;
+         }
+         final String key = path.length() > bucket.length() + 1 ? path.substring(bucket.length() + 1) : "";
+         final byte[] body = exchange.getRequestBody().readAllBytes();
+
+         if (key.isEmpty() && "GET".equals(method)) {
+            list(exchange, query);
+         } else if ("POST".equals(method) && query.containsKey("uploads")) {
+            final String uploadId = "upload-" + uploadIds.incrementAndGet();
+            uploads.put(uploadId, new TreeMap<>());
+            respond(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+         } else if ("PUT".equals(method) && query.containsKey("partNumber")) {
+            uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+            exchange.getResponseHeaders().add("ETag", "\"part-" + query.get("partNumber") + "\"");
+            respond(exchange, 200, "");
+         } else if ("POST".equals(method) && query.containsKey("uploadId")) {
+            final ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+            for (final byte[] part : uploads.remove(query.get("uploadId")).values()) {
+               assembled.write(part);
+            }
+            synchronized (objects) {
+               objects.put(key, assembled.toByteArray());
+            }
+            respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+         } else if ("DELETE".equals(method) && query.containsKey("uploadId")) {
+            uploads.remove(query.get("uploadId"));
+            respond(exchange, 204, "");
+         } else if ("PUT".equals(method)) {
+            synchronized (objects) {
+               objects.put(key, body);
+            }
+            respond(exchange, 200, "");
+         } else if ("GET".equals(method)) {
+            get(exchange, key);
+         } else if ("DELETE".equals(method)) {
+            synchronized (objects) {
+               objects.remove(key);
+            }
+            respond(exchange, 204, "");
+         } else {
+            respond(exchange, 405, "");
+         }
+      }
+   }
+
+   private void get(final HttpExchange exchange, final String key) throws IOException {
+      final byte[] object;
+      synchronized (objects) {
+         object = objects.get(key);
+      }
+      if (object == null) {
+         respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+         return;
+      }
+      final String range = exchange.getRequestHeaders().getFirst("Range");
+      if (range == null) {
+         respond(exchange, 200, object);
+         return;
+      }
+      final String[] bounds = range.substring("bytes=".length()).split("-");
+      final int start = Integer.parseInt(bounds[0]);
+      final int end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+      final byte[] slice = new byte[end - start + 1];
+      System.arraycopy(object, start, slice, 0, slice.length);
+      respond(exchange, 206, slice);
+   }
+
+   private void list(final HttpExchange exchange, final Map<String, String> query) throws IOException {
+      final String prefix = query.getOrDefault("prefix", "");
+      final String after = query.get("continuation-token");
+      final List<String> keys = new ArrayList<>();
+      synchronized (objects) {
+         for (final String key : objects.keySet()) {
+            if (key.startsWith(prefix) && (after == null || key.compareTo(after) > 0)) {
+               keys.add(key);
+            }
+         }
+      }
+      final List<String> page = keys.subList(0, Math.min(LIST_PAGE_SIZE, keys.size()));
+      final StringBuilder xml = new StringBuilder("<ListBucketResult>");
+      page.forEach(key -> xml.append("<Contents><Key>").append(key).append("</Key></Contents>"));
+      final boolean truncated = keys.size() > page.size();
+      xml.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+      if (truncated) {
+         xml.append("<NextContinuationToken>").append(page.get(page.size() - 1)).append("</NextContinuationToken>");
+      }
+      respond(exchange, 200, xml.append("</ListBucketResult>").toString());
+   }
+
+   private Map<String, String> query(final String rawQuery) {
+      final Map<String, String> query = new HashMap<>();
+      if (rawQuery != null) {
+         for (final String pair : rawQuery.split("&")) {
+            final int eq = pair.indexOf('=');
+            query.put(URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8),
+                  eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+         }
+      }
+      return query;
+   }
+
+   private void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+      respond(exchange, status, body == null ? null : body.getBytes(StandardCharsets.UTF_8));
+   }
+
+   private void respond(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+      if (body == null || body.length == 0) {
+         exchange.sendResponseHeaders(status, -1);
+         return;
+      }
+      exchange.sendResponseHeaders(status, body.length);
+      try (final OutputStream out = exchange.getResponseBody()) {
+         out.write(body);
+      }
+   }
+}
@@ -0,0 +1,124 @@
+package com.frankenstein.story.service.storage.backend;
+
+import com.frankenstein.story.service.FileStorageService;
+import com.frankenstein.story.model.Story;
+import com.frankenstein.story.model.StoryStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for S3StorageBackend against an in-process S3 stand-in, including two app nodes sharing one bucket
+ *
+ * @author alarinel@gmail.com
+ */
+class S3StorageBackendTest {
+
+   @TempDir
+   Path tempDir;
+
+   private S3StandIn standIn;
+   private S3StorageBackend backend;
+
+   @BeforeEach
+   void setUp() throws Exception {
+      standIn = new S3StandIn("stories");
+      backend = new S3StorageBackend(S3StorageSettings.builder()
+                                                      .endpoint(standIn.endpoint())
+                                                      .region("us-east-1")
+                                                      .bucket("stories")
+                                                      .accessKey("test-access")
+                                                      .secretKey("test-secret")
+                                                      .multipartThreshold(16)
+                                                      .partSize(10)
+                                                      .timeout(Duration.ofSeconds(5))
+                                                      .build());
+   }
+
+   @AfterEach
+   void tearDown() {
+      standIn.close();
+   }
+
+   @Test
+   void putGetRangeAndDelete_RoundTrip() throws Exception {
+      // Given
+      backend.put("story-1/audio/narration/page 1.mp3", "0123456789".getBytes(StandardCharsets.UTF_8));
+
+      // When
+      final Optional<InputStream> whole = backend.get("story-1/audio/narration/page 1.mp3");
+      final Optional<InputStream> range = backend.getRange("story-1/audio/narration/page 1.mp3", 3, 4);
+
+      // Then
+      assertThat(new String(whole.orElseThrow().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("0123456789");
+      assertThat(new String(range.orElseThrow().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("3456");
+
+      backend.delete("story-1/audio/narration/page 1.mp3");
+      assertThat(backend.get("story-1/audio/narration/page 1.mp3")).isEmpty();
+      backend.delete("story-1/missing.png");
+   }
+
+   @Test
+   void put_AboveThreshold_UploadsInParts() throws Exception {
+      // Given - 25 bytes with a 10 byte part size
+      final byte[] content = "abcdefghijklmnopqrstuvwxy".getBytes(StandardCharsets.UTF_8);
+
+      // When
+      backend.put("story-1/images/page-1.png", new ByteArrayInputStream(content), content.length);
+
+      // Then
+      assertThat(standIn.objects.get("story-1/images/page-1.png")).isEqualTo(content);
+      assertThat(standIn.requests.stream().filter(request -> request.contains("partNumber="))).hasSize(3);
+   }
+
+   @Test
+   void listAndDeletePrefix_FollowContinuationTokens() throws Exception {
+      // Given - more keys than one listing page of the stand-in
+      for (final String key : new String[] {"story-1/story.json", "story-1/images/page-1.png", "story-1/images/page-2.png", "story-2/story.json"}) {
+         backend.put(key, key.getBytes(StandardCharsets.UTF_8));
+      }
+
+      // When
+      backend.deletePrefix("story-1/");
+
+      // Then
+      assertThat(backend.list("")).containsExactly("story-2/story.json");
+   }
+
+   @Test
+   void fileStorageService_NodesShareStoriesThroughTheBucket() throws Exception {
+      // Given - two app nodes with separate local working copies
+      final FileStorageService nodeA = new FileStorageService(tempDir.resolve("node-a").toString(), backend);
+      final FileStorageService nodeB = new FileStorageService(tempDir.resolve("node-b").toString(), backend);
+      nodeA.createStoryDirectories("story-1");
+      nodeA.saveImage("story-1", 1, "png-bytes".getBytes(StandardCharsets.UTF_8));
+      nodeA.saveStoryMetadata(Story.builder().id("story-1").title("Shared").status(StoryStatus.COMPLETED).createdAt(LocalDateTime.now()).build());
+
+      // When
+      final Story story = nodeB.loadStory("story-1");
+      final byte[] image = nodeB.loadAsset("story-1", "images/page-1.png");
+
+      // Then
+      assertThat(nodeB.listStoryIds()).contains("story-1");
+      assertThat(story.getTitle()).isEqualTo("Shared");
+      assertThat(image).isEqualTo("png-bytes".getBytes(StandardCharsets.UTF_8));
+      assertThat(nodeB.loadPrecompressedStory("story-1")).isPresent();
+      assertThat(Files.exists(tempDir.resolve("node-b/story-1/images/page-1.png"))).isTrue();
+
+      // And deleting on one node removes the shared copy
+      nodeB.deleteStory("story-1");
+      assertThat(backend.list("story-1/")).isEmpty();
+   }
+}
@@ -0,0 +1,98 @@
+package com.frankenstein.story.service.timeline;
+
+import com.frankenstein.story.exception.ResourceNotFoundException;
+import com.frankenstein.story.model.timeline.StoryTimeline;
+import com.frankenstein.story.model.timeline.TimelineCategory;
+import com.frankenstein.story.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for StoryTimelineServiceImpl
+ *
+ * @author alarinel@gmail.com
+ */
+class StoryTimelineServiceImplTest {
+
+   private FileStorageService fileStorageService;
+   private StoryTimelineServiceImpl service;
+
+   @BeforeEach
+   void setUp() {
+      fileStorageService = mock(FileStorageService.class);
+      service = new StoryTimelineServiceImpl(fileStorageService);
+   }
+
+   @Test
+   void record_AddsSpanToActiveTimeline() {
+      // Given
+      service.start("story-1");
+
+      // When
+      final String result = service.record("story-1", TimelineCategory.DISK_WRITE, "saveImage", 3, () -> "saved");
+
+      // Then
+      assertThat(result).isEqualTo("saved");
+      final StoryTimeline timeline = service.getTimeline("story-1");
+      assertThat(timeline.isCompleted()).isFalse();
+      assertThat(timeline.getSpans()).hasSize(1);
+      assertThat(timeline.getSpans().get(0).getCategory()).isEqualTo(TimelineCategory.DISK_WRITE);
+      assertThat(timeline.getSpans().get(0).getPageNumber()).isEqualTo(3);
+      assertThat(timeline.getSpans().get(0).getStatus()).isEqualTo("SUCCESS");
+   }
+
+   @Test
+   void startSpan_Failed_RecordsFailureDetail() {
+      // Given
+      service.start("story-1");
+
+      // When
+      service.startSpan("story-1", TimelineCategory.PROVIDER_CALL, "IMAGE_GENERATION", 1).fail("timeout");
+
+      // Then
+      assertThat(service.getTimeline("story-1").getSpans().get(0).getStatus()).isEqualTo("FAILED");
+      assertThat(service.getTimeline("story-1").getSpans().get(0).getDetail()).isEqualTo("timeout");
+   }
+
+   @Test
+   void record_WithoutActiveTimeline_IsIgnored() {
+      // When
+      service.record(null, TimelineCategory.PROVIDER_CALL, "IMAGE_GENERATION", 1, () -> "ok");
+      service.recordSpan("unknown", TimelineCategory.QUEUE_WAIT, "executor", null, 0, 10);
+
+      // Then
+      when(fileStorageService.loadStoryTimeline("unknown")).thenReturn(Optional.empty());
+      assertThatThrownBy(() -> service.getTimeline("unknown")).isInstanceOf(ResourceNotFoundException.class);
+   }
+
+   @Test
+   void complete_PersistsSortedTimelineAndReleasesIt() {
+      // Given
+      service.start("story-1");
+      final long now = System.currentTimeMillis();
+      service.recordSpan("story-1", TimelineCategory.QUEUE_WAIT, "late", null, now + 50, now + 60);
+      service.recordSpan("story-1", TimelineCategory.QUEUE_WAIT, "early", null, now, now + 10);
+
+      // When
+      service.complete("story-1");
+
+      // Then
+      final ArgumentCaptor<StoryTimeline> captor = ArgumentCaptor.forClass(StoryTimeline.class);
+      verify(fileStorageService).saveStoryTimeline(eq("story-1"), captor.capture());
+      assertThat(captor.getValue().isCompleted()).isTrue();
+      assertThat(captor.getValue().getSpans()).extracting("name").containsExactly("early", "late");
+
+      when(fileStorageService.loadStoryTimeline("story-1")).thenReturn(Optional.of(captor.getValue()));
+      assertThat(service.getTimeline("story-1")).isSameAs(captor.getValue());
+      verify(fileStorageService, times(1)).saveStoryTimeline(any(), any());
+   }
+}
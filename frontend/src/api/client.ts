@@ -1,10 +1,18 @@
 import axios from 'axios';
 import {
+  BulkDeleteResponse,
   Story,
+  StoryAssetManifest,
+  StoryBrowsePage,
+  StoryBrowseParams,
   StoryInput,
   GenerateStoryResponse,
   StoryStatusResponse,
   StoryIndexEntry,
+  StoryListPage,
+  StoryListParams,
+  StorySearchResult,
+  StorySummary,
 } from '@/types';
 
 const API_BASE_URL = import.meta.env.VITE_API_BASE_URL || '/api';
@@ -27,13 +35,27 @@ export const storyApi = {
     return response.data;
   },
 
+  getAssetManifest: async (storyId: string): Promise<StoryAssetManifest> => {
+    const response = await client.get<StoryAssetManifest>(`/stories/${storyId}/manifest`);
+    return response.data;
+  },
+
   getStoryStatus: async (storyId: string): Promise<StoryStatusResponse> => {
     const response = await client.get<StoryStatusResponse>(`/stories/${storyId}/status`);
     return response.data;
   },
 
-  getAllStories: async (): Promise<Story[]> => {
-    const response = await client.get<Story[]>('/stories');
+  getAllStories: async (params: StoryListParams = {}): Promise<StoryListPage<StorySummary>> => {
+    const response = await client.get<StoryListPage<StorySummary>>('/stories', {
+      params: { ...params, view: 'summary' },
+    });
+    return response.data;
+  },
+
+  getAllStoriesFull: async (params: StoryListParams = {}): Promise<StoryListPage<Story>> => {
+    const response = await client.get<StoryListPage<Story>>('/stories', {
+      params: { ...params, view: 'full' },
+    });
     return response.data;
   },
 
@@ -47,6 +69,25 @@ export const storyApi = {
     }
   },
 
+  searchStories: async (query: string, limit = 20): Promise<StorySearchResult> => {
+    const response = await client.get<StorySearchResult>('/stories/search', {
+      params: { q: query, limit },
+    });
+    return response.data;
+  },
+
+  browseStories: async ({ filters = {}, ...params }: StoryBrowseParams = {}): Promise<StoryBrowsePage> => {
+    const facetParams = Object.fromEntries(
+      Object.entries(filters)
+        .filter(([, values]) => values && values.length > 0)
+        .map(([facet, values]) => [facet, values!.join(',')])
+    );
+    const response = await client.get<StoryBrowsePage>('/stories/browse', {
+      params: { ...params, ...facetParams },
+    });
+    return response.data;
+  },
+
   deleteStory: async (storyId: string): Promise<void> => {
     try {
       await client.delete(`/stories/${storyId}`);
@@ -56,6 +97,16 @@ export const storyApi = {
     }
   },
 
+  deleteStories: async (storyIds: string[]): Promise<BulkDeleteResponse> => {
+    try {
+      const response = await client.post<BulkDeleteResponse>('/stories/bulk-delete', { storyIds });
+      return response.data;
+    } catch (error) {
+      console.error(`Failed to delete ${storyIds.length} stories:`, error);
+      throw error;
+    }
+  },
+
   getAssetUrl: (url: string): string => {
     // If URL already starts with /api, don't prepend base URL
     if (url.startsWith('/api')) {
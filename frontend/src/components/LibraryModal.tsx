@@ -411,6 +411,17 @@ export const LibraryModal = ({ isOpen, onClose }: LibraryModalProps) => {
                           </div>
                         ) : (
                           <div className="flex items-center justify-between gap-4">
+                            {story.thumbnailUrl && (
+                              <img
+                                src={storyApi.getAssetUrl(story.thumbnailUrl)}
+                                alt=""
+                                aria-hidden="true"
+                                loading="lazy"
+                                width={96}
+                                height={54}
+                                className="w-24 h-[54px] rounded-md object-cover flex-shrink-0 border border-spooky-purple-600/30"
+                              />
+                            )}
                             <div className="flex-1 min-w-0">
                               <h3 
                                 className="text-lg font-semibold text-white truncate"
@@ -77,6 +77,95 @@ export interface StoryIndexEntry {
   id: string;
   title: string;
   createdAt: string;
+  thumbnailUrl?: string;
+  status?: StoryStatus;
+  theme?: string;
+  mood?: string;
+  voiceType?: string;
+  timePeriod?: string;
+  pageCount?: number;
+  duration?: number;
+}
+
+// Paginated library listing (GET /stories)
+export type StorySort = 'newest' | 'oldest' | 'title' | 'longest' | 'shortest';
+export type StoryView = 'summary' | 'full';
+
+export interface StorySummary {
+  id: string;
+  title?: string;
+  status: StoryStatus;
+  characterName?: string;
+  theme?: string;
+  pageCount: number;
+  createdAt: string;
+  completedAt?: string;
+  thumbnailUrl?: string;
+}
+
+export interface StoryListPage<T> {
+  items: T[];
+  nextCursor: string | null;
+  sort: StorySort;
+  view: StoryView;
+}
+
+export interface BulkDeleteResponse {
+  deleted: string[];
+  notFound: string[];
+  failed: Record<string, string>;
+}
+
+export interface StoryAsset {
+  url: string;
+  path: string;
+  size: number;
+  sha256: string;
+  mimeType: string;
+  pageNumber: number | null;
+}
+
+export interface StoryAssetManifest {
+  storyId: string;
+  version: string;
+  status: StoryStatus;
+  totalBytes: number;
+  assets: StoryAsset[];
+}
+
+export interface StorySearchHit {
+  id: string;
+  title: string;
+  createdAt: string;
+  thumbnailUrl?: string;
+  score: number;
+}
+
+export interface StorySearchResult {
+  query: string;
+  total: number;
+  hits: StorySearchHit[];
+}
+
+export interface StoryListParams {
+  limit?: number;
+  cursor?: string;
+  sort?: StorySort;
+}
+
+// Faceted library browsing (GET /stories/browse); values are comma-separated and case-insensitive
+export type StoryFacet = 'status' | 'theme' | 'mood' | 'voiceType' | 'timePeriod' | 'pageCount';
+
+export interface StoryBrowseParams extends StoryListParams {
+  filters?: Partial<Record<StoryFacet, string[]>>;
+}
+
+export interface StoryBrowsePage {
+  items: StoryIndexEntry[];
+  nextCursor: string | null;
+  sort: StorySort;
+  total: number;
+  facets: Record<StoryFacet, Record<string, number>>;
 }
 
 // Story outline types (two-phase generation)